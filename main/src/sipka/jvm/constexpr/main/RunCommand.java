@@ -1,11 +1,14 @@
 package sipka.jvm.constexpr.main;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
@@ -14,33 +17,41 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
-import java.util.jar.JarInputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.ZipFile;
 
 import sipka.cmdline.api.Flag;
 import sipka.cmdline.api.MultiParameter;
 import sipka.cmdline.api.Parameter;
 import sipka.jvm.constexpr.annotations.ConstantExpression;
 import sipka.jvm.constexpr.annotations.Deconstructor;
-import sipka.jvm.constexpr.tool.AsmStackInfo;
 import sipka.jvm.constexpr.tool.ConstantExpressionInliner;
+import sipka.jvm.constexpr.tool.InlinerStatistics;
 import sipka.jvm.constexpr.tool.OutputConsumer;
 import sipka.jvm.constexpr.tool.Utils;
 import sipka.jvm.constexpr.tool.log.ForwardingToolLogger;
 import sipka.jvm.constexpr.tool.log.InstructionReplacementLogEntry;
+import sipka.jvm.constexpr.tool.log.JsonLinesToolLogger;
 import sipka.jvm.constexpr.tool.log.LogEntry;
 import sipka.jvm.constexpr.tool.log.ToolLogger;
 import sipka.jvm.constexpr.tool.options.InlinerOptions;
@@ -133,12 +144,19 @@ public class RunCommand {
 	 */
 	private Map<Path, byte[]> outputPathBytes = new TreeMap<>();
 	/**
-	 * Maps output zip entry names to their bytes.
+	 * Maps class file paths in the output directory to the inputs that are copied there if the class is not modified.
+	 */
+	private Map<Path, InputEntrySource> outputPathSources = new TreeMap<>();
+	/**
+	 * Maps output zip entry names to their contents.
 	 * <p>
 	 * If the output is a single zip file.
+	 * <p>
+	 * The bytes of the entries are only kept in memory for the modified classes, the other entries are copied from the
+	 * inputs when the output is written.
 	 */
 	//use LinkedHashMap to keep the order as it was read on the classpath
-	private Map<String, ZipEntryBytes> outputZipEntryBytes = new LinkedHashMap<>();
+	private Map<String, OutputZipEntry> outputZipEntries = new LinkedHashMap<>();
 
 	/**
 	 * <pre>
@@ -173,14 +191,149 @@ public class RunCommand {
 
 	/**
 	 * <pre>
-	 * Flag to enable verbose logging for commonly performed optimizations.
+	 * Flag to enable verbose logging for the performed optimizations.
+	 * 
+	 * If not set, the instruction replacements are not logged, and the
+	 * inliner doesn't spend time on creating the log entries for them.
 	 * </pre>
 	 */
 	@Parameter("-verbose-optimization-log")
 	@Flag
 	public boolean verboseOptimizationLog = false;
 
+	/**
+	 * <pre>
+	 * Sets the file where the log is written instead of the console.
+	 * 
+	 * The log is written in the JSON Lines format, each line is a JSON
+	 * object that describes a log entry. The entries contain their kind,
+	 * a stable id, the bytecode location and the related values.
+	 * 
+	 * The file is overwritten if it already exists.
+	 * </pre>
+	 * 
+	 * @cmd-format &lt;path&gt;
+	 */
+	@Parameter("-log-file")
+	public String logFile;
+
+	/**
+	 * <pre>
+	 * Flag to print the metrics of the run to the console after it finishes.
+	 * 
+	 * The metrics are printed as a JSON object that contains the time
+	 * spent in the phases of the run in milliseconds, and the number of
+	 * visited classes, methods, instructions, the attempted and succeeded
+	 * reconstructions and the performed reflective invocations.
+	 * </pre>
+	 */
+	@Parameter("-stats")
+	@Flag
+	public boolean stats = false;
+
+	/**
+	 * <pre>
+	 * Sets the file where the metrics of the run are written.
+	 * 
+	 * The metrics are written in the same format as with -stats.
+	 * The file is overwritten if it already exists.
+	 * </pre>
+	 * 
+	 * @cmd-format &lt;path&gt;
+	 */
+	@Parameter("-stats-file")
+	public String statsFile;
+
+	/**
+	 * <pre>
+	 * Sets the number of threads that can be used to process the inputs.
+	 * 
+	 * If greater than 1, the classes are scanned, parsed and optimized
+	 * concurrently. The optimized classes may be initialized from
+	 * multiple threads, which may deadlock if their static initializers
+	 * depend on each other.
+	 * 
+	 * Defaults to 1.
+	 * </pre>
+	 * 
+	 * @cmd-format &lt;int&gt;
+	 */
+	@Parameter("-parallelism")
+	public int parallelism = 1;
+
+	/**
+	 * <pre>
+	 * Sets the directory where the optimization results are cached.
+	 * 
+	 * Subsequent invocations with the same cache directory reuse the results
+	 * for the input classes that (and their referenced input classes) haven't
+	 * changed. The cache is invalidated if the -classpath, -config or other
+	 * configuration changes.
+	 * 
+	 * No optimization log is displayed for the classes that are served
+	 * from the cache.
+	 * </pre>
+	 * 
+	 * @cmd-format &lt;path&gt;
+	 */
+	@Parameter({ "-cache-dir", "-cache-directory" })
+	public String cacheDirectory;
+
+	/**
+	 * <pre>
+	 * Sets the time limit of a single evaluation in milliseconds.
+	 * 
+	 * If a method, constructor, or field that is evaluated during the
+	 * optimization doesn't finish in time, it is abandoned, and the
+	 * corresponding expression is not optimized.
+	 * 
+	 * Defaults to 0, meaning that there's no time limit.
+	 * </pre>
+	 * 
+	 * @cmd-format &lt;millis&gt;
+	 */
+	@Parameter("-evaluation-timeout")
+	public long evaluationTimeout = 0;
+
+	/**
+	 * <pre>
+	 * Sets the time budget of the optimization in milliseconds.
+	 * 
+	 * If the optimization takes longer, it is stopped, and the
+	 * classes are written with the optimizations performed until then.
+	 * The classes that weren't fully optimized are reported.
+	 * 
+	 * Defaults to 0, meaning that there's no time budget.
+	 * </pre>
+	 * 
+	 * @cmd-format &lt;millis&gt;
+	 */
+	@Parameter("-time-budget")
+	public long timeBudget = 0;
+
+	private Set<String> priorityClasses = new TreeSet<>();
+
+	/**
+	 * <pre>
+	 * Sets the internal names of the classes that should be optimized
+	 * first when a -time-budget is set.
+	 * </pre>
+	 * 
+	 * @cmd-format &lt;class-internal-name&gt;
+	 */
+	@Parameter("-priority-class")
+	public void priorityClass(String classinternalname) {
+		//allow comma/semicolon separated list
+		for (String s : classinternalname.split("[,; \t]+")) {
+			if (s.isEmpty()) {
+				continue;
+			}
+			this.priorityClasses.add(s);
+		}
+	}
+
 	public void call() throws Exception {
+		long runstart = System.nanoTime();
 		if (overwrite && output != null) {
 			throw new IllegalArgumentException(
 					"Both -overwrite and -output were specified. Only one is allowed at a time.");
@@ -220,14 +373,18 @@ public class RunCommand {
 				throw new IllegalArgumentException("Duplicate Path in classpath and input: " + inpath);
 			}
 		}
-		InlinerOptions options = createBaseOptions();
-		NonVerboseLogger nvlogger = null;
-		if (!verboseOptimizationLog) {
-			nvlogger = new NonVerboseLogger(options.getLogger());
-			options.setLogger(nvlogger);
+		if (outputZip && (inputpaths.contains(outputpath) || classpathpaths.contains(outputpath))) {
+			//the unmodified entries are copied from the inputs while the output is written
+			throw new IllegalArgumentException(
+					"Output is the same as an input: " + outputpath + " Use -overwrite instead.");
 		}
+		InlinerOptions options = createBaseOptions();
 
 		options.setConfigFiles(configfilepaths);
+		options.setParallelism(parallelism);
+		options.setEvaluationTimeLimit(evaluationTimeout);
+		options.setTimeBudget(timeBudget);
+		options.setPriorityClasses(priorityClasses);
 
 		//strip the constant annotations by default
 		Set<String> stripannots;
@@ -238,17 +395,40 @@ public class RunCommand {
 		}
 		options.setStripAnnotations(stripannots);
 
+		InlinerStatistics[] inlinerstats = { null };
+		if (stats || statsFile != null) {
+			options.setStatisticsListener(s -> inlinerstats[0] = s);
+		}
+
+		long phasestart = System.nanoTime();
 		//scan the complete classpath for annotations
+		//the class files are read and parsed concurrently, and the results are processed in the order of the entries
 		Map<String, ClassBytes> classestoanalyze = new LinkedHashMap<>();
-		for (Path path : classpathpaths) {
-			scanClasspath(options, path, classestoanalyze, false);
-		}
-		for (Path path : inputpaths) {
-			scanClasspath(options, path, classestoanalyze, true);
+		try (ClasspathScanner scanner = new ClasspathScanner(parallelism)) {
+			List<ScannedEntry> classpathentries = scanner.scan(classpathpaths);
+			List<ScannedEntry> inputentries = scanner.scan(inputpaths);
+
+			processScannedEntries(options, classpathentries, classestoanalyze, false);
+			if (cacheDirectory != null) {
+				options.setCacheDirectory(Paths.get(cacheDirectory).toAbsolutePath().normalize());
+				//only the classpath classes are processed at this point
+				options.setCacheKey(computeCacheKey(classestoanalyze));
+			}
+			processScannedEntries(options, inputentries, classestoanalyze, true);
 		}
-
-		try (InputLoadingURLClassLoader cl = new InputLoadingURLClassLoader(classloaderurls.toArray(new URL[0]),
-				getParentClassLoader())) {
+		long scanningtime = System.nanoTime() - phasestart;
+		long annotationanalysistime;
+		long inliningtime;
+
+		try (JsonLinesToolLogger logfilelogger = openLogFile();
+				InputLoadingURLClassLoader cl = new InputLoadingURLClassLoader(classloaderurls.toArray(new URL[0]),
+						getParentClassLoader())) {
+			if (logfilelogger != null) {
+				options.setLogger(logfilelogger);
+			}
+			if (!verboseOptimizationLog) {
+				options.setLogger(new NonVerboseLogger(options.getLogger()));
+			}
 			for (Entry<String, ClassBytes> entry : classestoanalyze.entrySet()) {
 				//add the individually specified class files from the classpath to the classloader
 				ClassBytes cbytes = entry.getValue();
@@ -259,39 +439,144 @@ public class RunCommand {
 
 			options.setClassLoader(cl);
 
+			phasestart = System.nanoTime();
 			AnnotationAnalyzer.analyzeClassFile(options,
 					classestoanalyze.values().stream().map(cb -> cb.bytes)::iterator);
+			annotationanalysistime = System.nanoTime() - phasestart;
+			//release the references to the class bytes, only the tool inputs need them from now on
+			classestoanalyze = null;
 
+			phasestart = System.nanoTime();
 			ConstantExpressionInliner.run(options);
+			inliningtime = System.nanoTime() - phasestart;
+		}
+		//the inputs are no longer needed, the unmodified entries are copied from their sources
+		options.getInputs().clear();
+
+		phasestart = System.nanoTime();
+		try (InputEntrySourceReader sourcereader = new InputEntrySourceReader()) {
+			writeOutputs(outputpath, sourcereader);
+		}
+		long outputwritingtime = System.nanoTime() - phasestart;
+
+		if (inlinerstats[0] != null) {
+			String statsjson = formatStatistics(inlinerstats[0], scanningtime, annotationanalysistime, inliningtime,
+					outputwritingtime, System.nanoTime() - runstart);
+			if (stats) {
+				System.out.println(statsjson);
+			}
+			if (statsFile != null) {
+				Path statsfilepath = Paths.get(statsFile).toAbsolutePath().normalize();
+				Path parent = statsfilepath.getParent();
+				if (parent != null) {
+					Files.createDirectories(parent);
+				}
+				Files.write(statsfilepath, (statsjson + "\n").getBytes(StandardCharsets.UTF_8));
+			}
 		}
+	}
+
+	private static String formatStatistics(InlinerStatistics stats, long scanningtime, long annotationanalysistime,
+			long inliningtime, long outputwritingtime, long totaltime) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"times\":{");
+		appendMillis(sb, "scanning", scanningtime).append(',');
+		appendMillis(sb, "annotationAnalysis", annotationanalysistime).append(',');
+		appendMillis(sb, "inlining", inliningtime).append(',');
+		appendMillis(sb, "configuration", stats.getConfigurationTimeNanos()).append(',');
+		appendMillis(sb, "inputReading", stats.getInputReadingTimeNanos()).append(',');
+		appendMillis(sb, "parsing", stats.getParsingTimeNanos()).append(',');
+		appendMillis(sb, "processing", stats.getProcessingTimeNanos()).append(',');
+		sb.append("\"processingLevels\":[");
+		for (Iterator<Long> it = stats.getProcessingLevelTimeNanos().iterator(); it.hasNext();) {
+			sb.append(formatMillis(it.next()));
+			if (it.hasNext()) {
+				sb.append(',');
+			}
+		}
+		sb.append("],");
+		appendMillis(sb, "deconstruction", stats.getDeconstructionTimeNanos()).append(',');
+		appendMillis(sb, "writing", stats.getWritingTimeNanos()).append(',');
+		appendMillis(sb, "outputWriting", outputwritingtime).append(',');
+		appendMillis(sb, "total", totaltime);
+		sb.append("},\"counts\":{");
+		appendCount(sb, "inputClasses", stats.getInputClassCount()).append(',');
+		appendCount(sb, "processedClasses", stats.getProcessedClassCount()).append(',');
+		appendCount(sb, "visitedMethods", stats.getVisitedMethodCount()).append(',');
+		appendCount(sb, "visitedInstructions", stats.getVisitedInstructionCount()).append(',');
+		appendCount(sb, "reconstructionAttempts", stats.getReconstructionAttemptCount()).append(',');
+		appendCount(sb, "reconstructionSuccesses", stats.getReconstructionSuccessCount()).append(',');
+		appendCount(sb, "memberInvocations", stats.getMemberInvocationCount()).append(',');
+		appendCount(sb, "invocationMemoHits", stats.getInvocationMemoHitCount()).append(',');
+		appendCount(sb, "invocationMemoMisses", stats.getInvocationMemoMissCount()).append(',');
+		appendCount(sb, "deconstructionCacheHits", stats.getDeconstructionCacheHitCount()).append(',');
+		appendCount(sb, "deconstructionCacheMisses", stats.getDeconstructionCacheMissCount()).append(',');
+		appendCount(sb, "evaluationTimeouts", stats.getEvaluationTimeoutCount()).append(',');
+		appendCount(sb, "timeBudgetSkippedClasses", stats.getTimeBudgetSkippedClassCount());
+		sb.append("}}");
+		return sb.toString();
+	}
 
+	private static StringBuilder appendMillis(StringBuilder sb, String name, long nanos) {
+		return sb.append('"').append(name).append("\":").append(formatMillis(nanos));
+	}
+
+	private static StringBuilder appendCount(StringBuilder sb, String name, long count) {
+		return sb.append('"').append(name).append("\":").append(count);
+	}
+
+	private static String formatMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000d);
+	}
+
+	private void writeOutputs(Path outputpath, InputEntrySourceReader sourcereader) throws IOException {
 		for (Entry<Path, byte[]> entry : outputPathBytes.entrySet()) {
 			Path classfilepath = entry.getKey();
 			Files.createDirectories(classfilepath.getParent());
 			Files.write(classfilepath, entry.getValue());
 		}
+		for (Entry<Path, InputEntrySource> entry : outputPathSources.entrySet()) {
+			Path classfilepath = entry.getKey();
+			if (outputPathBytes.containsKey(classfilepath)) {
+				//modified, already written
+				continue;
+			}
+			InputEntrySource source = entry.getValue();
+			if (source.archiveEntryName == null && source.path.equals(classfilepath)) {
+				//the input is in the output directory, and is not modified
+				continue;
+			}
+			Files.createDirectories(classfilepath.getParent());
+			try (OutputStream os = Files.newOutputStream(classfilepath)) {
+				sourcereader.copy(source, os);
+			}
+		}
 		if (!overwriteZipFileOutputBytes.isEmpty()) {
 			//overwrite the ZIP files
 			for (Entry<Path, Map<String, byte[]>> entry : overwriteZipFileOutputBytes.entrySet()) {
+				Map<String, byte[]> outputentries = entry.getValue();
+				if (outputentries.isEmpty()) {
+					//nothing modified in the archive, keep it as is
+					continue;
+				}
 				Path inputzippath = entry.getKey();
 				Path tempfile = inputzippath.getParent()
 						.resolve(inputzippath.getFileName() + "_temp-" + UUID.randomUUID());
-				Map<String, byte[]> outputentries = entry.getValue();
 				try {
-					try (InputStream is = Files.newInputStream(inputzippath);
-							ZipInputStream zis = new ZipInputStream(is);
-							OutputStream os = Files.newOutputStream(tempfile, StandardOpenOption.CREATE_NEW);
-							ZipOutputStream zos = new ZipOutputStream(os)) {
-						for (ZipEntry ze; (ze = zis.getNextEntry()) != null;) {
-							byte[] outputbytes = outputentries.get(ze.getName());
-							ZipEntry nze = cloneZipEntry(ze);
-							zos.putNextEntry(nze);
-							if (outputbytes != null) {
-								zos.write(outputbytes);
-							} else {
-								Utils.copyStream(zis, zos);
+					//the unmodified entries are copied without decompressing them
+					try (ZipArchiveReader reader = ZipArchiveReader.open(inputzippath);
+							OutputStream os = Files.newOutputStream(tempfile, StandardOpenOption.CREATE_NEW)) {
+						//keep the data that is prepended to the archive, e.g. a launcher script
+						reader.copyPrefix(os);
+						try (ZipArchiveWriter writer = new ZipArchiveWriter(os)) {
+							for (ZipArchiveReader.Entry ze : reader.getEntries()) {
+								byte[] outputbytes = outputentries.get(ze.getName());
+								if (outputbytes != null) {
+									writer.putEntry(ze, outputbytes);
+								} else {
+									writer.putRawEntry(reader, ze);
+								}
 							}
-							zos.closeEntry();
 						}
 					}
 					//replace the input zip with the new one
@@ -307,17 +592,30 @@ public class RunCommand {
 			Files.createDirectories(outputpath.getParent());
 
 			try (OutputStream fos = Files.newOutputStream(outputpath);
-					ZipOutputStream zos = new ZipOutputStream(fos)) {
-				for (Entry<String, ZipEntryBytes> entry : outputZipEntryBytes.entrySet()) {
-					ZipEntryBytes entrybytes = entry.getValue();
-					zos.putNextEntry(entrybytes.zipEntry);
-					zos.write(entrybytes.bytes);
-					zos.closeEntry();
+					ZipArchiveWriter writer = new ZipArchiveWriter(fos)) {
+				for (OutputZipEntry outentry : outputZipEntries.values()) {
+					if (outentry.bytes != null) {
+						writer.putEntry(outentry.zipEntry, outentry.bytes);
+					} else {
+						sourcereader.copy(outentry.source, outentry.zipEntry, writer);
+					}
 				}
 			}
 		}
 	}
 
+	private JsonLinesToolLogger openLogFile() throws IOException {
+		if (logFile == null) {
+			return null;
+		}
+		Path logfilepath = Paths.get(logFile).toAbsolutePath().normalize();
+		Path parent = logfilepath.getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		return new JsonLinesToolLogger(Files.newOutputStream(logfilepath));
+	}
+
 	private static LinkedHashSet<Path> toPaths(Collection<String> cp) {
 		LinkedHashSet<Path> classpathpaths = new LinkedHashSet<>();
 		toPaths(classpathpaths, cp);
@@ -343,6 +641,39 @@ public class RunCommand {
 		return options;
 	}
 
+	/**
+	 * Computes the cache key for the classpath classes and the running environment.
+	 * <p>
+	 * The optimization may execute the code of the classpath classes, the JDK, and the tool, therefore changes to
+	 * them should invalidate the cached results.
+	 */
+	private static String computeCacheKey(Map<String, ClassBytes> classpathclasses) throws IOException {
+		MessageDigest digest = Utils.createSha256MessageDigest();
+		updateDigest(digest, System.getProperty("java.vendor", "").getBytes(StandardCharsets.UTF_8));
+		updateDigest(digest, System.getProperty("java.version", "").getBytes(StandardCharsets.UTF_8));
+		try {
+			Path toolpath = Paths
+					.get(ConstantExpressionInliner.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+			if (Files.isRegularFile(toolpath)) {
+				updateDigest(digest, Files.readAllBytes(toolpath));
+			}
+		} catch (SecurityException | NullPointerException | URISyntaxException | IllegalArgumentException e) {
+			//the location of the tool is not available
+		}
+		for (Entry<String, ClassBytes> entry : classpathclasses.entrySet()) {
+			updateDigest(digest, entry.getKey().getBytes(StandardCharsets.UTF_8));
+			updateDigest(digest, entry.getValue().bytes);
+		}
+		return Utils.toHexString(digest.digest());
+	}
+
+	private static void updateDigest(MessageDigest digest, byte[] bytes) {
+		//prefix with the length, so the concatenation of the values is unambiguous
+		digest.update(new byte[] { (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+				(byte) (bytes.length >>> 8), (byte) bytes.length });
+		digest.update(bytes);
+	}
+
 	private static ClassLoader getParentClassLoader() {
 		//available from JDK 9+
 		try {
@@ -353,107 +684,107 @@ public class RunCommand {
 		}
 	}
 
-	private void scanClasspath(InlinerOptions options, Path path, Map<String, ClassBytes> classestoanalyze,
-			boolean input) throws Exception {
-		if (!Files.exists(path)) {
-			throw new NoSuchFileException(path.toString());
-		}
-		if (Files.isDirectory(path)) {
-			try (Stream<Path> walkstream = Files.walk(path)) {
-				for (Iterator<Path> it = walkstream.iterator(); it.hasNext();) {
-					Path p = it.next();
-					if (Files.isDirectory(p)) {
-						continue;
-					}
-					byte[] bytes = Files.readAllBytes(p);
-					if (input && outputZip) {
-						ZipEntry ze = new ZipEntry(path.relativize(p).toString());
-						ze.setLastModifiedTime(Files.getLastModifiedTime(p));
-						outputZipEntryBytes.put(ze.getName(), new ZipEntryBytes(ze, bytes));
-					}
-					if (p.getFileName().toString().endsWith(".class")) {
-						ClassReader cr = new ClassReader(bytes);
-						String classinternalname = cr.getClassName();
-						classestoanalyze.put(classinternalname, new ClassBytes(p, bytes));
-
-						if (input) {
-							OutputHandler handler;
-							if (overwrite) {
-								handler = new ClassFileOutputHandler(p);
-							} else {
-								handler = getOutputHandler(classinternalname, p, null);
-							}
-							options.getInputs().add(ToolInput.createForPath(handler, p));
-						}
-					}
-				}
+	private void processScannedEntries(InlinerOptions options, List<ScannedEntry> entries,
+			Map<String, ClassBytes> classestoanalyze, boolean input) throws IOException {
+		for (ScannedEntry entry : entries) {
+			if (entry.zipEntry != null) {
+				processArchiveEntry(options, entry, classestoanalyze, input);
+			} else if (entry.individualClassFile) {
+				processIndividualClassFile(options, entry, classestoanalyze, input);
+			} else {
+				processDirectoryFile(options, entry, classestoanalyze, input);
 			}
-		} else {
-			String pathfilename = path.getFileName().toString();
-			if (pathfilename.endsWith(".class")) {
-				//simple class, not zip or jar
-
-				byte[] bytes = Files.readAllBytes(path);
+		}
+	}
 
-				ClassReader cr = new ClassReader(bytes);
-				String classinternalname = cr.getClassName();
-				ClassBytes classbytes = new ClassBytes(path, bytes);
-				classbytes.individualClassFile = true;
-				classestoanalyze.put(classinternalname, classbytes);
+	private void processDirectoryFile(InlinerOptions options, ScannedEntry entry,
+			Map<String, ClassBytes> classestoanalyze, boolean input) throws IOException {
+		Path p = entry.file;
+		InputEntrySource source = new InputEntrySource(p, null);
+		if (input && outputZip) {
+			ZipEntry ze = new ZipEntry(entry.path.relativize(p).toString());
+			ze.setLastModifiedTime(Files.getLastModifiedTime(p));
+			outputZipEntries.put(ze.getName(), new OutputZipEntry(ze, source));
+		}
+		if (entry.classFile == null) {
+			return;
+		}
+		ScannedClass scannedclass = entry.getScannedClass();
+		String classinternalname = scannedclass.internalName;
+		classestoanalyze.put(classinternalname, new ClassBytes(p, scannedclass.bytes));
+
+		if (input) {
+			OutputHandler handler;
+			if (overwrite) {
+				handler = new ClassFileOutputHandler(p);
+			} else {
+				handler = getOutputHandler(classinternalname, p, null, source);
+			}
+			options.getInputs().add(ToolInput.createWithBytes(handler, scannedclass.bytes));
+		}
+	}
 
-				if (input) {
-					if (outputZip) {
-						ZipEntry ze = new ZipEntry(classinternalname + ".class");
-						ze.setLastModifiedTime(Files.getLastModifiedTime(path));
-						outputZipEntryBytes.put(ze.getName(), new ZipEntryBytes(ze, bytes));
-					}
-					OutputHandler handler;
-					if (overwrite) {
-						handler = new ClassFileOutputHandler(path);
-					} else {
-						handler = getOutputHandler(classinternalname, path, null);
-					}
-					options.getInputs().add(ToolInput.createForPath(handler, path));
-				}
+	private void processIndividualClassFile(InlinerOptions options, ScannedEntry entry,
+			Map<String, ClassBytes> classestoanalyze, boolean input) throws IOException {
+		Path path = entry.file;
+		ScannedClass scannedclass = entry.getScannedClass();
+		String classinternalname = scannedclass.internalName;
+		ClassBytes classbytes = new ClassBytes(path, scannedclass.bytes);
+		classbytes.individualClassFile = true;
+		classestoanalyze.put(classinternalname, classbytes);
+
+		if (input) {
+			InputEntrySource source = new InputEntrySource(path, null);
+			if (outputZip) {
+				ZipEntry ze = new ZipEntry(classinternalname + ".class");
+				ze.setLastModifiedTime(Files.getLastModifiedTime(path));
+				outputZipEntries.put(ze.getName(), new OutputZipEntry(ze, source));
+			}
+			OutputHandler handler;
+			if (overwrite) {
+				handler = new ClassFileOutputHandler(path);
 			} else {
-				try (InputStream is = Files.newInputStream(path);
-						ZipInputStream zis = pathfilename.endsWith(".jar") ? new JarInputStream(is)
-								: new ZipInputStream(is)) {
-					if (input && overwrite) {
-						//init the output map of the overwriting archive
-						//use linked map to keep the entry order
-						overwriteZipFileOutputBytes.put(path, new LinkedHashMap<>());
-					}
-					for (ZipEntry ze; (ze = zis.getNextEntry()) != null;) {
-						byte[] bytes = Utils.readStream(zis);
+				handler = getOutputHandler(classinternalname, path, null, source);
+			}
+			options.getInputs().add(ToolInput.createWithBytes(handler, scannedclass.bytes));
+		}
+	}
 
-						if (input && outputZip) {
-							outputZipEntryBytes.put(ze.getName(), new ZipEntryBytes(cloneZipEntry(ze), bytes));
-						}
-						if (ze.getName().endsWith(".class")) {
-							ClassReader cr = new ClassReader(bytes);
-							String classinternalname = cr.getClassName();
-							ClassBytes classbytes = new ClassBytes(path, bytes);
-							classbytes.zipEntry = ze;
-							classestoanalyze.put(classinternalname, classbytes);
-
-							OutputHandler handler;
-							if (overwrite) {
-								handler = new OverwriteZipOutputHandler(path, ze.getName());
-							} else {
-								handler = getOutputHandler(classinternalname, null, ze);
-							}
-							if (input) {
-								if (ze.getName().startsWith("META-INF/versions/")) {
-									//not supported (yet?)
-									throw new IllegalArgumentException("Multi-release JARs are not supported: " + path);
-								}
-								options.getInputs().add(ToolInput.createWithBytes(handler, bytes));
-							}
-						}
-					}
-				}
+	private void processArchiveEntry(InlinerOptions options, ScannedEntry entry,
+			Map<String, ClassBytes> classestoanalyze, boolean input) throws IOException {
+		Path path = entry.path;
+		ZipEntry ze = entry.zipEntry;
+		if (input && overwrite) {
+			//init the output map of the overwriting archive
+			//use linked map to keep the entry order
+			overwriteZipFileOutputBytes.computeIfAbsent(path, k -> new LinkedHashMap<>());
+		}
+		InputEntrySource source = new InputEntrySource(path, ze.getName());
+		if (input && outputZip) {
+			outputZipEntries.put(ze.getName(), new OutputZipEntry(cloneZipEntry(ze), source));
+		}
+		if (entry.classFile == null) {
+			//only the class files are read, the other entries are copied to the output from the input
+			return;
+		}
+		ScannedClass scannedclass = entry.getScannedClass();
+		String classinternalname = scannedclass.internalName;
+		ClassBytes classbytes = new ClassBytes(path, scannedclass.bytes);
+		classbytes.zipEntry = ze;
+		classestoanalyze.put(classinternalname, classbytes);
+
+		OutputHandler handler;
+		if (overwrite) {
+			handler = new OverwriteZipOutputHandler(path, ze.getName());
+		} else {
+			handler = getOutputHandler(classinternalname, null, ze, source);
+		}
+		if (input) {
+			if (ze.getName().startsWith("META-INF/versions/")) {
+				//not supported (yet?)
+				throw new IllegalArgumentException("Multi-release JARs are not supported: " + path);
 			}
+			options.getInputs().add(ToolInput.createWithBytes(handler, scannedclass.bytes));
 		}
 	}
 
@@ -463,13 +794,18 @@ public class RunCommand {
 	 *            If the input is a file.
 	 * @param zipentry
 	 *            If the input is a zip entry.
+	 * @param source
+	 *            The source of the input class file.
 	 * @return
 	 * @throws IOException
 	 */
-	private OutputHandler getOutputHandler(String classinternalname, Path filepath, ZipEntry zipentry)
-			throws IOException {
+	private OutputHandler getOutputHandler(String classinternalname, Path filepath, ZipEntry zipentry,
+			InputEntrySource source) throws IOException {
 		if (outputDir) {
-			return new ClassFileOutputHandler(outputDirectory.resolve(classinternalname + ".class"));
+			Path outputfilepath = outputDirectory.resolve(classinternalname + ".class");
+			//the unmodified classes are not reported by the inliner, copy the input as is by default
+			outputPathSources.put(outputfilepath, source);
+			return new ClassFileOutputHandler(outputfilepath);
 		}
 		if (outputZip) {
 			ZipEntry ze;
@@ -508,6 +844,159 @@ public class RunCommand {
 		}
 	}
 
+	/**
+	 * Enumerates the entries of the classpath paths, and reads and parses the class files in them.
+	 * <p>
+	 * The entries are enumerated on the calling thread in a deterministic order. The class files are read and parsed
+	 * concurrently in a thread pool. The archives are accessed using {@link ZipFile}, so their entries can be
+	 * decompressed independently.
+	 * <p>
+	 * The archives are closed when the scanner is closed.
+	 */
+	private static final class ClasspathScanner implements Closeable {
+		/**
+		 * The pool to read the classes in, or <code>null</code> if they are read on the thread that processes them.
+		 */
+		private final ExecutorService pool;
+		private final List<ZipFile> zipFiles = new ArrayList<>();
+
+		public ClasspathScanner(int parallelism) {
+			this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+		}
+
+		public List<ScannedEntry> scan(Collection<Path> paths) throws IOException {
+			List<ScannedEntry> result = new ArrayList<>();
+			for (Path path : paths) {
+				scan(path, result);
+			}
+			return result;
+		}
+
+		private void scan(Path path, List<ScannedEntry> result) throws IOException {
+			if (!Files.exists(path)) {
+				throw new NoSuchFileException(path.toString());
+			}
+			if (Files.isDirectory(path)) {
+				try (Stream<Path> walkstream = Files.walk(path)) {
+					for (Iterator<Path> it = walkstream.iterator(); it.hasNext();) {
+						Path p = it.next();
+						if (Files.isDirectory(p)) {
+							continue;
+						}
+						FutureTask<ScannedClass> classfile = null;
+						if (p.getFileName().toString().endsWith(".class")) {
+							classfile = startReading(() -> Files.readAllBytes(p));
+						}
+						result.add(new ScannedEntry(path, p, null, classfile));
+					}
+				}
+				return;
+			}
+			if (path.getFileName().toString().endsWith(".class")) {
+				//simple class, not zip or jar
+				ScannedEntry entry = new ScannedEntry(path, path, null,
+						startReading(() -> Files.readAllBytes(path)));
+				entry.individualClassFile = true;
+				result.add(entry);
+				return;
+			}
+			ZipFile zf = new ZipFile(path.toFile());
+			zipFiles.add(zf);
+			for (Enumeration<? extends ZipEntry> it = zf.entries(); it.hasMoreElements();) {
+				ZipEntry ze = it.nextElement();
+				FutureTask<ScannedClass> classfile = null;
+				if (ze.getName().endsWith(".class")) {
+					classfile = startReading(() -> {
+						try (InputStream is = zf.getInputStream(ze)) {
+							return Utils.readStream(is);
+						}
+					});
+				}
+				result.add(new ScannedEntry(path, null, ze, classfile));
+			}
+		}
+
+		private FutureTask<ScannedClass> startReading(Callable<byte[]> reader) {
+			FutureTask<ScannedClass> task = new FutureTask<>(() -> {
+				byte[] bytes = reader.call();
+				return new ScannedClass(new ClassReader(bytes).getClassName(), bytes);
+			});
+			if (pool != null) {
+				pool.execute(task);
+			}
+			return task;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+			IOException exc = null;
+			for (ZipFile zf : zipFiles) {
+				try {
+					zf.close();
+				} catch (IOException e) {
+					if (exc == null) {
+						exc = e;
+					} else {
+						exc.addSuppressed(e);
+					}
+				}
+			}
+			if (exc != null) {
+				throw exc;
+			}
+		}
+	}
+
+	/**
+	 * An entry found by the {@link ClasspathScanner}.
+	 */
+	private static final class ScannedEntry {
+		/**
+		 * The classpath or input path.
+		 */
+		protected final Path path;
+		/**
+		 * The file of the entry, or <code>null</code> if it is an archive entry.
+		 */
+		protected final Path file;
+		/**
+		 * The archive entry, or <code>null</code> if it is a file.
+		 */
+		protected final ZipEntry zipEntry;
+		/**
+		 * The task that reads the class file, or <code>null</code> if the entry is not a class file.
+		 */
+		protected final FutureTask<ScannedClass> classFile;
+
+		protected boolean individualClassFile;
+
+		public ScannedEntry(Path path, Path file, ZipEntry zipEntry, FutureTask<ScannedClass> classFile) {
+			this.path = path;
+			this.file = file;
+			this.zipEntry = zipEntry;
+			this.classFile = classFile;
+		}
+
+		public ScannedClass getScannedClass() throws IOException {
+			//read on the current thread if it hasn't been started yet
+			classFile.run();
+			return Utils.getFutureResult(classFile);
+		}
+	}
+
+	private static final class ScannedClass {
+		protected final String internalName;
+		protected final byte[] bytes;
+
+		public ScannedClass(String internalName, byte[] bytes) {
+			this.internalName = internalName;
+			this.bytes = bytes;
+		}
+	}
+
 	private static class ClassBytes {
 		protected final Path source;
 		protected final byte[] bytes;
@@ -559,7 +1048,7 @@ public class RunCommand {
 
 		@Override
 		public void handle(byte[] bytes) {
-			outputZipEntryBytes.put(zipEntry.getName(), new ZipEntryBytes(zipEntry, bytes));
+			outputZipEntries.put(zipEntry.getName(), new OutputZipEntry(zipEntry, bytes));
 		}
 	}
 
@@ -592,16 +1081,117 @@ public class RunCommand {
 		}
 	}
 
-	private static final class ZipEntryBytes {
+	private static final class OutputZipEntry {
 		protected final ZipEntry zipEntry;
+		/**
+		 * The source to copy the contents from, if the {@link #bytes} is <code>null</code>.
+		 */
+		protected final InputEntrySource source;
+		/**
+		 * The modified contents of the entry.
+		 */
 		protected final byte[] bytes;
 
-		public ZipEntryBytes(ZipEntry zipEntry, byte[] bytes) {
+		public OutputZipEntry(ZipEntry zipEntry, InputEntrySource source) {
 			this.zipEntry = zipEntry;
+			this.source = source;
+			this.bytes = null;
+		}
+
+		public OutputZipEntry(ZipEntry zipEntry, byte[] bytes) {
+			this.zipEntry = zipEntry;
+			this.source = null;
 			this.bytes = bytes;
 		}
 	}
 
+	/**
+	 * A file, or an entry in a ZIP archive from which the output contents can be copied.
+	 */
+	private static final class InputEntrySource {
+		protected final Path path;
+		/**
+		 * The name of the entry if {@link #path} is an archive, or <code>null</code> if it is a file.
+		 */
+		protected final String archiveEntryName;
+
+		public InputEntrySource(Path path, String archiveEntryName) {
+			this.path = path;
+			this.archiveEntryName = archiveEntryName;
+		}
+	}
+
+	/**
+	 * Copies the contents of {@link InputEntrySource InputEntrySources}.
+	 * <p>
+	 * The archives are opened once with random access, and closed when this reader is closed.
+	 * <p>
+	 * When the entries are written to an output archive, their compressed data is copied as is.
+	 */
+	private static final class InputEntrySourceReader implements Closeable {
+		private final Map<Path, ZipFile> zipFiles = new TreeMap<>();
+		private final Map<Path, ZipArchiveReader> archiveReaders = new TreeMap<>();
+
+		public void copy(InputEntrySource source, ZipEntry zipentry, ZipArchiveWriter writer) throws IOException {
+			if (source.archiveEntryName == null) {
+				writer.putEntry(zipentry, Files.readAllBytes(source.path));
+				return;
+			}
+			ZipArchiveReader reader = archiveReaders.get(source.path);
+			if (reader == null) {
+				reader = ZipArchiveReader.open(source.path);
+				archiveReaders.put(source.path, reader);
+			}
+			ZipArchiveReader.Entry entry = reader.getEntry(source.archiveEntryName);
+			if (entry == null) {
+				throw new NoSuchFileException(source.path.toString(), null,
+						"Entry not found: " + source.archiveEntryName);
+			}
+			writer.putRawEntry(reader, entry);
+		}
+
+		public void copy(InputEntrySource source, OutputStream os) throws IOException {
+			if (source.archiveEntryName == null) {
+				Files.copy(source.path, os);
+				return;
+			}
+			ZipFile zf = zipFiles.get(source.path);
+			if (zf == null) {
+				zf = new ZipFile(source.path.toFile());
+				zipFiles.put(source.path, zf);
+			}
+			ZipEntry ze = zf.getEntry(source.archiveEntryName);
+			if (ze == null) {
+				throw new NoSuchFileException(source.path.toString(), null,
+						"Entry not found: " + source.archiveEntryName);
+			}
+			try (InputStream is = zf.getInputStream(ze)) {
+				Utils.copyStream(is, os);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			IOException exc = null;
+			List<Closeable> closeables = new ArrayList<>(zipFiles.values());
+			closeables.addAll(archiveReaders.values());
+			for (Closeable c : closeables) {
+				try {
+					c.close();
+				} catch (IOException e) {
+					if (exc == null) {
+						exc = e;
+					} else {
+						exc.addSuppressed(e);
+					}
+				}
+			}
+			if (exc != null) {
+				throw exc;
+			}
+		}
+	}
+
 	private static final class PrintStreamToolLogger implements ToolLogger {
 		private final PrintStream outstream;
 
@@ -634,20 +1224,16 @@ public class RunCommand {
 
 		@Override
 		public void log(InstructionReplacementLogEntry logentry) {
-			AsmStackInfo replacement = logentry.getReplacementInfo();
-			AsmStackInfo replaced = logentry.getReplacedInfo();
-			if (replacement.getKind() == AsmStackInfo.Kind.CONSTRUCTOR
-					&& replacement.getType().equals(Type.getType(StringBuilder.class)) && replacement.getDescriptor()
-							.equals(Type.getMethodType(Type.VOID_TYPE, Type.getType(String.class)))) {
-				//the replacement is the new StringBuilder(String) invocation
-				//ignore logs for:
-//			        new java.lang.StringBuilder().append(...)
-//		        with
-//	                new java.lang.StringBuilder(java.lang.String)
-				//TODO maybe add a counter and display how many were omitted?
-				return;
+			//ignore, the replacements are only logged in verbose mode
+		}
+
+		@Override
+		public boolean isLoggable(Class<? extends LogEntry> entrytype) {
+			if (entrytype == InstructionReplacementLogEntry.class) {
+				//the inliner doesn't create the entries at all
+				return false;
 			}
-			super.log(logentry);
+			return super.isLoggable(entrytype);
 		}
 	}
 }
@@ -0,0 +1,400 @@
+package sipka.jvm.constexpr.main;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * Reader of the central directory of a ZIP archive, that allows copying the compressed data of the entries as is.
+ * <p>
+ * The entries are read from the central directory, and their compressed data is located using the local file
+ * headers. The data is not decompressed, it is copied to a {@link ZipArchiveWriter} with the same compression method,
+ * CRC, and sizes.
+ * <p>
+ * The archive may have arbitrary data prepended to it, e.g. a launcher script. Same as {@link java.util.zip.ZipFile},
+ * the offsets in the archive are adjusted by the difference between the actual and the recorded location of the
+ * central directory. The prepended data is available as the {@linkplain #copyPrefix(OutputStream) prefix}.
+ * <p>
+ * Multi-disk and encrypted archives are not supported, in which case a {@link ZipException} is thrown.
+ */
+final class ZipArchiveReader implements Closeable {
+	static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+	static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+	static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+
+	static final int LOCAL_HEADER_SIZE = 30;
+	static final int CENTRAL_HEADER_SIZE = 46;
+	static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+	static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+
+	static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+
+	static final int FLAG_ENCRYPTED = 0x1;
+	static final int FLAG_DATA_DESCRIPTOR = 0x8;
+
+	static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+	static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+	private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+	private final FileChannel channel;
+	private final List<Entry> entries;
+	private final Map<String, Entry> entriesByName;
+	/**
+	 * The length of the data before the first local header, or the central directory if there are no entries.
+	 */
+	private long prefixLength;
+
+	private ZipArchiveReader(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.entries = readCentralDirectory();
+		this.entriesByName = new HashMap<>();
+		for (Entry e : entries) {
+			//keep the first one in case of duplicates, same as ZipFile
+			entriesByName.putIfAbsent(e.name, e);
+		}
+	}
+
+	/**
+	 * Opens the archive at the given path.
+	 *
+	 * @param path
+	 *            The path.
+	 * @return The opened reader.
+	 * @throws ZipException
+	 *             If the archive format is not supported.
+	 * @throws IOException
+	 *             In case of I/O error.
+	 */
+	public static ZipArchiveReader open(Path path) throws ZipException, IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new ZipArchiveReader(channel);
+		} catch (Throwable e) {
+			try {
+				channel.close();
+			} catch (Throwable e2) {
+				e.addSuppressed(e2);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the entries in the order of the central directory.
+	 *
+	 * @return The unmodifiable list of entries.
+	 */
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * Gets the entry with the given name.
+	 *
+	 * @param name
+	 *            The name.
+	 * @return The entry, or <code>null</code> if not found.
+	 */
+	public Entry getEntry(String name) {
+		return entriesByName.get(name);
+	}
+
+	/**
+	 * Copies the compressed data of the entry to the given output.
+	 *
+	 * @param entry
+	 *            The entry of this archive.
+	 * @param os
+	 *            The output.
+	 * @throws IOException
+	 *             In case of I/O error.
+	 */
+	void copyCompressedData(Entry entry, OutputStream os) throws IOException {
+		long position = getDataOffset(entry);
+		long remaining = entry.compressedSize;
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(remaining, 64 * 1024));
+		while (remaining > 0) {
+			buffer.clear();
+			if (buffer.capacity() > remaining) {
+				buffer.limit((int) remaining);
+			}
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new EOFException("Unexpected end of ZIP entry data: " + entry.name);
+			}
+			os.write(buffer.array(), 0, read);
+			position += read;
+			remaining -= read;
+		}
+	}
+
+	/**
+	 * Copies the data that precedes the entries of the archive to the given output.
+	 * <p>
+	 * The prefix is empty for most archives.
+	 *
+	 * @param os
+	 *            The output.
+	 * @throws IOException
+	 *             In case of I/O error.
+	 */
+	public void copyPrefix(OutputStream os) throws IOException {
+		long position = 0;
+		while (position < prefixLength) {
+			int len = (int) Math.min(prefixLength - position, 64 * 1024);
+			ByteBuffer buffer = read(position, len);
+			os.write(buffer.array(), 0, len);
+			position += len;
+		}
+	}
+
+	/**
+	 * Gets the extra field of the local header of the entry.
+	 */
+	byte[] getLocalExtra(Entry entry) throws IOException {
+		readLocalHeader(entry);
+		return entry.localExtra;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private long getDataOffset(Entry entry) throws IOException {
+		readLocalHeader(entry);
+		return entry.dataOffset;
+	}
+
+	private void readLocalHeader(Entry entry) throws IOException {
+		if (entry.dataOffset >= 0) {
+			return;
+		}
+		ByteBuffer header = read(entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+		if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header signature for entry: " + entry.name);
+		}
+		int namelen = Short.toUnsignedInt(header.getShort(26));
+		int extralen = Short.toUnsignedInt(header.getShort(28));
+		byte[] extra = new byte[extralen];
+		read(entry.localHeaderOffset + LOCAL_HEADER_SIZE + namelen, extralen).get(extra);
+		entry.localExtra = extra;
+		entry.dataOffset = entry.localHeaderOffset + LOCAL_HEADER_SIZE + namelen + extralen;
+	}
+
+	private List<Entry> readCentralDirectory() throws IOException {
+		long size = channel.size();
+		int tailsize = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_LENGTH);
+		ByteBuffer tail = read(size - tailsize, tailsize);
+		int eocdidx = -1;
+		for (int i = tailsize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE
+					&& i + END_OF_CENTRAL_DIRECTORY_SIZE + Short.toUnsignedInt(tail.getShort(i + 20)) == tailsize) {
+				eocdidx = i;
+				break;
+			}
+		}
+		if (eocdidx < 0) {
+			throw new ZipException("End of central directory record not found.");
+		}
+		long eocdoffset = size - tailsize + eocdidx;
+		if (tail.getShort(eocdidx + 4) != 0 || tail.getShort(eocdidx + 6) != 0) {
+			throw new ZipException("Multi-disk archives are not supported.");
+		}
+		long entrycount = Short.toUnsignedInt(tail.getShort(eocdidx + 10));
+		long cdsize = Integer.toUnsignedLong(tail.getInt(eocdidx + 12));
+		long cdoffset = Integer.toUnsignedLong(tail.getInt(eocdidx + 16));
+		//the offset where the central directory ends, used to detect the data prepended to the archive
+		long cdendoffset = eocdoffset;
+		if (entrycount == ZIP64_MAGIC_COUNT || cdsize == ZIP64_MAGIC_VALUE || cdoffset == ZIP64_MAGIC_VALUE) {
+			long locatoroffset = eocdoffset - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE;
+			if (locatoroffset >= 0) {
+				ByteBuffer locator = read(locatoroffset, ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE);
+				if (locator.getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE) {
+					long zip64eocdoffset = locator.getLong(8);
+					ByteBuffer zip64eocd = zip64eocdoffset >= 0
+							&& zip64eocdoffset + ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE <= locatoroffset
+									? read(zip64eocdoffset, ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE)
+									: null;
+					if (zip64eocd == null || zip64eocd.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+						//the recorded offset may be off if data is prepended to the archive
+						//look for the record right before the locator
+						zip64eocdoffset = locatoroffset - ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE;
+						if (zip64eocdoffset < 0) {
+							throw new ZipException("Invalid ZIP64 end of central directory record.");
+						}
+						zip64eocd = read(zip64eocdoffset, ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE);
+						if (zip64eocd.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+							throw new ZipException("Invalid ZIP64 end of central directory record.");
+						}
+					}
+					entrycount = zip64eocd.getLong(32);
+					cdsize = zip64eocd.getLong(40);
+					cdoffset = zip64eocd.getLong(48);
+					cdendoffset = zip64eocdoffset;
+				}
+			}
+		}
+		//the number of bytes prepended to the archive, same as in ZipFile
+		long locpos = (cdendoffset - cdsize) - cdoffset;
+		if (cdsize > Integer.MAX_VALUE || locpos < 0 || cdoffset + locpos + cdsize > size) {
+			throw new ZipException("Invalid central directory.");
+		}
+		ByteBuffer cd = read(cdoffset + locpos, (int) cdsize);
+		List<Entry> result = new ArrayList<>((int) Math.min(entrycount, 1 << 16));
+		long firstlocaloffset = cdoffset + locpos;
+		int idx = 0;
+		while (idx < cdsize) {
+			if (idx + CENTRAL_HEADER_SIZE > cdsize || cd.getInt(idx) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header at offset: " + (cdoffset + locpos + idx));
+			}
+			Entry entry = new Entry();
+			entry.versionMadeBy = Short.toUnsignedInt(cd.getShort(idx + 4));
+			entry.versionNeeded = Short.toUnsignedInt(cd.getShort(idx + 6));
+			entry.flags = Short.toUnsignedInt(cd.getShort(idx + 8));
+			entry.method = Short.toUnsignedInt(cd.getShort(idx + 10));
+			entry.dosTime = cd.getInt(idx + 12);
+			entry.crc = Integer.toUnsignedLong(cd.getInt(idx + 16));
+			entry.compressedSize = Integer.toUnsignedLong(cd.getInt(idx + 20));
+			entry.size = Integer.toUnsignedLong(cd.getInt(idx + 24));
+			int namelen = Short.toUnsignedInt(cd.getShort(idx + 28));
+			int extralen = Short.toUnsignedInt(cd.getShort(idx + 30));
+			int commentlen = Short.toUnsignedInt(cd.getShort(idx + 32));
+			entry.internalAttributes = Short.toUnsignedInt(cd.getShort(idx + 36));
+			entry.externalAttributes = cd.getInt(idx + 38);
+			entry.localHeaderOffset = Integer.toUnsignedLong(cd.getInt(idx + 42));
+
+			int nameidx = idx + CENTRAL_HEADER_SIZE;
+			if (nameidx + namelen + extralen + commentlen > cdsize) {
+				throw new ZipException("Invalid central directory header at offset: " + (cdoffset + locpos + idx));
+			}
+			byte[] namebytes = new byte[namelen];
+			((ByteBuffer) cd.duplicate().position(nameidx)).get(namebytes);
+			entry.nameBytes = namebytes;
+			entry.name = new String(namebytes, StandardCharsets.UTF_8);
+			entry.centralExtra = new byte[extralen];
+			((ByteBuffer) cd.duplicate().position(nameidx + namelen)).get(entry.centralExtra);
+			entry.comment = new byte[commentlen];
+			((ByteBuffer) cd.duplicate().position(nameidx + namelen + extralen)).get(entry.comment);
+
+			if ((entry.flags & FLAG_ENCRYPTED) != 0) {
+				throw new ZipException("Encrypted entries are not supported: " + entry.name);
+			}
+			readZip64Extra(entry);
+			entry.localHeaderOffset += locpos;
+			if (entry.localHeaderOffset + LOCAL_HEADER_SIZE > size) {
+				throw new ZipException("Invalid local header offset for entry: " + entry.name);
+			}
+			firstlocaloffset = Math.min(firstlocaloffset, entry.localHeaderOffset);
+
+			result.add(entry);
+			idx = nameidx + namelen + extralen + commentlen;
+		}
+		if (result.size() != entrycount) {
+			throw new ZipException(
+					"Central directory entry count mismatch: " + result.size() + " found, " + entrycount + " expected.");
+		}
+		this.prefixLength = firstlocaloffset;
+		return result;
+	}
+
+	private static void readZip64Extra(Entry entry) throws ZipException {
+		if (entry.size != ZIP64_MAGIC_VALUE && entry.compressedSize != ZIP64_MAGIC_VALUE
+				&& entry.localHeaderOffset != ZIP64_MAGIC_VALUE) {
+			return;
+		}
+		ByteBuffer extra = ByteBuffer.wrap(entry.centralExtra).order(ByteOrder.LITTLE_ENDIAN);
+		while (extra.remaining() >= 4) {
+			int id = Short.toUnsignedInt(extra.getShort());
+			int len = Short.toUnsignedInt(extra.getShort());
+			if (len > extra.remaining()) {
+				break;
+			}
+			if (id != ZIP64_EXTRA_FIELD_ID) {
+				extra.position(extra.position() + len);
+				continue;
+			}
+			int end = extra.position() + len;
+			if (entry.size == ZIP64_MAGIC_VALUE && extra.position() + 8 <= end) {
+				entry.size = extra.getLong();
+			}
+			if (entry.compressedSize == ZIP64_MAGIC_VALUE && extra.position() + 8 <= end) {
+				entry.compressedSize = extra.getLong();
+			}
+			if (entry.localHeaderOffset == ZIP64_MAGIC_VALUE && extra.position() + 8 <= end) {
+				entry.localHeaderOffset = extra.getLong();
+			}
+			break;
+		}
+		if (entry.size == ZIP64_MAGIC_VALUE || entry.compressedSize == ZIP64_MAGIC_VALUE
+				|| entry.localHeaderOffset == ZIP64_MAGIC_VALUE) {
+			throw new ZipException("Invalid ZIP64 extra field for entry: " + entry.name);
+		}
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new EOFException("Unexpected end of ZIP archive.");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * An entry of the central directory.
+	 */
+	static final class Entry {
+		protected String name;
+		protected byte[] nameBytes;
+		protected int versionMadeBy;
+		protected int versionNeeded;
+		protected int flags;
+		protected int method;
+		/**
+		 * The MS-DOS date and time, the date being in the upper 16 bits.
+		 */
+		protected int dosTime;
+		protected long crc;
+		protected long compressedSize;
+		protected long size;
+		protected int internalAttributes;
+		protected int externalAttributes;
+		protected long localHeaderOffset;
+		protected byte[] centralExtra;
+		protected byte[] comment;
+
+		protected byte[] localExtra;
+		protected long dataOffset = -1;
+
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + "[" + name + "]";
+		}
+	}
+}
@@ -0,0 +1,394 @@
+package sipka.jvm.constexpr.main;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Writer of ZIP archives that can copy the compressed data of entries from a {@link ZipArchiveReader} without
+ * decompressing and compressing them again.
+ * <p>
+ * The copied entries keep their compression method, CRC, sizes, and attributes from the central directory of the
+ * source archive. The entries that have new contents are compressed by this writer.
+ * <p>
+ * The ZIP64 extensions are written when necessary.
+ */
+final class ZipArchiveWriter implements Closeable {
+	private static final int FLAG_UTF8 = 0x800;
+	private static final int VERSION_DEFAULT = 20;
+	private static final int VERSION_ZIP64 = 45;
+	private static final int MIN_DOS_TIME = (1 << 21) | (1 << 16);
+
+	private final OutputStream out;
+	private long offset;
+
+	private final List<CentralEntry> entries = new ArrayList<>();
+	private final Set<String> entryNames = new HashSet<>();
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	private final CRC32 crc = new CRC32();
+	private final ByteArrayOutputStream compressBuffer = new ByteArrayOutputStream();
+	private final byte[] deflateBuffer = new byte[8 * 1024];
+
+	public ZipArchiveWriter(OutputStream out) {
+		this.out = new BufferedOutputStream(out, 64 * 1024);
+	}
+
+	/**
+	 * Copies the entry from the source archive with its compressed data.
+	 *
+	 * @param reader
+	 *            The source archive.
+	 * @param entry
+	 *            The entry of the source archive.
+	 * @throws ZipException
+	 *             If an entry with the same name was already written.
+	 * @throws IOException
+	 *             In case of I/O error.
+	 */
+	public void putRawEntry(ZipArchiveReader reader, ZipArchiveReader.Entry entry) throws ZipException, IOException {
+		checkDuplicate(entry.name);
+		CentralEntry ce = new CentralEntry(entry.nameBytes);
+		ce.versionMadeBy = entry.versionMadeBy;
+		ce.versionNeeded = entry.versionNeeded;
+		//the sizes and CRC are written in the local header, no data descriptor
+		ce.flags = entry.flags & ~ZipArchiveReader.FLAG_DATA_DESCRIPTOR;
+		ce.method = entry.method;
+		ce.dosTime = entry.dosTime;
+		ce.crc = entry.crc;
+		ce.compressedSize = entry.compressedSize;
+		ce.size = entry.size;
+		ce.internalAttributes = entry.internalAttributes;
+		ce.externalAttributes = entry.externalAttributes;
+		ce.extra = stripZip64Extra(entry.centralExtra);
+		ce.comment = entry.comment;
+
+		writeLocalHeader(ce, stripZip64Extra(reader.getLocalExtra(entry)));
+		reader.copyCompressedData(entry, countingOutput());
+	}
+
+	/**
+	 * Writes an entry with the given contents, in place of the specified entry of a source archive.
+	 * <p>
+	 * The modification time, and the attributes of the source entry are kept. The contents are compressed if the
+	 * source entry was compressed.
+	 *
+	 * @param entry
+	 *            The entry of the source archive.
+	 * @param bytes
+	 *            The contents.
+	 * @throws ZipException
+	 *             If an entry with the same name was already written.
+	 * @throws IOException
+	 *             In case of I/O error.
+	 */
+	public void putEntry(ZipArchiveReader.Entry entry, byte[] bytes) throws ZipException, IOException {
+		checkDuplicate(entry.name);
+		CentralEntry ce = new CentralEntry(entry.nameBytes);
+		ce.versionMadeBy = entry.versionMadeBy;
+		ce.flags = entry.flags & FLAG_UTF8;
+		ce.method = entry.method == ZipEntry.STORED ? ZipEntry.STORED : ZipEntry.DEFLATED;
+		ce.dosTime = entry.dosTime;
+		ce.internalAttributes = entry.internalAttributes;
+		ce.externalAttributes = entry.externalAttributes;
+		ce.extra = stripZip64Extra(entry.centralExtra);
+		ce.comment = entry.comment;
+		writeContents(ce, bytes);
+	}
+
+	/**
+	 * Writes an entry with the given contents.
+	 * <p>
+	 * The contents are stored if the {@linkplain ZipEntry#getMethod() method} of the entry is
+	 * {@link ZipEntry#STORED}, else they are compressed.
+	 *
+	 * @param zipentry
+	 *            The entry.
+	 * @param bytes
+	 *            The contents.
+	 * @throws ZipException
+	 *             If an entry with the same name was already written.
+	 * @throws IOException
+	 *             In case of I/O error.
+	 */
+	public void putEntry(ZipEntry zipentry, byte[] bytes) throws ZipException, IOException {
+		String name = zipentry.getName();
+		checkDuplicate(name);
+		CentralEntry ce = new CentralEntry(name.getBytes(StandardCharsets.UTF_8));
+		ce.versionMadeBy = VERSION_DEFAULT;
+		ce.flags = FLAG_UTF8;
+		ce.method = zipentry.getMethod() == ZipEntry.STORED ? ZipEntry.STORED : ZipEntry.DEFLATED;
+		long time = zipentry.getTime();
+		ce.dosTime = javaToDosTime(time == -1 ? System.currentTimeMillis() : time);
+		writeContents(ce, bytes);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			long cdoffset = offset;
+			for (CentralEntry ce : entries) {
+				writeCentralHeader(ce);
+			}
+			writeEndOfCentralDirectory(cdoffset, offset - cdoffset);
+			out.flush();
+		} finally {
+			deflater.end();
+			out.close();
+		}
+	}
+
+	private void checkDuplicate(String name) throws ZipException {
+		if (!entryNames.add(name)) {
+			throw new ZipException("Duplicate entry: " + name);
+		}
+	}
+
+	private void writeContents(CentralEntry ce, byte[] bytes) throws IOException {
+		crc.reset();
+		crc.update(bytes);
+		ce.crc = crc.getValue();
+		ce.size = bytes.length;
+		ce.versionNeeded = VERSION_DEFAULT;
+		if (ce.method == ZipEntry.STORED) {
+			ce.compressedSize = bytes.length;
+			writeLocalHeader(ce, ce.extra);
+			write(bytes, 0, bytes.length);
+			return;
+		}
+		compressBuffer.reset();
+		deflater.reset();
+		deflater.setInput(bytes);
+		deflater.finish();
+		while (!deflater.finished()) {
+			int len = deflater.deflate(deflateBuffer);
+			compressBuffer.write(deflateBuffer, 0, len);
+		}
+		ce.compressedSize = compressBuffer.size();
+		writeLocalHeader(ce, ce.extra);
+		compressBuffer.writeTo(countingOutput());
+	}
+
+	private void writeLocalHeader(CentralEntry ce, byte[] extra) throws IOException {
+		ce.localHeaderOffset = offset;
+		boolean zip64 = ce.size >= ZipArchiveReader.ZIP64_MAGIC_VALUE
+				|| ce.compressedSize >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+		int extralen = extra.length + (zip64 ? 4 + 16 : 0);
+		ByteBuffer buf = newBuffer(ZipArchiveReader.LOCAL_HEADER_SIZE + ce.nameBytes.length + extralen);
+		buf.putInt(ZipArchiveReader.LOCAL_HEADER_SIGNATURE);
+		buf.putShort((short) (zip64 ? Math.max(VERSION_ZIP64, ce.versionNeeded) : ce.versionNeeded));
+		buf.putShort((short) ce.flags);
+		buf.putShort((short) ce.method);
+		buf.putInt(ce.dosTime);
+		buf.putInt((int) ce.crc);
+		if (zip64) {
+			buf.putInt((int) ZipArchiveReader.ZIP64_MAGIC_VALUE);
+			buf.putInt((int) ZipArchiveReader.ZIP64_MAGIC_VALUE);
+		} else {
+			buf.putInt((int) ce.compressedSize);
+			buf.putInt((int) ce.size);
+		}
+		buf.putShort((short) ce.nameBytes.length);
+		buf.putShort((short) extralen);
+		buf.put(ce.nameBytes);
+		if (zip64) {
+			buf.putShort((short) ZipArchiveReader.ZIP64_EXTRA_FIELD_ID);
+			buf.putShort((short) 16);
+			buf.putLong(ce.size);
+			buf.putLong(ce.compressedSize);
+		}
+		buf.put(extra);
+		write(buf.array(), 0, buf.position());
+		entries.add(ce);
+	}
+
+	private void writeCentralHeader(CentralEntry ce) throws IOException {
+		boolean zip64size = ce.size >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+		boolean zip64csize = ce.compressedSize >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+		boolean zip64offset = ce.localHeaderOffset >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+		int zip64len = (zip64size ? 8 : 0) + (zip64csize ? 8 : 0) + (zip64offset ? 8 : 0);
+		boolean zip64 = zip64len > 0;
+		int extralen = ce.extra.length + (zip64 ? 4 + zip64len : 0);
+
+		ByteBuffer buf = newBuffer(
+				ZipArchiveReader.CENTRAL_HEADER_SIZE + ce.nameBytes.length + extralen + ce.comment.length);
+		buf.putInt(ZipArchiveReader.CENTRAL_HEADER_SIGNATURE);
+		buf.putShort((short) (zip64 ? Math.max(VERSION_ZIP64, ce.versionMadeBy & 0xFF) | (ce.versionMadeBy & 0xFF00)
+				: ce.versionMadeBy));
+		buf.putShort((short) (zip64 ? Math.max(VERSION_ZIP64, ce.versionNeeded) : ce.versionNeeded));
+		buf.putShort((short) ce.flags);
+		buf.putShort((short) ce.method);
+		buf.putInt(ce.dosTime);
+		buf.putInt((int) ce.crc);
+		buf.putInt((int) (zip64csize ? ZipArchiveReader.ZIP64_MAGIC_VALUE : ce.compressedSize));
+		buf.putInt((int) (zip64size ? ZipArchiveReader.ZIP64_MAGIC_VALUE : ce.size));
+		buf.putShort((short) ce.nameBytes.length);
+		buf.putShort((short) extralen);
+		buf.putShort((short) ce.comment.length);
+		//disk number
+		buf.putShort((short) 0);
+		buf.putShort((short) ce.internalAttributes);
+		buf.putInt(ce.externalAttributes);
+		buf.putInt((int) (zip64offset ? ZipArchiveReader.ZIP64_MAGIC_VALUE : ce.localHeaderOffset));
+		buf.put(ce.nameBytes);
+		if (zip64) {
+			buf.putShort((short) ZipArchiveReader.ZIP64_EXTRA_FIELD_ID);
+			buf.putShort((short) zip64len);
+			if (zip64size) {
+				buf.putLong(ce.size);
+			}
+			if (zip64csize) {
+				buf.putLong(ce.compressedSize);
+			}
+			if (zip64offset) {
+				buf.putLong(ce.localHeaderOffset);
+			}
+		}
+		buf.put(ce.extra);
+		buf.put(ce.comment);
+		write(buf.array(), 0, buf.position());
+	}
+
+	private void writeEndOfCentralDirectory(long cdoffset, long cdsize) throws IOException {
+		int count = entries.size();
+		boolean zip64 = count >= ZipArchiveReader.ZIP64_MAGIC_COUNT || cdoffset >= ZipArchiveReader.ZIP64_MAGIC_VALUE
+				|| cdsize >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+		if (zip64) {
+			long zip64eocdoffset = offset;
+			ByteBuffer buf = newBuffer(ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE
+					+ ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE);
+			buf.putInt(ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+			//size of the remaining record
+			buf.putLong(ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE - 12);
+			buf.putShort((short) VERSION_ZIP64);
+			buf.putShort((short) VERSION_ZIP64);
+			//disk numbers
+			buf.putInt(0);
+			buf.putInt(0);
+			buf.putLong(count);
+			buf.putLong(count);
+			buf.putLong(cdsize);
+			buf.putLong(cdoffset);
+
+			buf.putInt(ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+			buf.putInt(0);
+			buf.putLong(zip64eocdoffset);
+			//total number of disks
+			buf.putInt(1);
+			write(buf.array(), 0, buf.position());
+		}
+		ByteBuffer buf = newBuffer(ZipArchiveReader.END_OF_CENTRAL_DIRECTORY_SIZE);
+		buf.putInt(ZipArchiveReader.END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+		//disk numbers
+		buf.putShort((short) 0);
+		buf.putShort((short) 0);
+		buf.putShort((short) Math.min(count, ZipArchiveReader.ZIP64_MAGIC_COUNT));
+		buf.putShort((short) Math.min(count, ZipArchiveReader.ZIP64_MAGIC_COUNT));
+		buf.putInt((int) Math.min(cdsize, ZipArchiveReader.ZIP64_MAGIC_VALUE));
+		buf.putInt((int) Math.min(cdoffset, ZipArchiveReader.ZIP64_MAGIC_VALUE));
+		//comment length
+		buf.putShort((short) 0);
+		write(buf.array(), 0, buf.position());
+	}
+
+	private void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		offset += len;
+	}
+
+	private OutputStream countingOutput() {
+		return new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				++offset;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				ZipArchiveWriter.this.write(b, off, len);
+			}
+		};
+	}
+
+	private static ByteBuffer newBuffer(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static byte[] stripZip64Extra(byte[] extra) {
+		ByteBuffer in = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer result = null;
+		while (in.remaining() >= 4) {
+			int start = in.position();
+			int id = Short.toUnsignedInt(in.getShort());
+			int len = Short.toUnsignedInt(in.getShort());
+			if (len > in.remaining()) {
+				//malformed, keep the rest as is
+				in.position(start);
+				break;
+			}
+			if (id == ZipArchiveReader.ZIP64_EXTRA_FIELD_ID) {
+				if (result == null) {
+					result = newBuffer(extra.length);
+					result.put(extra, 0, start);
+				}
+			} else if (result != null) {
+				result.put(extra, start, 4 + len);
+			}
+			in.position(in.position() + len);
+		}
+		if (result == null) {
+			return extra;
+		}
+		result.put(extra, in.position(), in.remaining());
+		byte[] array = new byte[result.position()];
+		System.arraycopy(result.array(), 0, array, 0, array.length);
+		return array;
+	}
+
+	private static int javaToDosTime(long time) {
+		LocalDateTime ldt = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+		int year = ldt.getYear();
+		if (year < 1980) {
+			return MIN_DOS_TIME;
+		}
+		return (year - 1980) << 25 | ldt.getMonthValue() << 21 | ldt.getDayOfMonth() << 16 | ldt.getHour() << 11
+				| ldt.getMinute() << 5 | ldt.getSecond() >> 1;
+	}
+
+	private static final class CentralEntry {
+		protected final byte[] nameBytes;
+		protected int versionMadeBy;
+		protected int versionNeeded;
+		protected int flags;
+		protected int method;
+		protected int dosTime;
+		protected long crc;
+		protected long compressedSize;
+		protected long size;
+		protected int internalAttributes;
+		protected int externalAttributes;
+		protected long localHeaderOffset;
+		protected byte[] extra = {};
+		protected byte[] comment = {};
+
+		public CentralEntry(byte[] nameBytes) {
+			this.nameBytes = nameBytes;
+		}
+	}
+}
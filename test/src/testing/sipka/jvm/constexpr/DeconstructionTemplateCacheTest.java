@@ -0,0 +1,68 @@
+package testing.sipka.jvm.constexpr;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+
+import sipka.jvm.constexpr.tool.InlinerStatistics;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the deconstruction results of equal values are reused in different methods and classes, and that each
+ * location receives its own instructions.
+ */
+@SakerTest
+public class DeconstructionTemplateCacheTest extends SakerTestCase {
+	private static final String UUID_STRING = "f3d07547-bb76-4d25-9c23-d1ce6b6f4ab5";
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		InlinerOptions opts = TestUtils.createOptionsForClasses(First.class, Second.class);
+		InlinerStatistics[] stats = { null };
+		opts.setStatisticsListener(s -> stats[0] = s);
+
+		NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+		assertEquals(outputs.size(), 2);
+
+		ClassNode firstcn = outputs.get(First.class.getName().replace('.', '/') + ".class");
+		ClassNode secondcn = outputs.get(Second.class.getName().replace('.', '/') + ".class");
+		MethodNode[] methods = { TestUtils.getMethodNode(firstcn, "get", "()Ljava/util/UUID;"),
+				TestUtils.getMethodNode(firstcn, "getAgain", "()Ljava/util/UUID;"),
+				TestUtils.getMethodNode(secondcn, "get", "()Ljava/util/UUID;"), };
+		for (MethodNode mn : methods) {
+			assertFalse(TestUtils.isContainsInvokeStatic(mn, UUID.class, "fromString", String.class), mn.name);
+			assertTrue(TestUtils.isContainsInvokeConstructor(mn, UUID.class, long.class, long.class), mn.name);
+		}
+
+		Class<?> firstclass = TestUtils.loadClass(firstcn);
+		Class<?> secondclass = TestUtils.loadClass(secondcn);
+		UUID expected = UUID.fromString(UUID_STRING);
+		assertEquals(firstclass.getMethod("get").invoke(null), expected);
+		assertEquals(firstclass.getMethod("getAgain").invoke(null), expected);
+		assertEquals(secondclass.getMethod("get").invoke(null), expected);
+
+		assertNonNull(stats[0]);
+		assertTrue(stats[0].getDeconstructionCacheHitCount() >= 2, stats[0]);
+		assertTrue(stats[0].getDeconstructionCacheMissCount() >= 1, stats[0]);
+	}
+
+	public static class First {
+		public static UUID get() {
+			return UUID.fromString(UUID_STRING);
+		}
+
+		public static UUID getAgain() {
+			return UUID.fromString(UUID_STRING);
+		}
+	}
+
+	public static class Second {
+		public static UUID get() {
+			return UUID.fromString(UUID_STRING);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package testing.sipka.jvm.constexpr;
+
+import java.util.Map;
+import java.util.NavigableMap;
+
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that constants which depend on the static fields of other classes are inlined regardless of the order of the
+ * classes, and also when the classes depend on each other.
+ */
+@SakerTest
+public class DependencyOrderInlineTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		Class<?>[] classes = { AFirst.class, BSecond.class, CThird.class, CycleA.class, CycleB.class };
+		for (int parallelism : new int[] { 1, 4 }) {
+			InlinerOptions opts = TestUtils.createOptionsForClasses(classes);
+			opts.setParallelism(parallelism);
+			NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+			assertEquals(outputs.size(), classes.length);
+
+			for (Class<?> c : classes) {
+				ClassNode cn = outputs.get(c.getName().replace('.', '/') + ".class");
+				TestUtils.assertSameStaticFieldValues(cn, c);
+			}
+			for (Class<?> c : new Class<?>[] { AFirst.class, BSecond.class, CThird.class }) {
+				ClassNode cn = outputs.get(c.getName().replace('.', '/') + ".class");
+				assertNull(TestUtils.getClInitMethod(cn), "clinit method");
+			}
+		}
+	}
+
+	public static class AFirst {
+		public static final String VALUE = BSecond.VALUE + "a";
+		public static final int LENGTH = VALUE.length();
+	}
+
+	public static class BSecond {
+		public static final String VALUE = CThird.VALUE + "b";
+	}
+
+	public static class CThird {
+		public static final String VALUE = String.valueOf(123);
+	}
+
+	public static class CycleA {
+		public static final int FIRST = Integer.parseInt("10");
+		public static final int THIRD = CycleB.SECOND * 2;
+	}
+
+	public static class CycleB {
+		public static final int SECOND = CycleA.FIRST + 1;
+	}
+}
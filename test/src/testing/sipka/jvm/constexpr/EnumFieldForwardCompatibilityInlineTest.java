@@ -28,10 +28,8 @@ public class EnumFieldForwardCompatibilityInlineTest extends SakerTestCase {
 		}
 		{
 			NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(Failer.class);
-			assertEquals(outputs.size(), 1); // testing a single class
-
-			ClassNode classnode = outputs.firstEntry().getValue();
-			assertNull(TestUtils.getFields(classnode).get("T3").value, "T3");
+			//T3 is not inlined, so the class is unchanged and not part of the output
+			assertEquals(outputs.size(), 0);
 		}
 	}
 
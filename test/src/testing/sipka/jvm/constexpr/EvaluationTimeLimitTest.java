@@ -0,0 +1,83 @@
+package testing.sipka.jvm.constexpr;
+
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.tool.InlinerStatistics;
+import sipka.jvm.constexpr.tool.log.ReconstructionFailureLogEntry;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the evaluations that exceed the time limit are abandoned and reported as failures, while the other
+ * constants are still inlined.
+ */
+@SakerTest
+public class EvaluationTimeLimitTest extends SakerTestCase {
+	private static final long TIME_LIMIT_MILLIS = 200;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		InlinerOptions opts = TestUtils.createOptionsForClasses(Constants.class);
+		List<Member> inlinemethods = new ArrayList<>();
+		inlinemethods.add(ReflectUtils.getDeclaredMethodAssert(EvaluationTimeLimitTest.class, "slow", int.class));
+		inlinemethods.add(ReflectUtils.getDeclaredMethodAssert(EvaluationTimeLimitTest.class, "fast", int.class));
+		opts.setConstantReconstructors(TestUtils.allowAllMembers(inlinemethods));
+		opts.setEvaluationTimeLimit(TIME_LIMIT_MILLIS);
+		InlinerStatistics[] stats = { null };
+		opts.setStatisticsListener(s -> stats[0] = s);
+
+		long start = System.nanoTime();
+		NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+		long elapsedmillis = (System.nanoTime() - start) / 1_000_000;
+		//the slow method would sleep for a minute
+		assertTrue(elapsedmillis < 30_000, elapsedmillis);
+		assertEquals(outputs.size(), 1);
+
+		ClassNode classnode = outputs.firstEntry().getValue();
+		Map<String, FieldNode> fields = TestUtils.getFields(classnode);
+		assertEquals(fields.get("FAST").value, 2);
+		assertNull(fields.get("SLOW").value);
+		MethodNode clinit = TestUtils.getClInitMethod(classnode);
+		assertNonNull(clinit);
+		assertTrue(TestUtils.isContainsInvokeStatic(clinit, EvaluationTimeLimitTest.class, "slow", int.class));
+
+		Set<? extends ReconstructionFailureLogEntry> failures = ((TestCollectingLogger) opts.getLogger())
+				.getLogEntriesForType(ReconstructionFailureLogEntry.class);
+		assertEquals(failures.size(), 1, failures);
+		Throwable rootcause = failures.iterator().next().getRootCause();
+		assertTrue(rootcause instanceof TimeoutException, rootcause);
+
+		assertNonNull(stats[0]);
+		assertEquals(stats[0].getEvaluationTimeoutCount(), 1L);
+	}
+
+	public static int slow(int i) {
+		try {
+			Thread.sleep(60_000);
+		} catch (InterruptedException e) {
+			//interrupted by the watchdog
+			Thread.currentThread().interrupt();
+		}
+		return i;
+	}
+
+	public static int fast(int i) {
+		return i * 2;
+	}
+
+	public static class Constants {
+		public static final int SLOW = slow(1);
+		public static final int FAST = fast(1);
+	}
+}
@@ -0,0 +1,94 @@
+package testing.sipka.jvm.constexpr;
+
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.tool.InlinerStatistics;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the results of the invoked reconstructor members are memoized between the classes, and that the memo
+ * statistics are reported.
+ */
+@SakerTest
+public class InvocationResultMemoTest extends SakerTestCase {
+	private static int computeCallCount;
+	private static int charsCallCount;
+	private static int sumCallCount;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		computeCallCount = 0;
+		charsCallCount = 0;
+		sumCallCount = 0;
+
+		InlinerOptions opts = TestUtils.createOptionsForClasses(First.class, Second.class);
+		List<Member> inlinemethods = new ArrayList<>();
+		inlinemethods.add(ReflectUtils.getDeclaredMethodAssert(InvocationResultMemoTest.class, "compute",
+				String.class));
+		inlinemethods.add(ReflectUtils.getDeclaredMethodAssert(InvocationResultMemoTest.class, "chars", String.class));
+		inlinemethods.add(ReflectUtils.getDeclaredMethodAssert(InvocationResultMemoTest.class, "sum", int[].class));
+		opts.setConstantReconstructors(TestUtils.allowAllMembers(inlinemethods));
+		InlinerStatistics[] stats = { null };
+		opts.setStatisticsListener(s -> stats[0] = s);
+
+		NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+		assertEquals(outputs.size(), 2);
+		//invoked once for each different argument
+		assertEquals(computeCallCount, 2);
+		assertEquals(charsCallCount, 1);
+		//the primitive array arguments are compared by their contents
+		assertEquals(sumCallCount, 2);
+
+		for (Class<?> c : new Class<?>[] { First.class, Second.class }) {
+			ClassNode cn = outputs.get(c.getName().replace('.', '/') + ".class");
+			TestUtils.assertSameStaticFieldValues(cn, c);
+			assertNull(TestUtils.getClInitMethod(cn));
+		}
+
+		assertNonNull(stats[0]);
+		assertTrue(stats[0].getInvocationMemoHitCount() >= 3, stats[0]);
+		assertTrue(stats[0].getInvocationMemoMissCount() >= 2, stats[0]);
+	}
+
+	public static String compute(String s) {
+		++computeCallCount;
+		return s + s.length();
+	}
+
+	public static char[] chars(String s) {
+		++charsCallCount;
+		return s.toCharArray();
+	}
+
+	public static int sum(int[] values) {
+		++sumCallCount;
+		int result = 0;
+		for (int v : values) {
+			result += v;
+		}
+		return result;
+	}
+
+	public static class First {
+		public static final String COMPUTED = compute("abc");
+		public static final String COMPUTED_AGAIN = compute("abc");
+		public static final char CHAR = chars("xyz")[1];
+		public static final int SUM = sum(new int[] { 1, 2, 3 });
+	}
+
+	public static class Second {
+		public static final String COMPUTED = compute("abc");
+		public static final String OTHER = compute("other");
+		public static final char CHAR = chars("xyz")[2];
+		public static final int SUM = sum(new int[] { 1, 2, 3 });
+		public static final int OTHER_SUM = sum(new int[] { 1, 2, 4 });
+	}
+}
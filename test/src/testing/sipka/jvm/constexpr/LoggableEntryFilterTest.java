@@ -0,0 +1,76 @@
+package testing.sipka.jvm.constexpr;
+
+import java.lang.reflect.Member;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.tool.log.ForwardingToolLogger;
+import sipka.jvm.constexpr.tool.log.InstructionReplacementLogEntry;
+import sipka.jvm.constexpr.tool.log.LogEntry;
+import sipka.jvm.constexpr.tool.log.ReconstructionFailureLogEntry;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the inliner doesn't create the log entries that the logger doesn't want to receive.
+ */
+@SakerTest
+public class LoggableEntryFilterTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		InlinerOptions opts = TestUtils.createOptionsForClasses(Constants.class);
+		Member failmethod = ReflectUtils.getDeclaredMethodAssert(LoggableEntryFilterTest.class, "fail", int.class);
+		opts.setConstantReconstructors(TestUtils.allowAllMembers(Collections.singleton(failmethod)));
+		TestCollectingLogger collector = (TestCollectingLogger) opts.getLogger();
+		opts.setLogger(new FilteringLogger(collector));
+
+		NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+		assertEquals(outputs.size(), 1);
+		Map<String, FieldNode> fields = TestUtils.getFields(outputs.firstEntry().getValue());
+		assertEquals(fields.get("LENGTH").value, 3);
+		assertNull(fields.get("FAILED").value);
+
+		assertEmpty(collector.getLogEntriesForType(InstructionReplacementLogEntry.class));
+		assertEmpty(collector.getLogEntriesForType(ReconstructionFailureLogEntry.class));
+	}
+
+	public static int fail(int i) {
+		throw new UnsupportedOperationException();
+	}
+
+	private static final class FilteringLogger extends ForwardingToolLogger {
+		public FilteringLogger(TestCollectingLogger logger) {
+			super(logger);
+		}
+
+		@Override
+		public boolean isLoggable(Class<? extends LogEntry> entrytype) {
+			if (entrytype == InstructionReplacementLogEntry.class
+					|| entrytype == ReconstructionFailureLogEntry.class) {
+				return false;
+			}
+			return super.isLoggable(entrytype);
+		}
+
+		@Override
+		public void log(InstructionReplacementLogEntry logentry) {
+			throw new AssertionError("Not loggable entry created: " + logentry.getMessage());
+		}
+
+		@Override
+		public void log(ReconstructionFailureLogEntry logentry) {
+			throw new AssertionError("Not loggable entry created: " + logentry.getMessage());
+		}
+	}
+
+	public static class Constants {
+		public static final int LENGTH = "abc".length();
+		public static final int FAILED = fail(1);
+	}
+}
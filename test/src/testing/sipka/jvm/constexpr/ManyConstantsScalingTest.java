@@ -0,0 +1,126 @@
+package testing.sipka.jvm.constexpr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import sipka.jvm.constexpr.tool.ConstantExpressionInliner;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.options.ToolInput;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Opcodes;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.AbstractInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.InsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.LdcInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that a large number of constants are inlined to the classes that read them, while the classes that don't read
+ * them are left untouched.
+ */
+@SakerTest
+public class ManyConstantsScalingTest extends SakerTestCase {
+	private static final int CONSTANT_COUNT = 4000;
+	private static final int READER_COUNT = 20;
+	private static final int NON_READER_COUNT = 200;
+
+	private static final String CONSTANTS_CLASS_NAME = "testing/scaling/Constants";
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		Collection<ToolInput<?>> inputs = new ArrayList<>();
+		inputs.add(new TestToolInput(CONSTANTS_CLASS_NAME, TestUtils.toClassBytes(createConstantsClass())));
+		for (int i = 0; i < READER_COUNT; i++) {
+			String name = "testing/scaling/Reader" + i;
+			inputs.add(new TestToolInput(name, TestUtils.toClassBytes(createReaderClass(name, i))));
+		}
+		for (int i = 0; i < NON_READER_COUNT; i++) {
+			String name = "testing/scaling/NonReader" + i;
+			inputs.add(new TestToolInput(name, TestUtils.toClassBytes(createNonReaderClass(name))));
+		}
+
+		InlinerOptions opts = TestUtils.createOptionsForClasses();
+		opts.setInputs(inputs);
+		NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+		//the classes that don't read the constants are unchanged, and not part of the output
+		assertEquals(outputs.size(), 1 + READER_COUNT);
+		for (int i = 0; i < NON_READER_COUNT; i++) {
+			assertFalse(outputs.containsKey("testing/scaling/NonReader" + i));
+		}
+
+		ClassNode constantscn = outputs.get(CONSTANTS_CLASS_NAME);
+		assertNull(TestUtils.getClInitMethod(constantscn), "clinit method");
+		for (FieldNode fn : constantscn.fields) {
+			assertEquals(fn.value, String.valueOf(Integer.parseInt(fn.name.substring(1))));
+		}
+
+		for (int i = 0; i < READER_COUNT; i++) {
+			ClassNode readercn = outputs.get("testing/scaling/Reader" + i);
+			MethodNode mn = TestUtils.getMethodNode(readercn, "read", "()V");
+			TestUtils.assertNoOpcodeInMethod(mn, Opcodes.GETSTATIC);
+			int ldccount = 0;
+			for (AbstractInsnNode ins : mn.instructions) {
+				if (ins.getOpcode() == Opcodes.LDC) {
+					assertEquals(((LdcInsnNode) ins).cst, String.valueOf(ldccount * READER_COUNT + i));
+					++ldccount;
+				}
+			}
+			assertEquals(ldccount, CONSTANT_COUNT / READER_COUNT);
+		}
+	}
+
+	private static ClassNode createConstantsClass() {
+		ClassNode cn = createClassNode(CONSTANTS_CLASS_NAME);
+		MethodNode clinit = new MethodNode(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+		for (int i = 0; i < CONSTANT_COUNT; i++) {
+			cn.fields.add(new FieldNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "F" + i,
+					Type.getDescriptor(String.class), null, null));
+			clinit.instructions.add(new LdcInsnNode(i));
+			clinit.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Type.getInternalName(String.class),
+					"valueOf", "(I)Ljava/lang/String;"));
+			clinit.instructions.add(new FieldInsnNode(Opcodes.PUTSTATIC, CONSTANTS_CLASS_NAME, "F" + i,
+					Type.getDescriptor(String.class)));
+		}
+		clinit.instructions.add(new InsnNode(Opcodes.RETURN));
+		cn.methods.add(clinit);
+		return cn;
+	}
+
+	private static ClassNode createReaderClass(String name, int index) {
+		ClassNode cn = createClassNode(name);
+		MethodNode mn = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "read", "()V", null, null);
+		//each reader reads a distinct subset of the constants
+		for (int i = index; i < CONSTANT_COUNT; i += READER_COUNT) {
+			mn.instructions.add(new FieldInsnNode(Opcodes.GETSTATIC, CONSTANTS_CLASS_NAME, "F" + i,
+					Type.getDescriptor(String.class)));
+			mn.instructions.add(new InsnNode(Opcodes.POP));
+		}
+		mn.instructions.add(new InsnNode(Opcodes.RETURN));
+		cn.methods.add(mn);
+		return cn;
+	}
+
+	private static ClassNode createNonReaderClass(String name) {
+		ClassNode cn = createClassNode(name);
+		MethodNode mn = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+		mn.instructions.add(new InsnNode(Opcodes.RETURN));
+		cn.methods.add(mn);
+		return cn;
+	}
+
+	private static ClassNode createClassNode(String name) {
+		ClassNode cn = new ClassNode(ConstantExpressionInliner.ASM_API);
+		cn.version = Opcodes.V1_8;
+		cn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER;
+		cn.name = name;
+		cn.superName = Type.getInternalName(Object.class);
+		return cn;
+	}
+}
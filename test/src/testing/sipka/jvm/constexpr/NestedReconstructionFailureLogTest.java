@@ -0,0 +1,68 @@
+package testing.sipka.jvm.constexpr;
+
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.tool.log.ArgumentLogContextInfo;
+import sipka.jvm.constexpr.tool.log.LogContextInfo;
+import sipka.jvm.constexpr.tool.log.MethodInvocationFailureContextInfo;
+import sipka.jvm.constexpr.tool.log.ReconstructionFailureLogEntry;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that a failure in a nested argument is reported with the context of the outermost invocation, even though the
+ * argument instructions are visited first on their own when the instructions of the method are inlined.
+ */
+@SakerTest
+public class NestedReconstructionFailureLogTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		InlinerOptions opts = TestUtils.createOptionsForClasses(Constants.class);
+		List<Member> inlinemethods = new ArrayList<>();
+		inlinemethods.add(
+				ReflectUtils.getDeclaredMethodAssert(NestedReconstructionFailureLogTest.class, "fail", int.class));
+		inlinemethods.add(
+				ReflectUtils.getDeclaredMethodAssert(NestedReconstructionFailureLogTest.class, "wrap", int.class));
+		opts.setConstantReconstructors(TestUtils.allowAllMembers(inlinemethods));
+		TestUtils.performInlining(opts);
+
+		Set<? extends ReconstructionFailureLogEntry> failures = ((TestCollectingLogger) opts.getLogger())
+				.getLogEntriesForType(ReconstructionFailureLogEntry.class);
+		assertEquals(failures.size(), 1, failures);
+		ReconstructionFailureLogEntry entry = failures.iterator().next();
+		assertTrue(entry.getRootCause() instanceof IllegalArgumentException, entry.getRootCause());
+
+		List<LogContextInfo> contextstack = entry.getContextStack();
+		//the failing invocation, in the argument of the inner wrap call, in the argument of the outer wrap call
+		assertTrue(contextstack.get(contextstack.size() - 1) instanceof MethodInvocationFailureContextInfo,
+				contextstack);
+		int argumentcontexts = 0;
+		for (LogContextInfo info : contextstack) {
+			if (info instanceof ArgumentLogContextInfo) {
+				++argumentcontexts;
+			}
+		}
+		assertEquals(argumentcontexts, 2, contextstack);
+	}
+
+	public static int fail(int i) {
+		throw new IllegalArgumentException(Integer.toString(i));
+	}
+
+	public static int wrap(int i) {
+		return i * 2;
+	}
+
+	public static class Constants {
+		public static int value() {
+			return wrap(wrap(fail(1)));
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package testing.sipka.jvm.constexpr;
+
+import java.io.IOException;
+import java.lang.reflect.Member;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.stream.Stream;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the results which depend on the timing of the run are not cached, and that the cache is not used if the
+ * configuration cannot be identified.
+ */
+@SakerTest
+public class OptimizationCacheExclusionTest extends SakerTestCase {
+	private static final long SLOW_VALUE_MILLIS = 500;
+
+	private Path cacheDirectory;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		cacheDirectory = Paths.get(parameters.get("TestsBaseBuildDirectory")).resolve(getClass().getSimpleName());
+
+		//the evaluation times out, so neither the class, nor its referencing class are cached
+		deleteRecursively(cacheDirectory);
+		InlinerOptions opts = createOptions();
+		opts.setEvaluationTimeLimit(SLOW_VALUE_MILLIS / 10);
+		assertNotOptimized(TestUtils.performInliningClassNodes(opts));
+		assertOptimized(TestUtils.performInliningClassNodes(createOptions()));
+
+		//the time budget runs out after the first level, so the skipped referencing class is not cached
+		deleteRecursively(cacheDirectory);
+		opts = createOptions();
+		opts.setTimeBudget(SLOW_VALUE_MILLIS / 10);
+		NavigableMap<String, ClassNode> budgetoutputs = TestUtils.performInliningClassNodes(opts);
+		assertNull(budgetoutputs.get(Type.getInternalName(Reader.class) + ".class"));
+		assertOptimized(TestUtils.performInliningClassNodes(createOptions()));
+
+		//a predicate without cache identity disables the cache
+		deleteRecursively(cacheDirectory);
+		opts = createOptions();
+		Member slowmethod = ReflectUtils.getDeclaredMethodAssert(OptimizationCacheExclusionTest.class, "slowValue",
+				int.class);
+		opts.getConstantReconstructors().put(slowmethod, (obj, member, arguments) -> true);
+		assertOptimized(TestUtils.performInliningClassNodes(opts));
+		assertFalse(Files.exists(cacheDirectory));
+	}
+
+	private InlinerOptions createOptions() throws NoSuchMethodException {
+		InlinerOptions opts = TestUtils.createOptionsForClasses(Slow.class, Reader.class);
+		Member slowmethod = ReflectUtils.getDeclaredMethodAssert(OptimizationCacheExclusionTest.class, "slowValue",
+				int.class);
+		opts.setConstantReconstructors(TestUtils.allowAllMembers(Collections.singleton(slowmethod)));
+		opts.setCacheDirectory(cacheDirectory);
+		return opts;
+	}
+
+	private static void assertNotOptimized(NavigableMap<String, ClassNode> outputs) {
+		ClassNode slowcn = outputs.get(Type.getInternalName(Slow.class) + ".class");
+		ClassNode readercn = outputs.get(Type.getInternalName(Reader.class) + ".class");
+		assertTrue(slowcn == null || TestUtils.isContainsInvokeStatic(TestUtils.getClInitMethod(slowcn),
+				OptimizationCacheExclusionTest.class, "slowValue", int.class));
+		assertTrue(readercn == null || TestUtils.getClInitMethod(readercn) != null);
+	}
+
+	private static void assertOptimized(NavigableMap<String, ClassNode> outputs) {
+		ClassNode slowcn = outputs.get(Type.getInternalName(Slow.class) + ".class");
+		ClassNode readercn = outputs.get(Type.getInternalName(Reader.class) + ".class");
+		assertNonNull(slowcn);
+		assertNonNull(readercn);
+		assertNull(TestUtils.getClInitMethod(slowcn), "clinit method");
+		assertNull(TestUtils.getClInitMethod(readercn), "clinit method");
+		assertEquals(TestUtils.getFields(readercn).get("DOUBLED").value, 6);
+	}
+
+	public static int slowValue(int i) {
+		try {
+			Thread.sleep(SLOW_VALUE_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return i;
+	}
+
+	private static void deleteRecursively(Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (Stream<Path> walkstream = Files.walk(path)) {
+			for (Path p : (Iterable<Path>) walkstream.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(p);
+			}
+		}
+	}
+
+	public static class Slow {
+		public static final int VALUE = slowValue(3);
+	}
+
+	public static class Reader {
+		public static final int DOUBLED = Slow.VALUE * 2;
+	}
+}
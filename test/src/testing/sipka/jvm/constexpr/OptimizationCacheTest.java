@@ -0,0 +1,170 @@
+package testing.sipka.jvm.constexpr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.stream.Stream;
+
+import sipka.jvm.constexpr.tool.ConstantExpressionInliner;
+import sipka.jvm.constexpr.tool.log.LogEntry;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.options.ToolInput;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Opcodes;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.InsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.LdcInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the optimization results are reused from the cache directory, and they are invalidated when the input
+ * classes that they depend on change.
+ */
+@SakerTest
+public class OptimizationCacheTest extends SakerTestCase {
+	private static final String CONSTANTS_CLASS_NAME = "testing/cache/Constants";
+	private static final String READER_CLASS_NAME = "testing/cache/Reader";
+	private static final String UNRELATED_CLASS_NAME = "testing/cache/Unrelated";
+
+	private Path cacheDirectory;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		cacheDirectory = Paths.get(parameters.get("TestsBaseBuildDirectory")).resolve(getClass().getSimpleName());
+		deleteRecursively(cacheDirectory);
+
+		TestCollectingLogger logger = new TestCollectingLogger();
+		NavigableMap<String, byte[]> firstoutputs = runInlining(123, logger, null);
+		assertEquals(firstoutputs.size(), 3);
+		assertFalse(logger.getLogEntries().isEmpty());
+		assertFieldValue(firstoutputs, CONSTANTS_CLASS_NAME, "VALUE", "123");
+		assertFieldValue(firstoutputs, READER_CLASS_NAME, "LENGTH", 3);
+		assertFieldValue(firstoutputs, UNRELATED_CLASS_NAME, "VALUE", "5");
+
+		//nothing changed, everything is served from the cache
+		logger = new TestCollectingLogger();
+		NavigableMap<String, byte[]> cachedoutputs = runInlining(123, logger, null);
+		assertEquals(cachedoutputs.keySet(), firstoutputs.keySet());
+		for (String name : firstoutputs.keySet()) {
+			assertTrue(Arrays.equals(cachedoutputs.get(name), firstoutputs.get(name)), name);
+		}
+		assertTrue(logger.getLogEntries().isEmpty(), logger.getLogEntries().toString());
+
+		//the reader class is reprocessed, as the constants class changed
+		logger = new TestCollectingLogger();
+		NavigableMap<String, byte[]> changedoutputs = runInlining(4567, logger, null);
+		assertFieldValue(changedoutputs, CONSTANTS_CLASS_NAME, "VALUE", "4567");
+		assertFieldValue(changedoutputs, READER_CLASS_NAME, "LENGTH", 4);
+		assertTrue(Arrays.equals(changedoutputs.get(UNRELATED_CLASS_NAME),
+				firstoutputs.get(UNRELATED_CLASS_NAME)));
+		assertFalse(logger.getLogEntries().isEmpty());
+		for (LogEntry entry : logger.getLogEntries()) {
+			assertFalse(entry.getMessage().contains("Unrelated"), entry.getMessage());
+		}
+
+		//different cache key, all classes are processed again
+		logger = new TestCollectingLogger();
+		NavigableMap<String, byte[]> keyedoutputs = runInlining(4567, logger, "other-key");
+		assertFieldValue(keyedoutputs, UNRELATED_CLASS_NAME, "VALUE", "5");
+		assertTrue(logger.getLogEntries().stream().anyMatch(e -> e.getMessage().contains("Unrelated")));
+	}
+
+	private NavigableMap<String, byte[]> runInlining(int constantvalue, TestCollectingLogger logger, String cachekey)
+			throws IOException {
+		Collection<ToolInput<?>> inputs = new ArrayList<>();
+		inputs.add(new TestToolInput(CONSTANTS_CLASS_NAME, TestUtils.toClassBytes(createConstantsClass(constantvalue))));
+		inputs.add(new TestToolInput(READER_CLASS_NAME, TestUtils.toClassBytes(createReaderClass())));
+		inputs.add(new TestToolInput(UNRELATED_CLASS_NAME, TestUtils.toClassBytes(createUnrelatedClass())));
+
+		InlinerOptions opts = TestUtils.createOptionsForClasses();
+		opts.setLogger(logger);
+		opts.setInputs(inputs);
+		opts.setCacheDirectory(cacheDirectory);
+		opts.setCacheKey(cachekey);
+		return TestUtils.performInlining(opts);
+	}
+
+	private static void assertFieldValue(NavigableMap<String, byte[]> outputs, String classname, String fieldname,
+			Object value) {
+		ClassNode cn = TestUtils.bytesToClassNodes(outputs).get(classname);
+		assertNull(TestUtils.getClInitMethod(cn), "clinit method");
+		assertEquals(TestUtils.getFields(cn).get(fieldname).value, value);
+	}
+
+	private static ClassNode createConstantsClass(int constantvalue) {
+		ClassNode cn = createClassNode(CONSTANTS_CLASS_NAME);
+		cn.fields.add(new FieldNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "VALUE",
+				Type.getDescriptor(String.class), null, null));
+		MethodNode clinit = new MethodNode(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+		clinit.instructions.add(new LdcInsnNode(constantvalue));
+		clinit.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Type.getInternalName(String.class),
+				"valueOf", "(I)Ljava/lang/String;"));
+		clinit.instructions.add(new FieldInsnNode(Opcodes.PUTSTATIC, CONSTANTS_CLASS_NAME, "VALUE",
+				Type.getDescriptor(String.class)));
+		clinit.instructions.add(new InsnNode(Opcodes.RETURN));
+		cn.methods.add(clinit);
+		return cn;
+	}
+
+	private static ClassNode createReaderClass() {
+		ClassNode cn = createClassNode(READER_CLASS_NAME);
+		cn.fields.add(new FieldNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "LENGTH", "I", null,
+				null));
+		MethodNode clinit = new MethodNode(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+		clinit.instructions.add(new FieldInsnNode(Opcodes.GETSTATIC, CONSTANTS_CLASS_NAME, "VALUE",
+				Type.getDescriptor(String.class)));
+		clinit.instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, Type.getInternalName(String.class),
+				"length", "()I"));
+		clinit.instructions.add(new FieldInsnNode(Opcodes.PUTSTATIC, READER_CLASS_NAME, "LENGTH", "I"));
+		clinit.instructions.add(new InsnNode(Opcodes.RETURN));
+		cn.methods.add(clinit);
+		return cn;
+	}
+
+	private static ClassNode createUnrelatedClass() {
+		ClassNode cn = createClassNode(UNRELATED_CLASS_NAME);
+		cn.fields.add(new FieldNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "VALUE",
+				Type.getDescriptor(String.class), null, null));
+		MethodNode clinit = new MethodNode(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+		clinit.instructions.add(new LdcInsnNode(5));
+		clinit.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Type.getInternalName(String.class),
+				"valueOf", "(I)Ljava/lang/String;"));
+		clinit.instructions.add(new FieldInsnNode(Opcodes.PUTSTATIC, UNRELATED_CLASS_NAME, "VALUE",
+				Type.getDescriptor(String.class)));
+		clinit.instructions.add(new InsnNode(Opcodes.RETURN));
+		cn.methods.add(clinit);
+		return cn;
+	}
+
+	private static ClassNode createClassNode(String name) {
+		ClassNode cn = new ClassNode(ConstantExpressionInliner.ASM_API);
+		cn.version = Opcodes.V1_8;
+		cn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER;
+		cn.name = name;
+		cn.superName = Type.getInternalName(Object.class);
+		return cn;
+	}
+
+	private static void deleteRecursively(Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (Stream<Path> walkstream = Files.walk(path)) {
+			for (Path p : (Iterable<Path>) walkstream.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(p);
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package testing.sipka.jvm.constexpr;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the inputs loaded with parallelism produce the same output as the sequential loading, and that duplicate
+ * input classes are still detected.
+ */
+@SakerTest
+public class ParallelInputLoadingTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		Class<?>[] classes = { FirstConstants.class, SecondConstants.class, ThirdConstants.class, User.class };
+
+		NavigableMap<String, byte[]> sequentialoutputs = TestUtils.performInlining(classes);
+
+		InlinerOptions paropts = TestUtils.createOptionsForClasses(classes);
+		paropts.setParallelism(4);
+		NavigableMap<String, byte[]> paralleloutputs = TestUtils.performInlining(paropts);
+
+		assertEquals(paralleloutputs.keySet(), sequentialoutputs.keySet());
+		for (Entry<String, byte[]> entry : sequentialoutputs.entrySet()) {
+			assertTrue(Arrays.equals(entry.getValue(), paralleloutputs.get(entry.getKey())), entry.getKey());
+		}
+
+		NavigableMap<String, ClassNode> classnodes = TestUtils.bytesToClassNodes(paralleloutputs);
+		ClassNode userclassnode = classnodes.get(User.class.getName().replace('.', '/') + ".class");
+		TestUtils.assertSameStaticFieldValues(userclassnode, User.class);
+
+		InlinerOptions dupopts = TestUtils.createOptionsForClasses(FirstConstants.class, SecondConstants.class,
+				FirstConstants.class);
+		dupopts.setParallelism(4);
+		assertException(IllegalArgumentException.class, () -> TestUtils.performInlining(dupopts));
+
+		assertException(IllegalArgumentException.class, () -> new InlinerOptions().setParallelism(0));
+	}
+
+	public static class FirstConstants {
+		public static final int VALUE;
+		public static final String STR;
+		static {
+			VALUE = 123;
+			STR = "first";
+		}
+	}
+
+	public static class SecondConstants {
+		public static final long VALUE;
+		static {
+			VALUE = 456L;
+		}
+	}
+
+	public static class ThirdConstants {
+		public static final String STR;
+		static {
+			STR = String.valueOf(789);
+		}
+	}
+
+	public static class User {
+		public static final String COMBINED = FirstConstants.STR + ThirdConstants.STR;
+		public static final long SUM = FirstConstants.VALUE + SecondConstants.VALUE;
+	}
+}
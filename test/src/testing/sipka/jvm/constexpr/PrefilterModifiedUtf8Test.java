@@ -0,0 +1,52 @@
+package testing.sipka.jvm.constexpr;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.tool.ConstantExpressionInliner;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassReader;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the prefilter finds the searched constant pool strings that are encoded differently in the modified UTF-8
+ * encoding of the class files than in standard UTF-8.
+ */
+@SakerTest
+public class PrefilterModifiedUtf8Test extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		//rename the annotation so it contains a supplementary character, which is encoded as a surrogate pair
+		//the class is modified in memory, as such names may not be usable as file names
+		String annotinternalname = Type.getInternalName(Marker.class) + "\uD835\uDC9C";
+		ClassNode cn = new ClassNode(ConstantExpressionInliner.ASM_API);
+		new ClassReader(ReflectUtils.getClassBytesUsingClassLoader(Annotated.class).copyOptionally()).accept(cn, 0);
+		assertEquals(cn.invisibleAnnotations.size(), 1);
+		cn.invisibleAnnotations.get(0).desc = "L" + annotinternalname + ";";
+
+		InlinerOptions opts = TestUtils.createOptionsForClasses();
+		opts.setInputs(Collections.singleton(new TestToolInput(cn.name + ".class", TestUtils.toClassBytes(cn))));
+		opts.setStripAnnotations(Collections.singleton(annotinternalname));
+
+		NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+		assertEquals(outputs.size(), 1);
+		assertNull(outputs.firstEntry().getValue().invisibleAnnotations);
+	}
+
+	@Retention(RetentionPolicy.CLASS)
+	public @interface Marker {
+	}
+
+	@Marker
+	public static class Annotated {
+		public int value;
+	}
+}
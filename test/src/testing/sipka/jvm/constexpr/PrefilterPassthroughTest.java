@@ -0,0 +1,72 @@
+package testing.sipka.jvm.constexpr;
+
+import java.util.Map;
+import java.util.NavigableMap;
+
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the classes without optimization opportunities are left untouched, while the classes which fields are read
+ * by the optimized classes are still processed.
+ */
+@SakerTest
+public class PrefilterPassthroughTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		Class<?>[] classes = { Data.class, Constants.class, Reader.class };
+		InlinerOptions opts = TestUtils.createOptionsForClasses(classes);
+		NavigableMap<String, byte[]> outputs = TestUtils.performInlining(opts);
+		//the data class is unchanged, so it is not part of the output
+		assertEquals(outputs.size(), 2);
+		assertFalse(outputs.containsKey(getPath(Data.class)));
+
+		NavigableMap<String, ClassNode> classnodes = TestUtils.bytesToClassNodes(outputs);
+		ClassNode constantscn = classnodes.get(getPath(Constants.class));
+		TestUtils.assertSameStaticFieldValues(constantscn, Constants.class);
+		assertNull(TestUtils.getClInitMethod(constantscn), "clinit method");
+
+		ClassNode readercn = classnodes.get(getPath(Reader.class));
+		TestUtils.assertSameStaticFieldValues(readercn, Reader.class);
+		assertNull(TestUtils.getClInitMethod(readercn), "clinit method");
+	}
+
+	private static String getPath(Class<?> c) {
+		return c.getName().replace('.', '/') + ".class";
+	}
+
+	public static class Data {
+		private int value;
+		private Data next;
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+
+		public int sum() {
+			int result = 0;
+			for (Data d = this; d != null; d = d.next) {
+				result += d.value;
+			}
+			return result;
+		}
+	}
+
+	public static class Constants {
+		public static final int VALUE;
+		static {
+			VALUE = 123;
+		}
+	}
+
+	public static class Reader {
+		public static final int DOUBLED = Constants.VALUE * 2;
+	}
+}
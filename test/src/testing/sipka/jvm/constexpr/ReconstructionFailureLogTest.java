@@ -0,0 +1,85 @@
+package testing.sipka.jvm.constexpr;
+
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.tool.log.LogContextInfo;
+import sipka.jvm.constexpr.tool.log.ReconstructionFailureLogEntry;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the reconstruction failures are reported once per root cause with their full context, and that the
+ * inlining works the same without a logger.
+ */
+@SakerTest
+public class ReconstructionFailureLogTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		InlinerOptions opts = createOptions();
+		ClassNode classnode = performInlining(opts);
+
+		List<ReconstructionFailureLogEntry> failures = new ArrayList<>(((TestCollectingLogger) opts.getLogger())
+				.getLogEntriesForType(ReconstructionFailureLogEntry.class));
+		assertEquals(failures.size(), 2, failures);
+		for (ReconstructionFailureLogEntry entry : failures) {
+			Throwable rootcause = entry.getRootCause();
+			assertTrue(rootcause instanceof IllegalArgumentException, rootcause);
+			List<LogContextInfo> contextstack = entry.getContextStack();
+			if (rootcause.getMessage().equals("1")) {
+				//the argument of wrap(int) is reported with the invocation
+				assertTrue(contextstack.size() > 1, contextstack);
+			}
+		}
+
+		opts = createOptions();
+		opts.setLogger(null);
+		ClassNode nologgerclassnode = performInlining(opts);
+		assertEquals(TestUtils.getFields(nologgerclassnode).get("VALUE").value,
+				TestUtils.getFields(classnode).get("VALUE").value);
+	}
+
+	private static InlinerOptions createOptions() throws NoSuchMethodException {
+		InlinerOptions opts = TestUtils.createOptionsForClasses(Constants.class);
+		List<Member> inlinemethods = new ArrayList<>();
+		inlinemethods.add(ReflectUtils.getDeclaredMethodAssert(ReconstructionFailureLogTest.class, "fail", int.class));
+		inlinemethods.add(ReflectUtils.getDeclaredMethodAssert(ReconstructionFailureLogTest.class, "wrap", int.class));
+		opts.setConstantReconstructors(TestUtils.allowAllMembers(inlinemethods));
+		return opts;
+	}
+
+	private static ClassNode performInlining(InlinerOptions opts) throws Throwable {
+		NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+		assertEquals(outputs.size(), 1);
+		ClassNode classnode = outputs.firstEntry().getValue();
+		Map<String, FieldNode> fields = TestUtils.getFields(classnode);
+		assertEquals(fields.get("CONSTANT").value, 6);
+		assertNull(fields.get("VALUE").value);
+		MethodNode clinit = TestUtils.getClInitMethod(classnode);
+		assertTrue(TestUtils.isContainsInvokeStatic(clinit, ReconstructionFailureLogTest.class, "fail", int.class));
+		return classnode;
+	}
+
+	public static int fail(int i) {
+		throw new IllegalArgumentException(Integer.toString(i));
+	}
+
+	public static int wrap(int i) {
+		return i * 2;
+	}
+
+	public static class Constants {
+		public static final int VALUE = wrap(fail(1));
+		public static final int OTHER = fail(2);
+		public static final int CONSTANT = wrap(3);
+	}
+}
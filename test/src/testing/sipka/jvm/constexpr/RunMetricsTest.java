@@ -0,0 +1,76 @@
+package testing.sipka.jvm.constexpr;
+
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.tool.InlinerStatistics;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the per-phase times and the work counts of the run are reported in the statistics.
+ */
+@SakerTest
+public class RunMetricsTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		InlinerOptions opts = TestUtils.createOptionsForClasses(First.class, Second.class);
+		List<Member> inlinemethods = new ArrayList<>();
+		inlinemethods.add(ReflectUtils.getDeclaredMethodAssert(RunMetricsTest.class, "twice", int.class));
+		inlinemethods.add(ReflectUtils.getDeclaredMethodAssert(RunMetricsTest.class, "fail", int.class));
+		opts.setConstantReconstructors(TestUtils.allowAllMembers(inlinemethods));
+		InlinerStatistics[] statsholder = { null };
+		opts.setStatisticsListener(s -> statsholder[0] = s);
+
+		NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+		assertEquals(outputs.size(), 2);
+		InlinerStatistics stats = statsholder[0];
+		assertNonNull(stats);
+
+		assertEquals(stats.getInputClassCount(), 2L, stats);
+		assertEquals(stats.getProcessedClassCount(), 2L, stats);
+		assertTrue(stats.getVisitedMethodCount() >= 2, stats);
+		assertTrue(stats.getVisitedInstructionCount() > stats.getVisitedMethodCount(), stats);
+		//the fail(int) reconstruction doesn't succeed
+		assertTrue(stats.getReconstructionAttemptCount() > stats.getReconstructionSuccessCount(), stats);
+		assertTrue(stats.getReconstructionSuccessCount() > 0, stats);
+		assertTrue(stats.getMemberInvocationCount() >= 3, stats);
+
+		assertTrue(stats.getConfigurationTimeNanos() >= 0, stats);
+		assertTrue(stats.getInputReadingTimeNanos() >= 0, stats);
+		assertTrue(stats.getParsingTimeNanos() >= 0, stats);
+		assertTrue(stats.getWritingTimeNanos() >= 0, stats);
+		assertTrue(stats.getDeconstructionTimeNanos() >= 0, stats);
+		assertFalse(stats.getProcessingLevelTimeNanos().isEmpty(), stats);
+		long levelsum = 0;
+		for (Long leveltime : stats.getProcessingLevelTimeNanos()) {
+			assertTrue(leveltime >= 0, stats);
+			levelsum += leveltime;
+		}
+		assertTrue(stats.getProcessingTimeNanos() >= levelsum, stats);
+	}
+
+	public static int twice(int i) {
+		return i * 2;
+	}
+
+	public static int fail(int i) {
+		throw new IllegalArgumentException(Integer.toString(i));
+	}
+
+	public static class First {
+		public static final int VALUE = twice(1);
+		public static final int FAILED = fail(1);
+	}
+
+	public static class Second {
+		public static final int VALUE = twice(First.VALUE) + twice(3);
+	}
+}
@@ -0,0 +1,85 @@
+package testing.sipka.jvm.constexpr;
+
+import java.lang.reflect.Member;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.tool.InlinerStatistics;
+import sipka.jvm.constexpr.tool.log.TimeBudgetExceededLogEntry;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the inliner stops when the time budget runs out, processes the priority classes first, and reports the
+ * classes that weren't optimized.
+ */
+@SakerTest
+public class TimeBudgetTest extends SakerTestCase {
+	private static final long TIME_BUDGET_MILLIS = 500;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		InlinerOptions opts = TestUtils.createOptionsForClasses(First.class, Second.class, Third.class);
+		Member slowmethod = ReflectUtils.getDeclaredMethodAssert(TimeBudgetTest.class, "slowValue", int.class);
+		opts.setConstantReconstructors(TestUtils.allowAllMembers(Collections.singleton(slowmethod)));
+		opts.setTimeBudget(TIME_BUDGET_MILLIS);
+		opts.setPriorityClasses(Collections.singleton(Type.getInternalName(Second.class)));
+		InlinerStatistics[] stats = { null };
+		opts.setStatisticsListener(s -> stats[0] = s);
+
+		NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
+
+		//the priority class is processed first, and the slow call exceeds the budget
+		ClassNode secondcn = outputs.get(Type.getInternalName(Second.class) + ".class");
+		assertNonNull(secondcn);
+		assertFalse(containsSlowValueCall(secondcn));
+		//the others are not modified
+		assertNull(outputs.get(Type.getInternalName(First.class) + ".class"));
+		assertNull(outputs.get(Type.getInternalName(Third.class) + ".class"));
+
+		Set<? extends TimeBudgetExceededLogEntry> entries = ((TestCollectingLogger) opts.getLogger())
+				.getLogEntriesForType(TimeBudgetExceededLogEntry.class);
+		assertEquals(entries.size(), 1);
+		TimeBudgetExceededLogEntry entry = entries.iterator().next();
+		assertEquals(entry.getTimeBudget(), TIME_BUDGET_MILLIS);
+		Set<String> skipped = new TreeSet<>(entry.getSkippedClassInternalNames());
+		assertTrue(skipped.contains(Type.getInternalName(First.class)), skipped);
+		assertTrue(skipped.contains(Type.getInternalName(Third.class)), skipped);
+
+		assertNonNull(stats[0]);
+		assertEquals(stats[0].getTimeBudgetSkippedClassCount(), (long) skipped.size());
+	}
+
+	private static boolean containsSlowValueCall(ClassNode cn) {
+		return TestUtils.isContainsInvokeStatic(TestUtils.getClInitMethod(cn), TimeBudgetTest.class, "slowValue",
+				int.class);
+	}
+
+	public static int slowValue(int i) {
+		try {
+			Thread.sleep(TIME_BUDGET_MILLIS * 2);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return i;
+	}
+
+	public static class First {
+		public static final int VALUE = slowValue(1);
+	}
+
+	public static class Second {
+		public static final int VALUE = slowValue(2);
+	}
+
+	public static class Third {
+		public static final int VALUE = slowValue(3);
+	}
+}
@@ -12,7 +12,6 @@ import sipka.jvm.constexpr.tool.log.IndeterministicToStringLogEntry;
 import sipka.jvm.constexpr.tool.options.InlinerOptions;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
-import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldNode;
 import testing.saker.SakerTest;
 import testing.saker.SakerTestCase;
 
@@ -54,12 +53,8 @@ public class ToStringInlineTest extends SakerTestCase {
 			opts.setConstantReconstructors(
 					TestUtils.allowAllMembers(Arrays.asList(MyNonConstantType.class.getConstructor())));
 			NavigableMap<String, ClassNode> outputs = TestUtils.performInliningClassNodes(opts);
-			assertEquals(outputs.size(), 1); // testing a single class
-
-			ClassNode classnode = outputs.firstEntry().getValue();
-			for (FieldNode fn : TestUtils.getFields(classnode).values()) {
-				assertNull(fn.value);
-			}
+			//nothing is inlined, so the class is unchanged and not part of the output
+			assertEquals(outputs.size(), 0);
 		}
 	}
 
@@ -0,0 +1,126 @@
+package testing.sipka.jvm.constexpr;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import sipka.jvm.constexpr.tool.ConstantExpressionInliner;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassReader;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Opcodes;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.AbstractInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FrameNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.InsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.JumpInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.LabelNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.LdcInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.VarInsnNode;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the methods that are not modified are copied verbatim to the output, while the modified ones are
+ * rewritten.
+ * <p>
+ * The input methods contain full stack map frames where a more compact frame would suffice. The frames of the copied
+ * methods are unchanged, while the frames of the rewritten methods are compressed by ASM.
+ */
+@SakerTest
+public class UnchangedMethodPassthroughTest extends SakerTestCase {
+	private static final String CLASS_NAME = "testing/passthrough/Mixed";
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		InlinerOptions opts = TestUtils.createOptionsForClasses();
+		opts.setInputs(Collections
+				.singletonList(new TestToolInput(CLASS_NAME, TestUtils.toClassBytes(createMixedClass()))));
+		NavigableMap<String, byte[]> outputs = TestUtils.performInlining(opts);
+		assertEquals(outputs.size(), 1);
+
+		ClassNode cn = new ClassNode(ConstantExpressionInliner.ASM_API);
+		new ClassReader(outputs.get(CLASS_NAME)).accept(cn, 0);
+
+		assertNull(TestUtils.getClInitMethod(cn), "clinit method");
+		assertEquals(TestUtils.getFields(cn).get("VALUE").value, "123");
+
+		MethodNode untouched = TestUtils.getMethodNode(cn, "untouched", "(I)I");
+		assertEquals(getFrameNode(untouched).type, Opcodes.F_FULL);
+
+		MethodNode modified = TestUtils.getMethodNode(cn, "modified", "(I)Ljava/lang/String;");
+		assertEquals(getFrameNode(modified).type, Opcodes.F_SAME);
+		TestUtils.assertNoOpcodeInMethod(modified, Opcodes.INVOKESTATIC);
+	}
+
+	private static FrameNode getFrameNode(MethodNode mn) {
+		for (AbstractInsnNode ins : mn.instructions) {
+			if (ins.getType() == AbstractInsnNode.FRAME) {
+				return (FrameNode) ins;
+			}
+		}
+		throw new AssertionError("No frame in method: " + mn.name);
+	}
+
+	private static ClassNode createMixedClass() {
+		ClassNode cn = new ClassNode(ConstantExpressionInliner.ASM_API);
+		cn.version = Opcodes.V1_8;
+		cn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER;
+		cn.name = CLASS_NAME;
+		cn.superName = Type.getInternalName(Object.class);
+
+		cn.fields.add(new FieldNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "VALUE",
+				Type.getDescriptor(String.class), null, null));
+		MethodNode clinit = new MethodNode(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+		clinit.instructions.add(new LdcInsnNode(123));
+		clinit.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Type.getInternalName(String.class),
+				"valueOf", "(I)Ljava/lang/String;"));
+		clinit.instructions.add(new FieldInsnNode(Opcodes.PUTSTATIC, CLASS_NAME, "VALUE",
+				Type.getDescriptor(String.class)));
+		clinit.instructions.add(new InsnNode(Opcodes.RETURN));
+		clinit.maxStack = 1;
+		cn.methods.add(clinit);
+
+		MethodNode untouched = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "untouched", "(I)I", null,
+				null);
+		LabelNode untouchedlabel = new LabelNode();
+		untouched.instructions.add(new VarInsnNode(Opcodes.ILOAD, 0));
+		untouched.instructions.add(new JumpInsnNode(Opcodes.IFEQ, untouchedlabel));
+		untouched.instructions.add(new InsnNode(Opcodes.ICONST_1));
+		untouched.instructions.add(new InsnNode(Opcodes.IRETURN));
+		untouched.instructions.add(untouchedlabel);
+		untouched.instructions.add(createFullFrame());
+		untouched.instructions.add(new InsnNode(Opcodes.ICONST_0));
+		untouched.instructions.add(new InsnNode(Opcodes.IRETURN));
+		untouched.maxStack = 1;
+		untouched.maxLocals = 1;
+		cn.methods.add(untouched);
+
+		MethodNode modified = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "modified",
+				"(I)Ljava/lang/String;", null, null);
+		LabelNode modifiedlabel = new LabelNode();
+		modified.instructions.add(new VarInsnNode(Opcodes.ILOAD, 0));
+		modified.instructions.add(new JumpInsnNode(Opcodes.IFEQ, modifiedlabel));
+		modified.instructions.add(new InsnNode(Opcodes.ACONST_NULL));
+		modified.instructions.add(new InsnNode(Opcodes.ARETURN));
+		modified.instructions.add(modifiedlabel);
+		modified.instructions.add(createFullFrame());
+		modified.instructions.add(new LdcInsnNode(456));
+		modified.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Type.getInternalName(String.class),
+				"valueOf", "(I)Ljava/lang/String;"));
+		modified.instructions.add(new InsnNode(Opcodes.ARETURN));
+		modified.maxStack = 1;
+		modified.maxLocals = 1;
+		cn.methods.add(modified);
+		return cn;
+	}
+
+	private static FrameNode createFullFrame() {
+		//same as the implicit initial frame, so it could be written as F_SAME
+		return new FrameNode(Opcodes.F_FULL, 1, new Object[] { Opcodes.INTEGER }, 0, new Object[0]);
+	}
+}
@@ -0,0 +1,116 @@
+package testing.sipka.jvm.constexpr.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.main.CliMain;
+import sipka.jvm.constexpr.tool.Utils;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.sipka.jvm.constexpr.TestUtils;
+
+/**
+ * Tests that the unmodified entries of an input JAR are copied with their compressed data, both when overwriting, and
+ * when writing to an output JAR.
+ * <p>
+ * The input JAR is written without compression, so if the entries were compressed again, their compressed size would
+ * change.
+ */
+@SakerTest
+public class JarRawEntryCopyCliTest extends CliTestCase {
+	private static final String DEFLATED_RESOURCE_NAME = "res/deflated.txt";
+	private static final String STORED_RESOURCE_NAME = "res/stored.txt";
+	private static final String CONSTANTS_ENTRY_NAME = Type.getInternalName(Constants.class) + ".class";
+
+	@Override
+	protected void runTestImpl(Map<String, String> parameters) throws Throwable {
+		Path inputjarpath = testCaseDirectory.resolve("input.jar");
+		Path overwritejarpath = testCaseDirectory.resolve("overwrite.jar");
+		Path outputjarpath = testCaseDirectory.resolve("output.jar");
+
+		byte[] resbytes = new byte[16 * 1024];
+		Arrays.fill(resbytes, (byte) 'a');
+		Map<String, byte[]> inputentries = new TreeMap<>();
+		inputentries.put(DEFLATED_RESOURCE_NAME, resbytes);
+		inputentries.put(STORED_RESOURCE_NAME, "stored contents".getBytes(StandardCharsets.UTF_8));
+		inputentries.put(CONSTANTS_ENTRY_NAME,
+				ReflectUtils.getClassBytesUsingClassLoader(Constants.class).copyOptionally());
+		writeUncompressedJar(inputjarpath, inputentries);
+		Files.copy(inputjarpath, overwritejarpath, StandardCopyOption.REPLACE_EXISTING);
+
+		CliMain.main(new String[] { "-input", overwritejarpath.toString(), "-overwrite" });
+		assertRawEntriesCopied(inputjarpath, overwritejarpath, inputentries);
+
+		CliMain.main(new String[] { "-input", inputjarpath.toString(), "-output", outputjarpath.toString() });
+		assertRawEntriesCopied(inputjarpath, outputjarpath, inputentries);
+	}
+
+	private void assertRawEntriesCopied(Path inputjarpath, Path outputjarpath, Map<String, byte[]> inputentries)
+			throws Exception {
+		try (ZipFile inzf = new ZipFile(inputjarpath.toFile());
+				ZipFile outzf = new ZipFile(outputjarpath.toFile())) {
+			assertEquals(outzf.size(), inputentries.size());
+			for (Map.Entry<String, byte[]> entry : inputentries.entrySet()) {
+				String name = entry.getKey();
+				ZipEntry inze = inzf.getEntry(name);
+				ZipEntry outze = outzf.getEntry(name);
+				assertNonNull(outze, name);
+				byte[] outbytes = Utils.readStream(outzf.getInputStream(outze));
+				if (name.equals(CONSTANTS_ENTRY_NAME)) {
+					assertFalse(Arrays.equals(outbytes, entry.getValue()), name);
+					continue;
+				}
+				assertTrue(Arrays.equals(outbytes, entry.getValue()), name);
+				assertEquals(outze.getMethod(), inze.getMethod(), name);
+				assertEquals(outze.getCrc(), inze.getCrc(), name);
+				assertEquals(outze.getCompressedSize(), inze.getCompressedSize(), name);
+				assertEquals(outze.getTime(), inze.getTime(), name);
+			}
+		}
+		ClassNode cn = TestUtils.jarToClassNodes(outputjarpath).get(Constants.class.getName());
+		assertNull(TestUtils.getClInitMethod(cn));
+	}
+
+	private static void writeUncompressedJar(Path path, Map<String, byte[]> entries) throws Exception {
+		Files.createDirectories(path.getParent());
+		try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+			try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+				zos.setLevel(Deflater.NO_COMPRESSION);
+				for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+					byte[] bytes = entry.getValue();
+					ZipEntry ze = new ZipEntry(entry.getKey());
+					ze.setTime(0);
+					if (entry.getKey().equals(STORED_RESOURCE_NAME)) {
+						CRC32 crc = new CRC32();
+						crc.update(bytes);
+						ze.setMethod(ZipEntry.STORED);
+						ze.setCrc(crc.getValue());
+						ze.setSize(bytes.length);
+						ze.setCompressedSize(bytes.length);
+					}
+					zos.putNextEntry(ze);
+					zos.write(bytes);
+					zos.closeEntry();
+				}
+			}
+			Files.write(path, baos.toByteArray());
+		}
+	}
+
+	public static class Constants {
+		public static final int INTVAL = Integer.parseInt("10");
+	}
+}
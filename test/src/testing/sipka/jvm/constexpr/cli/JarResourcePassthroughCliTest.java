@@ -0,0 +1,91 @@
+package testing.sipka.jvm.constexpr.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.main.CliMain;
+import sipka.jvm.constexpr.tool.Utils;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.sipka.jvm.constexpr.TestUtils;
+
+/**
+ * Tests that the resources and the unmodified classes of an input JAR are copied to the output JAR as is, while the
+ * modified classes are written.
+ */
+@SakerTest
+public class JarResourcePassthroughCliTest extends CliTestCase {
+	private static final String RESOURCE_NAME = "res/data.txt";
+	private static final byte[] RESOURCE_BYTES = "resource contents".getBytes(StandardCharsets.UTF_8);
+
+	@Override
+	protected void runTestImpl(Map<String, String> parameters) throws Throwable {
+		Path testbasedir = testCaseDirectory;
+		Path outputjarpath = testbasedir.resolve("output.jar");
+		Path jarpath = testbasedir.resolve("input.jar");
+
+		Map<String, byte[]> inputentries = new TreeMap<>();
+		inputentries.put(RESOURCE_NAME, RESOURCE_BYTES);
+		inputentries.put(Type.getInternalName(Constants.class) + ".class",
+				ReflectUtils.getClassBytesUsingClassLoader(Constants.class).copyOptionally());
+		inputentries.put(Type.getInternalName(Unchanged.class) + ".class",
+				ReflectUtils.getClassBytesUsingClassLoader(Unchanged.class).copyOptionally());
+		writeJar(jarpath, inputentries);
+
+		CliMain.main(new String[] { "-input", jarpath.toString(), "-output", outputjarpath.toString() });
+
+		try (ZipFile zf = new ZipFile(outputjarpath.toFile())) {
+			assertEquals(zf.size(), inputentries.size());
+			for (Map.Entry<String, byte[]> entry : inputentries.entrySet()) {
+				String name = entry.getKey();
+				ZipEntry ze = zf.getEntry(name);
+				assertNonNull(ze, name);
+				byte[] outbytes = Utils.readStream(zf.getInputStream(ze));
+				boolean same = Arrays.equals(outbytes, entry.getValue());
+				if (name.equals(Type.getInternalName(Constants.class) + ".class")) {
+					assertFalse(same, name);
+				} else {
+					assertTrue(same, name);
+				}
+			}
+		}
+		ClassNode cn = TestUtils.jarToClassNodes(outputjarpath).get(Constants.class.getName());
+		assertNull(TestUtils.getClInitMethod(cn));
+	}
+
+	private static void writeJar(Path path, Map<String, byte[]> entries) throws Exception {
+		Files.createDirectories(path.getParent());
+		try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+			try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+				for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+					ZipEntry ze = new ZipEntry(entry.getKey());
+					ze.setTime(0);
+					zos.putNextEntry(ze);
+					zos.write(entry.getValue());
+					zos.closeEntry();
+				}
+			}
+			Files.write(path, baos.toByteArray());
+		}
+	}
+
+	public static class Constants {
+		public static final int INTVAL = Integer.parseInt("10");
+	}
+
+	public static class Unchanged {
+		public static int get(int i) {
+			return i + 1;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package testing.sipka.jvm.constexpr.cli;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import sipka.jvm.constexpr.main.CliMain;
+import testing.saker.SakerTest;
+import testing.sipka.jvm.constexpr.TestUtils;
+
+@SakerTest
+public class LogFileCliTest extends CliTestCase {
+
+	@Override
+	protected void runTestImpl(Map<String, String> parameters) throws Throwable {
+		Path jarpath = testCaseDirectory.resolve("classes.jar");
+		Path logpath = testCaseDirectory.resolve("log/optimization.jsonl");
+		TestUtils.writeJar(jarpath, Constants.class);
+
+		Files.deleteIfExists(logpath);
+		CliMain.main("-input", jarpath.toString(), "-verbose-optimization-log", "-log-file", logpath.toString());
+		List<String> lines = Files.readAllLines(logpath, StandardCharsets.UTF_8);
+
+		String replacementline = null;
+		for (String line : lines) {
+			assertTrue(line.startsWith("{\"seq\":") && line.endsWith("}"), line);
+			if (line.contains("\"kind\":\"instruction-replacement\"")) {
+				replacementline = line;
+			}
+		}
+		assertNonNull(replacementline, lines);
+		assertTrue(replacementline.contains("\"value\":10"), replacementline);
+		assertTrue(replacementline.contains("\"class\":\"" + Constants.class.getName().replace('.', '/') + "\""),
+				replacementline);
+		assertTrue(replacementline.contains("\"member\":\"INTVAL\""), replacementline);
+
+		//the same log is written by a subsequent run, including the ids
+		CliMain.main("-input", jarpath.toString(), "-verbose-optimization-log", "-log-file", logpath.toString());
+		assertEquals(Files.readAllLines(logpath, StandardCharsets.UTF_8), lines);
+	}
+
+	public static class Constants {
+		public static final int INTVAL = Integer.parseInt("10");
+	}
+
+}
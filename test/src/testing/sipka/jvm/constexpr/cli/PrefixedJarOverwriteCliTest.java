@@ -0,0 +1,74 @@
+package testing.sipka.jvm.constexpr.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import sipka.jvm.constexpr.main.CliMain;
+import sipka.jvm.constexpr.tool.ConstantExpressionInliner;
+import sipka.jvm.constexpr.tool.Utils;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassReader;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
+import testing.saker.SakerTest;
+import testing.sipka.jvm.constexpr.TestUtils;
+
+/**
+ * Tests that a JAR that has a launcher script prepended to it is properly overwritten, keeping all of its entries and
+ * the script.
+ */
+@SakerTest
+public class PrefixedJarOverwriteCliTest extends CliTestCase {
+	private static final String RESOURCE_NAME = "res/resource.txt";
+	private static final byte[] PREFIX_BYTES = "#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n"
+			.getBytes(StandardCharsets.UTF_8);
+
+	@Override
+	protected void runTestImpl(Map<String, String> parameters) throws Throwable {
+		Path jarpath = testCaseDirectory.resolve("prefixed.jar");
+		Files.createDirectories(jarpath.getParent());
+
+		byte[] resbytes = "resource contents".getBytes(StandardCharsets.UTF_8);
+		try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+			//the offsets in the archive are relative to the start of the ZIP data, not the file
+			baos.write(PREFIX_BYTES);
+			ByteArrayOutputStream zipbaos = new ByteArrayOutputStream();
+			try (ZipOutputStream zos = new ZipOutputStream(zipbaos)) {
+				zos.putNextEntry(new ZipEntry(RESOURCE_NAME));
+				zos.write(resbytes);
+				zos.closeEntry();
+				zos.putNextEntry(new ZipEntry(Type.getInternalName(Constants.class) + ".class"));
+				zos.write(ReflectUtils.getClassBytesUsingClassLoader(Constants.class).copyOptionally());
+				zos.closeEntry();
+			}
+			zipbaos.writeTo(baos);
+			Files.write(jarpath, baos.toByteArray());
+		}
+
+		CliMain.main(new String[] { "-input", jarpath.toString(), "-overwrite" });
+
+		byte[] outputbytes = Files.readAllBytes(jarpath);
+		assertTrue(Arrays.equals(Arrays.copyOf(outputbytes, PREFIX_BYTES.length), PREFIX_BYTES));
+		//the stream based readers don't support the prefix, so read the entries using ZipFile
+		try (ZipFile zf = new ZipFile(jarpath.toFile())) {
+			assertEquals(zf.size(), 2);
+			assertTrue(Arrays.equals(Utils.readStream(zf.getInputStream(zf.getEntry(RESOURCE_NAME))), resbytes));
+
+			ClassNode cn = new ClassNode(ConstantExpressionInliner.ASM_API);
+			new ClassReader(Utils.readStream(
+					zf.getInputStream(zf.getEntry(Type.getInternalName(Constants.class) + ".class")))).accept(cn, 0);
+			assertNull(TestUtils.getClInitMethod(cn));
+		}
+	}
+
+	public static class Constants {
+		public static final int INTVAL = Integer.parseInt("10");
+	}
+}
@@ -0,0 +1,40 @@
+package testing.sipka.jvm.constexpr.cli;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import sipka.jvm.constexpr.main.CliMain;
+import testing.saker.SakerTest;
+import testing.sipka.jvm.constexpr.TestUtils;
+
+@SakerTest
+public class StatsCliTest extends CliTestCase {
+
+	@Override
+	protected void runTestImpl(Map<String, String> parameters) throws Throwable {
+		Path jarpath = testCaseDirectory.resolve("classes.jar");
+		Path statspath = testCaseDirectory.resolve("stats/stats.json");
+		TestUtils.writeJar(jarpath, Constants.class);
+
+		Files.deleteIfExists(statspath);
+		CliMain.main("-input", jarpath.toString(), "-stats-file", statspath.toString());
+		String json = new String(Files.readAllBytes(statspath), StandardCharsets.UTF_8).trim();
+
+		assertTrue(json.startsWith("{\"times\":{") && json.endsWith("}}"), json);
+		for (String key : new String[] { "scanning", "annotationAnalysis", "inlining", "configuration", "parsing",
+				"processing", "processingLevels", "deconstruction", "writing", "outputWriting", "total" }) {
+			assertTrue(json.contains("\"" + key + "\":"), key + " in " + json);
+		}
+		assertTrue(json.contains("\"inputClasses\":1,"), json);
+		assertTrue(json.contains("\"processedClasses\":1,"), json);
+		assertTrue(json.contains("\"reconstructionSuccesses\":"), json);
+		assertTrue(json.contains("\"memberInvocations\":"), json);
+	}
+
+	public static class Constants {
+		public static final int INTVAL = Integer.parseInt("10");
+	}
+
+}
@@ -0,0 +1,40 @@
+package testing.sipka.jvm.constexpr.cli;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+
+import sipka.jvm.constexpr.main.CliMain;
+import testing.saker.SakerTest;
+import testing.sipka.jvm.constexpr.TestUtils;
+
+/**
+ * Tests that a JAR without anything to optimize is not rewritten when overwriting.
+ */
+@SakerTest
+public class UnchangedJarOverwriteCliTest extends CliTestCase {
+
+	@Override
+	protected void runTestImpl(Map<String, String> parameters) throws Throwable {
+		Path jarpath = testCaseDirectory.resolve("unchanged.jar");
+		TestUtils.writeJar(jarpath, Unchanged.class);
+		FileTime modtime = FileTime.fromMillis(1_000_000_000_000L);
+		Files.setLastModifiedTime(jarpath, modtime);
+		byte[] inputbytes = Files.readAllBytes(jarpath);
+
+		CliMain.main(new String[] { "-input", jarpath.toString(), "-overwrite" });
+
+		assertTrue(Arrays.equals(Files.readAllBytes(jarpath), inputbytes));
+		assertEquals(Files.getLastModifiedTime(jarpath), modtime);
+	}
+
+	public static class Unchanged {
+		public static int value = 3;
+
+		public static int get() {
+			return value;
+		}
+	}
+}
@@ -40,6 +40,13 @@ public final class AsmStackInfo {
 	private Type descriptor;
 	private Object object;
 	private AsmStackInfo[] elements;
+	/**
+	 * The lazily computed hash code, or 0 if not yet computed.
+	 * <p>
+	 * The infos are immutable, so the hash code of the nested infos is only computed once, and the unequal infos are
+	 * usually found without comparing the whole structures.
+	 */
+	private transient int hashCode;
 
 	private AsmStackInfo(Kind kind, Type type, String name, Type descriptor, Object object, AsmStackInfo[] elements) {
 		this.kind = kind;
@@ -214,14 +221,22 @@ public final class AsmStackInfo {
 
 	@Override
 	public int hashCode() {
+		int result = hashCode;
+		if (result != 0) {
+			return result;
+		}
 		final int prime = 31;
-		int result = 1;
+		result = 1;
 		result = prime * result + ((descriptor == null) ? 0 : descriptor.hashCode());
 		result = prime * result + Arrays.hashCode(elements);
 		result = prime * result + ((kind == null) ? 0 : kind.hashCode());
 		result = prime * result + ((name == null) ? 0 : name.hashCode());
 		result = prime * result + ((object == null) ? 0 : object.hashCode());
 		result = prime * result + ((type == null) ? 0 : type.hashCode());
+		if (result == 0) {
+			result = 1;
+		}
+		this.hashCode = result;
 		return result;
 	}
 
@@ -234,6 +249,8 @@ public final class AsmStackInfo {
 		if (getClass() != obj.getClass())
 			return false;
 		AsmStackInfo other = (AsmStackInfo) obj;
+		if (hashCode() != other.hashCode())
+			return false;
 		if (descriptor == null) {
 			if (other.descriptor != null)
 				return false;
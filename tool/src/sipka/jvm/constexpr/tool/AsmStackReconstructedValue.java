@@ -53,7 +53,7 @@ class AsmStackReconstructedValue {
 		return new AsmStackReconstructedValue(firstIns, lastIns, stackInfo, value);
 	}
 
-	public void removeInstructions(InsnList instructions) {
+	public void removeInstructions(InsnList instructions, MethodInstructionIndex instructionindex) {
 		for (AbstractInsnNode it = firstIns; it != null && it != lastIns;) {
 			AbstractInsnNode next = it.getNext();
 			switch (it.getType()) {
@@ -64,6 +64,7 @@ class AsmStackReconstructedValue {
 				}
 				default: {
 					instructions.remove(it);
+					instructionindex.removeInstruction(it);
 					break;
 				}
 			}
@@ -47,28 +47,87 @@ class BaseConfig {
 	public static final String ROW_TYPE_RECONSTRUCTOR = "RECONSTRUCTOR";
 	public static final String ROW_TYPE_DECONSTRUCTOR = "DECONSTRUCTOR";
 
+	/**
+	 * The name of the base config resource that is loaded using the {@link ClassLoader} of this class.
+	 */
+	public static final String BASE_CONFIG_RESOURCE_NAME = "res/base_config";
+
 	private static final Pattern PATTERN_WHITESPACE = Pattern.compile("[ \\t]+");
 
+	/**
+	 * Loads the base configuration.
+	 * <p>
+	 * The rows of the base configuration are parsed, but the referenced types and members are not resolved. They are
+	 * resolved lazily, when the inliner first uses the configuration for a given owner type. This avoids loading and
+	 * reflectively scanning the types which are never referenced by the inputs.
+	 */
 	public static void loadBaseConfig(Map<String, InlinerTypeReference> baseConstantTypes,
 			Map<MemberKey, TypeReferencedConstantReconstructor> baseConstantReconstructors,
 			Map<String, DeconstructionSelector> baseConstantDeconstructors) {
 
 		ClassLoader resourceclassloader = BaseConfig.class.getClassLoader();
 		ClassLoader loadclassloader = BaseConfig.class.getClassLoader();
-		final String filename = "res/base_config";
+		final String filename = BASE_CONFIG_RESOURCE_NAME;
+		List<String[]> rows;
 		try (InputStream in = resourceclassloader.getResourceAsStream(filename)) {
 			if (in == null) {
 				throw new NoSuchFileException(filename, null,
 						"jvm-constexpr ClassLoader resource not found: " + filename);
 			}
-
-			loadConfigStream(in, loadclassloader, baseConstantTypes, baseConstantReconstructors,
-					baseConstantDeconstructors);
+			rows = readConfigRows(in);
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to initialize " + BaseConfig.class.getSimpleName() + " unable to read "
 					+ filename + " config file from classpath.", e);
 		}
 
+		Map<String, LazyClassReference> classreferences = new TreeMap<>();
+		Map<String, List<String[]>> deconstructorrows = new TreeMap<>();
+		for (String[] split : rows) {
+			switch (split[0].toUpperCase(Locale.ROOT)) {
+				case "CT":
+				case ROW_TYPE_CONSTANTTYPE: {
+					String classinternalname = split[1];
+					baseConstantTypes.put(classinternalname, new LazyInlinerTypeReference(
+							getLazyClassReference(classreferences, classinternalname, loadclassloader)));
+					break;
+				}
+				case "REC":
+				case ROW_TYPE_RECONSTRUCTOR: {
+					String classinternalname = split[1];
+					String membername = split[2];
+					String descriptor = split.length > 3 ? split[3] : null;
+					if (descriptor == null || membername.indexOf('*') >= 0 || descriptor.indexOf('*') >= 0) {
+						//the members can't be determined without resolving the type
+						addConstantReconstructor(baseConstantReconstructors, classinternalname, membername,
+								descriptor, loadclassloader);
+						break;
+					}
+					MemberKey memberkey = MemberKey.create(classinternalname, membername, descriptor);
+					Object prev = baseConstantReconstructors.putIfAbsent(memberkey,
+							new LazyTypeReferencedConstantReconstructor(
+									getLazyClassReference(classreferences, classinternalname, loadclassloader),
+									memberkey));
+					if (prev != null) {
+						throw new IllegalArgumentException("Duplicate constant reconstructor for: " + memberkey);
+					}
+					break;
+				}
+				case "DEC":
+				case ROW_TYPE_DECONSTRUCTOR: {
+					//all the deconstructors are associated with the owner type, see addDeconstructor
+					deconstructorrows.computeIfAbsent(split[1], x -> new ArrayList<>()).add(split);
+					break;
+				}
+				default: {
+					throw new IllegalArgumentException("Unrecognized config type: " + String.join(" ", split));
+				}
+			}
+		}
+		for (Entry<String, List<String[]>> entry : deconstructorrows.entrySet()) {
+			baseConstantDeconstructors.put(entry.getKey(),
+					new LazyDeconstructionSelector(entry.getValue(), loadclassloader));
+		}
+
 		initReconstructors(baseConstantReconstructors);
 	}
 
@@ -77,191 +136,39 @@ class BaseConfig {
 			Map<MemberKey, TypeReferencedConstantReconstructor> baseConstantReconstructors,
 			Map<String, DeconstructionSelector> deconstructorSelectors) throws IOException {
 		Map<String, DeconstructorConfigs> typedeconsconfigs = new TreeMap<>();
-		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
-			reader_loop:
-			for (String line; (line = reader.readLine()) != null;) {
-				line = line.trim();
-				if (line.isEmpty() || line.startsWith("#")) {
-					continue;
-				}
-				String[] split = PATTERN_WHITESPACE.split(line);
-				switch (split[0].toUpperCase(Locale.ROOT)) {
-					case "CT":
-					case ROW_TYPE_CONSTANTTYPE: {
-						String classinternalname = split[1];
-
-						String classname = Type.getObjectType(classinternalname).getClassName();
-						try {
-							Class<?> type = Class.forName(classname, false, loadclassloader);
-							baseConstantTypes.put(classinternalname, new InlinerTypeReference(type));
-						} catch (ClassNotFoundException e) {
-							baseConstantTypes.put(classinternalname,
-									new MemberNotAvailableInlinerTypeReference(classinternalname, e));
-						}
-						break;
-					}
-					case "REC":
-					case ROW_TYPE_RECONSTRUCTOR: {
-						String classinternalname = split[1];
-						String membername = split[2];
-						String descriptor = split.length > 3 ? split[3] : null;
-
-						addConstantReconstructor(baseConstantReconstructors, classinternalname, membername, descriptor,
-								loadclassloader);
-						break;
-					}
-					case "DEC":
-					case ROW_TYPE_DECONSTRUCTOR: {
-						String ownerclassinternalname = split[1];
-
-						String membername = split[2];
-						if (membername.startsWith("SELECTOR:")) {
-							DeconstructorConfigs deconsconfig = typedeconsconfigs
-									.computeIfAbsent(ownerclassinternalname, x -> new DeconstructorConfigs());
-
-							//use the specified class as a DeconstructionSelector
-							String selectorclass = membername.substring("SELECTOR:".length());
-							try {
-								Constructor<? extends DeconstructionSelector> constructor = Class
-										.forName(selectorclass, false, loadclassloader)
-										.asSubclass(DeconstructionSelector.class).getConstructor();
-								constructor.setAccessible(true);
-								DeconstructionSelector selector = constructor.newInstance();
-								deconsconfig.selectors.add(selector);
-
-							} catch (Exception e) {
-								deconsconfig.classNotAvailable(selectorclass, e);
-							}
-							continue reader_loop;
-						}
-						String descriptor = split[3];
-
-						Type membertype = Type.getType(descriptor);
-						Type ownerasmtype = Type.getObjectType(ownerclassinternalname);
-						if (membertype.getSort() == Type.METHOD) {
-							Type deconstructedasmtype;
-							boolean constructormethod = Utils.CONSTRUCTOR_METHOD_NAME.equals(membername);
-							if (constructormethod) {
-								deconstructedasmtype = ownerasmtype;
-							} else {
-								deconstructedasmtype = membertype.getReturnType();
-							}
-							if (!ownerasmtype.equals(deconstructedasmtype)) {
-								//only support method deconstructors that return the same type as the declaring class
-								//this is to avoid possible issues with static object caches in separate classes
-								throw new UnsupportedOperationException("unsupported deconstructor type: " + line);
-							}
-
-							String deconstructedasmtypeinternalname = deconstructedasmtype.getInternalName();
-
-							DeconstructorConfigs deconsconfig = typedeconsconfigs
-									.computeIfAbsent(deconstructedasmtypeinternalname, x -> new DeconstructorConfigs());
-
-							Class<?> deconstructedtype;
-							try {
-								deconstructedtype = Class.forName(deconstructedasmtype.getClassName(), false,
-										loadclassloader);
-							} catch (ClassNotFoundException e) {
-
-								deconsconfig.classNotAvailable(deconstructedasmtypeinternalname, e);
-								continue reader_loop;
-							}
-
-							Type[] argumenttypes = membertype.getArgumentTypes();
-							DeconstructionDataAccessor[] fieldaccessors = new DeconstructionDataAccessor[argumenttypes.length];
-							int lastidx = 4;
-							for (int i = 0; i < fieldaccessors.length; i++) {
-								String getter = split[lastidx++];
-								int parenidx = getter.indexOf('(');
-								if (parenidx < 0) {
-									throw new IllegalArgumentException(
-											"Unrecognized data accessor format: " + getter + " in " + line);
-								}
-								//only method accessors supported for now
-								String gettername = getter.substring(0, parenidx);
-								String gettermethoddesc = getter.substring(parenidx);
-
-								Method method;
-								try {
-									method = Utils.getMethodForMethodDescriptor(deconstructedtype, null,
-											gettermethoddesc, gettername);
-								} catch (NoSuchMethodException e) {
-									deconsconfig.memberNotAvailable(deconstructedasmtypeinternalname, gettername,
-											gettermethoddesc, e);
-									continue reader_loop;
-								}
-								fieldaccessors[i] = DeconstructionDataAccessor.createForMethodWithReceiver(method,
-										argumenttypes[i]);
-							}
-
-							Executable executable;
-
-							if (constructormethod) {
-								try {
-									executable = Utils.getConstructorForMethodDescriptor(deconstructedtype, descriptor);
-								} catch (NoSuchMethodException e) {
-									deconsconfig.memberNotAvailable(deconstructedasmtypeinternalname, membername,
-											descriptor, e);
-									continue reader_loop;
-								}
-							} else {
-								Class<?> methodownertype;
-								if (ownerasmtype.equals(deconstructedasmtype)) {
-									methodownertype = deconstructedtype;
-								} else {
-									try {
-										methodownertype = Class.forName(ownerasmtype.getClassName(), false,
-												loadclassloader);
-									} catch (ClassNotFoundException e) {
-										deconsconfig.classNotAvailable(ownerclassinternalname, e);
-										continue reader_loop;
-									}
-								}
-								try {
-									executable = Utils.getMethodForMethodDescriptor(methodownertype,
-											ownerclassinternalname, descriptor, membername);
-								} catch (NoSuchMethodException e) {
-									deconsconfig.memberNotAvailable(ownerclassinternalname, membername, descriptor, e);
-									continue reader_loop;
-								}
-							}
-
-							deconsconfig.selectors.add(DeconstructionSelector.getForConfiguration(
-									DeconstructorConfiguration.createExecutable(executable, fieldaccessors)));
-						} else {
-							//it is a field
-							if (!membertype.equals(ownerasmtype)) {
-								//only support fields that are declared in the same type for now
-								throw new UnsupportedOperationException("unsupported deconstructor type: " + line);
-							}
-
-							DeconstructorConfigs deconsconfig = typedeconsconfigs
-									.computeIfAbsent(membertype.getInternalName(), x -> new DeconstructorConfigs());
-
-							Class<?> ownertype;
-							try {
-								ownertype = Class.forName(ownerasmtype.getClassName(), false, loadclassloader);
-							} catch (ClassNotFoundException e) {
-								deconsconfig.classNotAvailable(ownerclassinternalname, e);
-								continue reader_loop;
-							}
-
-							Collection<Field> matchedfields = Utils.matchFieldsForDescriptor(ownertype, membername,
-									descriptor);
-							if (matchedfields.isEmpty()) {
-								deconsconfig.memberNotAvailable(ownerclassinternalname, membername, descriptor,
-										new NoSuchFieldException());
-								continue reader_loop;
-							}
-							for (Field field : matchedfields) {
-								deconsconfig.selectors.add(DeconstructionSelector.getStaticFieldEquality(field));
-							}
-						}
-						break;
-					}
-					default: {
-						throw new IllegalArgumentException("Unrecognized config type: " + line);
+		for (String[] split : readConfigRows(in)) {
+			switch (split[0].toUpperCase(Locale.ROOT)) {
+				case "CT":
+				case ROW_TYPE_CONSTANTTYPE: {
+					String classinternalname = split[1];
+
+					String classname = Type.getObjectType(classinternalname).getClassName();
+					try {
+						Class<?> type = Class.forName(classname, false, loadclassloader);
+						baseConstantTypes.put(classinternalname, new InlinerTypeReference(type));
+					} catch (ClassNotFoundException e) {
+						baseConstantTypes.put(classinternalname,
+								new MemberNotAvailableInlinerTypeReference(classinternalname, e));
 					}
+					break;
+				}
+				case "REC":
+				case ROW_TYPE_RECONSTRUCTOR: {
+					String classinternalname = split[1];
+					String membername = split[2];
+					String descriptor = split.length > 3 ? split[3] : null;
+
+					addConstantReconstructor(baseConstantReconstructors, classinternalname, membername, descriptor,
+							loadclassloader);
+					break;
+				}
+				case "DEC":
+				case ROW_TYPE_DECONSTRUCTOR: {
+					addDeconstructor(typedeconsconfigs, split, loadclassloader);
+					break;
+				}
+				default: {
+					throw new IllegalArgumentException("Unrecognized config type: " + String.join(" ", split));
 				}
 			}
 		}
@@ -275,6 +182,180 @@ class BaseConfig {
 		}
 	}
 
+	/**
+	 * Reads the rows of a config file.
+	 * <p>
+	 * The empty and comment lines are omitted, and the rows are split into their whitespace separated columns.
+	 */
+	private static List<String[]> readConfigRows(InputStream in) throws IOException {
+		List<String[]> result = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			for (String line; (line = reader.readLine()) != null;) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				result.add(PATTERN_WHITESPACE.split(line));
+			}
+		}
+		return result;
+	}
+
+	private static LazyClassReference getLazyClassReference(Map<String, LazyClassReference> classreferences,
+			String classinternalname, ClassLoader loadclassloader) {
+		return classreferences.computeIfAbsent(classinternalname,
+				x -> new LazyClassReference(classinternalname, loadclassloader));
+	}
+
+	/**
+	 * Adds a deconstructor row to the configurations.
+	 * <p>
+	 * The deconstructor is associated with the owner type of the row.
+	 */
+	private static void addDeconstructor(Map<String, DeconstructorConfigs> typedeconsconfigs, String[] split,
+			ClassLoader loadclassloader) {
+		String ownerclassinternalname = split[1];
+
+		String membername = split[2];
+		if (membername.startsWith("SELECTOR:")) {
+			DeconstructorConfigs deconsconfig = typedeconsconfigs.computeIfAbsent(ownerclassinternalname,
+					x -> new DeconstructorConfigs());
+
+			//use the specified class as a DeconstructionSelector
+			String selectorclass = membername.substring("SELECTOR:".length());
+			try {
+				Constructor<? extends DeconstructionSelector> constructor = Class
+						.forName(selectorclass, false, loadclassloader).asSubclass(DeconstructionSelector.class)
+						.getConstructor();
+				constructor.setAccessible(true);
+				DeconstructionSelector selector = constructor.newInstance();
+				deconsconfig.selectors.add(selector);
+
+			} catch (Exception e) {
+				deconsconfig.classNotAvailable(selectorclass, e);
+			}
+			return;
+		}
+		String descriptor = split[3];
+
+		Type membertype = Type.getType(descriptor);
+		Type ownerasmtype = Type.getObjectType(ownerclassinternalname);
+		if (membertype.getSort() == Type.METHOD) {
+			Type deconstructedasmtype;
+			boolean constructormethod = Utils.CONSTRUCTOR_METHOD_NAME.equals(membername);
+			if (constructormethod) {
+				deconstructedasmtype = ownerasmtype;
+			} else {
+				deconstructedasmtype = membertype.getReturnType();
+			}
+			if (!ownerasmtype.equals(deconstructedasmtype)) {
+				//only support method deconstructors that return the same type as the declaring class
+				//this is to avoid possible issues with static object caches in separate classes
+				throw new UnsupportedOperationException("unsupported deconstructor type: " + String.join(" ", split));
+			}
+
+			String deconstructedasmtypeinternalname = deconstructedasmtype.getInternalName();
+
+			DeconstructorConfigs deconsconfig = typedeconsconfigs.computeIfAbsent(deconstructedasmtypeinternalname,
+					x -> new DeconstructorConfigs());
+
+			Class<?> deconstructedtype;
+			try {
+				deconstructedtype = Class.forName(deconstructedasmtype.getClassName(), false, loadclassloader);
+			} catch (ClassNotFoundException e) {
+
+				deconsconfig.classNotAvailable(deconstructedasmtypeinternalname, e);
+				return;
+			}
+
+			Type[] argumenttypes = membertype.getArgumentTypes();
+			DeconstructionDataAccessor[] fieldaccessors = new DeconstructionDataAccessor[argumenttypes.length];
+			int lastidx = 4;
+			for (int i = 0; i < fieldaccessors.length; i++) {
+				String getter = split[lastidx++];
+				int parenidx = getter.indexOf('(');
+				if (parenidx < 0) {
+					throw new IllegalArgumentException(
+							"Unrecognized data accessor format: " + getter + " in " + String.join(" ", split));
+				}
+				//only method accessors supported for now
+				String gettername = getter.substring(0, parenidx);
+				String gettermethoddesc = getter.substring(parenidx);
+
+				Method method;
+				try {
+					method = Utils.getMethodForMethodDescriptor(deconstructedtype, null, gettermethoddesc,
+							gettername);
+				} catch (NoSuchMethodException e) {
+					deconsconfig.memberNotAvailable(deconstructedasmtypeinternalname, gettername, gettermethoddesc,
+							e);
+					return;
+				}
+				fieldaccessors[i] = DeconstructionDataAccessor.createForMethodWithReceiver(method, argumenttypes[i]);
+			}
+
+			Executable executable;
+
+			if (constructormethod) {
+				try {
+					executable = Utils.getConstructorForMethodDescriptor(deconstructedtype, descriptor);
+				} catch (NoSuchMethodException e) {
+					deconsconfig.memberNotAvailable(deconstructedasmtypeinternalname, membername, descriptor, e);
+					return;
+				}
+			} else {
+				Class<?> methodownertype;
+				if (ownerasmtype.equals(deconstructedasmtype)) {
+					methodownertype = deconstructedtype;
+				} else {
+					try {
+						methodownertype = Class.forName(ownerasmtype.getClassName(), false, loadclassloader);
+					} catch (ClassNotFoundException e) {
+						deconsconfig.classNotAvailable(ownerclassinternalname, e);
+						return;
+					}
+				}
+				try {
+					executable = Utils.getMethodForMethodDescriptor(methodownertype, ownerclassinternalname,
+							descriptor, membername);
+				} catch (NoSuchMethodException e) {
+					deconsconfig.memberNotAvailable(ownerclassinternalname, membername, descriptor, e);
+					return;
+				}
+			}
+
+			deconsconfig.selectors.add(DeconstructionSelector
+					.getForConfiguration(DeconstructorConfiguration.createExecutable(executable, fieldaccessors)));
+		} else {
+			//it is a field
+			if (!membertype.equals(ownerasmtype)) {
+				//only support fields that are declared in the same type for now
+				throw new UnsupportedOperationException("unsupported deconstructor type: " + String.join(" ", split));
+			}
+
+			DeconstructorConfigs deconsconfig = typedeconsconfigs.computeIfAbsent(membertype.getInternalName(),
+					x -> new DeconstructorConfigs());
+
+			Class<?> ownertype;
+			try {
+				ownertype = Class.forName(ownerasmtype.getClassName(), false, loadclassloader);
+			} catch (ClassNotFoundException e) {
+				deconsconfig.classNotAvailable(ownerclassinternalname, e);
+				return;
+			}
+
+			Collection<Field> matchedfields = Utils.matchFieldsForDescriptor(ownertype, membername, descriptor);
+			if (matchedfields.isEmpty()) {
+				deconsconfig.memberNotAvailable(ownerclassinternalname, membername, descriptor,
+						new NoSuchFieldException());
+				return;
+			}
+			for (Field field : matchedfields) {
+				deconsconfig.selectors.add(DeconstructionSelector.getStaticFieldEquality(field));
+			}
+		}
+	}
+
 	private static void initReconstructors(
 			Map<MemberKey, TypeReferencedConstantReconstructor> baseConstantReconstructors) {
 		//specifies ways of creating instances of types from the stack data
@@ -309,7 +390,6 @@ class BaseConfig {
 	private static void addConstantReconstructor(
 			Map<? super MemberKey, ? super TypeReferencedConstantReconstructor> reconstructors,
 			String classinternalname, String membernamematch, String descriptormatch, ClassLoader loadclassloader) {
-		ConstantReconstructor reconstructor;
 		Class<?> type = null;
 		try {
 			type = Class.forName(Type.getObjectType(classinternalname).getClassName(), false, loadclassloader);
@@ -319,32 +399,10 @@ class BaseConfig {
 			return;
 		}
 		for (Member member : Utils.matchMembers(type, membernamematch, descriptormatch)) {
-			MemberKey memberkey;
-			if (member instanceof Executable) {
-				Executable executable = (Executable) member;
-				if (executable instanceof Method) {
-					Method method = (Method) executable;
-					String memberdescriptor = Type.getMethodDescriptor(method);
-					String methodname = member.getName();
-					if (Utils.isNeverOptimizableObjectMethod(methodname, memberdescriptor)) {
-						continue;
-					}
-					memberkey = MethodKey.create(classinternalname, methodname, memberdescriptor);
-					reconstructor = new MethodBasedConstantReconstructor(method,
-							Modifier.isStatic(executable.getModifiers()) ? ReconstructorPredicate.ALLOW_ALL
-									: ReconstructorPredicate.allowInstanceOf(classinternalname));
-				} else if (executable instanceof Constructor<?>) {
-					memberkey = MemberKey.create(member);
-					reconstructor = new ConstructorBasedConstantReconstructor((Constructor<?>) executable);
-				} else {
-					throw new IllegalArgumentException("Unknown executable type: " + executable);
-				}
-			} else if (member instanceof Field) {
-				memberkey = MemberKey.create(member);
-				reconstructor = new FieldBasedConstantReconstructor((Field) member);
-			} else {
-				throw new IllegalArgumentException(
-						"Unknown " + Member.class.getSimpleName() + " subclass: " + member.getClass());
+			MemberKey memberkey = createMemberKey(classinternalname, member);
+			ConstantReconstructor reconstructor = createConstantReconstructor(classinternalname, member);
+			if (reconstructor == null) {
+				continue;
 			}
 			Object prev = reconstructors.putIfAbsent(memberkey,
 					new TypeReferencedConstantReconstructor(reconstructor, type));
@@ -354,6 +412,252 @@ class BaseConfig {
 		}
 	}
 
+	private static MemberKey createMemberKey(String classinternalname, Member member) {
+		if (member instanceof Method) {
+			return MethodKey.create(classinternalname, member.getName(), Type.getMethodDescriptor((Method) member));
+		}
+		return MemberKey.create(member);
+	}
+
+	/**
+	 * Creates the reconstructor for a configured member.
+	 * 
+	 * @return The reconstructor or <code>null</code> if the member shouldn't be reconstructed.
+	 */
+	private static ConstantReconstructor createConstantReconstructor(String classinternalname, Member member) {
+		if (member instanceof Executable) {
+			Executable executable = (Executable) member;
+			if (executable instanceof Method) {
+				Method method = (Method) executable;
+				String memberdescriptor = Type.getMethodDescriptor(method);
+				String methodname = member.getName();
+				if (Utils.isNeverOptimizableObjectMethod(methodname, memberdescriptor)) {
+					return null;
+				}
+				return new MethodBasedConstantReconstructor(method,
+						Modifier.isStatic(executable.getModifiers()) ? ReconstructorPredicate.ALLOW_ALL
+								: ReconstructorPredicate.allowInstanceOf(classinternalname));
+			}
+			if (executable instanceof Constructor<?>) {
+				return new ConstructorBasedConstantReconstructor((Constructor<?>) executable);
+			}
+			throw new IllegalArgumentException("Unknown executable type: " + executable);
+		}
+		if (member instanceof Field) {
+			return new FieldBasedConstantReconstructor((Field) member);
+		}
+		throw new IllegalArgumentException(
+				"Unknown " + Member.class.getSimpleName() + " subclass: " + member.getClass());
+	}
+
+	/**
+	 * Reference to a class of the base configuration that is loaded when first used.
+	 * <p>
+	 * The references are shared by the configuration rows with the same owner type, so the class is looked up only
+	 * once.
+	 */
+	private static final class LazyClassReference {
+		protected final String classInternalName;
+		private final ClassLoader classLoader;
+		/**
+		 * The loaded {@link Class}, or the {@link ClassNotFoundException} if not found.
+		 */
+		private volatile Object resolved;
+
+		public LazyClassReference(String classInternalName, ClassLoader classLoader) {
+			this.classInternalName = classInternalName;
+			this.classLoader = classLoader;
+		}
+
+		public Class<?> get() throws ClassNotFoundException {
+			Object result = resolved;
+			if (result == null) {
+				try {
+					result = Class.forName(Type.getObjectType(classInternalName).getClassName(), false, classLoader);
+				} catch (ClassNotFoundException e) {
+					result = e;
+				}
+				resolved = result;
+			}
+			if (result instanceof ClassNotFoundException) {
+				throw (ClassNotFoundException) result;
+			}
+			return (Class<?>) result;
+		}
+	}
+
+	private static final class LazyInlinerTypeReference extends InlinerTypeReference {
+		private final LazyClassReference classReference;
+
+		public LazyInlinerTypeReference(LazyClassReference classReference) {
+			super(null);
+			this.classReference = classReference;
+		}
+
+		@Override
+		public Class<?> getType(ConstantExpressionInliner context) {
+			try {
+				return classReference.get();
+			} catch (ClassNotFoundException e) {
+				context.logConfigClassMemberInaccessible(classReference.classInternalName, null, null, e);
+				return null;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + "[" + classReference.classInternalName + "]";
+		}
+	}
+
+	/**
+	 * Constant reconstructor of the base configuration that resolves the configured member when first used.
+	 */
+	private static final class LazyTypeReferencedConstantReconstructor extends TypeReferencedConstantReconstructor {
+		private static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[0];
+
+		private final LazyClassReference classReference;
+		private final MemberKey memberKey;
+
+		private volatile boolean resolved;
+		private ConstantReconstructor resolvedDelegate;
+		private Class<?>[] resolvedTypes = EMPTY_CLASS_ARRAY;
+		private ClassNotFoundException classNotFoundException;
+
+		public LazyTypeReferencedConstantReconstructor(LazyClassReference classReference, MemberKey memberKey) {
+			super(null);
+			this.classReference = classReference;
+			this.memberKey = memberKey;
+		}
+
+		@Override
+		public ConstantReconstructor getDelegate() {
+			resolve();
+			return resolvedDelegate;
+		}
+
+		@Override
+		public Class<?>[] getTypes() {
+			resolve();
+			return resolvedTypes;
+		}
+
+		@Override
+		public boolean isInstanceMethodCandidate() {
+			if (resolved) {
+				return super.isInstanceMethodCandidate();
+			}
+			//the static modifier is only known after resolving, so any method can be a candidate
+			return memberKey instanceof MethodKey
+					&& !Utils.CONSTRUCTOR_METHOD_NAME.equals(memberKey.getMemberName());
+		}
+
+		@Override
+		public AsmStackReconstructedValue reconstructValue(ReconstructionContext context, AbstractInsnNode ins)
+				throws ReconstructionException {
+			resolve();
+			if (classNotFoundException != null) {
+				context.getInliner().logConfigClassMemberInaccessible(memberKey.getOwner(), null, null,
+						classNotFoundException);
+				return null;
+			}
+			if (resolvedDelegate == null) {
+				return null;
+			}
+			return resolvedDelegate.reconstructValue(context, ins);
+		}
+
+		private void resolve() {
+			if (resolved) {
+				return;
+			}
+			synchronized (this) {
+				if (resolved) {
+					return;
+				}
+				try {
+					Class<?> type = classReference.get();
+					resolvedTypes = new Class<?>[] { type };
+					for (Member member : Utils.matchMembers(type, memberKey.getMemberName(),
+							MemberKey.getDescriptor(memberKey))) {
+						resolvedDelegate = createConstantReconstructor(memberKey.getOwner(), member);
+						break;
+					}
+				} catch (ClassNotFoundException e) {
+					classNotFoundException = e;
+				}
+				resolved = true;
+			}
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder(getClass().getSimpleName());
+			builder.append("[memberKey=");
+			builder.append(memberKey);
+			if (resolved) {
+				builder.append(", delegate=");
+				builder.append(resolvedDelegate);
+			}
+			builder.append("]");
+			return builder.toString();
+		}
+	}
+
+	/**
+	 * Deconstruction selector of the base configuration that loads the configured deconstructors of a type when first
+	 * used.
+	 */
+	private static final class LazyDeconstructionSelector implements DeconstructionSelector {
+		private final List<String[]> rows;
+		private final ClassLoader classLoader;
+
+		private volatile boolean resolved;
+		private DeconstructionSelector resolvedSelector;
+
+		public LazyDeconstructionSelector(List<String[]> rows, ClassLoader classLoader) {
+			this.rows = rows;
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		public DeconstructorConfiguration chooseDeconstructorConfiguration(DeconstructionContext deconstructioncontext,
+				Object value) {
+			DeconstructionSelector selector = getSelector();
+			if (selector == null) {
+				return null;
+			}
+			return selector.chooseDeconstructorConfiguration(deconstructioncontext, value);
+		}
+
+		private DeconstructionSelector getSelector() {
+			if (resolved) {
+				return resolvedSelector;
+			}
+			synchronized (this) {
+				if (!resolved) {
+					Map<String, DeconstructorConfigs> typedeconsconfigs = new TreeMap<>();
+					for (String[] split : rows) {
+						addDeconstructor(typedeconsconfigs, split, classLoader);
+					}
+					List<DeconstructionSelector> selectors = new ArrayList<>();
+					for (DeconstructorConfigs configs : typedeconsconfigs.values()) {
+						selectors.add(configs.toDeconstructionSelector());
+					}
+					resolvedSelector = DeconstructionSelector
+							.getMultiSelector(selectors.toArray(new DeconstructionSelector[0]));
+					resolved = true;
+				}
+				return resolvedSelector;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + "[" + rows.get(0)[1] + "]";
+		}
+	}
+
 	private static final class NotEnumReconstructorPredicate implements ReconstructorPredicate {
 		public static final NotEnumReconstructorPredicate INSTANCE = new NotEnumReconstructorPredicate();
 
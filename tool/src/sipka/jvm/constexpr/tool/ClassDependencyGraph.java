@@ -0,0 +1,162 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Static field dependency graph between the input classes.
+ * <p>
+ * A class depends on another if it reads a static field of it. The classes in a dependency cycle are collapsed into a
+ * single group (strongly connected component), and the groups are ordered into levels, so that each group only
+ * depends on groups in preceding levels. The groups in the same level are independent from each other.
+ */
+class ClassDependencyGraph {
+	private ClassDependencyGraph() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Computes the processing levels for the given classes.
+	 * <p>
+	 * The returned levels are in the order they should be processed. Each level contains the groups of classes that
+	 * can be processed independently. The classes in a group depend on each other.
+	 * <p>
+	 * The result is deterministic, the groups and the classes in them are ordered by their names.
+	 *
+	 * @param classes
+	 *            The classes mapped by their internal names.
+	 * @return The processing levels.
+	 */
+	public static List<List<List<TransformedClass>>> computeProcessingLevels(
+			NavigableMap<String, TransformedClass> classes) {
+		int count = classes.size();
+		TransformedClass[] nodes = classes.values().toArray(new TransformedClass[count]);
+		Map<String, Integer> nodeindices = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			nodeindices.put(nodes[i].classNode.name, i);
+		}
+		int[][] edges = new int[count][];
+		for (int i = 0; i < count; i++) {
+			int[] nodeedges = new int[nodes[i].staticFieldReferenceOwners.size()];
+			int edgecount = 0;
+			for (String owner : nodes[i].staticFieldReferenceOwners) {
+				Integer ownerindex = nodeindices.get(owner);
+				if (ownerindex != null) {
+					nodeedges[edgecount++] = ownerindex;
+				}
+			}
+			edges[i] = Arrays.copyOf(nodeedges, edgecount);
+		}
+
+		int[] groupindices = new int[count];
+		List<int[]> groups = computeStronglyConnectedComponents(edges, groupindices);
+
+		//the groups are in dependency order, all dependencies of a group precede it
+		int[] grouplevels = new int[groups.size()];
+		List<List<List<TransformedClass>>> result = new ArrayList<>();
+		for (int g = 0; g < grouplevels.length; g++) {
+			int[] members = groups.get(g);
+			int level = 0;
+			for (int member : members) {
+				for (int dep : edges[member]) {
+					int depgroup = groupindices[dep];
+					if (depgroup != g) {
+						level = Math.max(level, grouplevels[depgroup] + 1);
+					}
+				}
+			}
+			grouplevels[g] = level;
+			while (result.size() <= level) {
+				result.add(new ArrayList<>());
+			}
+			Arrays.sort(members);
+			List<TransformedClass> groupclasses = new ArrayList<>(members.length);
+			for (int member : members) {
+				groupclasses.add(nodes[member]);
+			}
+			result.get(level).add(groupclasses);
+		}
+		for (List<List<TransformedClass>> level : result) {
+			level.sort((l, r) -> l.get(0).classNode.name.compareTo(r.get(0).classNode.name));
+		}
+		return result;
+	}
+
+	/**
+	 * Iterative implementation of Tarjan's strongly connected components algorithm.
+	 * <p>
+	 * The components are returned in reverse topological order, that is, every component is preceded by the
+	 * components that are reachable from it.
+	 */
+	private static List<int[]> computeStronglyConnectedComponents(int[][] edges, int[] outgroupindices) {
+		int count = edges.length;
+		int[] index = new int[count];
+		int[] lowlink = new int[count];
+		boolean[] onstack = new boolean[count];
+		Arrays.fill(index, -1);
+
+		int[] stack = new int[count];
+		int stacksize = 0;
+		int[] callnodes = new int[count];
+		int[] calledgepositions = new int[count];
+
+		List<int[]> result = new ArrayList<>();
+		int nextindex = 0;
+		for (int root = 0; root < count; root++) {
+			if (index[root] >= 0) {
+				continue;
+			}
+			int callsize = 0;
+			callnodes[callsize] = root;
+			calledgepositions[callsize++] = 0;
+			index[root] = lowlink[root] = nextindex++;
+			stack[stacksize++] = root;
+			onstack[root] = true;
+
+			while (callsize > 0) {
+				int node = callnodes[callsize - 1];
+				int[] nodeedges = edges[node];
+				int edgepos = calledgepositions[callsize - 1];
+				if (edgepos < nodeedges.length) {
+					calledgepositions[callsize - 1] = edgepos + 1;
+					int target = nodeedges[edgepos];
+					if (index[target] < 0) {
+						index[target] = lowlink[target] = nextindex++;
+						stack[stacksize++] = target;
+						onstack[target] = true;
+						callnodes[callsize] = target;
+						calledgepositions[callsize++] = 0;
+					} else if (onstack[target]) {
+						lowlink[node] = Math.min(lowlink[node], index[target]);
+					}
+					continue;
+				}
+				//all edges visited
+				--callsize;
+				if (callsize > 0) {
+					int parent = callnodes[callsize - 1];
+					lowlink[parent] = Math.min(lowlink[parent], lowlink[node]);
+				}
+				if (lowlink[node] == index[node]) {
+					int groupindex = result.size();
+					int start = stacksize;
+					do {
+						--start;
+					} while (stack[start] != node);
+					int[] members = Arrays.copyOfRange(stack, start, stacksize);
+					for (int member : members) {
+						onstack[member] = false;
+						outgroupindices[member] = groupindex;
+					}
+					stacksize = start;
+					result.add(members);
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,70 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Orders the class groups by their expected optimization payoff, descending.
+ * <p>
+ * The groups that contain a priority class come first. The other groups are ordered by the number of classes that read
+ * their static fields, then by the size of their static initializers. The order of the groups with the same payoff is
+ * kept.
+ */
+final class ClassGroupPriority implements Comparator<List<TransformedClass>> {
+	private final Set<String> priorityClasses;
+	/**
+	 * The number of classes reading the static fields of the classes, mapped by the owner internal names.
+	 */
+	private final Map<String, Integer> fieldReaderCounts = new HashMap<>();
+
+	public ClassGroupPriority(Set<String> priorityClasses, Map<FieldKey, List<TransformedClass>> staticFieldReaders) {
+		this.priorityClasses = priorityClasses;
+		for (Entry<FieldKey, List<TransformedClass>> entry : staticFieldReaders.entrySet()) {
+			fieldReaderCounts.merge(entry.getKey().getOwner(), entry.getValue().size(), Integer::sum);
+		}
+	}
+
+	@Override
+	public int compare(List<TransformedClass> l, List<TransformedClass> r) {
+		int cmp = Boolean.compare(hasPriorityClass(r), hasPriorityClass(l));
+		if (cmp != 0) {
+			return cmp;
+		}
+		cmp = Long.compare(getFieldReaderCount(r), getFieldReaderCount(l));
+		if (cmp != 0) {
+			return cmp;
+		}
+		return Long.compare(getStaticInitializerSize(r), getStaticInitializerSize(l));
+	}
+
+	private boolean hasPriorityClass(List<TransformedClass> group) {
+		for (TransformedClass transclass : group) {
+			if (priorityClasses.contains(transclass.classNode.name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private long getFieldReaderCount(List<TransformedClass> group) {
+		long result = 0;
+		for (TransformedClass transclass : group) {
+			result += fieldReaderCounts.getOrDefault(transclass.classNode.name, 0);
+		}
+		return result;
+	}
+
+	private static long getStaticInitializerSize(List<TransformedClass> group) {
+		long result = 0;
+		for (TransformedClass transclass : group) {
+			if (transclass.clinitMethod != null) {
+				result += transclass.clinitMethod.instructions.size();
+			}
+		}
+		return result;
+	}
+}
@@ -4,7 +4,6 @@ import sipka.jvm.constexpr.tool.options.ConstructorDeconstructorConfiguration;
 import sipka.jvm.constexpr.tool.options.DeconstructionSelector;
 import sipka.jvm.constexpr.tool.options.DeconstructorConfiguration;
 import sipka.jvm.constexpr.tool.options.FieldDeconstructorConfiguration;
-import sipka.jvm.constexpr.tool.options.MemberReference;
 import sipka.jvm.constexpr.tool.options.StaticMethodDeconstructorConfiguration;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
 
@@ -18,8 +17,8 @@ final class ConfigSelectorConstantDeconstructor implements ConstantDeconstructor
 	@Override
 	public DeconstructionResult deconstructValue(ConstantExpressionInliner context, TransformedClass transclass,
 			MethodNode methodnode, Object value) {
-		DeconstructorConfiguration config = selector.chooseDeconstructorConfiguration(new DeconstructionContextImpl(
-				context, new MemberReference(transclass.classNode.name, methodnode.name, methodnode.desc)), value);
+		DeconstructorConfiguration config = selector.chooseDeconstructorConfiguration(
+				new DeconstructionContextImpl(context, transclass, methodnode), value);
 		if (config == null) {
 			return null;
 		}
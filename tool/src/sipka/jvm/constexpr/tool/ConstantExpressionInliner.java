@@ -13,18 +13,30 @@ import java.nio.file.Path;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import sipka.jvm.constexpr.tool.TransformedClass.TransformedField;
 import sipka.jvm.constexpr.tool.log.BytecodeLocation;
@@ -33,9 +45,10 @@ import sipka.jvm.constexpr.tool.log.DeconstructionFailedLogEntry;
 import sipka.jvm.constexpr.tool.log.DeconstructorNotConfiguredLogEntry;
 import sipka.jvm.constexpr.tool.log.IndeterministicToStringLogEntry;
 import sipka.jvm.constexpr.tool.log.InstructionReplacementLogEntry;
-import sipka.jvm.constexpr.tool.log.LogContextInfo;
+import sipka.jvm.constexpr.tool.log.LogEntry;
 import sipka.jvm.constexpr.tool.log.MultipleInitializationPathLogEntry;
 import sipka.jvm.constexpr.tool.log.ReconstructionFailureLogEntry;
+import sipka.jvm.constexpr.tool.log.TimeBudgetExceededLogEntry;
 import sipka.jvm.constexpr.tool.log.ToolLogger;
 import sipka.jvm.constexpr.tool.options.DeconstructionDataAccessor;
 import sipka.jvm.constexpr.tool.options.DeconstructionSelector;
@@ -43,7 +56,6 @@ import sipka.jvm.constexpr.tool.options.InlinerOptions;
 import sipka.jvm.constexpr.tool.options.ReconstructorPredicate;
 import sipka.jvm.constexpr.tool.options.ToolInput;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassReader;
-import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassWriter;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Handle;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Opcodes;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
@@ -82,18 +94,35 @@ public class ConstantExpressionInliner {
 	private static final NavigableMap<String, InlinerTypeReference> baseConstantTypes = new TreeMap<>();
 	private static final NavigableMap<MemberKey, TypeReferencedConstantReconstructor> baseConstantReconstructors = new TreeMap<>(
 			MemberKey::compare);
+	/**
+	 * The maximum number of results in the {@link InvocationResultMemo}.
+	 */
+	private static final int INVOCATION_MEMO_MAX_SIZE = 4096;
+	/**
+	 * The maximum number of values in the {@link DeconstructionTemplateCache}.
+	 */
+	private static final int DECONSTRUCTION_CACHE_MAX_SIZE = 4096;
 	static {
 		BaseConfig.loadBaseConfig(baseConstantTypes, baseConstantReconstructors, baseConstantDeconstructors);
 	}
 
-	private final NavigableMap<FieldKey, Field> optionsConstantFields = new TreeMap<>(MemberKey::compare);
+	private final MemberRegistry<Field> optionsConstantFields = new MemberRegistry<>();
+	/**
+	 * Class internal names mapped to all the read input class files.
+	 */
+	private final NavigableMap<String, InputClassFile> inputFiles = new TreeMap<>();
 	/**
 	 * {@link ClassNode#name} to {@link TransformedClass} instances.
+	 * <p>
+	 * Contains the input classes that are processed, which may be a subset of all the inputs when caching is used.
 	 */
 	private final NavigableMap<String, TransformedClass> inputClasses = new TreeMap<>();
 
 	/**
 	 * Class internal name to deconstructors.
+	 * <p>
+	 * The configuration maps are only modified during the setup, before any tasks are submitted to the
+	 * {@link #forkJoinPool}. They are only read concurrently afterwards.
 	 */
 	private final Map<String, ConstantDeconstructor> constantDeconstructors = new TreeMap<>();
 	/**
@@ -102,24 +131,103 @@ public class ConstantExpressionInliner {
 	 * The map contains full {@link MemberKey} keys, as well as member keys with empty owner, that contains only the
 	 * member name and descriptor for instance methods.
 	 */
-	private final NavigableMap<MemberKey, TypeReferencedConstantReconstructor> constantReconstructors = new TreeMap<>(
-			MemberKey::compare);
+	private final MemberRegistry<TypeReferencedConstantReconstructor> constantReconstructors = new MemberRegistry<>();
 	/**
 	 * Internal names to classes.
 	 */
 	private final Map<String, InlinerTypeReference> constantTypes = new TreeMap<>();
 
-	private final Map<List<LogContextInfo>, ReconstructionFailureLogEntry> reconstructionFailureLogEntries = new HashMap<>();
+	/**
+	 * Static fields of the input classes mapped to the input classes that read them.
+	 * <p>
+	 * The classes are ordered by their names.
+	 */
+	private final Map<FieldKey, List<TransformedClass>> staticFieldReaders = new HashMap<>();
+
+	private final ReconstructionFailureTrie reconstructionFailures = new ReconstructionFailureTrie();
 
-	private final Map<String, DeconstructorNotConfiguredLogEntry> deconstructorNotConfiguredLogEntries = new TreeMap<>();
-	private final Set<FieldKey> multipleInitializationLoggedFields = new TreeSet<>(MemberKey::compare);
-	private final Set<String> configMemberNotAvailableLoggedEntries = new TreeSet<>();
+	private final Map<String, DeconstructorNotConfiguredLogEntry> deconstructorNotConfiguredLogEntries = new ConcurrentSkipListMap<>();
+	private final Set<FieldKey> multipleInitializationLoggedFields = new ConcurrentSkipListSet<>(MemberKey::compare);
+	private final Set<String> configMemberNotAvailableLoggedEntries = new ConcurrentSkipListSet<>();
 
-	private final Map<String, IndeterministicToStringLogEntry> toStringLogEntries = new TreeMap<>();
+	private final Map<String, IndeterministicToStringLogEntry> toStringLogEntries = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Internal names of the classes that were found by {@link #findClass(Type)}.
+	 */
+	private final Map<String, Class<?>> foundClasses = new ConcurrentHashMap<>();
+
+	/**
+	 * The memoized results of the members invoked by the reconstructors, shared between the processed classes.
+	 */
+	private final InvocationResultMemo invocationResultMemo = new InvocationResultMemo(INVOCATION_MEMO_MAX_SIZE,
+			this::isImmutableReconstructedValue);
+	/**
+	 * The cached deconstruction results of the values, shared between the processed classes.
+	 */
+	private final DeconstructionTemplateCache deconstructionTemplateCache = new DeconstructionTemplateCache(
+			DECONSTRUCTION_CACHE_MAX_SIZE, this::isImmutableReconstructedValue);
 
 	private ClassLoader classLoader;
 
 	private ToolLogger logger;
+	/**
+	 * The logger that buffers the log entries during concurrent processing, if any.
+	 */
+	private TaskBufferingToolLogger taskLogger;
+	/**
+	 * The pool for concurrent processing, or <code>null</code> if the processing is performed on the calling thread.
+	 */
+	private ForkJoinPool forkJoinPool;
+	/**
+	 * The watchdog that limits the time of the evaluations, or <code>null</code> if the evaluations are performed on
+	 * the calling threads without a time limit.
+	 */
+	private EvaluationWatchdog evaluationWatchdog;
+	/**
+	 * The memoizable invocations that exceeded the evaluation time limit.
+	 * <p>
+	 * These are not attempted again, as they would likely time out again.
+	 */
+	private final Set<InvocationResultMemo.Key> timedOutInvocations = ConcurrentHashMap.newKeySet();
+	/**
+	 * The internal names of the classes in which an evaluation timed out.
+	 */
+	private final Set<String> evaluationTimeoutClasses = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The time budget of the run in milliseconds, or 0 if there's no time budget.
+	 */
+	private long timeBudget;
+	/**
+	 * The {@link System#nanoTime()} when the time budget runs out.
+	 */
+	private long timeBudgetDeadlineNanos;
+	/**
+	 * Set to <code>true</code> when the time budget ran out.
+	 */
+	private volatile boolean timeBudgetExceeded;
+	/**
+	 * The internal names of the classes that were not fully optimized, because the time budget ran out.
+	 */
+	private final NavigableSet<String> timeBudgetSkippedClasses = new ConcurrentSkipListSet<>();
+
+	/*
+	 * The metrics of the run, see InlinerStatistics.
+	 * The counters are updated concurrently by the processing tasks.
+	 */
+	private long configurationTimeNanos;
+	private long inputReadingTimeNanos;
+	private long parsingTimeNanos;
+	private long processingTimeNanos;
+	private final List<Long> processingLevelTimeNanos = new ArrayList<>();
+	private long writingTimeNanos;
+	private final LongAdder deconstructionTimeNanos = new LongAdder();
+	private final LongAdder visitedMethodCount = new LongAdder();
+	private final LongAdder visitedInstructionCount = new LongAdder();
+	private final LongAdder reconstructionAttemptCount = new LongAdder();
+	private final LongAdder reconstructionSuccessCount = new LongAdder();
+	private final LongAdder memberInvocationCount = new LongAdder();
 
 	private ConstantExpressionInliner() {
 	}
@@ -135,10 +243,15 @@ public class ConstantExpressionInliner {
 		if (inputs.isEmpty()) {
 			return;
 		}
+		timeBudget = options.getTimeBudget();
+		if (timeBudget > 0) {
+			timeBudgetDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudget);
+		}
 
 		logger = options.getLogger();
 		classLoader = options.getClassLoader();
 
+		long phasestart = System.nanoTime();
 		/*
 		 * Initialize the base config.
 		 */
@@ -224,12 +337,11 @@ public class ConstantExpressionInliner {
 
 		//accumulate the general instance method constant reconstructors
 		for (Entry<MemberKey, TypeReferencedConstantReconstructor> entry : configConstantReconstructors.entrySet()) {
-			constantReconstructors.put(entry.getKey(), entry.getValue());
+			TypeReferencedConstantReconstructor reconstructor = entry.getValue();
+			constantReconstructors.put(entry.getKey(), reconstructor);
 
-			ConstantReconstructor delegate = entry.getValue().delegate;
-			if (delegate instanceof MethodBasedConstantReconstructor) {
-				addGeneralInstanceMethodConstantReconstructor((MethodBasedConstantReconstructor) delegate,
-						(MethodKey) entry.getKey());
+			if (reconstructor.isInstanceMethodCandidate()) {
+				addGeneralInstanceMethodConstantReconstructor(reconstructor, (MethodKey) entry.getKey());
 			}
 		}
 
@@ -241,118 +353,147 @@ public class ConstantExpressionInliner {
 			constantTypes.put(Type.getInternalName(ctype), new InlinerTypeReference(ctype));
 		}
 
-		for (ToolInput<?> input : inputs) {
-			byte[] classbytes = input.getBytes();
-			ClassReader cr = new ClassReader(classbytes);
-
-			ClassNode cn = new ClassNode(ASM_API);
-			cr.accept(cn, ClassReader.EXPAND_FRAMES);
+		OptimizationCache cache = OptimizationCache.create(options);
+		configurationTimeNanos = System.nanoTime() - phasestart;
 
-			TransformedClass prev = inputClasses.putIfAbsent(cn.name, new TransformedClass(input, cr, cn));
-			if (prev != null) {
-				throw new IllegalArgumentException(
-						"Duplicate input class with name: " + cn.name + " " + input + " and " + prev.input);
-			}
+		long evaluationtimelimit = options.getEvaluationTimeLimit();
+		if (evaluationtimelimit > 0) {
+			evaluationWatchdog = new EvaluationWatchdog(evaluationtimelimit);
 		}
-		List<TransformedClass> round = new ArrayList<>(inputClasses.values());
-		// some optimizations only need to be performed once,
-		for (TransformedClass transclass : round) {
-			ClassNode cn = transclass.classNode;
-
-			for (MethodNode mn : cn.methods) {
-				replacePrimitiveTypeGetStaticInstructions(mn);
+		int parallelism = options.getParallelism();
+		if (parallelism > 1) {
+			forkJoinPool = new ForkJoinPool(parallelism);
+			if (logger != null) {
+				taskLogger = new TaskBufferingToolLogger(logger);
+				logger = taskLogger;
 			}
 		}
-
-		List<TransformedClass> nextround = new ArrayList<>();
-		for (; !round.isEmpty(); round = nextround, nextround = new ArrayList<>()) {
-			for (TransformedClass transclass : round) {
+		try {
+			phasestart = System.nanoTime();
+			//the classes are put into the map in the order of the inputs, so duplicate detection is deterministic
+			for (InputClassFile inputfile : readInputClasses(inputs)) {
+				String classname = inputfile.classReader.getClassName();
+				InputClassFile prev = inputFiles.putIfAbsent(classname, inputfile);
+				if (prev != null) {
+					throw new IllegalArgumentException("Duplicate input class with name: " + classname + " "
+							+ inputfile.input + " and " + prev.input);
+				}
+			}
+			inputReadingTimeNanos = System.nanoTime() - phasestart;
+
+			phasestart = System.nanoTime();
+			NavigableMap<String, ClassReader> candidates = new TreeMap<>();
+			for (Entry<String, InputClassFile> entry : inputFiles.entrySet()) {
+				candidates.put(entry.getKey(), entry.getValue().classReader);
+			}
+			if (cache != null) {
+				Map<String, byte[]> inputbytes = new HashMap<>();
+				for (Entry<String, InputClassFile> entry : inputFiles.entrySet()) {
+					inputbytes.put(entry.getKey(), entry.getValue().bytes);
+				}
+				candidates.keySet().retainAll(cache.determineProcessedClasses(candidates, inputbytes));
+			}
+			//only build the tree model for the classes which may be optimized
+			ConstantPoolPrefilter prefilter = new ConstantPoolPrefilter(constantReconstructors, constantTypes,
+					optionsConstantFields, inputFiles.keySet(), options.getStripAnnotations());
+			List<InputClassFile> processedfiles = new ArrayList<>();
+			for (String classname : prefilter.filterClasses(candidates)) {
+				processedfiles.add(inputFiles.get(classname));
+			}
+			for (TransformedClass transclass : parseInputClasses(processedfiles)) {
+				inputClasses.put(transclass.classNode.name, transclass);
+			}
+			for (TransformedClass transclass : inputClasses.values()) {
+				for (FieldKey fieldkey : transclass.staticFieldReadingMethods.keySet()) {
+					if (!inputClasses.containsKey(fieldkey.getOwner())) {
+						//not reading a field of an input class, the value of it won't be inlined
+						continue;
+					}
+					staticFieldReaders.computeIfAbsent(fieldkey, k -> new ArrayList<>()).add(transclass);
+				}
+			}
+			// some optimizations only need to be performed once,
+			for (TransformedClass transclass : inputClasses.values()) {
 				ClassNode cn = transclass.classNode;
 
 				for (MethodNode mn : cn.methods) {
-					performInstructionInlining(transclass, mn);
-				}
-				if (transclass.clinitMethod != null) {
-					for (TransformedField transfield : transclass.transformedFields.values()) {
-						boolean inlined = inlineFieldInitializerValueFromStaticInitializers(transclass, transfield,
-								transclass.clinitMethod);
-						if (inlined) {
-							//inline the field value to other codes
-							for (TransformedClass tc : inputClasses.values()) {
-								if (tc.isReferencesStaticField(cn, transfield.fieldNode)) {
-									inlineFieldValue(transclass, transfield, tc);
-									//always reprocess them if they reference this field
-									nextround.add(tc);
-								}
-							}
-						}
-					}
-					if (Utils.isMethodEmpty(transclass.clinitMethod)) {
-						transclass.classNode.methods.remove(transclass.clinitMethod);
-						transclass.clinitMethod = null;
+					if (replacePrimitiveTypeGetStaticInstructions(mn)) {
+						transclass.markMethodModified(mn);
 					}
 				}
 			}
+
+			parsingTimeNanos = System.nanoTime() - phasestart;
+
+			phasestart = System.nanoTime();
+			//process the classes in the order of their static field dependencies
+			//a class is only processed after the classes that it reads the static fields of
+			ClassGroupPriority grouppriority = timeBudget > 0
+					? new ClassGroupPriority(options.getPriorityClasses(), staticFieldReaders)
+					: null;
+			for (List<List<TransformedClass>> level : ClassDependencyGraph.computeProcessingLevels(inputClasses)) {
+				if (grouppriority != null) {
+					//process the most beneficial classes first, in case the time budget runs out
+					level = new ArrayList<>(level);
+					level.sort(grouppriority);
+				}
+				long levelstart = System.nanoTime();
+				processClassGroups(level);
+				processingLevelTimeNanos.add(System.nanoTime() - levelstart);
+			}
+			processingTimeNanos = System.nanoTime() - phasestart;
+		} finally {
+			if (forkJoinPool != null) {
+				forkJoinPool.shutdownNow();
+			}
+			if (evaluationWatchdog != null) {
+				evaluationWatchdog.shutdown();
+			}
 		}
 
+		phasestart = System.nanoTime();
 		Set<String> stripannots = options.getStripAnnotations();
 		for (TransformedClass transclass : inputClasses.values()) {
 			ClassNode cn = transclass.classNode;
-			stripAnnotations(cn.visibleAnnotations, stripannots);
-			stripAnnotations(cn.invisibleAnnotations, stripannots);
-			stripAnnotations(cn.visibleTypeAnnotations, stripannots);
-			stripAnnotations(cn.invisibleTypeAnnotations, stripannots);
+			boolean stripped = false;
+			stripped |= stripAnnotations(cn.visibleAnnotations, stripannots);
+			stripped |= stripAnnotations(cn.invisibleAnnotations, stripannots);
+			stripped |= stripAnnotations(cn.visibleTypeAnnotations, stripannots);
+			stripped |= stripAnnotations(cn.invisibleTypeAnnotations, stripannots);
 			for (FieldNode fn : cn.fields) {
-				stripAnnotations(fn.visibleAnnotations, stripannots);
-				stripAnnotations(fn.invisibleAnnotations, stripannots);
-				stripAnnotations(fn.visibleTypeAnnotations, stripannots);
-				stripAnnotations(fn.invisibleTypeAnnotations, stripannots);
+				stripped |= stripAnnotations(fn.visibleAnnotations, stripannots);
+				stripped |= stripAnnotations(fn.invisibleAnnotations, stripannots);
+				stripped |= stripAnnotations(fn.visibleTypeAnnotations, stripannots);
+				stripped |= stripAnnotations(fn.invisibleTypeAnnotations, stripannots);
 			}
 			for (MethodNode mn : cn.methods) {
-				stripAnnotations(mn.visibleAnnotations, stripannots);
-				stripAnnotations(mn.invisibleAnnotations, stripannots);
-				stripAnnotations(mn.visibleTypeAnnotations, stripannots);
-				stripAnnotations(mn.invisibleTypeAnnotations, stripannots);
+				boolean methodstripped = false;
+				methodstripped |= stripAnnotations(mn.visibleAnnotations, stripannots);
+				methodstripped |= stripAnnotations(mn.invisibleAnnotations, stripannots);
+				methodstripped |= stripAnnotations(mn.visibleTypeAnnotations, stripannots);
+				methodstripped |= stripAnnotations(mn.invisibleTypeAnnotations, stripannots);
+				if (methodstripped) {
+					transclass.markMethodModified(mn);
+				}
 			}
 			if (cn.recordComponents != null) {
 				for (RecordComponentNode rcn : cn.recordComponents) {
-					stripAnnotations(rcn.visibleAnnotations, stripannots);
-					stripAnnotations(rcn.invisibleAnnotations, stripannots);
-					stripAnnotations(rcn.visibleTypeAnnotations, stripannots);
-					stripAnnotations(rcn.invisibleTypeAnnotations, stripannots);
+					stripped |= stripAnnotations(rcn.visibleAnnotations, stripannots);
+					stripped |= stripAnnotations(rcn.invisibleAnnotations, stripannots);
+					stripped |= stripAnnotations(rcn.visibleTypeAnnotations, stripannots);
+					stripped |= stripAnnotations(rcn.invisibleTypeAnnotations, stripannots);
 				}
 			}
+			if (stripped) {
+				transclass.modified = true;
+			}
 		}
 
 		//report the logs before the outputs, so the caller can have a chance to abort in case of error
+		//the entries are only collected if they are loggable
 		if (logger != null) {
-			//order the reconstruction log entries by the size of their stack, so we always log the longest
-			//ones with a given root cause
-			List<ReconstructionFailureLogEntry> reconlogentries = new ArrayList<>(
-					reconstructionFailureLogEntries.values());
-			reconlogentries.sort((l, r) -> {
-				return -Integer.compare(l.getContextStack().size(), r.getContextStack().size());
-			});
-			//sort by the root cause locations, so the logs are always reported in order
-			reconlogentries.sort((l, r) -> {
-				List<LogContextInfo> lcstack = l.getContextStack();
-				LogContextInfo llast = lcstack.get(lcstack.size() - 1);
-				List<LogContextInfo> rcstack = r.getContextStack();
-				LogContextInfo rlast = rcstack.get(rcstack.size() - 1);
-
-				BytecodeLocation lbcloc = llast.getBytecodeLocation();
-				BytecodeLocation rbcloc = rlast.getBytecodeLocation();
-				return lbcloc.compareLocation(rbcloc);
-			});
-
-			Collection<LogContextInfo> lastreconstructioncontextinfos = new HashSet<>();
-			for (ReconstructionFailureLogEntry entry : reconlogentries) {
-				List<LogContextInfo> cstack = entry.getContextStack();
-				LogContextInfo last = cstack.get(cstack.size() - 1);
-				if (!lastreconstructioncontextinfos.add(last)) {
-					//already logged an entry with this root cause 
-					continue;
-				}
+			//only the longest context stack is logged for a given root cause
+			for (ReconstructionFailureLogEntry entry : reconstructionFailures.createLogEntries()) {
 				logger.log(entry);
 			}
 
@@ -362,49 +503,320 @@ public class ConstantExpressionInliner {
 			for (IndeterministicToStringLogEntry logentry : toStringLogEntries.values()) {
 				logger.log(logentry);
 			}
+			if (!timeBudgetSkippedClasses.isEmpty() && isLoggable(TimeBudgetExceededLogEntry.class)) {
+				logger.log(new TimeBudgetExceededLogEntry(timeBudget, timeBudgetSkippedClasses));
+			}
 		}
 
-		for (Entry<String, TransformedClass> entry : inputClasses.entrySet()) {
-			TransformedClass transclass = entry.getValue();
+		if (cache != null) {
+			//the results that depend on the timing of this run are not cached
+			cache.excludeClasses(evaluationTimeoutClasses);
+			cache.excludeClasses(timeBudgetSkippedClasses);
+		}
+		for (Entry<String, InputClassFile> entry : inputFiles.entrySet()) {
+			TransformedClass transclass = inputClasses.get(entry.getKey());
+			if (transclass == null) {
+				InputClassFile inputfile = entry.getValue();
+				if (cache != null && cache.hasValidEntry(entry.getKey())) {
+					byte[] cachedbytes = cache.getCachedOutput(entry.getKey());
+					if (cachedbytes != null) {
+						oc.put(inputfile.input, cachedbytes);
+					}
+				} else if (cache != null) {
+					//no optimization opportunities, the class is unchanged
+					cache.store(entry.getKey(), null);
+				}
+				continue;
+			}
+			if (!transclass.modified) {
+				//don't report the output of unmodified classes
+				if (cache != null) {
+					cache.store(entry.getKey(), null);
+				}
+				continue;
+			}
 
-			ClassNode cn = transclass.classNode;
-			ClassWriter cw = new ClassWriter(transclass.classReader, 0);
+			byte[] outputbytes = TransformedClassVisitor.write(transclass, stripannots);
+			oc.put(transclass.input, outputbytes);
+			if (cache != null) {
+				cache.store(entry.getKey(), outputbytes);
+			}
+		}
+		writingTimeNanos = System.nanoTime() - phasestart;
+	}
 
-			cn.accept(cw);
-			oc.put(transclass.input, cw.toByteArray());
+	/**
+	 * Reads the inputs.
+	 * <p>
+	 * If the fork-join pool is available, the inputs are read concurrently.
+	 * 
+	 * @param inputs
+	 *            The inputs.
+	 * @return The read class files in the same order as the inputs.
+	 * @throws IOException
+	 *             If the reading of an input fails.
+	 */
+	private List<InputClassFile> readInputClasses(Collection<? extends ToolInput<?>> inputs) throws IOException {
+		List<InputClassFile> result = new ArrayList<>(inputs.size());
+		if (forkJoinPool == null || inputs.size() <= 1) {
+			for (ToolInput<?> input : inputs) {
+				result.add(new InputClassFile(input));
+			}
+			return result;
 		}
+		List<Callable<InputClassFile>> tasks = new ArrayList<>(inputs.size());
+		for (ToolInput<?> input : inputs) {
+			tasks.add(() -> new InputClassFile(input));
+		}
+		for (Future<InputClassFile> future : forkJoinPool.invokeAll(tasks)) {
+			result.add(Utils.getFutureResult(future));
+		}
+		return result;
 	}
 
-	private static void stripAnnotations(List<? extends AnnotationNode> annotations, Set<String> stripannots) {
-		if (annotations == null) {
+	/**
+	 * Parses the read input class files.
+	 * <p>
+	 * If the fork-join pool is available, the classes are parsed concurrently.
+	 * 
+	 * @param inputfiles
+	 *            The input class files.
+	 * @return The parsed classes in the same order as the argument.
+	 * @throws IOException
+	 *             In case of concurrent processing failure.
+	 */
+	private List<TransformedClass> parseInputClasses(Collection<InputClassFile> inputfiles) throws IOException {
+		List<TransformedClass> result = new ArrayList<>(inputfiles.size());
+		if (forkJoinPool == null || inputfiles.size() <= 1) {
+			for (InputClassFile inputfile : inputfiles) {
+				result.add(parseInputClass(inputfile));
+			}
+			return result;
+		}
+		List<Callable<TransformedClass>> tasks = new ArrayList<>(inputfiles.size());
+		for (InputClassFile inputfile : inputfiles) {
+			tasks.add(() -> parseInputClass(inputfile));
+		}
+		for (Future<TransformedClass> future : forkJoinPool.invokeAll(tasks)) {
+			result.add(Utils.getFutureResult(future));
+		}
+		return result;
+	}
+
+	/**
+	 * Processes the independent class groups of a dependency level.
+	 * <p>
+	 * If the fork-join pool is available, the groups are processed concurrently. The log entries are reported in the
+	 * order of the groups.
+	 * 
+	 * @param groups
+	 *            The class groups.
+	 * @throws IOException
+	 *             In case of concurrent processing failure.
+	 */
+	private void processClassGroups(List<List<TransformedClass>> groups) throws IOException {
+		if (forkJoinPool == null || groups.size() <= 1) {
+			for (List<TransformedClass> group : groups) {
+				processClassGroup(group);
+			}
+			return;
+		}
+		List<Callable<List<Consumer<? super ToolLogger>>>> tasks = new ArrayList<>(groups.size());
+		for (List<TransformedClass> group : groups) {
+			tasks.add(() -> {
+				if (taskLogger == null) {
+					processClassGroup(group);
+					return Collections.emptyList();
+				}
+				List<Consumer<? super ToolLogger>> entries;
+				taskLogger.startTask();
+				try {
+					processClassGroup(group);
+				} finally {
+					entries = taskLogger.finishTask();
+				}
+				return entries;
+			});
+		}
+		List<List<Consumer<? super ToolLogger>>> logentries = new ArrayList<>(groups.size());
+		for (Future<List<Consumer<? super ToolLogger>>> future : forkJoinPool.invokeAll(tasks)) {
+			logentries.add(Utils.getFutureResult(future));
+		}
+		if (taskLogger != null) {
+			for (List<Consumer<? super ToolLogger>> entries : logentries) {
+				taskLogger.flush(entries);
+			}
+		}
+	}
+
+	/**
+	 * Performs the inlining in a group of classes.
+	 * <p>
+	 * The classes that the group depends on must be already processed. The classes in the group are processed
+	 * repeatedly until no more constant fields are inlined among them.
+	 * 
+	 * @param group
+	 *            The classes which may depend on each other.
+	 */
+	private void processClassGroup(List<TransformedClass> group) {
+		if (isTimeBudgetExceeded()) {
+			skipClassGroup(group);
 			return;
 		}
+		Set<TransformedClass> groupclasses = new HashSet<>(group);
+		//inline the fields of the already processed dependencies
+		for (TransformedClass transclass : group) {
+			for (FieldKey fieldkey : transclass.staticFieldReadingMethods.keySet()) {
+				TransformedClass ownertransclass = inputClasses.get(fieldkey.getOwner());
+				if (ownertransclass == null || groupclasses.contains(ownertransclass)) {
+					continue;
+				}
+				TransformedField transfield = ownertransclass.getTransformedField(fieldkey.getFieldDescriptor(),
+						fieldkey.getFieldName());
+				if (transfield != null && transfield.staticInitializerInlined) {
+					inlineFieldValue(ownertransclass, transfield, transclass);
+				}
+			}
+		}
+
+		Collection<TransformedClass> round = group;
+		Collection<TransformedClass> nextround = new LinkedHashSet<>();
+		boolean firstround = true;
+		for (; !round.isEmpty(); round = nextround, nextround = new LinkedHashSet<>(), firstround = false) {
+			for (TransformedClass transclass : round) {
+				ClassNode cn = transclass.classNode;
+
+				for (MethodNode mn : getMethodProcessingOrder(cn)) {
+					//only the methods that had fields inlined need to be processed again
+					if (!firstround && !transclass.dirtyMethods.contains(mn)) {
+						continue;
+					}
+					if (isTimeBudgetExceeded()) {
+						//stop processing, the changes made so far are complete
+						skipClassGroup(group);
+						return;
+					}
+					transclass.dirtyMethods.remove(mn);
+					if (performInstructionInlining(transclass, mn)) {
+						transclass.markMethodModified(mn);
+					}
+				}
+				if (transclass.clinitMethod != null) {
+					for (TransformedField transfield : transclass.transformedFields.values()) {
+						if (isTimeBudgetExceeded()) {
+							skipClassGroup(group);
+							return;
+						}
+						boolean inlined = inlineFieldInitializerValueFromStaticInitializers(transclass, transfield,
+								transclass.clinitMethod);
+						if (inlined) {
+							transfield.staticInitializerInlined = true;
+							//inline the field value to other codes in the group
+							//the classes in later groups will inline it when they are processed
+							FieldNode fieldnode = transfield.fieldNode;
+							List<TransformedClass> readers = staticFieldReaders
+									.get(new FieldKey(cn.name, fieldnode.name, fieldnode.desc));
+							if (readers != null) {
+								for (TransformedClass tc : readers) {
+									if (!groupclasses.contains(tc)) {
+										continue;
+									}
+									inlineFieldValue(transclass, transfield, tc);
+									//always reprocess them if they reference this field
+									nextround.add(tc);
+								}
+							}
+						}
+					}
+					if (Utils.isMethodEmpty(transclass.clinitMethod)) {
+						transclass.classNode.methods.remove(transclass.clinitMethod);
+						transclass.clinitMethod = null;
+						transclass.modified = true;
+					}
+				}
+			}
+		}
+	}
+
+	private boolean isTimeBudgetExceeded() {
+		if (timeBudget <= 0) {
+			return false;
+		}
+		if (timeBudgetExceeded) {
+			return true;
+		}
+		if (System.nanoTime() - timeBudgetDeadlineNanos < 0) {
+			return false;
+		}
+		timeBudgetExceeded = true;
+		return true;
+	}
+
+	private void skipClassGroup(List<TransformedClass> group) {
+		for (TransformedClass transclass : group) {
+			timeBudgetSkippedClasses.add(transclass.classNode.name);
+		}
+	}
+
+	/**
+	 * Gets the methods of the class in the order they should be processed.
+	 * <p>
+	 * If there's a time budget, the static initializer is processed first, then the methods with the most
+	 * instructions. Otherwise the methods are processed in their declaration order.
+	 * 
+	 * @param cn
+	 *            The class.
+	 * @return The methods.
+	 */
+	private List<MethodNode> getMethodProcessingOrder(ClassNode cn) {
+		if (timeBudget <= 0) {
+			return cn.methods;
+		}
+		List<MethodNode> result = new ArrayList<>(cn.methods);
+		result.sort((l, r) -> {
+			boolean lclinit = Utils.STATIC_INITIALIZER_METHOD_NAME.equals(l.name);
+			boolean rclinit = Utils.STATIC_INITIALIZER_METHOD_NAME.equals(r.name);
+			if (lclinit != rclinit) {
+				return lclinit ? -1 : 1;
+			}
+			return Integer.compare(r.instructions.size(), l.instructions.size());
+		});
+		return result;
+	}
+
+	private static TransformedClass parseInputClass(InputClassFile inputfile) {
+		ClassReader cr = inputfile.classReader;
+
+		ClassNode cn = new ClassNode(ASM_API);
+		cr.accept(cn, ClassReader.EXPAND_FRAMES);
+		return new TransformedClass(inputfile.input, cr, cn);
+	}
+
+	private static boolean stripAnnotations(List<? extends AnnotationNode> annotations, Set<String> stripannots) {
+		if (annotations == null) {
+			return false;
+		}
+		boolean any = false;
 		for (Iterator<? extends AnnotationNode> it = annotations.iterator(); it.hasNext();) {
 			AnnotationNode an = it.next();
 			if (stripannots.contains(Type.getType(an.desc).getInternalName())) {
 				it.remove();
+				any = true;
 			}
 		}
+		return any;
 	}
 
-	private void addGeneralInstanceMethodConstantReconstructor(MethodBasedConstantReconstructor reconstructor,
+	private void addGeneralInstanceMethodConstantReconstructor(TypeReferencedConstantReconstructor reconstructor,
 			MethodKey memberkey) {
-		if (reconstructor.isStaticMethod()) {
-			//don't add, only for instance methods
-			return;
-		}
 		MethodKey reducedkey = new MethodKey("", memberkey.getMemberName(), memberkey.getMethodDescriptor());
 		constantReconstructors.compute(reducedkey, (k, present) -> {
 			if (present == null) {
-				return new TypeReferencedConstantReconstructor(reconstructor);
-			}
-			if (present.delegate instanceof DynamicInstanceMethodBasedConstantReconstructor) {
-				((DynamicInstanceMethodBasedConstantReconstructor) present.delegate).addReconstructor(reconstructor);
-				return present;
-			} else {
+				return new TypeReferencedConstantReconstructor(
+						new DynamicInstanceMethodBasedConstantReconstructor(reconstructor));
 			}
-			return new TypeReferencedConstantReconstructor(new DynamicInstanceMethodBasedConstantReconstructor(
-					reconstructor, (MethodBasedConstantReconstructor) present.delegate));
+			((DynamicInstanceMethodBasedConstantReconstructor) present.getDelegate()).addReconstructor(reconstructor);
+			return present;
 		});
 	}
 
@@ -420,7 +832,111 @@ public class ConstantExpressionInliner {
 	 */
 	public static void run(InlinerOptions options) throws NullPointerException, IOException {
 		Objects.requireNonNull(options, "options");
-		new ConstantExpressionInliner().runInlining(options);
+		ConstantExpressionInliner inliner = new ConstantExpressionInliner();
+		inliner.runInlining(options);
+		StatisticsListener statslistener = options.getStatisticsListener();
+		if (statslistener != null) {
+			statslistener.statisticsReported(inliner.createStatistics());
+		}
+	}
+
+	private InlinerStatistics createStatistics() {
+		InlinerStatistics result = new InlinerStatistics();
+		result.invocationMemoHitCount = invocationResultMemo.getHitCount();
+		result.invocationMemoMissCount = invocationResultMemo.getMissCount();
+		result.timeBudgetSkippedClassCount = timeBudgetSkippedClasses.size();
+		result.deconstructionCacheHitCount = deconstructionTemplateCache.getHitCount();
+		result.deconstructionCacheMissCount = deconstructionTemplateCache.getMissCount();
+		if (evaluationWatchdog != null) {
+			result.evaluationTimeoutCount = evaluationWatchdog.getTimeoutCount();
+		}
+		result.configurationTimeNanos = configurationTimeNanos;
+		result.inputReadingTimeNanos = inputReadingTimeNanos;
+		result.parsingTimeNanos = parsingTimeNanos;
+		result.processingTimeNanos = processingTimeNanos;
+		result.processingLevelTimeNanos = new ArrayList<>(processingLevelTimeNanos);
+		result.writingTimeNanos = writingTimeNanos;
+		result.deconstructionTimeNanos = deconstructionTimeNanos.sum();
+		result.inputClassCount = inputFiles.size();
+		result.processedClassCount = inputClasses.size();
+		result.visitedMethodCount = visitedMethodCount.sum();
+		result.visitedInstructionCount = visitedInstructionCount.sum();
+		result.reconstructionAttemptCount = reconstructionAttemptCount.sum();
+		result.reconstructionSuccessCount = reconstructionSuccessCount.sum();
+		result.memberInvocationCount = memberInvocationCount.sum();
+		return result;
+	}
+
+	/**
+	 * Invokes a member for reconstructing a value.
+	 * <p>
+	 * If the method or constructor was already invoked with the same immutable subject and arguments, then the
+	 * memoized result is returned. The arrays in the result are copied. The field reads are not memoized.
+	 * <p>
+	 * If an {@linkplain InlinerOptions#setEvaluationTimeLimit(long) evaluation time limit} is set, the member is
+	 * invoked by the {@link EvaluationWatchdog}. If the evaluation times out, the results of the class are not cached,
+	 * as they depend on the timing.
+	 * 
+	 * @param context
+	 *            The reconstruction context.
+	 * @param member
+	 *            The method, constructor, or field.
+	 * @param subject
+	 *            The subject instance, or <code>null</code> for static members and constructors.
+	 * @param args
+	 *            The arguments, or <code>null</code> for fields.
+	 * @return The result of the invocation.
+	 * @throws TimeoutException
+	 *             If the invocation exceeded the evaluation time limit.
+	 * @throws Exception
+	 *             If the invocation fails.
+	 * @see MemberInvoker#invoke(Object, Object[])
+	 */
+	Object invokeMember(ReconstructionContext context, Member member, Object subject, Object[] args)
+			throws TimeoutException, Exception {
+		try {
+			return invokeMemberMemoized(member, subject, args);
+		} catch (TimeoutException e) {
+			evaluationTimeoutClasses.add(context.getTransformedClass().classNode.name);
+			throw e;
+		}
+	}
+
+	private Object invokeMemberMemoized(Member member, Object subject, Object[] args)
+			throws TimeoutException, Exception {
+		if (member instanceof Field) {
+			//the field may be reassigned, so its value is not memoized
+			return invokeMemberImpl(member, subject, args);
+		}
+		InvocationResultMemo.Key key = invocationResultMemo.createKey(member, subject, args);
+		if (key == null) {
+			return invokeMemberImpl(member, subject, args);
+		}
+		Object result = invocationResultMemo.get(key);
+		if (result != InvocationResultMemo.ABSENT) {
+			return result;
+		}
+		if (timedOutInvocations.contains(key)) {
+			throw new TimeoutException("Evaluation previously exceeded the time limit, and was not attempted again.");
+		}
+		try {
+			result = invokeMemberImpl(member, subject, args);
+		} catch (TimeoutException e) {
+			timedOutInvocations.add(key);
+			throw e;
+		}
+		invocationResultMemo.put(key, result);
+		return result;
+	}
+
+	private Object invokeMemberImpl(Member member, Object subject, Object[] args) throws TimeoutException, Exception {
+		memberInvocationCount.increment();
+		MemberInvoker invoker = ReflectionMetadataCache.getInvoker(member);
+		EvaluationWatchdog watchdog = evaluationWatchdog;
+		if (watchdog == null) {
+			return invoker.invoke(subject, args);
+		}
+		return watchdog.evaluate(() -> invoker.invoke(subject, args));
 	}
 
 	/**
@@ -491,20 +1007,11 @@ public class ConstantExpressionInliner {
 			putopcode = Opcodes.PUTFIELD;
 		}
 		List<AbstractInsnNode> putinsns = new ArrayList<>();
-		InsnList instructions = clinitmethodnode.instructions;
-		for (AbstractInsnNode ins = instructions.getFirst(); ins != null;) {
-			if (ins.getOpcode() != putopcode) {
-				ins = ins.getNext();
-				continue;
-			}
-			FieldInsnNode fieldins = (FieldInsnNode) ins;
-			if (!fieldins.name.equals(fieldnode.name) || !fieldins.owner.equals(transclass.classNode.name)) {
-				//different field
-				ins = ins.getNext();
-				continue;
+		for (FieldInsnNode ins : transclass.getMethodInstructionIndex(clinitmethodnode)
+				.getFieldAssignments(new FieldKey(transclass.classNode.name, fieldnode.name, fieldnode.desc))) {
+			if (ins.getOpcode() == putopcode) {
+				putinsns.add(ins);
 			}
-			putinsns.add(ins);
-			ins = ins.getNext();
 		}
 		if (putinsns.isEmpty()) {
 			return null;
@@ -514,7 +1021,7 @@ public class ConstantExpressionInliner {
 		if (constantfield != null) {
 			if (putinsns.size() != 1) {
 				//force inline, but multiple initialization paths
-				if (logger != null) {
+				if (isLoggable(MultipleInitializationPathLogEntry.class)) {
 					if (multipleInitializationLoggedFields
 							.add(new FieldKey(transclass.classNode.name, fieldnode.name, fieldnode.desc))) {
 						logger.log(new MultipleInitializationPathLogEntry(transclass.classNode.name, fieldnode.name,
@@ -719,7 +1226,58 @@ public class ConstantExpressionInliner {
 			//no instruction -> no value -> no constant
 			return null;
 		}
-		TransformedClass transformedclass = context.getTransformedClass();
+		ReconstructionMemo memo = context.getMemo();
+		if (memo == null) {
+			return reconstructStackValueCounted(context, ins);
+		}
+		Class<?> receivertype = context.getReceiverType();
+		Object memoized = memo.get(ins, receivertype);
+		if (memoized == ReconstructionMemo.FAILED) {
+			throw context.newMemoizedFailureReconstructionException();
+		}
+		if (memoized != ReconstructionMemo.ABSENT) {
+			return (AsmStackReconstructedValue) memoized;
+		}
+		AsmStackReconstructedValue result;
+		try {
+			result = reconstructStackValueCounted(context, ins);
+		} catch (ReconstructionException e) {
+			//if the failures are logged, they are reconstructed again, so they are reported with the longest context
+			//the instructions are visited forward, so an argument fails on its own before the invocation that uses it
+			if (!isLoggable(ReconstructionFailureLogEntry.class)) {
+				memo.putFailure(ins, receivertype);
+			}
+			throw e;
+		}
+		//only memoize the values that cannot be modified by the code that uses them
+		//e.g. a reconstructed StringBuilder is modified by the append calls that use it
+		if (result == null || isImmutableReconstructedValue(result.getValue())) {
+			memo.putResult(ins, receivertype, result);
+		}
+		return result;
+	}
+
+	private boolean isImmutableReconstructedValue(Object val) {
+		if (Utils.isConstantValue(val) || val instanceof Class || val instanceof Enum) {
+			return true;
+		}
+		return constantTypes.get(Type.getInternalName(val.getClass())) != null;
+	}
+
+	private AsmStackReconstructedValue reconstructStackValueCounted(ReconstructionContext context,
+			AbstractInsnNode ins) throws ReconstructionException {
+		reconstructionAttemptCount.increment();
+		AsmStackReconstructedValue result = reconstructStackValueImpl(context, ins);
+		if (result != null) {
+			reconstructionSuccessCount.increment();
+		}
+		return result;
+	}
+
+	private AsmStackReconstructedValue reconstructStackValueImpl(ReconstructionContext context, AbstractInsnNode ins)
+			throws ReconstructionException {
+		MethodInstructionIndex instructionindex = context.getTransformedClass()
+				.getMethodInstructionIndex(context.getMethodNode());
 		Class<?> receivertype = context.getReceiverType();
 		AbstractInsnNode endins = ins.getNext();
 		//loop, so we don't need to recursively call the function to advance the instruction pointer
@@ -983,8 +1541,7 @@ public class ConstantExpressionInliner {
 
 					ReconstructionContext ncontext = context;
 					if (receivertype != null) {
-						//XXX make getting the type more efficient?
-						ncontext = context.withReceiverType(Array.newInstance(receivertype, 0).getClass());
+						ncontext = context.withReceiverType(Utils.getArrayType(receivertype));
 					}
 					AsmStackReconstructedValue arrayval = reconstructStackValue(ncontext,
 							idxval.getFirstIns().getPrevious());
@@ -1001,14 +1558,14 @@ public class ConstantExpressionInliner {
 				case Opcodes.INVOKEINTERFACE:
 				case Opcodes.INVOKESPECIAL: {
 					MethodInsnNode methodins = (MethodInsnNode) ins;
-					MethodKey memberkey = new MethodKey(methodins);
-					return reconstructValueImpl(context, ins, memberkey);
+					return reconstructValueImpl(context, ins,
+							constantReconstructors.getMethod(methodins.owner, methodins.name, methodins.desc));
 				}
 				case Opcodes.GETSTATIC:
 				case Opcodes.GETFIELD: {
 					FieldInsnNode fieldins = (FieldInsnNode) ins;
-					FieldKey memberkey = new FieldKey(fieldins);
-					return reconstructValueImpl(context, fieldins, memberkey);
+					return reconstructValueImpl(context, fieldins,
+							constantReconstructors.getField(fieldins.owner, fieldins.name, fieldins.desc));
 				}
 				case Opcodes.INVOKEDYNAMIC: {
 					//handle string concatenation generated on Java 9+
@@ -1023,7 +1580,7 @@ public class ConstantExpressionInliner {
 						}
 						case AbstractInsnNode.LABEL: {
 							LabelNode lins = (LabelNode) ins;
-							if (!transformedclass.nonJumpTargetLabelNodes.contains(lins)) {
+							if (instructionindex.isJumpTarget(lins)) {
 								//this label is a jump target, therefore we can't properly reconstruct the value
 								return null;
 							}
@@ -1076,9 +1633,9 @@ public class ConstantExpressionInliner {
 			case Type.VOID:
 				return void.class;
 			case Type.ARRAY: {
-				Class<?> type = Array.newInstance(findClass(asmtype.getElementType()), 0).getClass();
+				Class<?> type = Utils.getArrayType(findClass(asmtype.getElementType()));
 				for (int dim = asmtype.getDimensions(); dim > 1; dim--) {
-					type = Array.newInstance(type, 0).getClass();
+					type = Utils.getArrayType(type);
 				}
 				return type;
 			}
@@ -1086,12 +1643,18 @@ public class ConstantExpressionInliner {
 				break;
 			}
 		}
-		//try searching the configs before attempting the classloader
-		Class<?> found = findConfiguredClass(asmtype);
+		String typeinternalname = asmtype.getInternalName();
+		Class<?> found = foundClasses.get(typeinternalname);
 		if (found != null) {
 			return found;
 		}
-		return Class.forName(asmtype.getClassName(), false, classLoader);
+		//try searching the configs before attempting the classloader
+		found = findConfiguredClass(asmtype);
+		if (found == null) {
+			found = Class.forName(asmtype.getClassName(), false, classLoader);
+		}
+		foundClasses.putIfAbsent(typeinternalname, found);
+		return found;
 	}
 
 	private Class<?> findConfiguredClass(Type asmtype) {
@@ -1101,16 +1664,9 @@ public class ConstantExpressionInliner {
 			return ct.getType(this);
 		}
 		//try searching the reconstructors, if the class may be there
-		FieldKey searchfieldkey = new FieldKey(typeinternalname, "", "");
-		NavigableMap<MemberKey, TypeReferencedConstantReconstructor> tailmap = constantReconstructors
-				.tailMap(searchfieldkey, true);
-		for (Entry<MemberKey, TypeReferencedConstantReconstructor> entry : tailmap.entrySet()) {
-			MemberKey em = entry.getKey();
-			if (!em.getOwner().equals(searchfieldkey.getOwner())) {
-				//not found
-				break;
-			}
-			for (Class<?> reftype : entry.getValue().types) {
+		for (Entry<MemberKey, TypeReferencedConstantReconstructor> entry : constantReconstructors
+				.getOwnerEntries(typeinternalname)) {
+			for (Class<?> reftype : entry.getValue().getTypes()) {
 				if (reftype != null && Type.getInternalName(reftype).equals(typeinternalname)) {
 					return reftype;
 				}
@@ -1270,8 +1826,13 @@ public class ConstantExpressionInliner {
 		}
 
 		FieldNode fieldnode = transfield.fieldNode;
+		List<MethodNode> readingmethods = transclass
+				.getStaticFieldReadingMethods(new FieldKey(fieldowner.classNode.name, fieldnode.name, fieldnode.desc));
+		if (readingmethods == null) {
+			return false;
+		}
 		boolean any = false;
-		for (MethodNode mn : transclass.classNode.methods) {
+		for (MethodNode mn : readingmethods) {
 			InsnList instructions = mn.instructions;
 			for (AbstractInsnNode ins = instructions.getFirst(); ins != null;) {
 				AbstractInsnNode next = ins.getNext();
@@ -1292,8 +1853,10 @@ public class ConstantExpressionInliner {
 						AsmStackInfo replacementinfo = AsmStackInfo.createConstant(val);
 						instructions.insert(ins, addins);
 						instructions.remove(ins);
+						transclass.dirtyMethods.add(mn);
+						transclass.markMethodModified(mn);
 
-						if (logger != null) {
+						if (isLoggable(InstructionReplacementLogEntry.class)) {
 							logger.log(new InstructionReplacementLogEntry(
 									Utils.getBytecodeLocation(transclass, mn, addins),
 									AsmStackInfo.createStaticField(Type.getObjectType(fieldins.owner), fieldins.name,
@@ -1326,8 +1889,8 @@ public class ConstantExpressionInliner {
 			//not static final field
 			return false;
 		}
-		Field constantfield = optionsConstantFields
-				.get(new FieldKey(transclass.classNode.name, fieldnode.name, fieldnode.desc));
+		Field constantfield = optionsConstantFields.getField(transclass.classNode.name, fieldnode.name,
+				fieldnode.desc);
 
 		Collection<AsmStackReconstructedValue> nvalues = getAssignedFieldValuesFromMethod(transclass, fieldnode,
 				clinitmethodnode, constantfield);
@@ -1339,12 +1902,16 @@ public class ConstantExpressionInliner {
 		DeconstructionResult deconsresult = null;
 
 		InsnList instructions = clinitmethodnode.instructions;
+		MethodInstructionIndex instructionindex = transclass.getMethodInstructionIndex(clinitmethodnode);
 		if (transfield.setCalculatedConstantValue(constantval)) {
 			//ok, no deconstruction necessary
+			//the constant value of the field is set, and the assignments are removed from the static initializer
+			transclass.markMethodModified(clinitmethodnode);
 
+			boolean logreplacements = isLoggable(InstructionReplacementLogEntry.class);
 			AsmStackInfo fieldasminfo = null;
 			BytecodeLocation bytecodelocation = null;
-			if (logger != null) {
+			if (logreplacements) {
 				//log for all locations that were updated
 				fieldasminfo = AsmStackInfo.createStaticField(Type.getObjectType(transclass.classNode.name),
 						fieldnode.name, Type.getType(fieldnode.desc));
@@ -1354,11 +1921,12 @@ public class ConstantExpressionInliner {
 			}
 
 			for (AsmStackReconstructedValue val : nvalues) {
-				val.removeInstructions(instructions);
+				val.removeInstructions(instructions, instructionindex);
 
 				//remove the PUTSTATIC as well
 				instructions.remove(val.getLastIns());
-				if (logger != null) {
+				instructionindex.removeInstruction(val.getLastIns());
+				if (logreplacements) {
 					logger.log(new InstructionReplacementLogEntry(bytecodelocation, val.getStackInfo(), fieldasminfo,
 							constantval));
 				}
@@ -1374,7 +1942,9 @@ public class ConstantExpressionInliner {
 			if (!canDeconstructValue(transclass, constantval)) {
 				return false;
 			}
+			long deconstructionstart = System.nanoTime();
 			deconsresult = deconstructor.deconstructValue(this, transclass, clinitmethodnode, constantval);
+			deconstructionTimeNanos.add(System.nanoTime() - deconstructionstart);
 			if (deconsresult == null) {
 				//did not deconstruct the value, so we can't replace the instructions in the static initializer
 				return true;
@@ -1385,10 +1955,15 @@ public class ConstantExpressionInliner {
 					//no need for replacement in this case, the reconstructed stack equals the deconstructed insructions
 					continue;
 				}
-				val.removeInstructions(instructions);
+				val.removeInstructions(instructions, instructionindex);
 				//insert before the PUTSTATIC instruction
-				instructions.insertBefore(val.getLastIns(), Utils.clone(deconsresult.getInstructions()));
-				if (logger != null) {
+				InsnList deconstructedinstructions = Utils.clone(deconsresult.getInstructions());
+				AbstractInsnNode firstdeconins = deconstructedinstructions.getFirst();
+				AbstractInsnNode lastdeconins = deconstructedinstructions.getLast();
+				instructions.insertBefore(val.getLastIns(), deconstructedinstructions);
+				instructionindex.addInstructions(firstdeconins, lastdeconins);
+				transclass.markMethodModified(clinitmethodnode);
+				if (isLoggable(InstructionReplacementLogEntry.class)) {
 					//log for all locations that were updated
 					logger.log(new InstructionReplacementLogEntry(
 							Utils.getBytecodeLocation(transclass, clinitmethodnode, val.getLastIns()),
@@ -1480,6 +2055,38 @@ public class ConstantExpressionInliner {
 	 * @return The deconstructed instructions or <code>null</code> if the deconstruction failed.
 	 */
 	DeconstructionResult deconstructValue(TransformedClass transclass, MethodNode methodnode, Object val, Type type) {
+		DeconstructionTemplateCache.Key key = deconstructionTemplateCache.createKey(val, type);
+		DeconstructionTemplateCache.Recording parentrecording = transclass.deconstructionRecording;
+		if (key == null) {
+			//the dependencies are recorded in the enclosing deconstruction, if any
+			return deconstructValueImpl(transclass, methodnode, val, type);
+		}
+		DeconstructionTemplateCache.Template template = deconstructionTemplateCache.get(key, transclass, methodnode);
+		if (template != null) {
+			if (parentrecording != null) {
+				parentrecording.merge(template.getRecording());
+			}
+			return template.instantiate();
+		}
+		DeconstructionTemplateCache.Recording recording = new DeconstructionTemplateCache.Recording();
+		transclass.deconstructionRecording = recording;
+		DeconstructionResult result;
+		try {
+			result = deconstructValueImpl(transclass, methodnode, val, type);
+		} finally {
+			transclass.deconstructionRecording = parentrecording;
+		}
+		if (parentrecording != null) {
+			parentrecording.merge(recording);
+		}
+		if (result != null) {
+			deconstructionTemplateCache.put(key, result, recording);
+		}
+		return result;
+	}
+
+	private DeconstructionResult deconstructValueImpl(TransformedClass transclass, MethodNode methodnode, Object val,
+			Type type) {
 		switch (type.getSort()) {
 			case Type.VOID:
 			case Type.BOOLEAN:
@@ -1504,13 +2111,20 @@ public class ConstantExpressionInliner {
 					result.add(new InsnNode(Opcodes.ACONST_NULL));
 					return DeconstructionResult.createConstant(result, null);
 				}
+				DeconstructionTemplateCache.Recording recording = transclass.deconstructionRecording;
 				if (!canDeconstructValue(transclass, val)) {
+					if (recording != null) {
+						recording.setNotCacheable();
+					}
 					return null;
 				}
+				if (recording != null) {
+					recording.addValueType(Type.getInternalName(val.getClass()));
+				}
 				ConstantDeconstructor deconstructor = getConstantDeconstructor(val);
 				if (deconstructor == null) {
 					//no deconstructor found for this type, can't perform inlining
-					if (logger != null) {
+					if (isLoggable(DeconstructorNotConfiguredLogEntry.class)) {
 						String typeinternalname = Type.getInternalName(val.getClass());
 						deconstructorNotConfiguredLogEntries.putIfAbsent(typeinternalname,
 								new DeconstructorNotConfiguredLogEntry(typeinternalname));
@@ -1543,11 +2157,20 @@ public class ConstantExpressionInliner {
 	private boolean performInstructionInlining(TransformedClass transclass, MethodNode methodnode) {
 		boolean any = false;
 		InsnList instructions = methodnode.instructions;
+		visitedMethodCount.increment();
+		visitedInstructionCount.add(instructions.size());
+		//the values are reconstructed repeatedly from the same instructions as we move forward
+		//memoize them while the instructions are not modified
+		ReconstructionMemo memo = new ReconstructionMemo();
+		//the contexts for the receiver types are derived from this one, and reused for all instructions
+		ReconstructionContext basecontext = ReconstructionContext.createForReceiverType(this, transclass, null,
+				methodnode, memo);
+		MethodInstructionIndex instructionindex = transclass.getMethodInstructionIndex(methodnode);
 		AbstractInsnNode nextnode;
 		for (AbstractInsnNode ins = instructions.getFirst(); ins != null; ins = nextnode) {
 			nextnode = ins.getNext();
 
-			if (transclass.inlinedInstructions.contains(ins)) {
+			if (instructionindex.isInlined(ins)) {
 				//already inlined at this instruction, dont deconstruct and reconstruct again
 				continue;
 			}
@@ -1573,11 +2196,11 @@ public class ConstantExpressionInliner {
 						continue;
 					}
 
-					ReconstructionContext reconstructioncontext = ReconstructionContext.createForReceiverType(this,
-							transclass, Utils.getClassForType(rettype), methodnode);
-					MethodKey methodkey = new MethodKey(methodins);
+					ReconstructionContext reconstructioncontext = basecontext
+							.withReceiverType(Utils.getClassForType(rettype));
 					try {
-						reconstructedval = reconstructValueImpl(reconstructioncontext, ins, methodkey);
+						//same as reconstructValueImpl with the MethodKey, but memoized
+						reconstructedval = reconstructStackValue(reconstructioncontext, ins);
 					} catch (ReconstructionException e) {
 						ReconstructionException exc = reconstructioncontext.newMemberInliningReconstructionException(e,
 								ins, methodins.owner, methodins.name, methodins.desc);
@@ -1605,7 +2228,7 @@ public class ConstantExpressionInliner {
 				case Opcodes.DCONST_0:
 				case Opcodes.DCONST_1: {
 					//nothing to inline for these constant loading instructions, just mark as processed
-					transclass.inlinedInstructions.add(ins);
+					instructionindex.markInlined(ins);
 					continue;
 				}
 				case Opcodes.BASTORE:
@@ -1643,8 +2266,8 @@ public class ConstantExpressionInliner {
 						//no inlining for functions that return void
 						continue;
 					}
-					ReconstructionContext reconstructioncontext = ReconstructionContext.createForReceiverType(this,
-							transclass, Utils.getClassForType(rettype), methodnode);
+					ReconstructionContext reconstructioncontext = basecontext
+							.withReceiverType(Utils.getClassForType(rettype));
 
 					try {
 						reconstructedval = reconstructStackValue(reconstructioncontext, ins);
@@ -1660,31 +2283,37 @@ public class ConstantExpressionInliner {
 			}
 			Object inlineval = reconstructedval.getValue();
 
+			long deconstructionstart = System.nanoTime();
 			DeconstructionResult deconsresult = deconstructValue(transclass, methodnode, inlineval, rettype);
+			deconstructionTimeNanos.add(System.nanoTime() - deconstructionstart);
 			if (deconsresult == null) {
 				//failed to deconstruct
 				//mark the instruction as inlined, so we don't process it again
 				//if the deconstruction failed once, it is expected to fail again the next time
-				transclass.inlinedInstructions.add(ins);
+				instructionindex.markInlined(ins);
 				continue;
 			}
 			InsnList deconstructedinstructions = deconsresult.getInstructions();
+			AbstractInsnNode firstdeconins = deconstructedinstructions.getFirst();
 			AbstractInsnNode lastdeconins = deconstructedinstructions.getLast();
 
 			if (reconstructedval.getStackInfo().equals(deconsresult.getStackInfo())) {
 				//the reconstructed instruction is the same as the one we're processing
 				//don't replace the instructions
-				transclass.inlinedInstructions.add(lastdeconins);
+				instructionindex.markInlined(lastdeconins);
 				continue;
 			}
 
 			instructions.insertBefore(reconstructedval.getFirstIns(), deconstructedinstructions);
+			instructionindex.addInstructions(firstdeconins, lastdeconins);
 
-			reconstructedval.removeInstructions(instructions);
+			reconstructedval.removeInstructions(instructions, instructionindex);
+			memo.clear();
+			any = true;
 
-			transclass.inlinedInstructions.add(lastdeconins);
+			instructionindex.markInlined(lastdeconins);
 
-			if (logger != null) {
+			if (isLoggable(InstructionReplacementLogEntry.class)) {
 				logger.log(new InstructionReplacementLogEntry(
 						Utils.getBytecodeLocation(transclass, methodnode, lastdeconins),
 						reconstructedval.getStackInfo(), deconsresult.getStackInfo(), inlineval));
@@ -1717,8 +2346,7 @@ public class ConstantExpressionInliner {
 	}
 
 	private AsmStackReconstructedValue reconstructValueImpl(ReconstructionContext context, AbstractInsnNode ins,
-			MemberKey memberkey) throws ReconstructionException {
-		ConstantReconstructor reconstructor = constantReconstructors.get(memberkey);
+			ConstantReconstructor reconstructor) throws ReconstructionException {
 		if (reconstructor != null) {
 			return reconstructor.reconstructValue(context, ins);
 		}
@@ -1734,7 +2362,7 @@ public class ConstantExpressionInliner {
 
 				//try to handle the reconstruction in a generic way, which will invoke the appropriate method 
 				//if applicable given the used predicate 
-				reconstructor = constantReconstructors.get(new MethodKey("", methodins.name, methodins.desc));
+				reconstructor = constantReconstructors.getMethod("", methodins.name, methodins.desc);
 				if (reconstructor != null) {
 					AsmStackReconstructedValue reconstructed = reconstructor.reconstructValue(context, ins);
 					if (reconstructed != null) {
@@ -1790,10 +2418,9 @@ public class ConstantExpressionInliner {
 				break;
 			}
 			case Opcodes.GETSTATIC: {
-				FieldKey fieldkey = (FieldKey) memberkey;
 				FieldInsnNode fieldins = (FieldInsnNode) ins;
 
-				TransformedClass fieldownertransclass = inputClasses.get(memberkey.getOwner());
+				TransformedClass fieldownertransclass = inputClasses.get(fieldins.owner);
 				if (fieldownertransclass != null) {
 					TransformedField transfield = fieldownertransclass.getTransformedField(fieldins.desc,
 							fieldins.name);
@@ -1802,7 +2429,8 @@ public class ConstantExpressionInliner {
 
 						Object constval = transfield.calculatedConstantValue.orElse(null);
 						if (constval == null || constantTypes.get(Type.getInternalName(constval.getClass())) != null
-								|| optionsConstantFields.get(fieldkey) != null) {
+								|| optionsConstantFields.getField(fieldins.owner, fieldins.name,
+										fieldins.desc) != null) {
 							//only return if the type of the value is a constant type, otherwise it might get modified by other code
 							//and thus result in us using different values
 							return new SimpleConstantReconstructor(constval, AsmStackInfo.createStaticField(
@@ -1841,15 +2469,15 @@ public class ConstantExpressionInliner {
 				case Opcodes.GETSTATIC: {
 					FieldInsnNode fieldins = (FieldInsnNode) ins;
 					Class<?> type;
-					Type ownertype = Type.getObjectType(memberkey.getOwner());
+					Type ownertype = Type.getObjectType(fieldins.owner);
 					try {
 						type = findClass(ownertype);
 					} catch (ClassNotFoundException e) {
-						throw context.newClassNotFoundReconstructionException(e, ins, memberkey.getOwner());
+						throw context.newClassNotFoundReconstructionException(e, ins, fieldins.owner);
 					}
 					Field field;
 					try {
-						field = type.getDeclaredField(memberkey.getMemberName());
+						field = type.getDeclaredField(fieldins.name);
 						field.setAccessible(true);
 					} catch (NoSuchFieldException e) {
 						throw context.newFieldNotFoundReconstructionException(e, ins, fieldins.owner, fieldins.name,
@@ -1860,20 +2488,17 @@ public class ConstantExpressionInliner {
 				default: {
 					MethodInsnNode methodins = (MethodInsnNode) ins;
 					Class<?> type;
-					Type ownertype = Type.getObjectType(memberkey.getOwner());
+					Type ownertype = Type.getObjectType(methodins.owner);
 					try {
 						type = findClass(ownertype);
 					} catch (ClassNotFoundException e) {
-						throw context.newClassNotFoundReconstructionException(e, ins, memberkey.getOwner());
+						throw context.newClassNotFoundReconstructionException(e, ins, methodins.owner);
 					}
 
-					MethodKey methodkey = (MethodKey) memberkey;
-					String methodname = memberkey.getMemberName();
-					if (Utils.CONSTRUCTOR_METHOD_NAME.equals(methodname)) {
+					if (Utils.CONSTRUCTOR_METHOD_NAME.equals(methodins.name)) {
 						Constructor<?> constructor;
 						try {
-							constructor = Utils.getConstructorForMethodDescriptor(type,
-									methodkey.getMethodDescriptor());
+							constructor = Utils.getConstructorForMethodDescriptor(type, methodins.desc);
 						} catch (NoSuchMethodException e) {
 							throw context.newMethodNotFoundReconstructionException(e, methodins, methodins.owner,
 									methodins.name, methodins.desc);
@@ -1923,19 +2548,11 @@ public class ConstantExpressionInliner {
 		}
 		//the type is not a constant type
 		//try to find it, by searching for the constant reconstructors
-		//the field key for the tail map only contains the internal name, as we accept any of the reconstructors
-		//that are associated with this owner type
-		FieldKey searchfieldkey = new FieldKey(ownertype.getInternalName(), "", "");
-		NavigableMap<MemberKey, TypeReferencedConstantReconstructor> tailmap = constantReconstructors
-				.tailMap(searchfieldkey, true);
-		for (Entry<MemberKey, TypeReferencedConstantReconstructor> entry : tailmap.entrySet()) {
-			MemberKey em = entry.getKey();
-			if (!em.getOwner().equals(searchfieldkey.getOwner())) {
-				//not found
-				break;
-			}
+		//we accept any of the reconstructors that are associated with this owner type
+		for (Entry<MemberKey, TypeReferencedConstantReconstructor> entry : constantReconstructors
+				.getOwnerEntries(ownertype.getInternalName())) {
 			//this reconstructor is associated with the same owner type that the field we're looking for
-			for (Class<?> type : entry.getValue().types) {
+			for (Class<?> type : entry.getValue().getTypes()) {
 				if (type == null) {
 					continue;
 				}
@@ -1971,53 +2588,32 @@ public class ConstantExpressionInliner {
 		return null;
 	}
 
-	private static List<LogContextInfo> getLogContextInfo(ReconstructionException e) {
-		List<LogContextInfo> result = new ArrayList<>();
-		for (Throwable it = e; it instanceof ReconstructionException; it = it.getCause()) {
-			result.add(((ReconstructionException) it).getContextInfo());
-		}
-		return result;
-	}
-
-	private static Throwable getRootCause(ReconstructionException e) {
-		for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
-			if (!(cause instanceof ReconstructionException)) {
-				return cause;
-			}
-		}
-		return null;
+	/**
+	 * Checks if the log entries of the given type are logged.
+	 * <p>
+	 * The log entries, and the information that is only used for logging should only be created if this method returns
+	 * <code>true</code>.
+	 *
+	 * @param entrytype
+	 *            The type of the log entry.
+	 * @return <code>true</code> if there's a logger, and it accepts the entries of the given type.
+	 */
+	boolean isLoggable(Class<? extends LogEntry> entrytype) {
+		ToolLogger logger = this.logger;
+		return logger != null && logger.isLoggable(entrytype);
 	}
 
 	private void handleReconstructionException(ReconstructionException e) {
-		if (logger == null) {
+		if (!isLoggable(ReconstructionFailureLogEntry.class)) {
 			//no need for logging
 			return;
 		}
-		List<LogContextInfo> loginfocontext = getLogContextInfo(e);
-		if (reconstructionFailureLogEntries.containsKey(loginfocontext)) {
-			//a log entry is already present for this trace
-			return;
-		}
-		//we're recording either
-		// - a new log context info stack
-		// - or a log context info stack that is larger than one that is present
-		//add this entry
-		//and overwrite all entries that have a smaller but equal substack
-		//this is to avoid duplicate log entries that clutter the output unnecessarily
-		int contextcount = loginfocontext.size();
-		Throwable rootcause = getRootCause(e);
-		ReconstructionFailureLogEntry logentry = new ReconstructionFailureLogEntry(rootcause, loginfocontext);
-		reconstructionFailureLogEntries.put(loginfocontext, logentry);
-		for (int i = 1; i < contextcount; i++) {
-			List<LogContextInfo> subcontext = loginfocontext.subList(i, contextcount);
-			ReconstructionFailureLogEntry sublogentry = new ReconstructionFailureLogEntry(rootcause, subcontext);
-			reconstructionFailureLogEntries.put(subcontext, sublogentry);
-		}
+		reconstructionFailures.add(e);
 	}
 
 	void logConfigClassMemberInaccessible(String classInternalName, String memberName, String memberDescriptor,
 			Throwable exception) {
-		if (logger == null) {
+		if (!isLoggable(ConfigClassMemberInaccessibleLogEntry.class)) {
 			//no need for logging
 			return;
 		}
@@ -2034,7 +2630,7 @@ public class ConstantExpressionInliner {
 	}
 
 	void logDeconstructionFailure(Object value, DeconstructionDataAccessor accessor, Throwable cause) {
-		if (logger == null) {
+		if (!isLoggable(DeconstructionFailedLogEntry.class)) {
 			//no need for logging
 			return;
 		}
@@ -2042,7 +2638,7 @@ public class ConstantExpressionInliner {
 	}
 
 	void logIndeterministicToString(String classinternalname) {
-		if (logger == null) {
+		if (!isLoggable(IndeterministicToStringLogEntry.class)) {
 			//no need for logging
 			return;
 		}
@@ -2073,4 +2669,19 @@ public class ConstantExpressionInliner {
 			return isConstantType(Type.getInternalName(type)) && isContantTypeReconstructable(type, methodins);
 		}
 	}
+
+	/**
+	 * An input class file that is read, but not yet parsed.
+	 */
+	private static final class InputClassFile {
+		protected final ToolInput<?> input;
+		protected final byte[] bytes;
+		protected final ClassReader classReader;
+
+		public InputClassFile(ToolInput<?> input) throws IOException {
+			this.input = input;
+			this.bytes = input.getBytes();
+			this.classReader = new ClassReader(bytes);
+		}
+	}
 }
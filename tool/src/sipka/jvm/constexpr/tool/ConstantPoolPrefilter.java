@@ -0,0 +1,265 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassReader;
+
+/**
+ * Prefilter that determines based on the constant pool of the input classes whether they may contain optimization
+ * opportunities.
+ * <p>
+ * Only the constant pool of the classes are examined, so the classes without any opportunities can be passed through
+ * without building the tree model of them.
+ * <p>
+ * A class may be optimized if it references any of the following:
+ * <ul>
+ * <li>A member that has a constant reconstructor.</li>
+ * <li>A method that has a generic instance method reconstructor, or <code>toString()</code>, if the class also has
+ * string constants.</li>
+ * <li>A member of a constant type.</li>
+ * <li>A configured constant field.</li>
+ * <li>A field of another input class.</li>
+ * <li>A field of itself, and it has a static initializer.</li>
+ * <li>The <code>TYPE</code> field of a boxed primitive type.</li>
+ * <li>The string concatenation bootstrap methods.</li>
+ * <li>An annotation that should be stripped.</li>
+ * </ul>
+ * Additionally, the input classes which fields are referenced by the optimizable classes are also processed, so their
+ * field values are available during optimization.
+ */
+class ConstantPoolPrefilter {
+	private static final int CONSTANT_UTF8_TAG = 1;
+	private static final int CONSTANT_STRING_TAG = 8;
+	private static final int CONSTANT_FIELDREF_TAG = 9;
+	private static final int CONSTANT_METHODREF_TAG = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF_TAG = 11;
+
+	private static final String STRING_CONCAT_FACTORY_INTERNAL_NAME = "java/lang/invoke/StringConcatFactory";
+
+	private final MemberRegistry<?> constantReconstructors;
+	private final Map<String, ?> constantTypes;
+	private final MemberRegistry<?> constantFields;
+	private final Set<String> inputClassNames;
+	/**
+	 * The searched UTF8 constants mapped by their encoded lengths in the class files.
+	 */
+	private final Map<Integer, Set<String>> utf8Constants = new HashMap<>();
+	private final Set<String> stripAnnotationDescriptors = new HashSet<>();
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param constantReconstructors
+	 *            The constant reconstructors.
+	 * @param constantTypes
+	 *            The constant types mapped by their internal names.
+	 * @param constantFields
+	 *            The configured constant fields.
+	 * @param inputClassNames
+	 *            The internal names of all input classes.
+	 * @param stripAnnotations
+	 *            The internal names of the annotations that are stripped.
+	 */
+	public ConstantPoolPrefilter(MemberRegistry<?> constantReconstructors, Map<String, ?> constantTypes,
+			MemberRegistry<?> constantFields, Set<String> inputClassNames, Collection<String> stripAnnotations) {
+		this.constantReconstructors = constantReconstructors;
+		this.constantTypes = constantTypes;
+		this.constantFields = constantFields;
+		this.inputClassNames = inputClassNames;
+		addUtf8Constant(Utils.STATIC_INITIALIZER_METHOD_NAME);
+		for (String annot : stripAnnotations) {
+			String desc = "L" + annot + ";";
+			stripAnnotationDescriptors.add(desc);
+			addUtf8Constant(desc);
+		}
+	}
+
+	/**
+	 * Determines the classes that need to be processed.
+	 *
+	 * @param classes
+	 *            The candidate classes mapped by their internal names.
+	 * @return The internal names of the classes that need to be processed.
+	 */
+	public NavigableSet<String> filterClasses(NavigableMap<String, ClassReader> classes) {
+		NavigableSet<String> result = new TreeSet<>();
+		Map<String, Set<String>> fieldowners = new HashMap<>();
+		for (Entry<String, ClassReader> entry : classes.entrySet()) {
+			Set<String> owners = new HashSet<>();
+			if (isOptimizable(entry.getValue(), owners)) {
+				result.add(entry.getKey());
+			}
+			fieldowners.put(entry.getKey(), owners);
+		}
+		//the referenced fields of the input classes are needed for the optimization
+		Deque<String> queue = new ArrayDeque<>(result);
+		while (!queue.isEmpty()) {
+			for (String owner : fieldowners.get(queue.poll())) {
+				if (classes.containsKey(owner) && result.add(owner)) {
+					queue.add(owner);
+				}
+			}
+		}
+		return result;
+	}
+
+	private boolean isOptimizable(ClassReader cr, Set<String> outfieldowners) {
+		String classname = cr.getClassName();
+		char[] buffer = new char[cr.getMaxStringLength()];
+		boolean result = false;
+		boolean hasclinit = false;
+		boolean selffieldreference = false;
+		boolean genericmethodreference = false;
+		boolean stringconstant = false;
+		int count = cr.getItemCount();
+		for (int i = 1; i < count; i++) {
+			int offset = cr.getItem(i);
+			if (offset == 0) {
+				//the unused entry after long and double constants
+				continue;
+			}
+			switch (cr.readByte(offset - 1)) {
+				case CONSTANT_UTF8_TAG: {
+					String value = readUtf8Constant(cr, offset, buffer);
+					if (value == null) {
+						break;
+					}
+					if (Utils.STATIC_INITIALIZER_METHOD_NAME.equals(value)) {
+						hasclinit = true;
+					} else if (stripAnnotationDescriptors.contains(value)) {
+						result = true;
+					}
+					break;
+				}
+				case CONSTANT_FIELDREF_TAG: {
+					String owner = cr.readClass(offset, buffer);
+					int nameandtypeoffset = cr.getItem(cr.readUnsignedShort(offset + 2));
+					String name = cr.readUTF8(nameandtypeoffset, buffer);
+					String descriptor = cr.readUTF8(nameandtypeoffset + 2, buffer);
+					if (owner.equals(classname)) {
+						selffieldreference = true;
+						break;
+					}
+					if (inputClassNames.contains(owner)) {
+						outfieldowners.add(owner);
+						result = true;
+						break;
+					}
+					if (isConstantOwner(owner)) {
+						result = true;
+						break;
+					}
+					if (constantFields.containsField(owner, name, descriptor)
+							|| constantReconstructors.containsField(owner, name, descriptor)) {
+						result = true;
+						break;
+					}
+					if ("TYPE".equals(name) && Utils.getPrimitiveClassForBoxedTypeInternalName(owner) != null) {
+						result = true;
+						break;
+					}
+					break;
+				}
+				case CONSTANT_METHODREF_TAG:
+				case CONSTANT_INTERFACE_METHODREF_TAG: {
+					String owner = cr.readClass(offset, buffer);
+					if (isConstantOwner(owner) || STRING_CONCAT_FACTORY_INTERNAL_NAME.equals(owner)) {
+						result = true;
+						break;
+					}
+					int nameandtypeoffset = cr.getItem(cr.readUnsignedShort(offset + 2));
+					String name = cr.readUTF8(nameandtypeoffset, buffer);
+					String descriptor = cr.readUTF8(nameandtypeoffset + 2, buffer);
+					if (constantReconstructors.containsMethod(owner, name, descriptor)) {
+						result = true;
+						break;
+					}
+					if (constantReconstructors.containsMethod("", name, descriptor)
+							|| ("toString".equals(name) && "()Ljava/lang/String;".equals(descriptor))) {
+						//generic instance method, or toString which is handled specially for any type
+						//these can only be optimized if the receiver is constant
+						genericmethodreference = true;
+						break;
+					}
+					break;
+				}
+				case CONSTANT_STRING_TAG: {
+					stringconstant = true;
+					break;
+				}
+				default: {
+					break;
+				}
+			}
+		}
+		//the generic instance methods can be called on string constants
+		return result || (hasclinit && selffieldreference) || (genericmethodreference && stringconstant);
+	}
+
+	private boolean isConstantOwner(String owner) {
+		return constantTypes.get(owner) != null;
+	}
+
+	private void addUtf8Constant(String value) {
+		utf8Constants.computeIfAbsent(getModifiedUtf8Length(value), k -> new HashSet<>()).add(value);
+	}
+
+	/**
+	 * Reads the UTF8 constant at the given offset if it may be one of the searched constants.
+	 * <p>
+	 * The constant is decoded from the modified UTF-8 encoding of the class files the same way as
+	 * {@link ClassReader#readUTF8(int, char[])} does, which is not accessible for a constant pool entry offset.
+	 */
+	private String readUtf8Constant(ClassReader cr, int offset, char[] buffer) {
+		int length = cr.readUnsignedShort(offset);
+		if (!utf8Constants.containsKey(length)) {
+			return null;
+		}
+		int idx = offset + 2;
+		int end = idx + length;
+		int strlen = 0;
+		while (idx < end) {
+			int c = cr.readByte(idx++);
+			if ((c & 0x80) == 0) {
+				buffer[strlen++] = (char) (c & 0x7F);
+			} else if ((c & 0xE0) == 0xC0) {
+				buffer[strlen++] = (char) (((c & 0x1F) << 6) + (cr.readByte(idx++) & 0x3F));
+			} else {
+				buffer[strlen++] = (char) (((c & 0xF) << 12) + ((cr.readByte(idx++) & 0x3F) << 6)
+						+ (cr.readByte(idx++) & 0x3F));
+			}
+		}
+		return new String(buffer, 0, strlen);
+	}
+
+	/**
+	 * Gets the length of the string in the modified UTF-8 encoding of the class files.
+	 * <p>
+	 * The NUL character is encoded on 2 bytes, and the supplementary characters are encoded as surrogate pairs, on 6
+	 * bytes.
+	 */
+	private static int getModifiedUtf8Length(String value) {
+		int result = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c != 0 && c < 0x80) {
+				result += 1;
+			} else if (c < 0x800) {
+				result += 2;
+			} else {
+				result += 3;
+			}
+		}
+		return result;
+	}
+}
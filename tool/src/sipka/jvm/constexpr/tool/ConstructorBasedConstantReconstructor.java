@@ -17,12 +17,14 @@ final class ConstructorBasedConstantReconstructor implements ConstantReconstruct
 
 	private transient final String typeInternalName;
 	private transient final Class<?>[] parameterTypes;
+	private transient final Type constructorType;
 
 	public ConstructorBasedConstantReconstructor(Constructor<?> constructor, ReconstructorPredicate predicate) {
 		this.constructor = constructor;
 		this.predicate = predicate;
 		this.parameterTypes = constructor.getParameterTypes();
 		this.typeInternalName = Type.getInternalName(constructor.getDeclaringClass());
+		this.constructorType = Type.getType(constructor);
 	}
 
 	public ConstructorBasedConstantReconstructor(Constructor<?> constructor) {
@@ -43,7 +45,7 @@ final class ConstructorBasedConstantReconstructor implements ConstantReconstruct
 			}
 		} catch (ReconstructionException e) {
 			throw context.newMethodArgumentsReconstructionException(e, ins, typeInternalName,
-					Utils.CONSTRUCTOR_METHOD_NAME, Type.getConstructorDescriptor(constructor));
+					Utils.CONSTRUCTOR_METHOD_NAME, constructorType.getDescriptor());
 		}
 		AbstractInsnNode beforeins = (paramcount == 0 ? ins : derivedargs[0].getFirstIns()).getPrevious();
 		//expected 
@@ -70,13 +72,13 @@ final class ConstructorBasedConstantReconstructor implements ConstantReconstruct
 
 		Object instance;
 		try {
-			instance = constructor.newInstance(args);
+			instance = context.getInliner().invokeMember(context, constructor, null, args);
 		} catch (Exception e) {
 			throw context.newMethodInvocationFailureReconstructionException(e, ins, typeInternalName,
-					Utils.CONSTRUCTOR_METHOD_NAME, Type.getConstructorDescriptor(constructor), null, args);
+					Utils.CONSTRUCTOR_METHOD_NAME, constructorType.getDescriptor(), null, args);
 		}
 		return new AsmStackReconstructedValue(typeins, ins.getNext(),
-				AsmStackInfo.createConstructor(Type.getObjectType(typeInternalName), Type.getType(constructor),
+				AsmStackInfo.createConstructor(Type.getObjectType(typeInternalName), constructorType,
 						AsmStackReconstructedValue.toStackInfoArray(derivedargs)),
 				instance);
 	}
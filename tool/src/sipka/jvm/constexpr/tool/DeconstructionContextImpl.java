@@ -2,20 +2,40 @@ package sipka.jvm.constexpr.tool;
 
 import sipka.jvm.constexpr.tool.options.DeconstructionContext;
 import sipka.jvm.constexpr.tool.options.MemberReference;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
 
 final class DeconstructionContextImpl implements DeconstructionContext {
 
 	private final ConstantExpressionInliner inliner;
-	private final MemberReference optimizedMethod;
+	private final TransformedClass transformedClass;
+	private final MethodNode methodNode;
 
-	public DeconstructionContextImpl(ConstantExpressionInliner inliner, MemberReference optimizedMethod) {
+	public DeconstructionContextImpl(ConstantExpressionInliner inliner, TransformedClass transformedClass,
+			MethodNode methodNode) {
 		this.inliner = inliner;
-		this.optimizedMethod = optimizedMethod;
+		this.transformedClass = transformedClass;
+		this.methodNode = methodNode;
 	}
 
 	@Override
 	public MemberReference getOptimizedMethod() {
-		return optimizedMethod;
+		MemberReference result = new MemberReference(transformedClass.classNode.name, methodNode.name,
+				methodNode.desc);
+		DeconstructionTemplateCache.Recording recording = transformedClass.deconstructionRecording;
+		if (recording != null) {
+			recording.setOptimizedMethodDependent(result);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean isOptimizingStaticInitializer() {
+		boolean result = Utils.STATIC_INITIALIZER_METHOD_NAME.equals(methodNode.name);
+		DeconstructionTemplateCache.Recording recording = transformedClass.deconstructionRecording;
+		if (recording != null) {
+			recording.setStaticInitializerDependent(result);
+		}
+		return result;
 	}
 
 	@Override
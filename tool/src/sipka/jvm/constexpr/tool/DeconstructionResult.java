@@ -57,4 +57,15 @@ class DeconstructionResult {
 	public AsmStackInfo getStackInfo() {
 		return stackInfo;
 	}
+
+	/**
+	 * Copies this deconstruction result.
+	 * <p>
+	 * The instructions are cloned, so they can be inserted independently of this result.
+	 * 
+	 * @return The copy.
+	 */
+	public DeconstructionResult copy() {
+		return new DeconstructionResult(Utils.clone(instructions), stackInfo);
+	}
 }
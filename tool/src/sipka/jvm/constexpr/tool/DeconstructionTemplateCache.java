@@ -0,0 +1,280 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import sipka.jvm.constexpr.tool.options.MemberReference;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Bounded, least recently used cache of the {@linkplain DeconstructionResult deconstruction results} of the values.
+ * <p>
+ * The results are keyed by the deconstructed value and the target type on the stack. The values are compared by deep
+ * equality, see {@link ImmutableValues}. The cached results serve as templates, each deconstruction site receives its
+ * own copy of the instructions.
+ * <p>
+ * A deconstruction may depend on where it takes place. The values that have the same type as the transformed class
+ * are not deconstructed, and the deconstructor selectors may examine the optimized method. These dependencies are
+ * {@linkplain Recording recorded} during the deconstruction, and a cached template is only used for a site that
+ * satisfies the same conditions.
+ * <p>
+ * The cache is shared between the processed classes, and is thread safe.
+ */
+final class DeconstructionTemplateCache {
+	/**
+	 * The maximum number of templates that are cached for a single key.
+	 * <p>
+	 * Multiple templates are needed if the deconstruction depends on the optimized method.
+	 */
+	private static final int MAX_TEMPLATES_PER_KEY = 8;
+
+	private final Predicate<Object> immutableValuePredicate;
+	private final Map<Key, List<Template>> templates;
+
+	private long hitCount;
+	private long missCount;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param maxSize
+	 *            The maximum number of cached keys.
+	 * @param immutableValuePredicate
+	 *            The predicate that determines if a non-<code>null</code> object is immutable, and can be shared.
+	 */
+	public DeconstructionTemplateCache(int maxSize, Predicate<Object> immutableValuePredicate) {
+		this.immutableValuePredicate = immutableValuePredicate;
+		this.templates = new LinkedHashMap<Key, List<Template>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, List<Template>> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Creates the cache key for the deconstruction of the value.
+	 * <p>
+	 * Only the deconstruction of arrays and immutable non-constant values are cached. The constants, {@link Class} and
+	 * {@link Enum} values are deconstructed to a single instruction, so caching them wouldn't be beneficial.
+	 *
+	 * @param val
+	 *            The value.
+	 * @param type
+	 *            The target type on the stack.
+	 * @return The key, or <code>null</code> if the deconstruction cannot be cached.
+	 */
+	public Key createKey(Object val, Type type) {
+		if (val == null || Utils.isConstantValue(val) || val instanceof Class || val instanceof Enum) {
+			return null;
+		}
+		Object copy = ImmutableValues.copy(val, immutableValuePredicate);
+		if (copy == ImmutableValues.NOT_COPYABLE) {
+			return null;
+		}
+		return new Key(copy, type);
+	}
+
+	/**
+	 * Gets a cached template that can be used for the deconstruction site.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param transclass
+	 *            The transformed class.
+	 * @param methodnode
+	 *            The method in which the deconstruction is happening.
+	 * @return The template, or <code>null</code> if there's no template for the site.
+	 */
+	public synchronized Template get(Key key, TransformedClass transclass, MethodNode methodnode) {
+		List<Template> keytemplates = templates.get(key);
+		if (keytemplates != null) {
+			for (Template t : keytemplates) {
+				if (t.isApplicable(transclass, methodnode)) {
+					++hitCount;
+					return t;
+				}
+			}
+		}
+		++missCount;
+		return null;
+	}
+
+	/**
+	 * Puts the result of a deconstruction in the cache, if it can be cached.
+	 * <p>
+	 * The result is copied, the argument result can be used by the caller.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param result
+	 *            The deconstruction result.
+	 * @param recording
+	 *            The recorded dependencies of the deconstruction.
+	 */
+	public void put(Key key, DeconstructionResult result, Recording recording) {
+		if (!recording.cacheable) {
+			return;
+		}
+		Template template = new Template(result.copy(), recording);
+		synchronized (this) {
+			List<Template> keytemplates = templates.computeIfAbsent(key, k -> new ArrayList<>(1));
+			if (keytemplates.size() < MAX_TEMPLATES_PER_KEY) {
+				keytemplates.add(template);
+			}
+		}
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * The key of the cached deconstruction templates.
+	 */
+	static final class Key {
+		private final Object value;
+		private final Type type;
+		private final int hashCode;
+
+		Key(Object value, Type type) {
+			this.value = value;
+			this.type = type;
+			this.hashCode = ImmutableValues.deepHashCode(value) * 31 + type.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return hashCode == other.hashCode && type.equals(other.type)
+					&& ImmutableValues.deepEquals(value, other.value);
+		}
+	}
+
+	/**
+	 * The dependencies of a deconstruction on the site where it takes place.
+	 * <p>
+	 * The recording of the nested deconstructions is {@linkplain #merge(Recording) merged} into the enclosing one.
+	 */
+	static final class Recording {
+		/**
+		 * The internal names of the types of the deconstructed values.
+		 * <p>
+		 * Values are not deconstructed in their own class.
+		 */
+		protected final Set<String> valueTypes = new TreeSet<>();
+		/**
+		 * Set to <code>false</code> if a value couldn't be deconstructed because of the site.
+		 */
+		protected boolean cacheable = true;
+		/**
+		 * Whether or not the deconstruction happened in a static initializer, or <code>null</code> if the
+		 * deconstruction doesn't depend on it.
+		 */
+		protected Boolean staticInitializer;
+		/**
+		 * The method in which the deconstruction happened, or <code>null</code> if the deconstruction doesn't depend on
+		 * it.
+		 */
+		protected MemberReference optimizedMethod;
+
+		public void addValueType(String typeinternalname) {
+			valueTypes.add(typeinternalname);
+		}
+
+		public void setStaticInitializerDependent(boolean staticinitializer) {
+			this.staticInitializer = staticinitializer;
+		}
+
+		public void setOptimizedMethodDependent(MemberReference method) {
+			this.optimizedMethod = method;
+		}
+
+		public void setNotCacheable() {
+			this.cacheable = false;
+		}
+
+		public void merge(Recording nested) {
+			valueTypes.addAll(nested.valueTypes);
+			cacheable &= nested.cacheable;
+			if (nested.staticInitializer != null) {
+				staticInitializer = nested.staticInitializer;
+			}
+			if (nested.optimizedMethod != null) {
+				optimizedMethod = nested.optimizedMethod;
+			}
+		}
+	}
+
+	/**
+	 * A cached deconstruction result with the conditions of its use.
+	 */
+	static final class Template {
+		private final DeconstructionResult result;
+		private final Recording recording;
+
+		Template(DeconstructionResult result, Recording recording) {
+			this.result = result;
+			this.recording = recording;
+		}
+
+		/**
+		 * Creates a new deconstruction result for a site.
+		 *
+		 * @return The result that has its own copy of the instructions.
+		 */
+		public DeconstructionResult instantiate() {
+			return result.copy();
+		}
+
+		/**
+		 * Gets the recorded dependencies of the template.
+		 *
+		 * @return The recording.
+		 */
+		public Recording getRecording() {
+			return recording;
+		}
+
+		boolean isApplicable(TransformedClass transclass, MethodNode methodnode) {
+			if (recording.valueTypes.contains(transclass.classNode.name)) {
+				return false;
+			}
+			if (recording.staticInitializer != null && recording.staticInitializer
+					.booleanValue() != Utils.STATIC_INITIALIZER_METHOD_NAME.equals(methodnode.name)) {
+				return false;
+			}
+			MemberReference method = recording.optimizedMethod;
+			if (method != null) {
+				return method.getOwnerInternalName().equals(transclass.classNode.name)
+						&& method.getMemberName().equals(methodnode.name)
+						&& Objects.equals(method.getMemberDescriptor(), methodnode.desc);
+			}
+			return true;
+		}
+	}
+}
@@ -3,23 +3,42 @@ package sipka.jvm.constexpr.tool;
 import java.util.ArrayList;
 import java.util.List;
 
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.AbstractInsnNode;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodInsnNode;
 
 /**
  * {@link ConstantReconstructor} that a suitable {@link MethodBasedConstantReconstructor}.
+ * <p>
+ * The candidate reconstructors may be lazily resolved. They are resolved when this reconstructor is first used, and
+ * only the instance method reconstructors are kept.
  */
 final class DynamicInstanceMethodBasedConstantReconstructor implements ConstantReconstructor {
-	private List<MethodBasedConstantReconstructor> reconstructors = new ArrayList<>();
+	private final List<TypeReferencedConstantReconstructor> candidates = new ArrayList<>();
+	private volatile List<MethodBasedConstantReconstructor> reconstructors;
 
-	public DynamicInstanceMethodBasedConstantReconstructor(MethodBasedConstantReconstructor reconstructor1,
-			MethodBasedConstantReconstructor reconstructor2) {
-		this.reconstructors.add(reconstructor1);
-		this.reconstructors.add(reconstructor2);
+	public DynamicInstanceMethodBasedConstantReconstructor(TypeReferencedConstantReconstructor reconstructor) {
+		this.candidates.add(reconstructor);
 	}
 
-	public void addReconstructor(MethodBasedConstantReconstructor reconstructor) {
-		reconstructors.add(reconstructor);
+	public void addReconstructor(TypeReferencedConstantReconstructor reconstructor) {
+		candidates.add(reconstructor);
+	}
+
+	private List<MethodBasedConstantReconstructor> getReconstructors() {
+		List<MethodBasedConstantReconstructor> result = reconstructors;
+		if (result == null) {
+			result = new ArrayList<>();
+			for (TypeReferencedConstantReconstructor candidate : candidates) {
+				ConstantReconstructor delegate = candidate.getDelegate();
+				if (delegate instanceof MethodBasedConstantReconstructor
+						&& !((MethodBasedConstantReconstructor) delegate).isStaticMethod()) {
+					result.add((MethodBasedConstantReconstructor) delegate);
+				}
+			}
+			reconstructors = result;
+		}
+		return result;
 	}
 
 	@Override
@@ -28,13 +47,20 @@ final class DynamicInstanceMethodBasedConstantReconstructor implements ConstantR
 		MethodInsnNode methodins = (MethodInsnNode) ins;
 		//ins is the INVOKEVIRTUAL instruction
 
+		List<MethodBasedConstantReconstructor> reconstructors = getReconstructors();
+		if (reconstructors.isEmpty()) {
+			return null;
+		}
+
 		//parameterTypes should be all the same for all reconstructors
-		Class<?>[] parameterTypes = reconstructors.get(0).getParameterTypes();
-		Object[] args = new Object[parameterTypes.length];
+		MethodBasedConstantReconstructor firstreconstructor = reconstructors.get(0);
+		Class<?>[] parameterTypes = firstreconstructor.getParameterTypes(context.getInliner());
+		Type[] parameterAsmTypes = firstreconstructor.getParameterAsmTypes();
+		Object[] args = new Object[parameterAsmTypes.length];
 		AsmStackReconstructedValue[] derivedargs = new AsmStackReconstructedValue[args.length];
 		try {
-			if (!context.getInliner().reconstructArguments(context.forArgumentReconstruction(), parameterTypes, ins,
-					args, derivedargs)) {
+			if (!context.getInliner().reconstructArguments(context.forArgumentReconstruction(), parameterAsmTypes,
+					parameterTypes, ins, args, derivedargs)) {
 				return null;
 			}
 		} catch (ReconstructionException e) {
@@ -55,7 +81,7 @@ final class DynamicInstanceMethodBasedConstantReconstructor implements ConstantR
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder(getClass().getSimpleName());
-		builder.append(reconstructors);
+		builder.append(candidates);
 		return builder.toString();
 	}
 }
\ No newline at end of file
@@ -54,7 +54,7 @@ class EnumOnlyMethodConstantReconstructor implements ConstantReconstructor {
 		}
 		Object resultval;
 		try {
-			resultval = method.invoke(subject);
+			resultval = context.getInliner().invokeMember(context, method, subject, EMPTY_OBJECT_ARRAY);
 		} catch (Exception e) {
 			throw context.newMethodInvocationFailureReconstructionException(e, ins,
 					Type.getInternalName(method.getDeclaringClass()), method.getName(),
@@ -0,0 +1,101 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the evaluations of the user code with a time limit.
+ * <p>
+ * The evaluations are run on dedicated daemon threads, while the calling thread waits for their completion. If an
+ * evaluation doesn't finish in time, it is interrupted and abandoned, and a {@link TimeoutException} is thrown to the
+ * caller. An abandoned evaluation may keep running in the background if it doesn't respond to the interruption, but it
+ * doesn't prevent the JVM from exiting.
+ */
+final class EvaluationWatchdog {
+	private final long timeLimitMillis;
+	private final ExecutorService executor;
+
+	private long timeoutCount;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param timeLimitMillis
+	 *            The time limit of a single evaluation in milliseconds.
+	 */
+	public EvaluationWatchdog(long timeLimitMillis) {
+		this.timeLimitMillis = timeLimitMillis;
+		this.executor = Executors.newCachedThreadPool(new EvaluationThreadFactory());
+	}
+
+	/**
+	 * Runs the evaluation, and waits for its result.
+	 *
+	 * @param evaluation
+	 *            The evaluation.
+	 * @return The result of the evaluation.
+	 * @throws TimeoutException
+	 *             If the evaluation exceeded the time limit, and was abandoned.
+	 * @throws Exception
+	 *             If the evaluation failed, or the calling thread was interrupted.
+	 */
+	public <T> T evaluate(Callable<T> evaluation) throws TimeoutException, Exception {
+		Future<T> future = executor.submit(evaluation);
+		try {
+			return future.get(timeLimitMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			synchronized (this) {
+				++timeoutCount;
+			}
+			throw new TimeoutException(
+					"Evaluation exceeded the time limit of " + timeLimitMillis + " ms, and was abandoned.");
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the number of evaluations that were abandoned because they exceeded the time limit.
+	 *
+	 * @return The timeout count.
+	 */
+	public synchronized long getTimeoutCount() {
+		return timeoutCount;
+	}
+
+	/**
+	 * Interrupts the running evaluations, and stops the evaluation threads when they finish.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private static final class EvaluationThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadCounter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread result = new Thread(r, "jvm-constexpr-evaluation-" + threadCounter.incrementAndGet());
+			result.setDaemon(true);
+			return result;
+		}
+	}
+}
@@ -31,7 +31,7 @@ class FieldBasedConstantReconstructor implements ConstantReconstructor {
 			//that is, a reconstructor predicate for a static field should always return true
 			Object fieldval;
 			try {
-				fieldval = field.get(null);
+				fieldval = context.getInliner().invokeMember(context, field, null, null);
 			} catch (Exception e) {
 				throw context.newFieldAccessFailureReconstructionException(e, ins,
 						Type.getInternalName(field.getDeclaringClass()), field.getName(),
@@ -61,7 +61,7 @@ class FieldBasedConstantReconstructor implements ConstantReconstructor {
 		}
 		Object fieldval;
 		try {
-			fieldval = field.get(obj);
+			fieldval = context.getInliner().invokeMember(context, field, obj, null);
 		} catch (Exception e) {
 			throw context.newFieldAccessFailureReconstructionException(e, ins,
 					Type.getInternalName(field.getDeclaringClass()), field.getName(),
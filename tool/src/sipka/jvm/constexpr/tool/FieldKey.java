@@ -10,10 +10,12 @@ import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldInsnNode;
  */
 class FieldKey extends MemberKey {
 	protected final String fieldDescriptor;
+	private final int hashCode;
 
 	public FieldKey(String owner, String fieldName, String fieldDescriptor) {
 		super(owner, fieldName);
 		this.fieldDescriptor = fieldDescriptor;
+		this.hashCode = MemberKey.hashCode(owner, fieldName, fieldDescriptor);
 	}
 
 	public FieldKey(FieldInsnNode fieldins) {
@@ -40,6 +42,32 @@ class FieldKey extends MemberKey {
 		return fieldDescriptor;
 	}
 
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		FieldKey other = (FieldKey) obj;
+		if (hashCode != other.hashCode)
+			return false;
+		if (!super.equals(obj))
+			return false;
+		if (fieldDescriptor == null) {
+			if (other.fieldDescriptor != null)
+				return false;
+		} else if (!fieldDescriptor.equals(other.fieldDescriptor))
+			return false;
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder(getClass().getSimpleName());
@@ -0,0 +1,156 @@
+package sipka.jvm.constexpr.tool;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Utility functions for using immutable values, and arrays of them as keys.
+ * <p>
+ * The values are compared by deep equality, which also requires the classes of the compared values to be the same.
+ * The arrays are copied, so the keys are not affected if the original arrays are modified.
+ */
+final class ImmutableValues {
+	/**
+	 * Sentinel object that is returned by {@link #copy(Object, Predicate)} if the value is not copyable.
+	 */
+	public static final Object NOT_COPYABLE = new Object();
+
+	private ImmutableValues() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Copies the value if it is an array.
+	 * 
+	 * @param val
+	 *            The value.
+	 * @param immutablepredicate
+	 *            The predicate that determines if a non-<code>null</code> and non-array object is immutable.
+	 * @return The value itself if it is immutable, the deep copy if it is an array of copyable values, or
+	 *             {@link #NOT_COPYABLE}.
+	 */
+	public static Object copy(Object val, Predicate<Object> immutablepredicate) {
+		if (val == null) {
+			return null;
+		}
+		Class<?> type = val.getClass();
+		if (!type.isArray()) {
+			return immutablepredicate.test(val) ? val : NOT_COPYABLE;
+		}
+		int len = Array.getLength(val);
+		Object result = Array.newInstance(type.getComponentType(), len);
+		if (type.getComponentType().isPrimitive()) {
+			System.arraycopy(val, 0, result, 0, len);
+			return result;
+		}
+		Object[] array = (Object[]) val;
+		Object[] resultarray = (Object[]) result;
+		for (int i = 0; i < len; i++) {
+			Object elemcopy = copy(array[i], immutablepredicate);
+			if (elemcopy == NOT_COPYABLE) {
+				return NOT_COPYABLE;
+			}
+			resultarray[i] = elemcopy;
+		}
+		return result;
+	}
+
+	public static boolean deepEquals(Object l, Object r) {
+		if (l == r) {
+			return true;
+		}
+		if (l == null || r == null || l.getClass() != r.getClass()) {
+			return false;
+		}
+		if (!l.getClass().isArray()) {
+			return l.equals(r);
+		}
+		if (l.getClass().getComponentType().isPrimitive()) {
+			return primitiveArrayEquals(l, r);
+		}
+		Object[] larray = (Object[]) l;
+		Object[] rarray = (Object[]) r;
+		if (larray.length != rarray.length) {
+			return false;
+		}
+		for (int i = 0; i < larray.length; i++) {
+			if (!deepEquals(larray[i], rarray[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static int deepHashCode(Object val) {
+		if (val == null) {
+			return 0;
+		}
+		if (!val.getClass().isArray()) {
+			return val.hashCode();
+		}
+		int result = val.getClass().hashCode();
+		if (val.getClass().getComponentType().isPrimitive()) {
+			return result * 31 + primitiveArrayHashCode(val);
+		}
+		for (Object elem : (Object[]) val) {
+			result = result * 31 + deepHashCode(elem);
+		}
+		return result;
+	}
+
+	/**
+	 * Compares primitive arrays of the same type without boxing their elements.
+	 * <p>
+	 * The floating point values are compared by their bits, the same way as their boxed counterparts.
+	 */
+	private static boolean primitiveArrayEquals(Object l, Object r) {
+		if (l instanceof int[]) {
+			return Arrays.equals((int[]) l, (int[]) r);
+		}
+		if (l instanceof long[]) {
+			return Arrays.equals((long[]) l, (long[]) r);
+		}
+		if (l instanceof byte[]) {
+			return Arrays.equals((byte[]) l, (byte[]) r);
+		}
+		if (l instanceof char[]) {
+			return Arrays.equals((char[]) l, (char[]) r);
+		}
+		if (l instanceof boolean[]) {
+			return Arrays.equals((boolean[]) l, (boolean[]) r);
+		}
+		if (l instanceof short[]) {
+			return Arrays.equals((short[]) l, (short[]) r);
+		}
+		if (l instanceof float[]) {
+			return Arrays.equals((float[]) l, (float[]) r);
+		}
+		return Arrays.equals((double[]) l, (double[]) r);
+	}
+
+	private static int primitiveArrayHashCode(Object val) {
+		if (val instanceof int[]) {
+			return Arrays.hashCode((int[]) val);
+		}
+		if (val instanceof long[]) {
+			return Arrays.hashCode((long[]) val);
+		}
+		if (val instanceof byte[]) {
+			return Arrays.hashCode((byte[]) val);
+		}
+		if (val instanceof char[]) {
+			return Arrays.hashCode((char[]) val);
+		}
+		if (val instanceof boolean[]) {
+			return Arrays.hashCode((boolean[]) val);
+		}
+		if (val instanceof short[]) {
+			return Arrays.hashCode((short[]) val);
+		}
+		if (val instanceof float[]) {
+			return Arrays.hashCode((float[]) val);
+		}
+		return Arrays.hashCode((double[]) val);
+	}
+}
@@ -0,0 +1,297 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.Collections;
+import java.util.List;
+
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+
+/**
+ * Statistics about a run of the inliner tool.
+ * <p>
+ * The statistics are reported to the {@link StatisticsListener} that is set in the options when the run finishes.
+ */
+public final class InlinerStatistics {
+	protected long invocationMemoHitCount;
+	protected long invocationMemoMissCount;
+	protected long deconstructionCacheHitCount;
+	protected long deconstructionCacheMissCount;
+	protected long evaluationTimeoutCount;
+	protected long timeBudgetSkippedClassCount;
+
+	protected long configurationTimeNanos;
+	protected long inputReadingTimeNanos;
+	protected long parsingTimeNanos;
+	protected long processingTimeNanos;
+	protected List<Long> processingLevelTimeNanos = Collections.emptyList();
+	protected long writingTimeNanos;
+	protected long deconstructionTimeNanos;
+
+	protected long inputClassCount;
+	protected long processedClassCount;
+	protected long visitedMethodCount;
+	protected long visitedInstructionCount;
+	protected long reconstructionAttemptCount;
+	protected long reconstructionSuccessCount;
+	protected long memberInvocationCount;
+
+	InlinerStatistics() {
+	}
+
+	/**
+	 * Gets the number of member invocations for which a memoized result was used.
+	 * <p>
+	 * The results of the members that are invoked with equal immutable arguments are memoized between the classes, so
+	 * they only need to be invoked once.
+	 * 
+	 * @return The hit count.
+	 */
+	public long getInvocationMemoHitCount() {
+		return invocationMemoHitCount;
+	}
+
+	/**
+	 * Gets the number of memoizable member invocations for which there was no memoized result.
+	 * 
+	 * @return The miss count.
+	 * @see #getInvocationMemoHitCount()
+	 */
+	public long getInvocationMemoMissCount() {
+		return invocationMemoMissCount;
+	}
+
+	/**
+	 * Gets the number of value deconstructions for which a cached result was used.
+	 * <p>
+	 * The instructions that were generated for an equal value are reused at other locations if the deconstruction
+	 * doesn't depend on the location.
+	 * 
+	 * @return The hit count.
+	 */
+	public long getDeconstructionCacheHitCount() {
+		return deconstructionCacheHitCount;
+	}
+
+	/**
+	 * Gets the number of cacheable value deconstructions for which there was no usable cached result.
+	 * 
+	 * @return The miss count.
+	 * @see #getDeconstructionCacheHitCount()
+	 */
+	public long getDeconstructionCacheMissCount() {
+		return deconstructionCacheMissCount;
+	}
+
+	/**
+	 * Gets the number of evaluations that were abandoned because they exceeded the evaluation time limit.
+	 * 
+	 * @return The timeout count.
+	 * @see InlinerOptions#setEvaluationTimeLimit(long)
+	 */
+	public long getEvaluationTimeoutCount() {
+		return evaluationTimeoutCount;
+	}
+
+	/**
+	 * Gets the number of classes that were not fully optimized, because the time budget ran out.
+	 * 
+	 * @return The skipped class count.
+	 * @see InlinerOptions#setTimeBudget(long)
+	 */
+	public long getTimeBudgetSkippedClassCount() {
+		return timeBudgetSkippedClassCount;
+	}
+
+	/**
+	 * Gets the time spent with setting up the configuration of the run, in nanoseconds.
+	 * <p>
+	 * This includes the initialization of the base configuration, the reconstructors and deconstructors, and the
+	 * optimization cache.
+	 * 
+	 * @return The elapsed time.
+	 */
+	public long getConfigurationTimeNanos() {
+		return configurationTimeNanos;
+	}
+
+	/**
+	 * Gets the time spent with reading the input classes, in nanoseconds.
+	 * 
+	 * @return The elapsed time.
+	 */
+	public long getInputReadingTimeNanos() {
+		return inputReadingTimeNanos;
+	}
+
+	/**
+	 * Gets the time spent with parsing the input classes and collecting the static field dependencies between them, in
+	 * nanoseconds.
+	 * 
+	 * @return The elapsed time.
+	 */
+	public long getParsingTimeNanos() {
+		return parsingTimeNanos;
+	}
+
+	/**
+	 * Gets the time spent with optimizing the classes, in nanoseconds.
+	 * <p>
+	 * This is the sum of the {@linkplain #getProcessingLevelTimeNanos() level times}.
+	 * 
+	 * @return The elapsed time.
+	 */
+	public long getProcessingTimeNanos() {
+		return processingTimeNanos;
+	}
+
+	/**
+	 * Gets the time spent with optimizing each level of classes, in nanoseconds.
+	 * <p>
+	 * The classes are optimized in levels, so that a class is only processed after the classes whose static fields it
+	 * reads. The classes in a level are processed concurrently.
+	 * 
+	 * @return The unmodifiable list of elapsed times in the order of processing.
+	 */
+	public List<Long> getProcessingLevelTimeNanos() {
+		return Collections.unmodifiableList(processingLevelTimeNanos);
+	}
+
+	/**
+	 * Gets the time spent with generating the output classes, in nanoseconds.
+	 * 
+	 * @return The elapsed time.
+	 */
+	public long getWritingTimeNanos() {
+		return writingTimeNanos;
+	}
+
+	/**
+	 * Gets the time spent with deconstructing the inlined values to instructions, in nanoseconds.
+	 * <p>
+	 * The deconstructions are part of the processing, and as they are performed concurrently, the sum of their times may
+	 * exceed the {@linkplain #getProcessingTimeNanos() processing time}.
+	 * 
+	 * @return The elapsed time.
+	 */
+	public long getDeconstructionTimeNanos() {
+		return deconstructionTimeNanos;
+	}
+
+	/**
+	 * Gets the number of input classes.
+	 * 
+	 * @return The class count.
+	 */
+	public long getInputClassCount() {
+		return inputClassCount;
+	}
+
+	/**
+	 * Gets the number of input classes that were processed by the optimization.
+	 * <p>
+	 * The classes that don't contain anything to optimize are not processed.
+	 * 
+	 * @return The class count.
+	 */
+	public long getProcessedClassCount() {
+		return processedClassCount;
+	}
+
+	/**
+	 * Gets the number of times the instructions of a method were visited to find optimizable expressions.
+	 * <p>
+	 * A method may be visited multiple times if its static initializer values are inlined.
+	 * 
+	 * @return The method visit count.
+	 */
+	public long getVisitedMethodCount() {
+		return visitedMethodCount;
+	}
+
+	/**
+	 * Gets the total number of instructions in the {@linkplain #getVisitedMethodCount() visited methods}.
+	 * 
+	 * @return The instruction count.
+	 */
+	public long getVisitedInstructionCount() {
+		return visitedInstructionCount;
+	}
+
+	/**
+	 * Gets the number of attempted value reconstructions.
+	 * <p>
+	 * The memoized reconstructions are not counted again.
+	 * 
+	 * @return The attempt count.
+	 */
+	public long getReconstructionAttemptCount() {
+		return reconstructionAttemptCount;
+	}
+
+	/**
+	 * Gets the number of value reconstructions that successfully produced a value.
+	 * 
+	 * @return The success count.
+	 * @see #getReconstructionAttemptCount()
+	 */
+	public long getReconstructionSuccessCount() {
+		return reconstructionSuccessCount;
+	}
+
+	/**
+	 * Gets the number of reflective member invocations performed during the reconstructions.
+	 * <p>
+	 * The invocations for which a {@linkplain #getInvocationMemoHitCount() memoized result} was used are not counted.
+	 * 
+	 * @return The invocation count.
+	 */
+	public long getMemberInvocationCount() {
+		return memberInvocationCount;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(getClass().getSimpleName());
+		builder.append("[invocationMemoHitCount=");
+		builder.append(invocationMemoHitCount);
+		builder.append(", invocationMemoMissCount=");
+		builder.append(invocationMemoMissCount);
+		builder.append(", deconstructionCacheHitCount=");
+		builder.append(deconstructionCacheHitCount);
+		builder.append(", deconstructionCacheMissCount=");
+		builder.append(deconstructionCacheMissCount);
+		builder.append(", evaluationTimeoutCount=");
+		builder.append(evaluationTimeoutCount);
+		builder.append(", timeBudgetSkippedClassCount=");
+		builder.append(timeBudgetSkippedClassCount);
+		builder.append(", configurationTimeNanos=");
+		builder.append(configurationTimeNanos);
+		builder.append(", inputReadingTimeNanos=");
+		builder.append(inputReadingTimeNanos);
+		builder.append(", parsingTimeNanos=");
+		builder.append(parsingTimeNanos);
+		builder.append(", processingTimeNanos=");
+		builder.append(processingTimeNanos);
+		builder.append(", processingLevelTimeNanos=");
+		builder.append(processingLevelTimeNanos);
+		builder.append(", writingTimeNanos=");
+		builder.append(writingTimeNanos);
+		builder.append(", deconstructionTimeNanos=");
+		builder.append(deconstructionTimeNanos);
+		builder.append(", inputClassCount=");
+		builder.append(inputClassCount);
+		builder.append(", processedClassCount=");
+		builder.append(processedClassCount);
+		builder.append(", visitedMethodCount=");
+		builder.append(visitedMethodCount);
+		builder.append(", visitedInstructionCount=");
+		builder.append(visitedInstructionCount);
+		builder.append(", reconstructionAttemptCount=");
+		builder.append(reconstructionAttemptCount);
+		builder.append(", reconstructionSuccessCount=");
+		builder.append(reconstructionSuccessCount);
+		builder.append(", memberInvocationCount=");
+		builder.append(memberInvocationCount);
+		builder.append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,168 @@
+package sipka.jvm.constexpr.tool;
+
+import java.lang.reflect.Member;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, least recently used memo of the results of the members invoked by the reconstructors.
+ * <p>
+ * The results are keyed by the invoked member, the subject, and the arguments of the invocation. The arguments are
+ * compared by deep equality, see {@link ImmutableValues}.
+ * <p>
+ * Only the invocations are memoized where the subject, the arguments, and the result are immutable values, or arrays
+ * of them. The arrays are copied when they are put in the memo, and when the memoized results are returned, so the
+ * callers are free to modify them.
+ * <p>
+ * The memo is shared between the processed classes, and is thread safe.
+ */
+final class InvocationResultMemo {
+	/**
+	 * Sentinel object that is returned by {@link #get(Key)} if there's no memoized result.
+	 */
+	public static final Object ABSENT = new Object();
+
+	private final Predicate<Object> immutableValuePredicate;
+	private final Map<Key, Object> results;
+
+	private long hitCount;
+	private long missCount;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param maxSize
+	 *            The maximum number of memoized results.
+	 * @param immutableValuePredicate
+	 *            The predicate that determines if a non-<code>null</code> object is immutable, and can be shared.
+	 */
+	public InvocationResultMemo(int maxSize, Predicate<Object> immutableValuePredicate) {
+		this.immutableValuePredicate = immutableValuePredicate;
+		this.results = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Creates the memo key for the invocation.
+	 *
+	 * @param member
+	 *            The invoked member.
+	 * @param subject
+	 *            The subject of the invocation, or <code>null</code> if none.
+	 * @param args
+	 *            The arguments.
+	 * @return The key, or <code>null</code> if the invocation cannot be memoized.
+	 */
+	public Key createKey(Member member, Object subject, Object[] args) {
+		if (subject != null && !immutableValuePredicate.test(subject)) {
+			return null;
+		}
+		Object[] argcopies = new Object[args.length];
+		for (int i = 0; i < args.length; i++) {
+			Object copy = ImmutableValues.copy(args[i], immutableValuePredicate);
+			if (copy == ImmutableValues.NOT_COPYABLE) {
+				return null;
+			}
+			argcopies[i] = copy;
+		}
+		return new Key(member, subject, argcopies);
+	}
+
+	/**
+	 * Gets the memoized result of the invocation.
+	 *
+	 * @param key
+	 *            The key.
+	 * @return The result, a copy of it if it is an array, or {@link #ABSENT} if there's no memoized result.
+	 */
+	public Object get(Key key) {
+		Object result;
+		synchronized (this) {
+			result = results.get(key);
+			if (result == null) {
+				++missCount;
+				return ABSENT;
+			}
+			++hitCount;
+		}
+		return result == NullResult.INSTANCE ? null : ImmutableValues.copy(result, immutableValuePredicate);
+	}
+
+	/**
+	 * Puts the result of the invocation in the memo, if it can be memoized.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param result
+	 *            The result of the invocation.
+	 */
+	public void put(Key key, Object result) {
+		Object copy = ImmutableValues.copy(result, immutableValuePredicate);
+		if (copy == ImmutableValues.NOT_COPYABLE) {
+			return;
+		}
+		synchronized (this) {
+			results.put(key, copy == null ? NullResult.INSTANCE : copy);
+		}
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * The key of a memoized invocation.
+	 */
+	static final class Key {
+		private final Member member;
+		private final Object subject;
+		private final Object[] args;
+		private final int hashCode;
+
+		Key(Member member, Object subject, Object[] args) {
+			this.member = member;
+			this.subject = subject;
+			this.args = args;
+			this.hashCode = (member.hashCode() * 31 + ImmutableValues.deepHashCode(subject)) * 31
+					+ ImmutableValues.deepHashCode(args);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return hashCode == other.hashCode && Objects.equals(member, other.member)
+					&& ImmutableValues.deepEquals(subject, other.subject)
+					&& ImmutableValues.deepEquals(args, other.args);
+		}
+	}
+
+	/**
+	 * Placeholder for the memoized <code>null</code> results.
+	 */
+	private enum NullResult {
+		INSTANCE;
+	}
+}
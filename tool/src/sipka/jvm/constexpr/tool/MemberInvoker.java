@@ -0,0 +1,158 @@
+package sipka.jvm.constexpr.tool;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invocation layer for the reflective calls performed during reconstruction.
+ * <p>
+ * The invoked method, constructor, or field getter is resolved once to a {@link MethodHandle} that takes the subject
+ * instance and the arguments as an array. Static members and constructors ignore the subject.
+ * <p>
+ * The exceptions thrown by the invoked member are wrapped into an {@link InvocationTargetException}, the same way as
+ * the reflective invocations do.
+ * <p>
+ * Use {@link ReflectionMetadataCache#getInvoker(Member)} to get the cached instance for a member.
+ */
+final class MemberInvoker {
+	private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
+	private static final MethodType INVOKER_METHOD_TYPE = MethodType.methodType(Object.class, Object.class,
+			Object[].class);
+
+	private final Member member;
+	private final Class<?>[] parameterTypes;
+	/**
+	 * The handle with the {@link #INVOKER_METHOD_TYPE} type, or <code>null</code> if the handle couldn't be created,
+	 * and the invocation is performed using reflection.
+	 */
+	private final MethodHandle handle;
+
+	private MemberInvoker(Member member, Class<?>[] parameterTypes, MethodHandle handle) {
+		this.member = member;
+		this.parameterTypes = parameterTypes;
+		this.handle = handle;
+	}
+
+	public static MemberInvoker create(Member member) {
+		if (member instanceof Method) {
+			Method m = (Method) member;
+			Class<?>[] paramtypes = m.getParameterTypes();
+			MethodHandle mh;
+			try {
+				mh = MethodHandles.lookup().unreflect(m).asFixedArity();
+			} catch (IllegalAccessException e) {
+				return new MemberInvoker(member, paramtypes, null);
+			}
+			mh = toSpreadInvoker(mh, paramtypes.length, Modifier.isStatic(m.getModifiers()));
+			return new MemberInvoker(member, paramtypes, mh);
+		}
+		if (member instanceof Constructor<?>) {
+			Constructor<?> c = (Constructor<?>) member;
+			Class<?>[] paramtypes = c.getParameterTypes();
+			MethodHandle mh;
+			try {
+				mh = MethodHandles.lookup().unreflectConstructor(c).asFixedArity();
+			} catch (IllegalAccessException e) {
+				return new MemberInvoker(member, paramtypes, null);
+			}
+			mh = toSpreadInvoker(mh, paramtypes.length, true);
+			return new MemberInvoker(member, paramtypes, mh);
+		}
+		if (member instanceof Field) {
+			Field f = (Field) member;
+			Class<?>[] paramtypes = {};
+			MethodHandle mh;
+			try {
+				mh = MethodHandles.lookup().unreflectGetter(f);
+			} catch (IllegalAccessException e) {
+				return new MemberInvoker(member, paramtypes, null);
+			}
+			mh = toSpreadInvoker(mh, 0, Modifier.isStatic(f.getModifiers()));
+			return new MemberInvoker(member, paramtypes, mh);
+		}
+		throw new IllegalArgumentException("Unsupported member: " + member);
+	}
+
+	private static MethodHandle toSpreadInvoker(MethodHandle mh, int paramcount, boolean nosubject) {
+		mh = mh.asType(mh.type().generic()).asSpreader(Object[].class, paramcount);
+		if (nosubject) {
+			mh = MethodHandles.dropArguments(mh, 0, Object.class);
+		}
+		return mh.asType(INVOKER_METHOD_TYPE);
+	}
+
+	public Member getMember() {
+		return member;
+	}
+
+	/**
+	 * Gets the parameter types of the invoked member.
+	 * <p>
+	 * The returned array shouldn't be modified.
+	 *
+	 * @return The parameter types.
+	 */
+	public Class<?>[] getParameterTypes() {
+		return parameterTypes;
+	}
+
+	/**
+	 * Invokes the member.
+	 *
+	 * @param subject
+	 *            The subject instance, or <code>null</code> for static members and constructors.
+	 * @param args
+	 *            The arguments. May be <code>null</code> if the member has no parameters.
+	 * @return The result of the invocation. The return value of constructors is the constructed instance.
+	 * @throws InvocationTargetException
+	 *             If the invoked member throws an exception.
+	 * @throws ReflectiveOperationException
+	 *             If the reflective invocation fails.
+	 * @throws IllegalArgumentException
+	 *             If the arguments are not valid for the member.
+	 */
+	public Object invoke(Object subject, Object[] args)
+			throws InvocationTargetException, ReflectiveOperationException, IllegalArgumentException {
+		if (handle == null) {
+			return invokeReflectively(subject, args);
+		}
+		if (args == null) {
+			args = EMPTY_OBJECT_ARRAY;
+		}
+		if (args.length != parameterTypes.length) {
+			throw new IllegalArgumentException(
+					"Argument count mismatch, expected " + parameterTypes.length + " but got " + args.length);
+		}
+		if (subject == null && !Modifier.isStatic(member.getModifiers()) && !(member instanceof Constructor<?>)) {
+			throw new NullPointerException("Subject is null for: " + member);
+		}
+		try {
+			return (Object) handle.invokeExact(subject, args);
+		} catch (Throwable e) {
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	private Object invokeReflectively(Object subject, Object[] args)
+			throws InvocationTargetException, ReflectiveOperationException {
+		if (member instanceof Method) {
+			return ((Method) member).invoke(subject, args);
+		}
+		if (member instanceof Constructor<?>) {
+			return ((Constructor<?>) member).newInstance(args);
+		}
+		return ((Field) member).get(subject);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + member + "]";
+	}
+}
@@ -28,6 +28,20 @@ class MemberKey {
 		return FieldKey.create((Field) member);
 	}
 
+	/**
+	 * Computes the hash code of a {@link MethodKey} or {@link FieldKey} with the given components.
+	 * <p>
+	 * Used to look up members in hash based structures without allocating a key instance.
+	 */
+	public static int hashCode(String owner, String membername, String descriptor) {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((membername == null) ? 0 : membername.hashCode());
+		result = prime * result + ((owner == null) ? 0 : owner.hashCode());
+		result = prime * result + ((descriptor == null) ? 0 : descriptor.hashCode());
+		return result;
+	}
+
 	public static String getDescriptor(MemberKey key) {
 		if (key instanceof MethodKey) {
 			return ((MethodKey) key).getMethodDescriptor();
@@ -0,0 +1,242 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Hash based registry of values associated with {@link MethodKey} and {@link FieldKey} keys.
+ * <p>
+ * The registry supports looking up the values directly by the owner, name and descriptor of the members, so the
+ * lookups from the instructions don't need to allocate a key instance. The hash codes of the keys are precomputed.
+ * <p>
+ * The registry also maintains a per-owner index, that contains the entries with the same owner type in
+ * {@link MemberKey#compare(MemberKey, MemberKey)} order.
+ * <p>
+ * The registry is not thread safe. It may be read concurrently after it has been populated.
+ *
+ * @param <V>
+ *            The value type.
+ */
+class MemberRegistry<V> {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private Entry<V>[] table = newTable(INITIAL_CAPACITY);
+	private int size;
+	private final Map<String, List<Entry<V>>> ownerEntries = new HashMap<>();
+
+	public V get(MemberKey key) {
+		Entry<V> entry = getEntry(key);
+		return entry == null ? null : entry.value;
+	}
+
+	public V getMethod(String owner, String methodname, String methoddescriptor) {
+		Entry<V> entry = getEntry(true, owner, methodname, methoddescriptor);
+		return entry == null ? null : entry.value;
+	}
+
+	public V getField(String owner, String fieldname, String fielddescriptor) {
+		Entry<V> entry = getEntry(false, owner, fieldname, fielddescriptor);
+		return entry == null ? null : entry.value;
+	}
+
+	public boolean containsMethod(String owner, String methodname, String methoddescriptor) {
+		return getEntry(true, owner, methodname, methoddescriptor) != null;
+	}
+
+	public boolean containsField(String owner, String fieldname, String fielddescriptor) {
+		return getEntry(false, owner, fieldname, fielddescriptor) != null;
+	}
+
+	/**
+	 * Associates the value with the key.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param value
+	 *            The value.
+	 * @return The previous value, or <code>null</code> if none.
+	 * @throws NullPointerException
+	 *             If any of the arguments are <code>null</code>.
+	 */
+	public V put(MemberKey key, V value) throws NullPointerException {
+		Objects.requireNonNull(value, "value");
+		Entry<V> entry = getEntry(key);
+		if (entry == null) {
+			addEntry(key, value);
+			return null;
+		}
+		V prev = entry.value;
+		entry.value = value;
+		return prev;
+	}
+
+	/**
+	 * Associates the value with the key if there is no value associated with it yet.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param value
+	 *            The value.
+	 * @return The current value associated with the key, or <code>null</code> if the value was added.
+	 * @throws NullPointerException
+	 *             If any of the arguments are <code>null</code>.
+	 */
+	public V putIfAbsent(MemberKey key, V value) throws NullPointerException {
+		Objects.requireNonNull(value, "value");
+		Entry<V> entry = getEntry(key);
+		if (entry == null) {
+			addEntry(key, value);
+			return null;
+		}
+		return entry.value;
+	}
+
+	/**
+	 * Computes the value associated with the key.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param function
+	 *            The function that is called with the key and the current value (or <code>null</code>), and returns
+	 *            the new value.
+	 * @return The new value.
+	 * @throws NullPointerException
+	 *             If any of the arguments are <code>null</code>, or if the function returns <code>null</code>.
+	 */
+	public V compute(MemberKey key, BiFunction<? super MemberKey, ? super V, ? extends V> function)
+			throws NullPointerException {
+		Objects.requireNonNull(function, "function");
+		Entry<V> entry = getEntry(key);
+		if (entry == null) {
+			V nvalue = Objects.requireNonNull(function.apply(key, null), "computed value");
+			addEntry(key, nvalue);
+			return nvalue;
+		}
+		V nvalue = Objects.requireNonNull(function.apply(entry.key, entry.value), "computed value");
+		entry.value = nvalue;
+		return nvalue;
+	}
+
+	/**
+	 * Gets the entries that are associated with the given owner.
+	 * <p>
+	 * The entries are ordered by {@link MemberKey#compare(MemberKey, MemberKey)}.
+	 *
+	 * @param owner
+	 *            The internal name of the owner type.
+	 * @return The unmodifiable list of entries.
+	 */
+	public List<? extends Map.Entry<MemberKey, V>> getOwnerEntries(String owner) {
+		List<Entry<V>> result = ownerEntries.get(owner);
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private Entry<V> getEntry(boolean method, String owner, String name, String descriptor) {
+		int hash = MemberKey.hashCode(owner, name, descriptor);
+		Entry<V>[] tab = table;
+		for (Entry<V> e = tab[indexFor(hash, tab.length)]; e != null; e = e.next) {
+			if (e.hash == hash && e.matches(method, owner, name, descriptor)) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	private Entry<V> getEntry(MemberKey key) {
+		return getEntry(key instanceof MethodKey, key.getOwner(), key.getMemberName(), MemberKey.getDescriptor(key));
+	}
+
+	private void addEntry(MemberKey key, V value) {
+		if (size >= table.length - (table.length >>> 2)) {
+			resize();
+		}
+		int hash = key.hashCode();
+		int idx = indexFor(hash, table.length);
+		Entry<V> entry = new Entry<>(key, hash, key instanceof MethodKey, MemberKey.getDescriptor(key), value,
+				table[idx]);
+		table[idx] = entry;
+		++size;
+
+		List<Entry<V>> owned = ownerEntries.computeIfAbsent(key.getOwner(), k -> new ArrayList<>());
+		int insertidx = Collections.binarySearch(owned, entry, (l, r) -> MemberKey.compare(l.key, r.key));
+		owned.add(-(insertidx + 1), entry);
+	}
+
+	private void resize() {
+		Entry<V>[] ntable = newTable(table.length * 2);
+		for (Entry<V> e : table) {
+			while (e != null) {
+				Entry<V> next = e.next;
+				int idx = indexFor(e.hash, ntable.length);
+				e.next = ntable[idx];
+				ntable[idx] = e;
+				e = next;
+			}
+		}
+		table = ntable;
+	}
+
+	private static int indexFor(int hash, int length) {
+		return (hash ^ (hash >>> 16)) & (length - 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> Entry<V>[] newTable(int capacity) {
+		return (Entry<V>[]) new Entry<?>[capacity];
+	}
+
+	private static final class Entry<V> implements Map.Entry<MemberKey, V> {
+		protected final MemberKey key;
+		protected final int hash;
+		protected final boolean method;
+		protected final String descriptor;
+		protected V value;
+		protected Entry<V> next;
+
+		public Entry(MemberKey key, int hash, boolean method, String descriptor, V value, Entry<V> next) {
+			this.key = key;
+			this.hash = hash;
+			this.method = method;
+			this.descriptor = descriptor;
+			this.value = value;
+			this.next = next;
+		}
+
+		public boolean matches(boolean method, String owner, String name, String descriptor) {
+			return this.method == method && Objects.equals(key.getMemberName(), name)
+					&& Objects.equals(this.descriptor, descriptor) && Objects.equals(key.getOwner(), owner);
+		}
+
+		@Override
+		public MemberKey getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+}
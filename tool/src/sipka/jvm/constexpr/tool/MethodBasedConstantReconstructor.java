@@ -19,7 +19,14 @@ final class MethodBasedConstantReconstructor implements ConstantReconstructor {
 	private final boolean staticMethod;
 	private final ReconstructorPredicate predicate;
 
-	private final transient Class<?>[] parameterTypes;
+	private final transient Type[] parameterAsmTypes;
+	/**
+	 * The parameter types of the method.
+	 * <p>
+	 * If the reconstructor was created without a {@link Method}, they are resolved when first used. The array
+	 * contains <code>null</code> elements for the types that couldn't be resolved.
+	 */
+	private transient volatile Class<?>[] parameterTypes;
 
 	public MethodBasedConstantReconstructor(Method m, ReconstructorPredicate predicate) {
 		this.methodOwner = Type.getInternalName(m.getDeclaringClass());
@@ -27,6 +34,7 @@ final class MethodBasedConstantReconstructor implements ConstantReconstructor {
 		this.methodDescriptor = Type.getMethodDescriptor(m);
 		this.staticMethod = Modifier.isStatic(m.getModifiers());
 		this.predicate = predicate;
+		this.parameterAsmTypes = Type.getArgumentTypes(methodDescriptor);
 		this.parameterTypes = m.getParameterTypes();
 	}
 
@@ -37,7 +45,7 @@ final class MethodBasedConstantReconstructor implements ConstantReconstructor {
 		this.methodDescriptor = methodDescriptor;
 		this.staticMethod = staticMethod;
 		this.predicate = predicate;
-		this.parameterTypes = null; // TODO fill this?
+		this.parameterAsmTypes = Type.getArgumentTypes(methodDescriptor);
 	}
 
 	public boolean isStaticMethod() {
@@ -48,21 +56,45 @@ final class MethodBasedConstantReconstructor implements ConstantReconstructor {
 		return predicate;
 	}
 
+	/**
+	 * Gets the parameter types of the method.
+	 * 
+	 * @return The parameter types, or <code>null</code> if they haven't been resolved yet.
+	 */
 	public Class<?>[] getParameterTypes() {
 		return parameterTypes;
 	}
 
+	public Type[] getParameterAsmTypes() {
+		return parameterAsmTypes;
+	}
+
+	Class<?>[] getParameterTypes(ConstantExpressionInliner inliner) {
+		Class<?>[] result = parameterTypes;
+		if (result == null) {
+			result = new Class<?>[parameterAsmTypes.length];
+			for (int i = 0; i < result.length; i++) {
+				try {
+					result[i] = inliner.findClass(parameterAsmTypes[i]);
+				} catch (ClassNotFoundException e) {
+					//the parameter type is not available, it is reconstructed without a receiver type
+				}
+			}
+			parameterTypes = result;
+		}
+		return result;
+	}
+
 	@Override
 	public AsmStackReconstructedValue reconstructValue(ReconstructionContext context, AbstractInsnNode ins)
 			throws ReconstructionException {
 		MethodInsnNode methodins = (MethodInsnNode) ins;
 		//ins is the INVOKESTATIC/INVOKEVIRTUAL instruction
-		Type[] argasmtypes = Type.getArgumentTypes(methodDescriptor);
-		Object[] args = new Object[argasmtypes.length];
+		Object[] args = new Object[parameterAsmTypes.length];
 		AsmStackReconstructedValue[] derivedargs = new AsmStackReconstructedValue[args.length];
 		try {
-			if (!context.getInliner().reconstructArguments(context.forArgumentReconstruction(), argasmtypes,
-					parameterTypes, ins, args, derivedargs)) {
+			if (!context.getInliner().reconstructArguments(context.forArgumentReconstruction(), parameterAsmTypes,
+					getParameterTypes(context.getInliner()), ins, args, derivedargs)) {
 				return null;
 			}
 		} catch (ReconstructionException e) {
@@ -137,7 +169,7 @@ final class MethodBasedConstantReconstructor implements ConstantReconstructor {
 
 		Object resultobj;
 		try {
-			resultobj = method.invoke(subject, args);
+			resultobj = context.getInliner().invokeMember(context, method, subject, args);
 		} catch (Exception e) {
 			throw context.newMethodInvocationFailureReconstructionException(e, methodins, methodins.owner,
 					methodins.name, methodins.desc, subject, args);
@@ -0,0 +1,166 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Opcodes;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.AbstractInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.JumpInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.LabelNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.LookupSwitchInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.TableSwitchInsnNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.TryCatchBlockNode;
+
+/**
+ * Index of the instructions of a method.
+ * <p>
+ * The index is built in a single pass over the instructions, and contains:
+ * <ul>
+ * <li>The labels, and whether they are jump targets.</li>
+ * <li>The {@link Opcodes#PUTSTATIC} and {@link Opcodes#PUTFIELD} instructions grouped by the assigned field.</li>
+ * <li>The instructions that were already inlined.</li>
+ * </ul>
+ * The instructions are looked up by identity.
+ * <p>
+ * The index needs to be updated when instructions are inserted to or removed from the method.
+ */
+class MethodInstructionIndex {
+	/**
+	 * The labels of the method mapped to whether they are jump targets.
+	 */
+	private final Map<LabelNode, Boolean> labels = new IdentityHashMap<>();
+	private final Set<AbstractInsnNode> inlined = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Map<FieldKey, List<FieldInsnNode>> fieldAssignments = new HashMap<>();
+
+	public MethodInstructionIndex(MethodNode mn) {
+		addInstructions(mn.instructions.getFirst(), mn.instructions.getLast());
+		for (TryCatchBlockNode tcbnode : mn.tryCatchBlocks) {
+			//only the handler needs to be added, as that is where the code jumps in case of exception
+			addJumpTarget(tcbnode.handler);
+		}
+	}
+
+	/**
+	 * Adds the instructions that were inserted to the method.
+	 *
+	 * @param first
+	 *            The first inserted instruction.
+	 * @param last
+	 *            The last inserted instruction.
+	 */
+	public void addInstructions(AbstractInsnNode first, AbstractInsnNode last) {
+		if (first == null) {
+			return;
+		}
+		for (AbstractInsnNode ins = first;; ins = ins.getNext()) {
+			switch (ins.getType()) {
+				case AbstractInsnNode.LABEL: {
+					labels.putIfAbsent((LabelNode) ins, Boolean.FALSE);
+					break;
+				}
+				case AbstractInsnNode.JUMP_INSN: {
+					addJumpTarget(((JumpInsnNode) ins).label);
+					break;
+				}
+				case AbstractInsnNode.LOOKUPSWITCH_INSN: {
+					LookupSwitchInsnNode lsins = (LookupSwitchInsnNode) ins;
+					addJumpTarget(lsins.dflt);
+					for (LabelNode ln : lsins.labels) {
+						addJumpTarget(ln);
+					}
+					break;
+				}
+				case AbstractInsnNode.TABLESWITCH_INSN: {
+					TableSwitchInsnNode tsins = (TableSwitchInsnNode) ins;
+					addJumpTarget(tsins.dflt);
+					for (LabelNode ln : tsins.labels) {
+						addJumpTarget(ln);
+					}
+					break;
+				}
+				case AbstractInsnNode.FIELD_INSN: {
+					int opcode = ins.getOpcode();
+					if (opcode == Opcodes.PUTSTATIC || opcode == Opcodes.PUTFIELD) {
+						FieldInsnNode fins = (FieldInsnNode) ins;
+						fieldAssignments.computeIfAbsent(new FieldKey(fins), k -> new ArrayList<>(1)).add(fins);
+					}
+					break;
+				}
+				default: {
+					break;
+				}
+			}
+			if (ins == last) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Removes an instruction that was removed from the method.
+	 * <p>
+	 * The labels are not removed, as they may still be referenced by other instructions.
+	 *
+	 * @param ins
+	 *            The instruction.
+	 */
+	public void removeInstruction(AbstractInsnNode ins) {
+		inlined.remove(ins);
+		int opcode = ins.getOpcode();
+		if (opcode == Opcodes.PUTSTATIC || opcode == Opcodes.PUTFIELD) {
+			FieldInsnNode fins = (FieldInsnNode) ins;
+			List<FieldInsnNode> assignments = fieldAssignments.get(new FieldKey(fins));
+			if (assignments != null) {
+				assignments.remove(fins);
+			}
+		}
+	}
+
+	/**
+	 * Gets the field assignment instructions for the given field.
+	 *
+	 * @param fieldkey
+	 *            The field.
+	 * @return The {@link Opcodes#PUTSTATIC} and {@link Opcodes#PUTFIELD} instructions. Never <code>null</code>.
+	 */
+	public List<FieldInsnNode> getFieldAssignments(FieldKey fieldkey) {
+		List<FieldInsnNode> result = fieldAssignments.get(fieldkey);
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if the given label is a jump target.
+	 * <p>
+	 * Labels that are not part of the index are considered to be jump targets.
+	 *
+	 * @param ln
+	 *            The label.
+	 * @return <code>true</code> if the label is a jump target.
+	 */
+	public boolean isJumpTarget(LabelNode ln) {
+		Boolean jumptarget = labels.get(ln);
+		return jumptarget == null || jumptarget;
+	}
+
+	public boolean isInlined(AbstractInsnNode ins) {
+		return inlined.contains(ins);
+	}
+
+	public void markInlined(AbstractInsnNode ins) {
+		inlined.add(ins);
+	}
+
+	private void addJumpTarget(LabelNode ln) {
+		labels.put(ln, Boolean.TRUE);
+	}
+}
@@ -12,10 +12,12 @@ import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodInsnNode
  */
 class MethodKey extends MemberKey {
 	protected final String methodDescriptor;
+	private final int hashCode;
 
 	public MethodKey(String owner, String methodName, String methodDescriptor) {
 		super(owner, methodName);
 		this.methodDescriptor = methodDescriptor;
+		this.hashCode = MemberKey.hashCode(owner, methodName, methodDescriptor);
 	}
 
 	public MethodKey(MethodInsnNode methodins) {
@@ -56,10 +58,7 @@ class MethodKey extends MemberKey {
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = super.hashCode();
-		result = prime * result + ((methodDescriptor == null) ? 0 : methodDescriptor.hashCode());
-		return result;
+		return hashCode;
 	}
 
 	@Override
@@ -71,6 +70,8 @@ class MethodKey extends MemberKey {
 		if (getClass() != obj.getClass())
 			return false;
 		MethodKey other = (MethodKey) obj;
+		if (hashCode != other.hashCode)
+			return false;
 		if (methodDescriptor == null) {
 			if (other.methodDescriptor != null)
 				return false;
@@ -0,0 +1,505 @@
+package sipka.jvm.constexpr.tool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import sipka.jvm.constexpr.tool.options.DeconstructionSelector;
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+import sipka.jvm.constexpr.tool.options.ReconstructorPredicate;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassReader;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+
+/**
+ * Content addressed on-disk cache of the optimized class files.
+ * <p>
+ * Each entry is keyed by the hash of the inliner configuration and the bytes of the input class. The entries record
+ * the input classes that the class references (based on the <code>CONSTANT_Class</code> entries of its constant pool)
+ * along with their hashes. An entry is only valid if the referenced input classes are unchanged, and their entries
+ * are valid as well. That is, an entry is invalidated if any class changes in the transitive reference closure of the
+ * class, as the optimization may execute the code of them.
+ * <p>
+ * The classes that don't have a valid entry need to be processed. Additionally, the input classes which static fields
+ * they reference need to be processed too, so their constant values are available during the optimization.
+ * <p>
+ * The results that depend on the circumstances of the run rather than the configuration (E.g. an evaluation timed out,
+ * or the time budget ran out) are {@linkplain #excludeClasses(Collection) excluded} from the cache, along with the
+ * classes that transitively reference them.
+ */
+class OptimizationCache {
+	private static final int ENTRY_FORMAT_VERSION = 1;
+	private static final int ENTRY_MAGIC = 0x4a434543;
+
+	/**
+	 * The hash for the referenced classes that are not part of the inputs.
+	 */
+	private static final String NOT_INPUT_HASH = "";
+
+	private static final int CONSTANT_FIELDREF_TAG = 9;
+	private static final int CONSTANT_CLASS_TAG = 7;
+
+	private final Path directory;
+	private final String configDigest;
+
+	/**
+	 * Input class internal names mapped to the hashes of their bytes.
+	 */
+	private final Map<String, String> inputHashes = new HashMap<>();
+	/**
+	 * Input class internal names mapped to the names of the classes they reference.
+	 */
+	private final Map<String, NavigableSet<String>> referencedClasses = new HashMap<>();
+	/**
+	 * Input class internal names mapped to the valid entries of them.
+	 */
+	private final Map<String, CacheEntry> validEntries = new HashMap<>();
+	/**
+	 * Input class internal names mapped to the names of the input classes that reference them.
+	 */
+	private final Map<String, List<String>> referrers = new HashMap<>();
+	/**
+	 * The internal names of the classes which results are not stored.
+	 */
+	private final Set<String> excludedClasses = new HashSet<>();
+
+	private OptimizationCache(Path directory, String configDigest) {
+		this.directory = directory;
+		this.configDigest = configDigest;
+	}
+
+	/**
+	 * Creates a cache for the specified options.
+	 *
+	 * @param options
+	 *            The options.
+	 * @return The cache, or <code>null</code> if caching is not enabled, or the configuration cannot be identified.
+	 * @throws IOException
+	 *             If the config files failed to be read.
+	 */
+	public static OptimizationCache create(InlinerOptions options) throws IOException {
+		Path directory = options.getCacheDirectory();
+		if (directory == null) {
+			return null;
+		}
+		String configdigest = computeConfigDigest(options);
+		if (configdigest == null) {
+			return null;
+		}
+		return new OptimizationCache(directory, configdigest);
+	}
+
+	/**
+	 * Determines the input classes that need to be processed.
+	 * <p>
+	 * The outputs of other classes are available via {@link #getCachedOutput(String)}.
+	 *
+	 * @param inputs
+	 *            The input classes mapped by their internal names.
+	 * @param inputbytes
+	 *            The bytes of the input classes mapped by their internal names.
+	 * @return The internal names of the classes that need to be processed.
+	 */
+	public NavigableSet<String> determineProcessedClasses(NavigableMap<String, ClassReader> inputs,
+			Map<String, byte[]> inputbytes) {
+		Map<String, NavigableSet<String>> fieldowners = new HashMap<>();
+		for (Entry<String, ClassReader> entry : inputs.entrySet()) {
+			ClassReader cr = entry.getValue();
+			String classname = entry.getKey();
+			NavigableSet<String> classes = new TreeSet<>();
+			NavigableSet<String> owners = new TreeSet<>();
+			collectConstantPoolReferences(cr, classes, owners);
+			classes.remove(classname);
+			owners.remove(classname);
+
+			inputHashes.put(classname, hash(inputbytes.get(classname)));
+			referencedClasses.put(classname, classes);
+			fieldowners.put(classname, owners);
+		}
+
+		Deque<String> invalids = new ArrayDeque<>();
+		for (Entry<String, NavigableSet<String>> entry : referencedClasses.entrySet()) {
+			String classname = entry.getKey();
+			for (String ref : entry.getValue()) {
+				if (inputHashes.containsKey(ref)) {
+					referrers.computeIfAbsent(ref, k -> new ArrayList<>()).add(classname);
+				}
+			}
+			CacheEntry cacheentry = readEntry(classname);
+			if (cacheentry != null && cacheentry.isDependenciesUnchanged(inputHashes)) {
+				validEntries.put(classname, cacheentry);
+			} else {
+				invalids.add(classname);
+			}
+		}
+		//invalidate the entries of the classes that transitively reference an invalid class
+		while (!invalids.isEmpty()) {
+			List<String> refs = referrers.get(invalids.poll());
+			if (refs == null) {
+				continue;
+			}
+			for (String referrer : refs) {
+				if (validEntries.remove(referrer) != null) {
+					invalids.add(referrer);
+				}
+			}
+		}
+
+		NavigableSet<String> result = new TreeSet<>();
+		Deque<String> processqueue = new ArrayDeque<>();
+		for (String classname : inputs.keySet()) {
+			if (!validEntries.containsKey(classname)) {
+				result.add(classname);
+				processqueue.add(classname);
+			}
+		}
+		//the static fields of the referenced classes are needed for the optimization
+		while (!processqueue.isEmpty()) {
+			for (String owner : fieldowners.get(processqueue.poll())) {
+				if (inputHashes.containsKey(owner) && result.add(owner)) {
+					processqueue.add(owner);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Excludes the results of the given classes from the cache.
+	 * <p>
+	 * The classes that transitively reference the excluded classes are excluded as well, as they may have used the
+	 * incomplete results of them. The results of the excluded classes are not {@linkplain #store(String, byte[])
+	 * stored}.
+	 * 
+	 * @param classnames
+	 *            The internal names of the classes.
+	 */
+	public void excludeClasses(Collection<String> classnames) {
+		Deque<String> queue = new ArrayDeque<>();
+		for (String cname : classnames) {
+			if (excludedClasses.add(cname)) {
+				queue.add(cname);
+			}
+		}
+		while (!queue.isEmpty()) {
+			List<String> refs = referrers.get(queue.poll());
+			if (refs == null) {
+				continue;
+			}
+			for (String referrer : refs) {
+				if (excludedClasses.add(referrer)) {
+					queue.add(referrer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks if the class has a valid cache entry.
+	 *
+	 * @param classname
+	 *            The internal name of the class.
+	 * @return <code>true</code> if the cached output can be used.
+	 */
+	public boolean hasValidEntry(String classname) {
+		return validEntries.containsKey(classname);
+	}
+
+	/**
+	 * Gets the cached output of a class that doesn't need processing.
+	 *
+	 * @param classname
+	 *            The internal name of the class.
+	 * @return The output bytes, or <code>null</code> if the class is unchanged by the optimization.
+	 * @throws IllegalArgumentException
+	 *             If the class has no valid cache entry.
+	 */
+	public byte[] getCachedOutput(String classname) throws IllegalArgumentException {
+		CacheEntry entry = validEntries.get(classname);
+		if (entry == null) {
+			throw new IllegalArgumentException("No valid cache entry for class: " + classname);
+		}
+		return entry.output;
+	}
+
+	/**
+	 * Stores the output of a processed class in the cache.
+	 * <p>
+	 * The output is not stored if the class is {@linkplain #excludeClasses(Collection) excluded}.
+	 *
+	 * @param classname
+	 *            The internal name of the class.
+	 * @param output
+	 *            The output bytes, or <code>null</code> if the class is unchanged by the optimization.
+	 * @throws IOException
+	 *             If the entry failed to be written.
+	 */
+	public void store(String classname, byte[] output) throws IOException {
+		if (excludedClasses.contains(classname)) {
+			return;
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(output == null ? 1024 : output.length + 1024);
+		try (DataOutputStream out = new DataOutputStream(baos)) {
+			out.writeInt(ENTRY_MAGIC);
+			out.writeInt(ENTRY_FORMAT_VERSION);
+			out.writeUTF(classname);
+			NavigableSet<String> refs = referencedClasses.get(classname);
+			out.writeInt(refs.size());
+			for (String ref : refs) {
+				out.writeUTF(ref);
+				out.writeUTF(inputHashes.getOrDefault(ref, NOT_INPUT_HASH));
+			}
+			if (output == null) {
+				out.writeInt(-1);
+			} else {
+				out.writeInt(output.length);
+				out.write(output);
+			}
+		}
+		Path entrypath = getEntryPath(classname);
+		Path parent = entrypath.getParent();
+		Files.createDirectories(parent);
+		//write to a temporary file first, so concurrent readers never see partial entries
+		Path tempfile = parent.resolve(entrypath.getFileName() + "_temp-" + UUID.randomUUID());
+		try {
+			Files.write(tempfile, baos.toByteArray());
+			try {
+				Files.move(tempfile, entrypath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempfile, entrypath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempfile);
+		}
+	}
+
+	private CacheEntry readEntry(String classname) {
+		byte[] bytes;
+		try {
+			bytes = Files.readAllBytes(getEntryPath(classname));
+		} catch (IOException e) {
+			//no entry, or failed to read, treat as a cache miss
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			if (in.readInt() != ENTRY_MAGIC || in.readInt() != ENTRY_FORMAT_VERSION
+					|| !classname.equals(in.readUTF())) {
+				return null;
+			}
+			int depcount = in.readInt();
+			Map<String, String> dependencies = new HashMap<>();
+			for (int i = 0; i < depcount; i++) {
+				String dep = in.readUTF();
+				dependencies.put(dep, in.readUTF());
+			}
+			int outputlength = in.readInt();
+			byte[] output;
+			if (outputlength < 0) {
+				output = null;
+			} else {
+				output = new byte[outputlength];
+				in.readFully(output);
+			}
+			if (in.read() >= 0) {
+				//trailing data
+				return null;
+			}
+			return new CacheEntry(dependencies, output);
+		} catch (IOException | RuntimeException e) {
+			//corrupt entry
+			return null;
+		}
+	}
+
+	private Path getEntryPath(String classname) {
+		MessageDigest digest = Utils.createSha256MessageDigest();
+		updateDigest(digest, configDigest);
+		updateDigest(digest, inputHashes.get(classname));
+		String key = Utils.toHexString(digest.digest());
+		return directory.resolve(key.substring(0, 2)).resolve(key);
+	}
+
+	/**
+	 * Computes the digest of the inliner configuration.
+	 * 
+	 * @return The digest, or <code>null</code> if a {@link ReconstructorPredicate} or {@link DeconstructionSelector}
+	 *             has no {@linkplain ReconstructorPredicate#getCacheIdentity() cache identity}.
+	 */
+	private static String computeConfigDigest(InlinerOptions options) throws IOException {
+		MessageDigest digest = Utils.createSha256MessageDigest();
+		updateDigest(digest, "jvm-constexpr-optimization-cache-" + ENTRY_FORMAT_VERSION);
+		updateDigest(digest, String.valueOf(options.getCacheKey()));
+
+		try (InputStream in = BaseConfig.class.getClassLoader()
+				.getResourceAsStream(BaseConfig.BASE_CONFIG_RESOURCE_NAME)) {
+			if (in == null) {
+				throw new NoSuchFileException(BaseConfig.BASE_CONFIG_RESOURCE_NAME, null,
+						"jvm-constexpr ClassLoader resource not found: " + BaseConfig.BASE_CONFIG_RESOURCE_NAME);
+			}
+			updateDigest(digest, Utils.readStream(in));
+		}
+		Collection<Path> configfiles = options.getConfigFiles();
+		if (configfiles != null) {
+			for (Path conffilepath : configfiles) {
+				updateDigest(digest, conffilepath.toString());
+				updateDigest(digest, Files.readAllBytes(conffilepath));
+			}
+		}
+
+		Set<String> constantfields = new TreeSet<>();
+		for (Field f : options.getConstantFields()) {
+			constantfields.add(f.toString());
+		}
+		updateDigest(digest, constantfields);
+
+		Set<String> constanttypes = new TreeSet<>();
+		for (Class<?> type : options.getConstantTypes()) {
+			constanttypes.add(type.getName());
+		}
+		updateDigest(digest, constanttypes);
+
+		Set<String> reconstructors = new TreeSet<>();
+		for (Entry<Member, ReconstructorPredicate> entry : options.getConstantReconstructors().entrySet()) {
+			ReconstructorPredicate predicate = entry.getValue();
+			String id = predicate == null ? "null" : predicate.getCacheIdentity();
+			if (id == null) {
+				return null;
+			}
+			reconstructors.add(entry.getKey() + " " + id);
+		}
+		updateDigest(digest, reconstructors);
+
+		Set<String> deconstructors = new TreeSet<>();
+		for (Entry<Class<?>, DeconstructionSelector> entry : options.getDeconstructorConfigurations().entrySet()) {
+			DeconstructionSelector selector = entry.getValue();
+			String id = selector == null ? "null" : selector.getCacheIdentity();
+			if (id == null) {
+				return null;
+			}
+			deconstructors.add(entry.getKey().getName() + " " + id);
+		}
+		updateDigest(digest, deconstructors);
+
+		updateDigest(digest, new TreeSet<>(options.getStripAnnotations()));
+		return Utils.toHexString(digest.digest());
+	}
+
+	/**
+	 * Collects the class references from the constant pool of the class.
+	 *
+	 * @param cr
+	 *            The class reader.
+	 * @param outclasses
+	 *            The output for the internal names of the referenced classes.
+	 * @param outfieldowners
+	 *            The output for the internal names of the classes which fields are referenced.
+	 */
+	private static void collectConstantPoolReferences(ClassReader cr, Collection<String> outclasses,
+			Collection<String> outfieldowners) {
+		char[] buffer = new char[cr.getMaxStringLength()];
+		int count = cr.getItemCount();
+		for (int i = 1; i < count; i++) {
+			int offset = cr.getItem(i);
+			if (offset == 0) {
+				//the unused entry after long and double constants
+				continue;
+			}
+			switch (cr.readByte(offset - 1)) {
+				case CONSTANT_CLASS_TAG: {
+					addReferencedClass(outclasses, cr.readUTF8(offset, buffer));
+					break;
+				}
+				case CONSTANT_FIELDREF_TAG: {
+					addReferencedClass(outfieldowners, cr.readClass(offset, buffer));
+					break;
+				}
+				default: {
+					break;
+				}
+			}
+		}
+	}
+
+	private static void addReferencedClass(Collection<String> result, String internalname) {
+		if (internalname.startsWith("[")) {
+			Type elemtype = Type.getType(internalname).getElementType();
+			if (elemtype.getSort() != Type.OBJECT) {
+				return;
+			}
+			internalname = elemtype.getInternalName();
+		}
+		result.add(internalname);
+	}
+
+	private static String hash(byte[] bytes) {
+		return Utils.toHexString(Utils.createSha256MessageDigest().digest(bytes));
+	}
+
+	private static void updateDigest(MessageDigest digest, Collection<String> values) {
+		digest.update(intToBytes(values.size()));
+		for (String s : values) {
+			updateDigest(digest, s);
+		}
+	}
+
+	private static void updateDigest(MessageDigest digest, String value) {
+		updateDigest(digest, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void updateDigest(MessageDigest digest, byte[] bytes) {
+		//prefix with the length, so the concatenation of the values is unambiguous
+		digest.update(intToBytes(bytes.length));
+		digest.update(bytes);
+	}
+
+	private static byte[] intToBytes(int value) {
+		return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+	}
+
+	private static final class CacheEntry {
+		/**
+		 * The referenced class internal names mapped to their hashes at the time of the entry creation.
+		 */
+		private final Map<String, String> dependencies;
+		private final byte[] output;
+
+		public CacheEntry(Map<String, String> dependencies, byte[] output) {
+			this.dependencies = dependencies;
+			this.output = output;
+		}
+
+		public boolean isDependenciesUnchanged(Map<String, String> currenthashes) {
+			for (Entry<String, String> entry : dependencies.entrySet()) {
+				if (!entry.getValue().equals(currenthashes.getOrDefault(entry.getKey(), NOT_INPUT_HASH))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
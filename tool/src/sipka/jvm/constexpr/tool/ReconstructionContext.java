@@ -3,6 +3,8 @@ package sipka.jvm.constexpr.tool;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import sipka.jvm.constexpr.tool.log.ArgumentLogContextInfo;
 import sipka.jvm.constexpr.tool.log.BytecodeLocation;
@@ -16,6 +18,7 @@ import sipka.jvm.constexpr.tool.log.MethodInvocationFailureContextInfo;
 import sipka.jvm.constexpr.tool.log.MethodNotFoundLogContextInfo;
 import sipka.jvm.constexpr.tool.log.NewArrayLogContextInfo;
 import sipka.jvm.constexpr.tool.log.OpcodeArgumentLogContextInfo;
+import sipka.jvm.constexpr.tool.log.ReconstructionFailureLogEntry;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.AbstractInsnNode;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
 
@@ -28,24 +31,46 @@ class ReconstructionContext {
 	 */
 	private final Class<?> receiverType;
 	private final boolean forceReconstruct;
+	/**
+	 * The memo of the reconstructed values in the current pass over the method, or <code>null</code> if the results
+	 * shouldn't be memoized.
+	 */
+	private final ReconstructionMemo memo;
+	/**
+	 * The contexts that only differ in their receiver types, shared between all of them.
+	 * <p>
+	 * A context is only used on a single thread, so the contexts for the receiver types are reused instead of
+	 * creating new ones for every reconstructed instruction.
+	 */
+	private final Map<Class<?>, ReconstructionContext> receiverTypeContexts;
 
 	private ReconstructionContext(ConstantExpressionInliner inliner, TransformedClass transformedClass,
-			MethodNode methodNode, Class<?> receiverType, boolean forceReconstruct) {
+			MethodNode methodNode, Class<?> receiverType, boolean forceReconstruct, ReconstructionMemo memo,
+			Map<Class<?>, ReconstructionContext> receiverTypeContexts) {
 		this.inliner = inliner;
 		this.transformedClass = transformedClass;
 		this.methodNode = methodNode;
 		this.receiverType = receiverType;
 		this.forceReconstruct = forceReconstruct;
+		this.memo = memo;
+		this.receiverTypeContexts = receiverTypeContexts;
+		receiverTypeContexts.put(receiverType, this);
 	}
 
 	public static ReconstructionContext createConstantField(ConstantExpressionInliner inliner,
 			TransformedClass transformedClass, Field f, MethodNode clinitmethod) {
-		return new ReconstructionContext(inliner, transformedClass, clinitmethod, f.getType(), true);
+		return new ReconstructionContext(inliner, transformedClass, clinitmethod, f.getType(), true, null,
+				new HashMap<>());
 	}
 
 	public static ReconstructionContext createForReceiverType(ConstantExpressionInliner inliner,
 			TransformedClass transformedClass, Class<?> receiver, MethodNode method) {
-		return new ReconstructionContext(inliner, transformedClass, method, receiver, false);
+		return new ReconstructionContext(inliner, transformedClass, method, receiver, false, null, new HashMap<>());
+	}
+
+	public static ReconstructionContext createForReceiverType(ConstantExpressionInliner inliner,
+			TransformedClass transformedClass, Class<?> receiver, MethodNode method, ReconstructionMemo memo) {
+		return new ReconstructionContext(inliner, transformedClass, method, receiver, false, memo, new HashMap<>());
 	}
 
 	public ConstantExpressionInliner getInliner() {
@@ -68,8 +93,20 @@ class ReconstructionContext {
 		return forceReconstruct;
 	}
 
+	public ReconstructionMemo getMemo() {
+		return memo;
+	}
+
 	public ReconstructionContext withReceiverType(Class<?> type) {
-		return new ReconstructionContext(inliner, transformedClass, methodNode, type, forceReconstruct);
+		if (type == receiverType) {
+			return this;
+		}
+		ReconstructionContext result = receiverTypeContexts.get(type);
+		if (result != null) {
+			return result;
+		}
+		return new ReconstructionContext(inliner, transformedClass, methodNode, type, forceReconstruct, memo,
+				receiverTypeContexts);
 	}
 
 	public ReconstructionContext forArgumentReconstruction() {
@@ -81,30 +118,45 @@ class ReconstructionContext {
 
 	public ReconstructionException newArgumentIndexReconstructionException(ReconstructionException cause,
 			AbstractInsnNode locationins, int argumentIndex) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(cause);
+		}
 		return new ReconstructionException(cause,
 				new ArgumentLogContextInfo(getBytecodeLocation(locationins), argumentIndex));
 	}
 
 	public ReconstructionException newOpcodeReconstructionException(ReconstructionException cause,
 			AbstractInsnNode locationins, int argumentIndex, int opcode) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(cause);
+		}
 		return new ReconstructionException(cause,
 				new OpcodeArgumentLogContextInfo(getBytecodeLocation(locationins), argumentIndex, opcode));
 	}
 
 	public ReconstructionException newClassNotFoundReconstructionException(ClassNotFoundException e,
 			AbstractInsnNode locationins, String classinternalname) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		return new ReconstructionException(e,
 				new ClassNotFoundLogContextInfo(getBytecodeLocation(locationins), classinternalname));
 	}
 
 	public ReconstructionException newMethodNotFoundReconstructionException(NoSuchMethodException e,
 			AbstractInsnNode locationins, String classinternalname, String methodname, String methoddescriptor) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		return new ReconstructionException(e, new MethodNotFoundLogContextInfo(getBytecodeLocation(locationins),
 				classinternalname, methodname, methoddescriptor));
 	}
 
 	public ReconstructionException newMethodArgumentsReconstructionException(ReconstructionException e,
 			AbstractInsnNode locationins, String classinternalname, String methodname, String methoddescriptor) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		return new ReconstructionException(e, new MethodArgumentsLogContextInfo(getBytecodeLocation(locationins),
 				classinternalname, methodname, methoddescriptor));
 	}
@@ -112,6 +164,9 @@ class ReconstructionContext {
 	public ReconstructionException newMethodInvocationFailureReconstructionException(Throwable e,
 			AbstractInsnNode locationins, String classinternalname, String methodname, String methoddescriptor,
 			Object instance, Object[] arguments) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		if (e instanceof InvocationTargetException) {
 			//patch the stack trace of the cause, so the stack trace doesn't contain traces from the tool
 			Throwable cause = e.getCause();
@@ -135,6 +190,9 @@ class ReconstructionContext {
 
 	public ReconstructionException newFieldNotFoundReconstructionException(NoSuchFieldException e,
 			AbstractInsnNode locationins, String classinternalname, String fieldname, String fielddescriptor) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		return new ReconstructionException(e, new FieldNotFoundLogContextInfo(getBytecodeLocation(locationins),
 				classinternalname, fieldname, fielddescriptor));
 	}
@@ -142,34 +200,73 @@ class ReconstructionContext {
 	public ReconstructionException newFieldAccessFailureReconstructionException(Throwable e,
 			AbstractInsnNode locationins, String classinternalname, String fieldname, String fielddescriptor,
 			Object instance) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		return new ReconstructionException(e, new FieldAccessFailureContextInfo(getBytecodeLocation(locationins),
 				classinternalname, fieldname, fielddescriptor, instance));
 	}
 
 	public ReconstructionException newMemberInliningReconstructionException(ReconstructionException e,
 			AbstractInsnNode locationins, String classinternalname, String membername, String memberdescriptor) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		return new ReconstructionException(e, new MemberInliningLogContextInfo(getBytecodeLocation(locationins),
 				classinternalname, membername, memberdescriptor));
 	}
 
 	public ReconstructionException newInstanceAccessFailureReconstructionException(ReconstructionException e,
 			AbstractInsnNode locationins, String classinternalname, String membername, String memberdescriptor) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		return new ReconstructionException(e, new InstanceAccessLogContextInfo(getBytecodeLocation(locationins),
 				classinternalname, membername, memberdescriptor));
 	}
 
 	public ReconstructionException newArrayCreationFailureReconstructionException(ReconstructionException e,
 			AbstractInsnNode locationins, String arraycomponenttype) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		return new ReconstructionException(e,
 				new NewArrayLogContextInfo(getBytecodeLocation(locationins), arraycomponenttype, -1));
 	}
 
 	public ReconstructionException newArrayCreationFailureReconstructionException(ReconstructionException e,
 			AbstractInsnNode locationins, String arraycomponenttype, int size) {
+		if (!inliner.isLoggable(ReconstructionFailureLogEntry.class)) {
+			return newUnloggedReconstructionException(e);
+		}
 		return new ReconstructionException(e,
 				new NewArrayLogContextInfo(getBytecodeLocation(locationins), arraycomponenttype, size));
 	}
 
+	/**
+	 * Creates an exception for a reconstruction that previously failed at the same instruction.
+	 * <p>
+	 * The failures are only memoized if they are not logged, so the exception has no context info or cause.
+	 * 
+	 * @return The exception.
+	 */
+	public ReconstructionException newMemoizedFailureReconstructionException() {
+		return newUnloggedReconstructionException(null);
+	}
+
+	/**
+	 * Creates a reconstruction exception without context info, when the reconstruction failures are not logged.
+	 * <p>
+	 * The failures are not chained, as the causal chain is only used for logging. If the cause is already a
+	 * reconstruction exception, it is returned as is.
+	 */
+	private static ReconstructionException newUnloggedReconstructionException(Throwable cause) {
+		if (cause instanceof ReconstructionException) {
+			return (ReconstructionException) cause;
+		}
+		return new ReconstructionException(cause, null);
+	}
+
 	private BytecodeLocation getBytecodeLocation(AbstractInsnNode locationins) {
 		return Utils.getBytecodeLocation(transformedClass, methodNode, locationins);
 	}
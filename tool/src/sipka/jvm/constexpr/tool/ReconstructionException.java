@@ -2,13 +2,22 @@ package sipka.jvm.constexpr.tool;
 
 import sipka.jvm.constexpr.tool.log.LogContextInfo;
 
+/**
+ * Signals that a value couldn't be reconstructed.
+ * <p>
+ * Reconstruction failures are common for code that is mostly non-constant, so the exception doesn't fill in its stack
+ * trace. The location of the failure is described by the {@linkplain #getContextInfo() context info} instead.
+ * <p>
+ * The context info is only created if the reconstruction failures are logged, otherwise it is <code>null</code>, and
+ * the failures are not chained.
+ */
 class ReconstructionException extends ConstantAnalysisException {
 	private static final long serialVersionUID = 1L;
 
 	private LogContextInfo contextInfo;
 
 	public ReconstructionException(Throwable cause, LogContextInfo contextInfo) {
-		super(cause);
+		super(null, cause, true, false);
 		this.contextInfo = contextInfo;
 	}
 
@@ -17,17 +26,24 @@ class ReconstructionException extends ConstantAnalysisException {
 		this((Throwable) cause, contextInfo);
 	}
 
+	//may be null
 	public LogContextInfo getContextInfo() {
 		return contextInfo;
 	}
 
 	@Override
 	public String getMessage() {
+		if (contextInfo == null) {
+			return null;
+		}
 		return contextInfo.getMessage();
 	}
 
 	@Override
 	public String toString() {
+		if (contextInfo == null) {
+			return getClass().getName();
+		}
 		return getClass().getName() + ": " + getMessage() + System.lineSeparator() + "\t\tin "
 				+ contextInfo.getBytecodeLocation();
 	}
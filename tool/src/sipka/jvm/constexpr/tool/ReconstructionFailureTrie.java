@@ -0,0 +1,160 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sipka.jvm.constexpr.tool.log.LogContextInfo;
+import sipka.jvm.constexpr.tool.log.ReconstructionFailureLogEntry;
+
+/**
+ * Aggregates the reconstruction failures for logging.
+ * <p>
+ * A failure is described by its context stack, that is the {@linkplain ReconstructionException#getContextInfo()
+ * context infos} of the exception chain. The stacks are stored in a trie, starting from the innermost context, which is
+ * closest to the root cause. The failures that share their innermost contexts share the nodes of the trie, so each
+ * distinct context is only stored once, regardless of how many failures it appears in.
+ * <p>
+ * Only the longest context stack is reported for a given innermost context. The shorter stacks that are suffixes of it
+ * are the same failure encountered from a different starting point, and would only clutter the output.
+ * <p>
+ * The class is thread safe.
+ */
+final class ReconstructionFailureTrie {
+	private final Node root = new Node(null, null);
+	/**
+	 * Reused list for collecting the context infos of an exception chain.
+	 */
+	private final List<LogContextInfo> chainBuffer = new ArrayList<>();
+
+	/**
+	 * Adds the failure signaled by the argument exception.
+	 *
+	 * @param e
+	 *            The exception.
+	 */
+	public synchronized void add(ReconstructionException e) {
+		List<LogContextInfo> chain = chainBuffer;
+		Throwable it = e;
+		for (; it instanceof ReconstructionException; it = it.getCause()) {
+			chain.add(((ReconstructionException) it).getContextInfo());
+		}
+		Node node = root;
+		for (int i = chain.size() - 1; i >= 0; i--) {
+			node = node.getOrCreateChild(chain.get(i));
+		}
+		chain.clear();
+		if (!node.terminal) {
+			//keep the first root cause for the context stack
+			node.terminal = true;
+			node.rootCause = it;
+		}
+	}
+
+	/**
+	 * Creates the log entries for the aggregated failures.
+	 * <p>
+	 * A log entry is created for each distinct innermost context, with the longest context stack that was recorded for
+	 * it. The entries are ordered by the bytecode locations of the innermost contexts.
+	 *
+	 * @return The log entries.
+	 */
+	public synchronized List<ReconstructionFailureLogEntry> createLogEntries() {
+		List<ReconstructionFailureLogEntry> result = new ArrayList<>();
+		for (Iterator<Node> it = root.childIterator(); it.hasNext();) {
+			Node deepest = findDeepest(it.next());
+			List<LogContextInfo> contextstack = new ArrayList<>(deepest.depth);
+			for (Node n = deepest; n != root; n = n.parent) {
+				contextstack.add(n.contextInfo);
+			}
+			result.add(new ReconstructionFailureLogEntry(deepest.rootCause, contextstack));
+		}
+		//sort by the root cause locations, so the logs are always reported in order
+		result.sort((l, r) -> {
+			List<LogContextInfo> lcstack = l.getContextStack();
+			List<LogContextInfo> rcstack = r.getContextStack();
+			return lcstack.get(lcstack.size() - 1).getBytecodeLocation()
+					.compareLocation(rcstack.get(rcstack.size() - 1).getBytecodeLocation());
+		});
+		return result;
+	}
+
+	/**
+	 * Finds the deepest node in the subtree.
+	 * <p>
+	 * If there are multiple ones, the first added is returned.
+	 */
+	private static Node findDeepest(Node node) {
+		Node result = node;
+		for (Iterator<Node> it = node.childIterator(); it.hasNext();) {
+			Node childdeepest = findDeepest(it.next());
+			if (childdeepest.depth > result.depth) {
+				result = childdeepest;
+			}
+		}
+		return result;
+	}
+
+	private static final class Node {
+		protected final Node parent;
+		protected final LogContextInfo contextInfo;
+		protected final int depth;
+		/**
+		 * <code>null</code> if there are no children, a single {@link Node}, or a {@link Map} of the children by their
+		 * context infos.
+		 * <p>
+		 * Most nodes have a single child, so no map is allocated for them.
+		 */
+		private Object children;
+
+		/**
+		 * Set to <code>true</code> if a failure context stack ends at this node.
+		 */
+		protected boolean terminal;
+		protected Throwable rootCause;
+
+		Node(Node parent, LogContextInfo contextInfo) {
+			this.parent = parent;
+			this.contextInfo = contextInfo;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+		}
+
+		@SuppressWarnings("unchecked")
+		Node getOrCreateChild(LogContextInfo info) {
+			Object c = children;
+			if (c == null) {
+				Node result = new Node(this, info);
+				children = result;
+				return result;
+			}
+			if (c instanceof Node) {
+				Node single = (Node) c;
+				if (single.contextInfo.equals(info)) {
+					return single;
+				}
+				Map<LogContextInfo, Node> map = new LinkedHashMap<>();
+				map.put(single.contextInfo, single);
+				Node result = new Node(this, info);
+				map.put(info, result);
+				children = map;
+				return result;
+			}
+			return ((Map<LogContextInfo, Node>) c).computeIfAbsent(info, k -> new Node(this, k));
+		}
+
+		@SuppressWarnings("unchecked")
+		Iterator<Node> childIterator() {
+			Object c = children;
+			if (c == null) {
+				return Collections.emptyIterator();
+			}
+			if (c instanceof Node) {
+				return Collections.singleton((Node) c).iterator();
+			}
+			return ((Map<LogContextInfo, Node>) c).values().iterator();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.AbstractInsnNode;
+
+/**
+ * Memo of the stack values reconstructed during a single pass over the instructions of a method.
+ * <p>
+ * The results are keyed by the instruction and the receiver type of the reconstruction. Failed reconstructions are
+ * memoized as well, but only as a marker, and only if the failures are not logged. The same instruction may be reached
+ * through different reconstruction paths, and the logged failures need the context of each of them.
+ * <p>
+ * The memo must be {@linkplain #clear() cleared} when the instructions of the method are modified, as the memoized
+ * results may refer to the removed instructions.
+ */
+class ReconstructionMemo {
+	/**
+	 * Sentinel object that is returned by {@link #get(AbstractInsnNode, Class)} if there's no memoized result.
+	 */
+	public static final Object ABSENT = new Object();
+	/**
+	 * Sentinel object that is returned by {@link #get(AbstractInsnNode, Class)} if the reconstruction failed.
+	 */
+	public static final Object FAILED = new Object();
+
+	private static final Object NOT_CONSTANT_RESULT = new Object();
+
+	private final Map<MemoKey, Object> results = new HashMap<>();
+
+	/**
+	 * Gets the memoized result of a reconstruction.
+	 *
+	 * @param ins
+	 *            The instruction.
+	 * @param receivertype
+	 *            The receiver type.
+	 * @return The memoized {@link AsmStackReconstructedValue}, <code>null</code> if the value was memoized as not
+	 *             constant, {@link #FAILED} if the reconstruction failed, or {@link #ABSENT} if there is no memoized
+	 *             result.
+	 */
+	public Object get(AbstractInsnNode ins, Class<?> receivertype) {
+		Object result = results.get(new MemoKey(ins, receivertype));
+		if (result == null) {
+			return ABSENT;
+		}
+		if (result == NOT_CONSTANT_RESULT) {
+			return null;
+		}
+		return result;
+	}
+
+	public void putResult(AbstractInsnNode ins, Class<?> receivertype, AsmStackReconstructedValue value) {
+		results.put(new MemoKey(ins, receivertype), value == null ? NOT_CONSTANT_RESULT : value);
+	}
+
+	public void putFailure(AbstractInsnNode ins, Class<?> receivertype) {
+		results.put(new MemoKey(ins, receivertype), FAILED);
+	}
+
+	public void clear() {
+		results.clear();
+	}
+
+	private static final class MemoKey {
+		private final AbstractInsnNode ins;
+		private final Class<?> receiverType;
+
+		public MemoKey(AbstractInsnNode ins, Class<?> receiverType) {
+			this.ins = ins;
+			this.receiverType = receiverType;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(ins) * 31 + (receiverType == null ? 0 : receiverType.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			MemoKey other = (MemoKey) obj;
+			return ins == other.ins && receiverType == other.receiverType;
+		}
+	}
+}
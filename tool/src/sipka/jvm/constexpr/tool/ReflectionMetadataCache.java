@@ -0,0 +1,259 @@
+package sipka.jvm.constexpr.tool;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+
+/**
+ * Cache of the reflection metadata resolved for the classes.
+ * <p>
+ * The metadata is stored in a {@link ClassValue}, so it is bound to the lifetime of the associated class. The
+ * resolved members are made {@linkplain java.lang.reflect.AccessibleObject#setAccessible(boolean) accessible} when
+ * they are first resolved. The failed lookups are cached as well.
+ * <p>
+ * The {@linkplain MemberInvoker invokers} of the members are also cached with their declaring classes.
+ */
+final class ReflectionMetadataCache {
+	private static final int KIND_METHOD = 0;
+	private static final int KIND_DECLARED_METHOD = 1;
+	private static final int KIND_CONSTRUCTOR = 2;
+	private static final int KIND_FIELD = 3;
+
+	private static final Object NOT_FOUND = new Object();
+
+	private static final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+		@Override
+		protected ClassMetadata computeValue(Class<?> type) {
+			return new ClassMetadata();
+		}
+	};
+
+	private ReflectionMetadataCache() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Gets the method with the given name and descriptor that is declared by the type or one of its supertypes.
+	 *
+	 * @param type
+	 *            The type to search the method in.
+	 * @param owner
+	 *            The internal name of the type from which the method should be searched in the type hierarchy, or
+	 *            <code>null</code> to search all types.
+	 * @param descriptor
+	 *            The method descriptor.
+	 * @param name
+	 *            The method name.
+	 * @return The found method.
+	 * @throws NoSuchMethodException
+	 *             If the method is not found.
+	 */
+	public static Method getMethod(Class<?> type, String owner, String descriptor, String name)
+			throws NoSuchMethodException {
+		ClassMetadata metadata = METADATA.get(type);
+		MemberLookupKey key = new MemberLookupKey(KIND_METHOD, owner, name, descriptor);
+		Object result = metadata.members.get(key);
+		if (result == null) {
+			result = Utils.searchMethodForMethodDescriptor(type, owner, descriptor, name);
+			result = metadata.putMember(key, result);
+		}
+		if (result == NOT_FOUND) {
+			throw new NoSuchMethodException(
+					"Method not found on " + type + " with name: " + name + " and descriptor: " + descriptor);
+		}
+		return (Method) result;
+	}
+
+	/**
+	 * Gets the method with the given name and descriptor that is declared by the type.
+	 *
+	 * @param type
+	 *            The type.
+	 * @param name
+	 *            The method name.
+	 * @param descriptor
+	 *            The method descriptor.
+	 * @return The found method.
+	 * @throws NoSuchMethodException
+	 *             If the method is not found.
+	 */
+	public static Method getDeclaredMethod(Class<?> type, String name, String descriptor)
+			throws NoSuchMethodException {
+		ClassMetadata metadata = METADATA.get(type);
+		MemberLookupKey key = new MemberLookupKey(KIND_DECLARED_METHOD, null, name, descriptor);
+		Object result = metadata.members.get(key);
+		if (result == null) {
+			result = Utils.searchDeclaredMethodWithDescriptor(type, name, descriptor);
+			result = metadata.putMember(key, result);
+		}
+		if (result == NOT_FOUND) {
+			throw new NoSuchMethodException();
+		}
+		return (Method) result;
+	}
+
+	/**
+	 * Gets the constructor with the given descriptor that is declared by the type.
+	 *
+	 * @param type
+	 *            The type.
+	 * @param descriptor
+	 *            The method descriptor of the constructor.
+	 * @return The found constructor.
+	 * @throws NoSuchMethodException
+	 *             If the constructor is not found.
+	 */
+	public static Constructor<?> getConstructor(Class<?> type, String descriptor) throws NoSuchMethodException {
+		ClassMetadata metadata = METADATA.get(type);
+		MemberLookupKey key = new MemberLookupKey(KIND_CONSTRUCTOR, null, Utils.CONSTRUCTOR_METHOD_NAME,
+				descriptor);
+		Object result = metadata.members.get(key);
+		if (result == null) {
+			result = Utils.searchConstructorForMethodDescriptor(type, descriptor);
+			result = metadata.putMember(key, result);
+		}
+		if (result == NOT_FOUND) {
+			throw new NoSuchMethodException("Constructor not found on " + type + " and descriptor: " + descriptor);
+		}
+		return (Constructor<?>) result;
+	}
+
+	/**
+	 * Gets the field with the given name and descriptor that is declared by the type.
+	 *
+	 * @param type
+	 *            The type.
+	 * @param name
+	 *            The field name.
+	 * @param descriptor
+	 *            The field descriptor.
+	 * @return The found field.
+	 * @throws NoSuchFieldException
+	 *             If the field is not found.
+	 */
+	public static Field getField(Class<?> type, String name, String descriptor) throws NoSuchFieldException {
+		ClassMetadata metadata = METADATA.get(type);
+		MemberLookupKey key = new MemberLookupKey(KIND_FIELD, null, name, descriptor);
+		Object result = metadata.members.get(key);
+		if (result == null) {
+			result = Utils.searchFieldForDescriptor(type, name, descriptor);
+			result = metadata.putMember(key, result);
+		}
+		if (result == NOT_FOUND) {
+			throw new NoSuchFieldException(
+					"Field not found on " + type + " with name: " + name + " and descriptor: " + descriptor);
+		}
+		return (Field) result;
+	}
+
+	/**
+	 * Gets the invoker for the given method, constructor, or field.
+	 *
+	 * @param member
+	 *            The member.
+	 * @return The invoker.
+	 */
+	public static MemberInvoker getInvoker(Member member) {
+		ClassMetadata metadata = METADATA.get(member.getDeclaringClass());
+		MemberInvoker result = metadata.invokers.get(member);
+		if (result == null) {
+			result = MemberInvoker.create(member);
+			MemberInvoker prev = metadata.invokers.putIfAbsent(member, result);
+			if (prev != null) {
+				result = prev;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the internal names of the type, and all of its superclasses and superinterfaces.
+	 *
+	 * @param type
+	 *            The type.
+	 * @return The unmodifiable set of internal names.
+	 */
+	public static Set<String> getSuperTypeInternalNames(Class<?> type) {
+		ClassMetadata metadata = METADATA.get(type);
+		Set<String> result = metadata.superTypeInternalNames;
+		if (result == null) {
+			Set<String> names = new HashSet<>();
+			collectSuperTypeInternalNames(type, names);
+			result = Collections.unmodifiableSet(names);
+			metadata.superTypeInternalNames = result;
+		}
+		return result;
+	}
+
+	private static void collectSuperTypeInternalNames(Class<?> type, Set<String> result) {
+		for (Class<?> t = type; t != null; t = t.getSuperclass()) {
+			if (!result.add(Type.getInternalName(t))) {
+				//already visited through an other path
+				continue;
+			}
+			for (Class<?> itf : t.getInterfaces()) {
+				collectSuperTypeInternalNames(itf, result);
+			}
+		}
+	}
+
+	private static final class ClassMetadata {
+		protected final ConcurrentMap<MemberLookupKey, Object> members = new ConcurrentHashMap<>();
+		protected final ConcurrentMap<Member, MemberInvoker> invokers = new ConcurrentHashMap<>();
+		protected volatile Set<String> superTypeInternalNames;
+
+		/**
+		 * Puts the resolved member, or <code>null</code> if not found.
+		 * <p>
+		 * Returns the member that is associated with the key after the call, or {@link #NOT_FOUND}.
+		 */
+		public Object putMember(MemberLookupKey key, Object member) {
+			Object value = member == null ? NOT_FOUND : member;
+			Object prev = members.putIfAbsent(key, value);
+			return prev == null ? value : prev;
+		}
+	}
+
+	private static final class MemberLookupKey {
+		private final int kind;
+		private final String owner;
+		private final String name;
+		private final String descriptor;
+		private final int hashCode;
+
+		public MemberLookupKey(int kind, String owner, String name, String descriptor) {
+			this.kind = kind;
+			this.owner = owner;
+			this.name = name;
+			this.descriptor = descriptor;
+			this.hashCode = ((kind * 31 + Objects.hashCode(owner)) * 31 + name.hashCode()) * 31 + descriptor.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			MemberLookupKey other = (MemberLookupKey) obj;
+			return kind == other.kind && hashCode == other.hashCode && Objects.equals(owner, other.owner)
+					&& name.equals(other.name) && descriptor.equals(other.descriptor);
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package sipka.jvm.constexpr.tool;
+
+/**
+ * Listener interface for the statistics of the inliner tool runs.
+ * <p>
+ * Clients should implement this interface, and set it using
+ * {@link sipka.jvm.constexpr.tool.options.InlinerOptions#setStatisticsListener(StatisticsListener)
+ * InlinerOptions.setStatisticsListener}.
+ */
+public interface StatisticsListener {
+	/**
+	 * Reports the statistics of a finished inliner run.
+	 * 
+	 * @param statistics
+	 *            The statistics.
+	 */
+	public void statisticsReported(InlinerStatistics statistics);
+}
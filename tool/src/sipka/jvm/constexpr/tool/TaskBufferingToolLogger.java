@@ -0,0 +1,120 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import sipka.jvm.constexpr.tool.log.ConfigClassMemberInaccessibleLogEntry;
+import sipka.jvm.constexpr.tool.log.DeconstructionFailedLogEntry;
+import sipka.jvm.constexpr.tool.log.DeconstructorNotConfiguredLogEntry;
+import sipka.jvm.constexpr.tool.log.IndeterministicToStringLogEntry;
+import sipka.jvm.constexpr.tool.log.InstructionReplacementLogEntry;
+import sipka.jvm.constexpr.tool.log.LogEntry;
+import sipka.jvm.constexpr.tool.log.MultipleInitializationPathLogEntry;
+import sipka.jvm.constexpr.tool.log.ReconstructionFailureLogEntry;
+import sipka.jvm.constexpr.tool.log.TimeBudgetExceededLogEntry;
+import sipka.jvm.constexpr.tool.log.ToolLogger;
+
+/**
+ * {@link ToolLogger} that buffers the log entries of the tasks that are running concurrently.
+ * <p>
+ * The entries are recorded for the task that runs on the current thread, and are reported to the underlying logger
+ * when the buffer is {@linkplain #flush(List) flushed}. This ensures that the log entries are reported in a
+ * deterministic order, regardless of the execution order of the tasks.
+ * <p>
+ * If no task is running on the current thread, the entries are reported directly.
+ */
+final class TaskBufferingToolLogger implements ToolLogger {
+	private final ToolLogger logger;
+	private final ThreadLocal<List<Consumer<? super ToolLogger>>> taskEntries = new ThreadLocal<>();
+
+	public TaskBufferingToolLogger(ToolLogger logger) {
+		this.logger = logger;
+	}
+
+	public void startTask() {
+		taskEntries.set(new ArrayList<>());
+	}
+
+	public List<Consumer<? super ToolLogger>> finishTask() {
+		List<Consumer<? super ToolLogger>> result = taskEntries.get();
+		taskEntries.remove();
+		return result;
+	}
+
+	public synchronized void flush(List<Consumer<? super ToolLogger>> entries) {
+		for (Consumer<? super ToolLogger> entry : entries) {
+			entry.accept(logger);
+		}
+	}
+
+	@Override
+	public void log(ReconstructionFailureLogEntry logentry) {
+		record(l -> l.log(logentry));
+	}
+
+	@Override
+	public void log(InstructionReplacementLogEntry logentry) {
+		record(l -> l.log(logentry));
+	}
+
+	@Override
+	public void log(DeconstructorNotConfiguredLogEntry logentry) {
+		record(l -> l.log(logentry));
+	}
+
+	@Override
+	public void log(MultipleInitializationPathLogEntry logentry) {
+		record(l -> l.log(logentry));
+	}
+
+	@Override
+	public void log(DeconstructionFailedLogEntry logentry) {
+		record(l -> l.log(logentry));
+	}
+
+	@Override
+	public void log(ConfigClassMemberInaccessibleLogEntry logentry) {
+		record(l -> l.log(logentry));
+	}
+
+	@Override
+	public void log(IndeterministicToStringLogEntry logentry) {
+		record(l -> l.log(logentry));
+	}
+
+	@Override
+	public void log(TimeBudgetExceededLogEntry logentry) {
+		record(l -> l.log(logentry));
+	}
+
+	@Override
+	public void log(LogEntry entry) {
+		record(l -> l.log(entry));
+	}
+
+	@Override
+	public boolean isLoggable(Class<? extends LogEntry> entrytype) {
+		return logger.isLoggable(entrytype);
+	}
+
+	private void record(Consumer<? super ToolLogger> entry) {
+		List<Consumer<? super ToolLogger>> entries = taskEntries.get();
+		if (entries != null) {
+			entries.add(entry);
+			return;
+		}
+		synchronized (this) {
+			entry.accept(logger);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(getClass().getSimpleName());
+		builder.append("[logger=");
+		builder.append(logger);
+		builder.append("]");
+		return builder.toString();
+	}
+}
@@ -1,6 +1,11 @@
 package sipka.jvm.constexpr.tool;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.Optional;
@@ -16,12 +21,7 @@ import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.AbstractInsnNo
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.ClassNode;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldInsnNode;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldNode;
-import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.JumpInsnNode;
-import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.LabelNode;
-import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.LookupSwitchInsnNode;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
-import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.TableSwitchInsnNode;
-import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.TryCatchBlockNode;
 
 /**
  * A class that is being operated on.
@@ -31,6 +31,12 @@ class TransformedClass {
 		protected final FieldNode fieldNode;
 
 		protected Optional<?> calculatedConstantValue;
+		/**
+		 * Set to <code>true</code> if the value of the field was calculated and inlined from the static initializer.
+		 * <p>
+		 * The value of the field needs to be inlined to the classes that read it.
+		 */
+		protected boolean staticInitializerInlined;
 
 		public TransformedField(FieldNode fieldNode) {
 			this.fieldNode = fieldNode;
@@ -72,10 +78,48 @@ class TransformedClass {
 	protected transient NavigableMap<String, TransformedField> transformedFields = new TreeMap<>();
 
 	protected transient MethodNode clinitMethod;
-	protected transient NavigableSet<String> staticFieldReferences = new TreeSet<>();
-	protected transient Set<LabelNode> nonJumpTargetLabelNodes = new HashSet<>();
-
-	protected transient Set<AbstractInsnNode> inlinedInstructions = new HashSet<>();
+	/**
+	 * The static fields read by this class, mapped to the methods that read them with {@link Opcodes#GETSTATIC}.
+	 * <p>
+	 * The fields are in the order of their first read, and the methods are in the order they are declared in the
+	 * class.
+	 */
+	protected transient Map<FieldKey, List<MethodNode>> staticFieldReadingMethods = new LinkedHashMap<>();
+	/**
+	 * Internal names of the classes which have their static fields read by this class.
+	 */
+	protected transient NavigableSet<String> staticFieldReferenceOwners = new TreeSet<>();
+	/**
+	 * The instruction indexes of the methods in this class.
+	 */
+	protected transient Map<MethodNode, MethodInstructionIndex> methodInstructionIndexes = new HashMap<>();
+
+	/**
+	 * The methods that had instructions replaced since they were last processed.
+	 * <p>
+	 * Only these methods may have new inlining opportunities when the class is processed again.
+	 */
+	protected transient Set<MethodNode> dirtyMethods = new HashSet<>();
+
+	/**
+	 * Set to <code>true</code> if the class was modified in any way by the inliner.
+	 * <p>
+	 * The output of unmodified classes is not reported.
+	 */
+	protected transient boolean modified;
+	/**
+	 * The methods which instructions or annotations were modified.
+	 * <p>
+	 * The other methods are copied verbatim from the input class file when the output is written.
+	 */
+	protected transient Set<MethodNode> modifiedMethods = new HashSet<>();
+
+	/**
+	 * The dependencies of the currently running value deconstruction in this class, or <code>null</code> if none.
+	 * <p>
+	 * Used to determine whether the deconstruction result can be reused for other deconstruction sites.
+	 */
+	protected transient DeconstructionTemplateCache.Recording deconstructionRecording;
 
 	public TransformedClass(ToolInput<?> input, ClassReader classReader, ClassNode classNode) {
 		this.input = input;
@@ -86,16 +130,15 @@ class TransformedClass {
 			for (AbstractInsnNode ins : mn.instructions) {
 				if (ins.getOpcode() == Opcodes.GETSTATIC) {
 					FieldInsnNode fins = (FieldInsnNode) ins;
-					staticFieldReferences.add(fins.desc + " " + fins.owner + "." + fins.name);
-				} else {
-					if (ins.getType() == AbstractInsnNode.LABEL) {
-						LabelNode lins = (LabelNode) ins;
-						if (!isLabelNodeReferencedByJump(mn, lins)) {
-							nonJumpTargetLabelNodes.add(lins);
-						}
+					List<MethodNode> readingmethods = staticFieldReadingMethods.computeIfAbsent(new FieldKey(fins),
+							k -> new ArrayList<>(1));
+					if (readingmethods.isEmpty() || readingmethods.get(readingmethods.size() - 1) != mn) {
+						readingmethods.add(mn);
 					}
+					staticFieldReferenceOwners.add(fins.owner);
 				}
 			}
+			methodInstructionIndexes.put(mn, new MethodInstructionIndex(mn));
 			if (Utils.STATIC_INITIALIZER_METHOD_NAME.equals(mn.name)) {
 				if (clinitMethod != null) {
 					throw new IllegalArgumentException("Multiple <clinit> methods in class: " + classNode.name);
@@ -114,49 +157,40 @@ class TransformedClass {
 		}
 	}
 
+	/**
+	 * Marks the given method of this class as modified.
+	 * 
+	 * @param mn
+	 *            The method.
+	 */
+	public void markMethodModified(MethodNode mn) {
+		modifiedMethods.add(mn);
+		modified = true;
+	}
+
 	public TransformedField getTransformedField(String desc, String name) {
 		return transformedFields.get(desc + " " + name);
 	}
 
-	public boolean isReferencesStaticField(ClassNode cn, FieldNode fn) {
-		return staticFieldReferences.contains(fn.desc + " " + cn.name + "." + fn.name);
+	/**
+	 * Gets the methods that read the given static field.
+	 * 
+	 * @param fieldkey
+	 *            The field.
+	 * @return The methods, or <code>null</code> if the field is not read by this class.
+	 */
+	public List<MethodNode> getStaticFieldReadingMethods(FieldKey fieldkey) {
+		return staticFieldReadingMethods.get(fieldkey);
 	}
 
-	private static boolean isLabelNodeReferencedByJump(MethodNode mn, LabelNode ln) {
-		for (AbstractInsnNode ins : mn.instructions) {
-			switch (ins.getType()) {
-				case AbstractInsnNode.JUMP_INSN: {
-					JumpInsnNode jins = (JumpInsnNode) ins;
-					if (ln.equals(jins.label)) {
-						return true;
-					}
-					break;
-				}
-				case AbstractInsnNode.LOOKUPSWITCH_INSN: {
-					LookupSwitchInsnNode lsins = (LookupSwitchInsnNode) ins;
-					if (lsins.labels.contains(ln)) {
-						return true;
-					}
-					break;
-				}
-				case AbstractInsnNode.TABLESWITCH_INSN: {
-					TableSwitchInsnNode tsins = (TableSwitchInsnNode) ins;
-					if (tsins.labels.contains(ln)) {
-						return true;
-					}
-					break;
-				}
-				default: {
-					break;
-				}
-			}
-		}
-		for (TryCatchBlockNode tcbnode : mn.tryCatchBlocks) {
-			//only the handler needs to be checked, as that is where the code jumps in case of exception
-			if (ln.equals(tcbnode.handler)) {
-				return true;
-			}
-		}
-		return false;
+	/**
+	 * Gets the instruction index of the given method.
+	 * 
+	 * @param mn
+	 *            The method.
+	 * @return The index.
+	 */
+	public MethodInstructionIndex getMethodInstructionIndex(MethodNode mn) {
+		return methodInstructionIndexes.get(mn);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package sipka.jvm.constexpr.tool;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.AnnotationVisitor;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassReader;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassVisitor;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.ClassWriter;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.FieldVisitor;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.MethodVisitor;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.RecordComponentVisitor;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.TypePath;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.FieldNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.MethodNode;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.tree.RecordComponentNode;
+
+/**
+ * Class visitor that writes the output of a modified {@link TransformedClass}.
+ * <p>
+ * The visitor is driven by the {@link ClassReader} of the input class. The fields, record components, and modified
+ * methods are written from the tree model of the class. The unmodified methods are passed directly to the
+ * {@link ClassWriter}, so their contents are copied verbatim from the input class file, without decoding and
+ * re-encoding the instructions and stack map frames.
+ */
+class TransformedClassVisitor extends ClassVisitor {
+	private final TransformedClass transformedClass;
+	private final Set<String> stripAnnotations;
+
+	private final Map<String, MethodNode> methods = new HashMap<>();
+	private final Map<String, FieldNode> fields = new HashMap<>();
+	private final Map<String, RecordComponentNode> recordComponents = new HashMap<>();
+
+	private TransformedClassVisitor(ClassWriter cw, TransformedClass transformedClass, Set<String> stripAnnotations) {
+		super(ConstantExpressionInliner.ASM_API, cw);
+		this.transformedClass = transformedClass;
+		this.stripAnnotations = stripAnnotations;
+		for (MethodNode mn : transformedClass.classNode.methods) {
+			methods.put(mn.name + mn.desc, mn);
+		}
+		for (FieldNode fn : transformedClass.classNode.fields) {
+			fields.put(fn.name + " " + fn.desc, fn);
+		}
+		if (transformedClass.classNode.recordComponents != null) {
+			for (RecordComponentNode rcn : transformedClass.classNode.recordComponents) {
+				recordComponents.put(rcn.name + " " + rcn.descriptor, rcn);
+			}
+		}
+	}
+
+	/**
+	 * Writes the output bytes of the given class.
+	 *
+	 * @param transclass
+	 *            The class.
+	 * @param stripannotations
+	 *            The internal names of the annotations that are stripped.
+	 * @return The class file bytes.
+	 */
+	public static byte[] write(TransformedClass transclass, Set<String> stripannotations) {
+		ClassReader cr = transclass.classReader;
+		ClassWriter cw = new ClassWriter(cr, 0);
+		cr.accept(new TransformedClassVisitor(cw, transclass, stripannotations), 0);
+		return cw.toByteArray();
+	}
+
+	@Override
+	public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+		if (isStrippedAnnotation(descriptor)) {
+			return null;
+		}
+		return super.visitAnnotation(descriptor, visible);
+	}
+
+	@Override
+	public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor,
+			boolean visible) {
+		if (isStrippedAnnotation(descriptor)) {
+			return null;
+		}
+		return super.visitTypeAnnotation(typeRef, typePath, descriptor, visible);
+	}
+
+	@Override
+	public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+		RecordComponentNode rcn = recordComponents.remove(name + " " + descriptor);
+		if (rcn != null) {
+			rcn.accept(cv);
+		}
+		return null;
+	}
+
+	@Override
+	public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+		//the fields are always written from the tree model, as their constant values and annotations may be modified
+		FieldNode fn = fields.remove(name + " " + descriptor);
+		if (fn != null) {
+			fn.accept(cv);
+		}
+		return null;
+	}
+
+	@Override
+	public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+			String[] exceptions) {
+		MethodNode mn = methods.remove(name + descriptor);
+		if (mn == null) {
+			//the method was removed
+			return null;
+		}
+		if (transformedClass.modifiedMethods.contains(mn)) {
+			mn.accept(cv);
+			return null;
+		}
+		//return the method writer directly, so the class reader copies the method contents as is
+		return super.visitMethod(access, name, descriptor, signature, exceptions);
+	}
+
+	private boolean isStrippedAnnotation(String descriptor) {
+		return stripAnnotations.contains(Type.getType(descriptor).getInternalName());
+	}
+}
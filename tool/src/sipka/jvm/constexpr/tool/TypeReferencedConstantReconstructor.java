@@ -27,6 +27,42 @@ class TypeReferencedConstantReconstructor implements ConstantReconstructor {
 		this.types = EMPTY_CLASS_ARRAY;
 	}
 
+	/**
+	 * Gets the reconstructor that this instance delegates to.
+	 * 
+	 * @return The delegate reconstructor. May be <code>null</code> if it is not available.
+	 */
+	public ConstantReconstructor getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Gets the referenced types.
+	 * <p>
+	 * The returned array shouldn't be modified.
+	 * 
+	 * @return The types.
+	 */
+	public Class<?>[] getTypes() {
+		return types;
+	}
+
+	/**
+	 * Checks if this reconstructor may be used as a general instance method reconstructor.
+	 * <p>
+	 * Those are instance method reconstructors, that may be used for any receiver type, not only the declaring type.
+	 * <p>
+	 * The lazily resolved reconstructors may return <code>true</code> without being an instance method
+	 * reconstructor, so {@link #getDelegate()} should be checked when the reconstructor is used.
+	 * 
+	 * @return <code>true</code> if this may be an instance method reconstructor.
+	 */
+	public boolean isInstanceMethodCandidate() {
+		ConstantReconstructor delegate = getDelegate();
+		return delegate instanceof MethodBasedConstantReconstructor
+				&& !((MethodBasedConstantReconstructor) delegate).isStaticMethod();
+	}
+
 	@Override
 	public AsmStackReconstructedValue reconstructValue(ReconstructionContext context, AbstractInsnNode ins)
 			throws ReconstructionException {
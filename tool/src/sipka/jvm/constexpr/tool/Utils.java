@@ -3,6 +3,7 @@ package sipka.jvm.constexpr.tool;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -15,6 +16,8 @@ import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -24,6 +27,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 
 import sipka.jvm.constexpr.tool.log.BytecodeLocation;
@@ -56,6 +61,8 @@ public class Utils {
 	public static final String JAVA_LANG_STRING_INTERNAL_NAME = Type.getInternalName(String.class);
 	public static final String JAVA_LANG_OBJECT_INTERNAL_NAME = Type.getInternalName(Object.class);
 
+	private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
 	private static final Map<String, Class<?>> PRIMITIVE_BOX_TYPE_INTERNAL_NAMES_TO_PRIMITIVE_CLASSES = new TreeMap<>();
 	static {
 		PRIMITIVE_BOX_TYPE_INTERNAL_NAMES_TO_PRIMITIVE_CLASSES.put(Type.getInternalName(Void.class), void.class);
@@ -84,6 +91,16 @@ public class Utils {
 		BOX_CLASSES.addAll(PRIMITIVE_BOX_TYPE_INTERNAL_NAMES_TO_BOX_CLASSES.values());
 	}
 
+	/**
+	 * The array types of the component classes, computed without allocating an array instance for each query.
+	 */
+	private static final ClassValue<Class<?>> ARRAY_TYPES = new ClassValue<Class<?>>() {
+		@Override
+		protected Class<?> computeValue(Class<?> type) {
+			return Array.newInstance(type, 0).getClass();
+		}
+	};
+
 	private static final Map<Type, Class<?>> TYPES_TO_CLASSES = new HashMap<>();
 	static {
 		TYPES_TO_CLASSES.put(Type.getType(void.class), void.class);
@@ -332,11 +349,24 @@ public class Utils {
 			if (elemclass == null) {
 				return null;
 			}
-			return Array.newInstance(elemclass, 0).getClass();
+			return getArrayType(elemclass);
 		}
 		return TYPES_TO_CLASSES.get(type);
 	}
 
+	/**
+	 * Gets the array type that has the argument component type.
+	 * 
+	 * @param componenttype
+	 *            The component type.
+	 * @return The array type.
+	 * @throws IllegalArgumentException
+	 *             If the component type is {@link Void#TYPE void}.
+	 */
+	public static Class<?> getArrayType(Class<?> componenttype) throws IllegalArgumentException {
+		return ARRAY_TYPES.get(componenttype);
+	}
+
 	/**
 	 * Gets the primitive class (like <code>int.class</code>) for the argument internal name of a boxing type (like
 	 * {@link Integer}).
@@ -797,6 +827,10 @@ public class Utils {
 
 	public static Field getFieldForDescriptor(Class<?> type, String name, String descriptor)
 			throws NoSuchFieldException {
+		return ReflectionMetadataCache.getField(type, name, descriptor);
+	}
+
+	static Field searchFieldForDescriptor(Class<?> type, String name, String descriptor) {
 		for (Field f : type.getDeclaredFields()) {
 			if (!f.getName().equals(name)) {
 				continue;
@@ -806,8 +840,7 @@ public class Utils {
 				return f;
 			}
 		}
-		throw new NoSuchFieldException(
-				"Field not found on " + type + " with name: " + name + " and descriptor: " + descriptor);
+		return null;
 	}
 
 	public static Collection<Field> matchFieldsForDescriptor(Class<?> type, String namematch, String descriptormatch) {
@@ -942,18 +975,24 @@ public class Utils {
 
 	public static Method getMethodForMethodDescriptor(Class<?> type, String owner, String descriptor, String name)
 			throws NoSuchMethodException {
+		return ReflectionMetadataCache.getMethod(type, owner, descriptor, name);
+	}
+
+	static Method searchMethodForMethodDescriptor(Class<?> type, String owner, String descriptor, String name) {
 		Type[] asmparamtypes = Type.getArgumentTypes(descriptor);
 		Method m = searchMethodForMethodDescriptor(type, asmparamtypes, owner, descriptor, name, owner == null);
 		if (m != null) {
 			m.setAccessible(true);
-			return m;
 		}
-		throw new NoSuchMethodException(
-				"Method not found on " + type + " with name: " + name + " and descriptor: " + descriptor);
+		return m;
 	}
 
 	public static Method getDeclaredMethodWithDescriptor(Class<?> type, String name, String descriptor)
 			throws NoSuchMethodException {
+		return ReflectionMetadataCache.getDeclaredMethod(type, name, descriptor);
+	}
+
+	static Method searchDeclaredMethodWithDescriptor(Class<?> type, String name, String descriptor) {
 		Type[] argasqmtypes = Type.getArgumentTypes(descriptor);
 		for (Method m : type.getDeclaredMethods()) {
 			if (!isMethodMatchesNameAndDescriptor(m, descriptor, name, argasqmtypes)) {
@@ -962,7 +1001,7 @@ public class Utils {
 			m.setAccessible(true);
 			return m;
 		}
-		throw new NoSuchMethodException();
+		return null;
 	}
 
 	private static Method searchMethodForMethodDescriptor(Class<?> type, Type[] asmparamtypes, String owner,
@@ -1048,15 +1087,7 @@ public class Utils {
 		if (type == null) {
 			return false;
 		}
-		if (Type.getInternalName(type).equals(searchtype)) {
-			return true;
-		}
-		for (Class<?> itf : type.getInterfaces()) {
-			if (hasSuperTypeInternalName(itf, searchtype)) {
-				return true;
-			}
-		}
-		return hasSuperTypeInternalName(type.getSuperclass(), searchtype);
+		return ReflectionMetadataCache.getSuperTypeInternalNames(type).contains(searchtype);
 	}
 
 	private static boolean isMethodMatchesNameAndDescriptor(Method m, String descriptor, String name,
@@ -1091,6 +1122,10 @@ public class Utils {
 
 	public static Constructor<?> getConstructorForMethodDescriptor(Class<?> type, String descriptor)
 			throws NoSuchMethodException {
+		return ReflectionMetadataCache.getConstructor(type, descriptor);
+	}
+
+	static Constructor<?> searchConstructorForMethodDescriptor(Class<?> type, String descriptor) {
 		Type[] asmparamtypes = Type.getArgumentTypes(descriptor);
 		for (Constructor<?> constructor : type.getDeclaredConstructors()) {
 			Class<?>[] paramtypes = constructor.getParameterTypes();
@@ -1100,7 +1135,7 @@ public class Utils {
 			constructor.setAccessible(true);
 			return constructor;
 		}
-		throw new NoSuchMethodException("Constructor not found on " + type + " and descriptor: " + descriptor);
+		return null;
 	}
 
 	public static boolean isInlineableConstantType(Type fieldtype) {
@@ -1228,6 +1263,67 @@ public class Utils {
 		}
 	}
 
+	/**
+	 * Gets the result of a completed future, unwrapping the cause of the execution failure.
+	 * 
+	 * @param future
+	 *            The future.
+	 * @return The result of the future.
+	 * @throws IOException
+	 *             If the computation threw an {@link IOException}, or the waiting was interrupted.
+	 */
+	public static <T> T getFutureResult(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw (IOException) new InterruptedIOException("Interrupted while waiting for result.").initCause(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Creates a new SHA-256 {@link MessageDigest}.
+	 * 
+	 * @return The message digest.
+	 */
+	public static MessageDigest createSha256MessageDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			//every Java platform is required to support SHA-256
+			throw new RuntimeException("SHA-256 message digest is not available.", e);
+		}
+	}
+
+	/**
+	 * Converts the argument bytes to a lowercase hexadecimal string.
+	 * 
+	 * @param bytes
+	 *            The bytes.
+	 * @return The hexadecimal representation.
+	 */
+	public static String toHexString(byte[] bytes) {
+		char[] result = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			int b = bytes[i] & 0xFF;
+			result[i * 2] = HEX_CHARS[b >>> 4];
+			result[i * 2 + 1] = HEX_CHARS[b & 0x0F];
+		}
+		return new String(result);
+	}
+
 	public static void addToInternalNameMap(Map<String, Class<?>> map, Class<?> type) {
 		map.put(Type.getInternalName(type), type);
 	}
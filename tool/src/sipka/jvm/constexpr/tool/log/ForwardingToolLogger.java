@@ -42,11 +42,21 @@ public class ForwardingToolLogger implements ToolLogger {
 		logger.log(logentry);
 	}
 
+	@Override
+	public void log(TimeBudgetExceededLogEntry logentry) {
+		logger.log(logentry);
+	}
+
 	@Override
 	public void log(LogEntry entry) {
 		logger.log(entry);
 	}
 
+	@Override
+	public boolean isLoggable(Class<? extends LogEntry> entrytype) {
+		return logger.isLoggable(entrytype);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder(getClass().getSimpleName());
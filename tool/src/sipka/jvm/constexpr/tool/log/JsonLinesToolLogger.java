@@ -0,0 +1,450 @@
+package sipka.jvm.constexpr.tool.log;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import sipka.jvm.constexpr.tool.AsmStackInfo;
+import sipka.jvm.constexpr.tool.Utils;
+
+/**
+ * {@link ToolLogger} that writes the log entries in the <a href="https://jsonlines.org/">JSON Lines</a> format.
+ * <p>
+ * Each log entry is written as a single line containing a JSON object with the following fields:
+ * <ul>
+ * <li><code>seq</code>: The sequence number of the entry in the log, starting from 1.</li>
+ * <li><code>kind</code>: The kind of the entry, e.g. <code>instruction-replacement</code> or
+ * <code>reconstruction-failure</code>.</li>
+ * <li><code>id</code>: A hash of the kind and the subject of the entry, e.g. the location and the replaced instructions.
+ * It doesn't include the message or the line numbers, so the entries about the same subject have the same id in
+ * different runs.</li>
+ * <li><code>location</code>: The bytecode location of the entry, if any.</li>
+ * <li>The kind specific fields, like the values and the failure contexts.</li>
+ * <li><code>message</code>: The human readable message of the entry.</li>
+ * </ul>
+ * The entries are formatted and written by a background thread, so logging doesn't block the caller while the output is
+ * being written. The output is flushed whenever there are no more entries waiting to be written.
+ * <p>
+ * The logger must be {@linkplain #close() closed} to ensure that all entries are written. Closing the logger closes the
+ * output stream.
+ */
+public final class JsonLinesToolLogger implements ToolLogger, Closeable {
+	private static final int QUEUE_CAPACITY = 1024;
+	/**
+	 * Marker for the writer thread to finish.
+	 */
+	private static final LogEntry END_OF_LOG = () -> null;
+
+	private final Writer writer;
+	private final BlockingQueue<LogEntry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final Thread writerThread;
+
+	private volatile boolean closed;
+	/**
+	 * The exception that occurred during writing. Only accessed by the writer thread, and after it is joined.
+	 */
+	private IOException writeException;
+	private long sequence;
+
+	/**
+	 * Creates a new instance and starts the writer thread.
+	 *
+	 * @param out
+	 *            The output stream to write the log to.
+	 * @throws NullPointerException
+	 *             If the output stream is <code>null</code>.
+	 */
+	public JsonLinesToolLogger(OutputStream out) throws NullPointerException {
+		Objects.requireNonNull(out, "out");
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		this.writerThread = new Thread(this::writeEntries, "jvm-constexpr-log-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The entry is written asynchronously. If the writer thread falls behind, this method waits until there's space
+	 * for the entry.
+	 *
+	 * @throws IllegalStateException
+	 *             If the logger is closed.
+	 */
+	@Override
+	public void log(LogEntry entry) throws IllegalStateException {
+		Objects.requireNonNull(entry, "entry");
+		if (closed) {
+			throw new IllegalStateException("Logger is closed.");
+		}
+		putUninterruptibly(entry);
+	}
+
+	/**
+	 * Waits for the logged entries to be written, and closes the output.
+	 *
+	 * @throws IOException
+	 *             If writing the log failed.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		putUninterruptibly(END_OF_LOG);
+		boolean interrupted = false;
+		while (true) {
+			try {
+				writerThread.join();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (writeException != null) {
+			throw writeException;
+		}
+	}
+
+	private void putUninterruptibly(LogEntry entry) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				queue.put(entry);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void writeEntries() {
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			LogEntry entry;
+			try {
+				entry = queue.take();
+			} catch (InterruptedException e) {
+				//nobody interrupts the writer thread, continue until the end of the log
+				continue;
+			}
+			if (entry == END_OF_LOG) {
+				break;
+			}
+			if (writeException != null) {
+				//keep draining the queue so the loggers don't block
+				continue;
+			}
+			try {
+				sb.setLength(0);
+				appendEntry(sb, entry, ++sequence);
+				sb.append('\n');
+				writer.write(sb.toString());
+				if (queue.isEmpty()) {
+					writer.flush();
+				}
+			} catch (IOException e) {
+				writeException = e;
+			}
+		}
+		try {
+			writer.close();
+		} catch (IOException e) {
+			if (writeException == null) {
+				writeException = e;
+			} else {
+				writeException.addSuppressed(e);
+			}
+		}
+	}
+
+	private static void appendEntry(StringBuilder sb, LogEntry entry, long seq) {
+		String kind;
+		String subject;
+
+		sb.append("{\"seq\":");
+		sb.append(seq);
+		//the kind and id are inserted after the kind specific fields are appended
+		int fieldsstart = sb.length();
+		if (entry instanceof InstructionReplacementLogEntry) {
+			InstructionReplacementLogEntry e = (InstructionReplacementLogEntry) entry;
+			kind = "instruction-replacement";
+			BytecodeLocation location = e.getBytecodeLocation();
+			subject = getLocationSubject(location) + "\t" + e.getReplacedInfo();
+			appendLocationField(sb, location);
+			sb.append(",\"replaced\":");
+			appendString(sb, formatStackInfo(e.getReplacedInfo()));
+			sb.append(",\"replacement\":");
+			appendString(sb, formatStackInfo(e.getReplacementInfo()));
+			sb.append(",\"value\":");
+			appendValue(sb, e.getReplacementValue());
+		} else if (entry instanceof ReconstructionFailureLogEntry) {
+			ReconstructionFailureLogEntry e = (ReconstructionFailureLogEntry) entry;
+			kind = "reconstruction-failure";
+			List<LogContextInfo> contextstack = e.getContextStack();
+			LogContextInfo innermost = contextstack.get(contextstack.size() - 1);
+			BytecodeLocation location = innermost.getBytecodeLocation();
+			subject = getLocationSubject(location) + "\t" + innermost.getClass().getName();
+			appendLocationField(sb, location);
+			//from the innermost to the outermost, in the same order as the message
+			sb.append(",\"context\":[");
+			for (ListIterator<LogContextInfo> it = contextstack.listIterator(contextstack.size()); it.hasPrevious();) {
+				LogContextInfo info = it.previous();
+				sb.append("{\"message\":");
+				appendString(sb, info.getMessage());
+				appendLocationField(sb, info.getBytecodeLocation());
+				sb.append('}');
+				if (it.hasPrevious()) {
+					sb.append(',');
+				}
+			}
+			sb.append(']');
+			sb.append(",\"rootCause\":");
+			appendThrowable(sb, e.getRootCause());
+		} else if (entry instanceof DeconstructorNotConfiguredLogEntry) {
+			DeconstructorNotConfiguredLogEntry e = (DeconstructorNotConfiguredLogEntry) entry;
+			kind = "deconstructor-not-configured";
+			subject = e.getClassInternalName();
+			sb.append(",\"class\":");
+			appendString(sb, e.getClassInternalName());
+		} else if (entry instanceof MultipleInitializationPathLogEntry) {
+			MultipleInitializationPathLogEntry e = (MultipleInitializationPathLogEntry) entry;
+			kind = "multiple-initialization-path";
+			subject = e.getClassInternalName() + "\t" + e.getFieldName() + "\t" + e.getFieldDescriptor();
+			sb.append(",\"class\":");
+			appendString(sb, e.getClassInternalName());
+			sb.append(",\"field\":");
+			appendString(sb, e.getFieldName());
+			sb.append(",\"descriptor\":");
+			appendString(sb, e.getFieldDescriptor());
+		} else if (entry instanceof DeconstructionFailedLogEntry) {
+			DeconstructionFailedLogEntry e = (DeconstructionFailedLogEntry) entry;
+			kind = "deconstruction-failed";
+			Object obj = e.getObject();
+			subject = obj == null ? "null" : obj.getClass().getName();
+			sb.append(",\"value\":");
+			appendValue(sb, obj);
+			sb.append(",\"cause\":");
+			appendThrowable(sb, e.getCause());
+		} else if (entry instanceof ConfigClassMemberInaccessibleLogEntry) {
+			ConfigClassMemberInaccessibleLogEntry e = (ConfigClassMemberInaccessibleLogEntry) entry;
+			kind = "config-member-inaccessible";
+			subject = e.getClassName() + "\t" + e.getMemberName() + "\t" + e.getMemberDescriptor();
+			sb.append(",\"class\":");
+			appendString(sb, e.getClassName());
+			sb.append(",\"member\":");
+			appendString(sb, e.getMemberName());
+			sb.append(",\"descriptor\":");
+			appendString(sb, e.getMemberDescriptor());
+			sb.append(",\"cause\":");
+			appendThrowable(sb, e.getException());
+		} else if (entry instanceof IndeterministicToStringLogEntry) {
+			IndeterministicToStringLogEntry e = (IndeterministicToStringLogEntry) entry;
+			kind = "indeterministic-tostring";
+			subject = e.getClassInternalName();
+			sb.append(",\"class\":");
+			appendString(sb, e.getClassInternalName());
+		} else if (entry instanceof TimeBudgetExceededLogEntry) {
+			TimeBudgetExceededLogEntry e = (TimeBudgetExceededLogEntry) entry;
+			kind = "time-budget-exceeded";
+			subject = "";
+			sb.append(",\"timeBudget\":");
+			sb.append(e.getTimeBudget());
+			sb.append(",\"skippedClasses\":[");
+			boolean first = true;
+			for (String cname : e.getSkippedClassInternalNames()) {
+				if (!first) {
+					sb.append(',');
+				}
+				first = false;
+				appendString(sb, cname);
+			}
+			sb.append(']');
+		} else if (entry instanceof MessageLogEntry) {
+			kind = "message";
+			subject = entry.getMessage();
+		} else {
+			kind = entry.getClass().getName();
+			subject = entry.getMessage();
+		}
+		sb.append(",\"message\":");
+		appendString(sb, entry.getMessage());
+		sb.append('}');
+
+		StringBuilder header = new StringBuilder();
+		header.append(",\"kind\":");
+		appendString(header, kind);
+		header.append(",\"id\":\"");
+		header.append(getId(kind, subject));
+		header.append('"');
+		sb.insert(fieldsstart, header);
+	}
+
+	private static String getLocationSubject(BytecodeLocation location) {
+		if (location == null) {
+			return "";
+		}
+		//the line number is not part of the subject, as it changes when unrelated code is modified
+		return location.getClassName() + "\t" + location.getMemberName() + "\t" + location.getMemberDescriptor();
+	}
+
+	/**
+	 * Computes the 64 bit FNV-1a hash of the kind and subject.
+	 */
+	private static String getId(String kind, String subject) {
+		long hash = 0xcbf29ce484222325L;
+		hash = fnv1a(hash, kind);
+		hash = fnv1a(hash, "\0");
+		hash = fnv1a(hash, subject);
+		String hex = Long.toHexString(hash);
+		if (hex.length() < 16) {
+			char[] zeros = new char[16 - hex.length()];
+			Arrays.fill(zeros, '0');
+			return new String(zeros) + hex;
+		}
+		return hex;
+	}
+
+	private static long fnv1a(long hash, String s) {
+		for (int i = 0; i < s.length(); i++) {
+			hash ^= s.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	private static String formatStackInfo(AsmStackInfo info) {
+		if (info == null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		Utils.appendAsmStackInfo(sb, info, "");
+		return sb.toString();
+	}
+
+	private static void appendLocationField(StringBuilder sb, BytecodeLocation location) {
+		if (location == null) {
+			return;
+		}
+		sb.append(",\"location\":{\"class\":");
+		appendString(sb, location.getClassName());
+		sb.append(",\"member\":");
+		appendString(sb, location.getMemberName());
+		sb.append(",\"descriptor\":");
+		appendString(sb, location.getMemberDescriptor());
+		if (location.getLine() >= 0) {
+			sb.append(",\"line\":");
+			sb.append(location.getLine());
+		}
+		sb.append('}');
+	}
+
+	private static void appendThrowable(StringBuilder sb, Throwable t) {
+		if (t == null) {
+			sb.append("null");
+			return;
+		}
+		sb.append("{\"type\":");
+		appendString(sb, t.getClass().getName());
+		sb.append(",\"message\":");
+		appendString(sb, t.getMessage());
+		sb.append('}');
+	}
+
+	private static void appendValue(StringBuilder sb, Object value) {
+		if (value == null) {
+			sb.append("null");
+			return;
+		}
+		if (value instanceof Boolean || value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte) {
+			sb.append(value);
+			return;
+		}
+		if (value instanceof Float || value instanceof Double) {
+			double d = ((Number) value).doubleValue();
+			if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+				sb.append(value);
+				return;
+			}
+		} else if (value instanceof String) {
+			appendString(sb, (String) value);
+			return;
+		}
+		//not directly representable in JSON
+		String str;
+		try {
+			if (value instanceof Object[]) {
+				str = Arrays.deepToString((Object[]) value);
+			} else if (value.getClass().isArray()) {
+				str = Arrays.deepToString(new Object[] { value });
+				str = str.substring(1, str.length() - 1);
+			} else {
+				str = value.toString();
+			}
+		} catch (RuntimeException e) {
+			str = null;
+		}
+		sb.append("{\"type\":");
+		appendString(sb, value.getClass().getName());
+		sb.append(",\"string\":");
+		appendString(sb, str);
+		sb.append('}');
+	}
+
+	private static void appendString(StringBuilder sb, String s) {
+		if (s == null) {
+			sb.append("null");
+			return;
+		}
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default: {
+					if (c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+					break;
+				}
+			}
+		}
+		sb.append('"');
+	}
+}
@@ -19,6 +19,14 @@ public final class MultipleInitializationPathLogEntry implements LogEntry {
 		return classInternalName;
 	}
 
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	public String getFieldDescriptor() {
+		return fieldDescriptor;
+	}
+
 	@Override
 	public String getMessage() {
 		StringBuilder sb = new StringBuilder();
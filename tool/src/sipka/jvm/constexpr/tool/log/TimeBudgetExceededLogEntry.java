@@ -0,0 +1,84 @@
+package sipka.jvm.constexpr.tool.log;
+
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import sipka.jvm.constexpr.tool.options.InlinerOptions;
+
+/**
+ * Log entry reported when the {@linkplain InlinerOptions#setTimeBudget(long) time budget} of the inliner was exceeded,
+ * and some classes were not optimized, or only partially.
+ * <p>
+ * The changes made to the classes before the budget ran out are kept.
+ */
+public final class TimeBudgetExceededLogEntry implements LogEntry {
+	private final long timeBudget;
+	private final NavigableSet<String> skippedClassInternalNames;
+
+	public TimeBudgetExceededLogEntry(long timeBudget, NavigableSet<String> skippedClassInternalNames) {
+		this.timeBudget = timeBudget;
+		this.skippedClassInternalNames = Collections.unmodifiableNavigableSet(new TreeSet<>(skippedClassInternalNames));
+	}
+
+	/**
+	 * Gets the time budget of the inliner.
+	 * 
+	 * @return The time budget in milliseconds.
+	 */
+	public long getTimeBudget() {
+		return timeBudget;
+	}
+
+	/**
+	 * Gets the internal names of the classes that were not, or only partially optimized.
+	 * 
+	 * @return The class internal names.
+	 */
+	public NavigableSet<String> getSkippedClassInternalNames() {
+		return skippedClassInternalNames;
+	}
+
+	@Override
+	public String getMessage() {
+		return "Optimization time budget of " + timeBudget + " ms exceeded, " + skippedClassInternalNames.size()
+				+ " classes were not fully optimized.";
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + skippedClassInternalNames.hashCode();
+		result = prime * result + Long.hashCode(timeBudget);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		TimeBudgetExceededLogEntry other = (TimeBudgetExceededLogEntry) obj;
+		if (timeBudget != other.timeBudget)
+			return false;
+		if (!skippedClassInternalNames.equals(other.skippedClassInternalNames))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(getClass().getSimpleName());
+		builder.append("[timeBudget=");
+		builder.append(timeBudget);
+		builder.append(", skippedClassInternalNames=");
+		builder.append(skippedClassInternalNames);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
@@ -29,5 +29,22 @@ public interface ToolLogger {
 		this.log((LogEntry) logentry);
 	}
 
+	public default void log(TimeBudgetExceededLogEntry logentry) {
+		this.log((LogEntry) logentry);
+	}
+
 	public void log(LogEntry entry);
+
+	/**
+	 * Checks if the logger wants to receive the log entries of the given type.
+	 * <p>
+	 * The inliner doesn't create the log entries that are not loggable, so they don't consume any resources.
+	 *
+	 * @param entrytype
+	 *            The type of the log entry.
+	 * @return <code>true</code> if the entries of the given type should be logged.
+	 */
+	public default boolean isLoggable(Class<? extends LogEntry> entrytype) {
+		return true;
+	}
 }
@@ -17,6 +17,17 @@ public interface DeconstructionContext {
 	 */
 	public MemberReference getOptimizedMethod();
 
+	/**
+	 * Checks if the currently optimized method is a static initializer.
+	 * <p>
+	 * Selectors that only need to know whether they're being called for a static initializer should use this method
+	 * instead of {@link #getOptimizedMethod()}, as that allows the deconstruction results to be reused in other
+	 * methods.
+	 * 
+	 * @return <code>true</code> if the deconstruction is taking place in a static initializer.
+	 */
+	public boolean isOptimizingStaticInitializer();
+
 	/**
 	 * Reports a log entry about an issue where a class or one of its member wasn't accessible for some reason.
 	 * <p>
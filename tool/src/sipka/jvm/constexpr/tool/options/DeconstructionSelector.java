@@ -28,6 +28,20 @@ public interface DeconstructionSelector {
 	public DeconstructorConfiguration chooseDeconstructorConfiguration(DeconstructionContext deconstructioncontext,
 			Object value);
 
+	/**
+	 * Gets a string that identifies the behaviour of this selector across different runs of the inliner.
+	 * <p>
+	 * The identity is part of the key of the {@linkplain InlinerOptions#setCacheDirectory(java.nio.file.Path)
+	 * optimization cache}. Selectors that may choose different configurations must have different identities.
+	 * <p>
+	 * The default implementation returns <code>null</code>, in which case the optimization cache is not used.
+	 * 
+	 * @return The identity, or <code>null</code> if the selector cannot be identified.
+	 */
+	public default String getCacheIdentity() {
+		return null;
+	}
+
 	/**
 	 * Creates a new instance that always returns the argument configuration regardless of the value.
 	 * 
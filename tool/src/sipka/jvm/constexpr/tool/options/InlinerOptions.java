@@ -21,6 +21,8 @@ import java.util.UUID;
 
 import sipka.jvm.constexpr.tool.ConstantExpressionInliner;
 import sipka.jvm.constexpr.tool.OutputConsumer;
+import sipka.jvm.constexpr.tool.StatisticsListener;
+import sipka.jvm.constexpr.tool.log.TimeBudgetExceededLogEntry;
 import sipka.jvm.constexpr.tool.log.ToolLogger;
 
 /**
@@ -51,6 +53,20 @@ public final class InlinerOptions {
 
 	protected Set<String> stripAnnotations = new TreeSet<>();
 
+	protected int parallelism = 1;
+
+	protected Path cacheDirectory;
+
+	protected String cacheKey;
+
+	protected StatisticsListener statisticsListener;
+
+	protected long evaluationTimeLimit;
+
+	protected long timeBudget;
+
+	protected Set<String> priorityClasses = new TreeSet<>();
+
 	/**
 	 * Creates an empty instance.
 	 */
@@ -421,4 +437,218 @@ public final class InlinerOptions {
 		return stripAnnotations;
 	}
 
+	/**
+	 * Sets the parallelism level that the inliner may use to process the inputs.
+	 * <p>
+	 * If the parallelism is greater than 1, the inputs are read and parsed, and the classes that don't depend on each
+	 * other are optimized concurrently on a fork-join pool with the given parallelism. In that case the
+	 * {@link ToolInput#getBytes()} method of the inputs, the {@link ReconstructorPredicate} and
+	 * {@link DeconstructionSelector} instances, and the reconstructed members may be called from multiple threads.
+	 * <p>
+	 * The classes that are loaded through the {@linkplain #setClassLoader(ClassLoader) class loader} may be initialized
+	 * concurrently as well. If the static initializers of the classes depend on each other, this may cause a deadlock.
+	 * <p>
+	 * The default value is 1, meaning that the inputs are processed on the calling thread.
+	 * 
+	 * @param parallelism
+	 *            The parallelism.
+	 * @throws IllegalArgumentException
+	 *             If the argument is less than 1.
+	 */
+	public void setParallelism(int parallelism) throws IllegalArgumentException {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Gets the parallelism level of the inliner.
+	 * 
+	 * @return The parallelism.
+	 * @see #setParallelism(int)
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the directory where the optimization results are cached between invocations.
+	 * <p>
+	 * If set, the optimized class files are stored in the given directory. Subsequent invocations reuse the cached
+	 * results for the input classes whose bytes, and the bytes of the input classes they reference haven't changed
+	 * since. These input classes are not parsed or processed, but the cached output is passed to the
+	 * {@link OutputConsumer}. No log entries are reported for the classes that are served from the cache.
+	 * <p>
+	 * The cache entries are keyed by the configuration of the inliner. This includes the base configuration, the
+	 * contents of the {@linkplain #setConfigFiles(Collection) config files}, and the constant fields, types,
+	 * reconstructors, deconstructors, and annotations to strip that are set in this options instance. The
+	 * {@link ReconstructorPredicate} and {@link DeconstructionSelector} instances contribute their
+	 * {@linkplain ReconstructorPredicate#getCacheIdentity() cache identities} to the key. If any of them doesn't have
+	 * one, the cache is not used. Any other configuration that may affect the results (E.g. the classes that are
+	 * available through the {@linkplain #setClassLoader(ClassLoader) class loader} but are not part of the inputs)
+	 * should be reflected in the {@linkplain #setCacheKey(String) cache key}.
+	 * <p>
+	 * The results of the classes in which an evaluation exceeded the {@linkplain #setEvaluationTimeLimit(long) time
+	 * limit}, or which weren't fully optimized due to the {@linkplain #setTimeBudget(long) time budget} are not cached,
+	 * along with the classes that reference them.
+	 * <p>
+	 * The directory may be shared between concurrent invocations.
+	 * 
+	 * @param cacheDirectory
+	 *            The cache directory, or <code>null</code> to disable caching.
+	 */
+	public void setCacheDirectory(Path cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * Gets the directory where the optimization results are cached.
+	 * 
+	 * @return The cache directory, or <code>null</code> if caching is disabled.
+	 * @see #setCacheDirectory(Path)
+	 */
+	public Path getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	/**
+	 * Sets an arbitrary client specified key that is used to distinguish the cached optimization results.
+	 * <p>
+	 * The key should change whenever the optimization environment changes in a way that is not detected by the
+	 * inliner. See {@link #setCacheDirectory(Path)} for more information.
+	 * 
+	 * @param cacheKey
+	 *            The cache key, may be <code>null</code>.
+	 */
+	public void setCacheKey(String cacheKey) {
+		this.cacheKey = cacheKey;
+	}
+
+	/**
+	 * Gets the client specified cache key.
+	 * 
+	 * @return The cache key, may be <code>null</code>.
+	 * @see #setCacheKey(String)
+	 */
+	public String getCacheKey() {
+		return cacheKey;
+	}
+
+	/**
+	 * Sets the listener that is notified about the statistics of the inliner run.
+	 * <p>
+	 * The listener is called once, after the outputs have been passed to the {@link OutputConsumer}.
+	 * 
+	 * @param statisticsListener
+	 *            The statistics listener, may be <code>null</code>.
+	 */
+	public void setStatisticsListener(StatisticsListener statisticsListener) {
+		this.statisticsListener = statisticsListener;
+	}
+
+	/**
+	 * Gets the statistics listener.
+	 * 
+	 * @return The statistics listener, may be <code>null</code>.
+	 * @see #setStatisticsListener(StatisticsListener)
+	 */
+	public StatisticsListener getStatisticsListener() {
+		return statisticsListener;
+	}
+
+	/**
+	 * Sets the time limit of a single evaluation of the user code.
+	 * <p>
+	 * If set, the methods, constructors, and fields that are used to reconstruct the constant values are invoked and
+	 * read on dedicated threads. If an evaluation doesn't finish in the given time, it is interrupted and abandoned.
+	 * The abandoned evaluation is reported as a reconstruction failure, and the inliner continues as if the value
+	 * couldn't be reconstructed. (An abandoned evaluation that doesn't respond to the interruption may continue
+	 * running in the background, but it doesn't prevent the JVM from exiting.)
+	 * <p>
+	 * The default value is 0, meaning that there's no time limit, and the evaluations are performed on the threads of
+	 * the inliner.
+	 * 
+	 * @param evaluationTimeLimit
+	 *            The time limit in milliseconds, or 0 to disable the time limit.
+	 * @throws IllegalArgumentException
+	 *             If the argument is negative.
+	 */
+	public void setEvaluationTimeLimit(long evaluationTimeLimit) throws IllegalArgumentException {
+		if (evaluationTimeLimit < 0) {
+			throw new IllegalArgumentException("Invalid evaluation time limit: " + evaluationTimeLimit);
+		}
+		this.evaluationTimeLimit = evaluationTimeLimit;
+	}
+
+	/**
+	 * Gets the time limit of a single evaluation of the user code.
+	 * 
+	 * @return The time limit in milliseconds, or 0 if there's no time limit.
+	 * @see #setEvaluationTimeLimit(long)
+	 */
+	public long getEvaluationTimeLimit() {
+		return evaluationTimeLimit;
+	}
+
+	/**
+	 * Sets the time budget of the whole inliner run.
+	 * <p>
+	 * If set, the inliner stops optimizing the classes when the given time has elapsed since the start of the run. The
+	 * changes made to the classes until that point are kept, and the outputs are reported as usual. The classes that
+	 * weren't fully optimized are reported in a {@link TimeBudgetExceededLogEntry}.
+	 * <p>
+	 * When a time budget is set, the classes that are expected to provide the most optimizations are processed first.
+	 * These are the {@linkplain #setPriorityClasses(Set) priority classes}, then the classes with the largest static
+	 * initializers and the most static field readers. Regardless of the priority, a class is only processed after the
+	 * classes that it reads the static fields of.
+	 * <p>
+	 * The default value is 0, meaning that there's no time budget.
+	 * 
+	 * @param timeBudget
+	 *            The time budget in milliseconds, or 0 to disable the time budget.
+	 * @throws IllegalArgumentException
+	 *             If the argument is negative.
+	 */
+	public void setTimeBudget(long timeBudget) throws IllegalArgumentException {
+		if (timeBudget < 0) {
+			throw new IllegalArgumentException("Invalid time budget: " + timeBudget);
+		}
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * Gets the time budget of the whole inliner run.
+	 * 
+	 * @return The time budget in milliseconds, or 0 if there's no time budget.
+	 * @see #setTimeBudget(long)
+	 */
+	public long getTimeBudget() {
+		return timeBudget;
+	}
+
+	/**
+	 * Sets the internal names of the classes that should be optimized first if a {@linkplain #setTimeBudget(long)
+	 * time budget} is set.
+	 * 
+	 * @param priorityClasses
+	 *            The class internal names.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 */
+	public void setPriorityClasses(Set<String> priorityClasses) throws NullPointerException {
+		Objects.requireNonNull(priorityClasses, "priorityClasses");
+		this.priorityClasses = priorityClasses;
+	}
+
+	/**
+	 * Gets the internal names of the classes that should be optimized first.
+	 * 
+	 * @return The class internal names.
+	 * @see #setPriorityClasses(Set)
+	 */
+	public Set<String> getPriorityClasses() {
+		return priorityClasses;
+	}
+
 }
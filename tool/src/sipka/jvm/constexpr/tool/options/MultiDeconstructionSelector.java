@@ -24,4 +24,22 @@ final class MultiDeconstructionSelector implements DeconstructionSelector {
 	public List<? extends DeconstructionSelector> getDelegates() {
 		return delegates;
 	}
+
+	@Override
+	public String getCacheIdentity() {
+		StringBuilder builder = new StringBuilder(getClass().getSimpleName());
+		builder.append('[');
+		for (int i = 0; i < delegates.size(); i++) {
+			String id = delegates.get(i).getCacheIdentity();
+			if (id == null) {
+				return null;
+			}
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(id);
+		}
+		builder.append(']');
+		return builder.toString();
+	}
 }
\ No newline at end of file
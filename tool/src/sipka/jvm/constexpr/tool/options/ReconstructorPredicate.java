@@ -5,6 +5,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 
 import sipka.jvm.constexpr.tool.Utils;
+import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
 
 /**
  * Predicate to test if the specified member can be used on the given object for constant reconstruction.
@@ -21,6 +22,11 @@ public interface ReconstructorPredicate {
 			return true;
 		}
 
+		@Override
+		public String getCacheIdentity() {
+			return "ALLOW_ALL";
+		}
+
 		@Override
 		public String toString() {
 			return ReconstructorPredicate.class.getSimpleName() + "[ALLOW_ALL]";
@@ -38,6 +44,11 @@ public interface ReconstructorPredicate {
 			return obj != null && obj.getClass() == member.getDeclaringClass();
 		}
 
+		@Override
+		public String getCacheIdentity() {
+			return "ALLOW_EXACT_TYPE";
+		}
+
 		@Override
 		public String toString() {
 			return ReconstructorPredicate.class.getSimpleName() + "[ALLOW_EXACT_TYPE]";
@@ -55,6 +66,11 @@ public interface ReconstructorPredicate {
 			return member.getDeclaringClass().isInstance(obj);
 		}
 
+		@Override
+		public String getCacheIdentity() {
+			return "ALLOW_INSTANCE_OF";
+		}
+
 		@Override
 		public String toString() {
 			return ReconstructorPredicate.class.getSimpleName() + "[ALLOW_INSTANCE_OF]";
@@ -76,6 +92,20 @@ public interface ReconstructorPredicate {
 	 */
 	public boolean canReconstruct(Object obj, Member member, Object[] arguments);
 
+	/**
+	 * Gets a string that identifies the behaviour of this predicate across different runs of the inliner.
+	 * <p>
+	 * The identity is part of the key of the {@linkplain InlinerOptions#setCacheDirectory(java.nio.file.Path)
+	 * optimization cache}. Predicates that may allow different reconstructions must have different identities.
+	 * <p>
+	 * The default implementation returns <code>null</code>, in which case the optimization cache is not used.
+	 * 
+	 * @return The identity, or <code>null</code> if the predicate cannot be identified.
+	 */
+	public default String getCacheIdentity() {
+		return null;
+	}
+
 	public default ReconstructorPredicate or(ReconstructorPredicate other) {
 		ReconstructorPredicate first = this;
 		return new ReconstructorPredicate() {
@@ -84,6 +114,16 @@ public interface ReconstructorPredicate {
 				return first.canReconstruct(obj, member, arguments) || other.canReconstruct(obj, member, arguments);
 			}
 
+			@Override
+			public String getCacheIdentity() {
+				String firstid = first.getCacheIdentity();
+				String otherid = other.getCacheIdentity();
+				if (firstid == null || otherid == null) {
+					return null;
+				}
+				return "OR[" + firstid + ", " + otherid + "]";
+			}
+
 			@Override
 			public String toString() {
 				return ReconstructorPredicate.class.getSimpleName() + "[" + first + " || " + other + "]";
@@ -98,6 +138,11 @@ public interface ReconstructorPredicate {
 				return type.isInstance(obj);
 			}
 
+			@Override
+			public String getCacheIdentity() {
+				return "ALLOW_INSTANCE_OF: " + Type.getInternalName(type);
+			}
+
 			@Override
 			public String toString() {
 				return ReconstructorPredicate.class.getSimpleName() + "[ALLOW_INSTANCE_OF: " + type + "]";
@@ -112,6 +157,11 @@ public interface ReconstructorPredicate {
 				return obj != null && Utils.hasSuperTypeInternalName(obj.getClass(), typeinternalname);
 			}
 
+			@Override
+			public String getCacheIdentity() {
+				return "ALLOW_INSTANCE_OF: " + typeinternalname;
+			}
+
 			@Override
 			public String toString() {
 				return ReconstructorPredicate.class.getSimpleName() + "[ALLOW_INSTANCE_OF: " + typeinternalname + "]";
@@ -16,6 +16,11 @@ final class SimpleDeconstructionSelector implements DeconstructionSelector {
 		return config;
 	}
 
+	@Override
+	public String getCacheIdentity() {
+		return toString();
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
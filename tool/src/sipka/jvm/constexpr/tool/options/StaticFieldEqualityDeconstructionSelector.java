@@ -1,6 +1,7 @@
 package sipka.jvm.constexpr.tool.options;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 
 import sipka.jvm.constexpr.tool.Utils;
 import sipka.jvm.constexpr.tool.thirdparty.org.objectweb.asm.Type;
@@ -19,8 +20,10 @@ final class StaticFieldEqualityDeconstructionSelector implements DeconstructionS
 			//sanity check
 			return null;
 		}
-		MemberReference optimizedmethod = deconstructioncontext.getOptimizedMethod();
-		boolean inclinit = Utils.STATIC_INITIALIZER_METHOD_NAME.equals(optimizedmethod.getMemberName());
+		MemberReference optimizedmethod = deconstructioncontext.isOptimizingStaticInitializer()
+				? deconstructioncontext.getOptimizedMethod()
+				: null;
+		boolean inclinit = optimizedmethod != null;
 		for (Field field : fields) {
 			if (inclinit) {
 				if (Utils.hasSuperTypeInternalName(value.getClass(), optimizedmethod.getOwnerInternalName())) {
@@ -47,4 +50,17 @@ final class StaticFieldEqualityDeconstructionSelector implements DeconstructionS
 		return null;
 	}
 
+	@Override
+	public String getCacheIdentity() {
+		return toString();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(getClass().getSimpleName());
+		builder.append("[fields=");
+		builder.append(Arrays.toString(fields));
+		builder.append("]");
+		return builder.toString();
+	}
 }